@@ -0,0 +1,20 @@
+#import "Common/ShaderLib/Instancing.glsllib"
+#import "Common/ShaderLib/Skinning.glsllib"
+#import "Shaders/Pose.glsllib"
+attribute vec3 inPosition;
+attribute vec2 inTexCoord;
+
+varying vec2 texCoord;
+
+void main(){
+    vec4 modelSpacePos = vec4(inPosition, 1.0);
+  
+   #ifdef POSE_ANIMATION
+       Pose_Compute(modelSpacePos);
+   #endif
+   #ifdef NUM_BONES
+       Skinning_Compute(modelSpacePos);
+   #endif
+    gl_Position = TransformWorldViewProjection(modelSpacePos);
+    texCoord = inTexCoord;
+}
\ No newline at end of file
@@ -0,0 +1,60 @@
+#define PI 3.14159265358979
+
+// The flower is composed of 64x64 pixel cells
+#define CELL_SIZE 64.0
+
+// The experience indicator, like the original, drawn over the center icon
+#define PROGRESS_RADIUS 10.0
+#define PROGRESS_COLOR vec4(0.0, 0.0, 0.0, 100.0 / 255.0)
+
+uniform sampler2D m_Atlas;
+uniform float m_Columns;
+
+varying vec2 texCoord;
+varying vec4 cells;
+varying vec4 color;
+
+vec4 sampleCell(float cell, vec2 uv) {
+    if (cell < 0.0) {
+        return vec4(0.0);
+    }
+    float index = floor(cell + 0.5);
+    float row = floor(index / m_Columns);
+    float column = index - row * m_Columns;
+    return texture2D(m_Atlas, (vec2(column, row) + uv) / m_Columns);
+}
+
+// Non premultiplied source over destination
+vec4 blend(vec4 dst, vec4 src) {
+    float alpha = src.a + dst.a * (1.0 - src.a);
+    if (alpha <= 0.0) {
+        return vec4(0.0);
+    }
+    return vec4((src.rgb * src.a + dst.rgb * dst.a * (1.0 - src.a)) / alpha, alpha);
+}
+
+void main(){
+
+    // Keep half a texel away from the cell edges so the neighbours don't bleed in
+    vec2 uv = clamp(texCoord, vec2(0.5 / CELL_SIZE), vec2(1.0 - 0.5 / CELL_SIZE));
+
+    vec4 flower = sampleCell(cells.x, uv);
+    flower = blend(flower, sampleCell(cells.y, uv));
+    flower = blend(flower, sampleCell(cells.z, uv));
+
+    // The progress covers the rest of the circle counterclockwise from 12 o'clock
+    if (cells.w >= 0.0) {
+        vec2 p = texCoord * CELL_SIZE - vec2(CELL_SIZE / 2.0);
+        if (length(p) <= PROGRESS_RADIUS) {
+            float angle = atan(-p.x, -p.y);
+            if (angle < 0.0) {
+                angle += 2.0 * PI;
+            }
+            if (angle < (1.0 - cells.w) * 2.0 * PI) {
+                flower = blend(flower, PROGRESS_COLOR);
+            }
+        }
+    }
+
+    gl_FragColor = flower * color;
+}
@@ -0,0 +1,21 @@
+uniform mat4 g_WorldViewProjectionMatrix;
+
+attribute vec3 inPosition;
+attribute vec2 inTexCoord;
+
+// Health ring, center icon and objective icon atlas cells, and the progress
+attribute vec4 inTexCoord2;
+
+// The player color
+attribute vec4 inColor;
+
+varying vec2 texCoord;
+varying vec4 cells;
+varying vec4 color;
+
+void main(){
+    texCoord = inTexCoord;
+    cells = inTexCoord2;
+    color = inColor;
+    gl_Position = g_WorldViewProjectionMatrix * vec4(inPosition, 1.0);
+}
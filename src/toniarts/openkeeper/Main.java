@@ -31,6 +31,8 @@ import com.jme3.math.ColorRGBA;
 import com.jme3.niftygui.NiftyJmeDisplay;
 import com.jme3.post.FilterPostProcessor;
 import com.jme3.post.ssao.SSAOFilter;
+import com.jme3.renderer.Caps;
+import com.jme3.renderer.Limits;
 import com.jme3.renderer.RenderManager;
 import com.jme3.system.AppSettings;
 import com.jme3.system.JmeSystem;
@@ -74,8 +76,11 @@ import toniarts.openkeeper.setup.DKFolderSelector;
 import toniarts.openkeeper.setup.IFrameClosingBehavior;
 import toniarts.openkeeper.tools.convert.AssetsConverter;
 import toniarts.openkeeper.tools.convert.ConversionUtils;
+import toniarts.openkeeper.tools.convert.ModelCacheLoader;
 import toniarts.openkeeper.tools.convert.map.Player;
+import toniarts.openkeeper.tools.convert.textures.enginetextures.EngineTexturesLocator;
 import toniarts.openkeeper.tools.modelviewer.SoundsLoader;
+import toniarts.openkeeper.utils.AssetUtils;
 import toniarts.openkeeper.utils.PathUtils;
 import toniarts.openkeeper.utils.SettingUtils;
 import toniarts.openkeeper.utils.UTF8Control;
@@ -195,6 +200,7 @@ public class Main extends SimpleApplication {
                     Thread.currentThread().getContextClassLoader()
                             .getResource("com/jme3/asset/Desktop.cfg")); // Get temporary asset manager instance since we not yet have one ourselves
             assetManager.registerLocator(AssetsConverter.getAssetsFolder(), FileLocator.class);
+            EngineTexturesLocator.register(assetManager, getDkIIFolder());
             DKConverter frame = new DKConverter(getDkIIFolder(), assetManager) {
                 @Override
                 protected void continueOk() {
@@ -323,6 +329,13 @@ public class Main extends SimpleApplication {
         // Distribution locator
         getAssetManager().registerLocator(AssetsConverter.getAssetsFolder(), FileLocator.class);
 
+        // The engine textures, decoded straight from the original archive
+        EngineTexturesLocator.register(getAssetManager(), getDkIIFolder());
+
+        // Morph the model animations on the GPU if the vertex shaders can read float textures
+        AssetUtils.setGpuPoseAnimation(renderer.getCaps().contains(Caps.FloatTexture)
+                && renderer.getLimits().getOrDefault(Limits.VertexTextureUnits, 0) > 0);
+
         // Init nifty while in render thread so it will get initialized before it is updated, otherwise we might hit a rare race-condition
         Nifty nifty = getNifty();
 
@@ -337,6 +350,8 @@ public class Main extends SimpleApplication {
                     getAssetManager().registerLoader(MP2Loader.class, MP2Loader.FILE_EXTENSION);
                     // Camera sweep files
                     getAssetManager().registerLoader(CameraSweepDataLoader.class, CameraSweepDataLoader.FILE_EXTENSION);
+                    // Model cache files
+                    getAssetManager().registerLoader(ModelCacheLoader.class, ModelCacheLoader.FILE_EXTENSION);
 
                     // Set the anisotropy asset listener
                     setAnisotropy();
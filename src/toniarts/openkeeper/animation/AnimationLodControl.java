@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.animation;
+
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.control.AbstractControl;
+
+/**
+ * Animation level of detail for a model root. The pose animations of the
+ * model are applied at a lower frame rate the further away the model is from
+ * the camera, and not at all when the model isn't rendered. The animation
+ * time still runs normally, so the animation callbacks are not affected.<br>
+ * Visibility and distance come from the rendering of the previous frame, a
+ * model coming into view shows its old pose for a single frame.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class AnimationLodControl extends AbstractControl {
+
+    /**
+     * Closer than this the animations are applied on every frame
+     */
+    public static final float FULL_RATE_DISTANCE = 12f;
+    /**
+     * Closer than this the animations are applied on every other frame, and
+     * further away on every fourth frame
+     */
+    public static final float HALF_RATE_DISTANCE = 24f;
+
+    private boolean rendered = true;
+    private float distanceSquared = 0;
+    private int frameStep = 1;
+
+    /**
+     * Get the animation frame step of the given animated spatial. The step is
+     * looked up from the spatial and from its parent, the model root.
+     *
+     * @param spatial the spatial with the animation control
+     * @return the frame step, 1 means every frame and 0 not at all
+     */
+    public static int getFrameStep(Spatial spatial) {
+        AnimationLodControl control = spatial.getControl(AnimationLodControl.class);
+        if (control == null && spatial.getParent() != null) {
+            control = spatial.getParent().getControl(AnimationLodControl.class);
+        }
+        return control == null ? 1 : control.frameStep;
+    }
+
+    /**
+     * Get the current animation frame step
+     *
+     * @return the frame step, 1 means every frame and 0 not at all
+     */
+    public int getFrameStep() {
+        return frameStep;
+    }
+
+    @Override
+    protected void controlUpdate(float tpf) {
+
+        // The model root is updated before the children, so the animations see this frame's step
+        if (!rendered) {
+            frameStep = 0;
+        } else if (distanceSquared < FULL_RATE_DISTANCE * FULL_RATE_DISTANCE) {
+            frameStep = 1;
+        } else if (distanceSquared < HALF_RATE_DISTANCE * HALF_RATE_DISTANCE) {
+            frameStep = 2;
+        } else {
+            frameStep = 4;
+        }
+        rendered = false;
+        distanceSquared = Float.MAX_VALUE;
+    }
+
+    @Override
+    protected void controlRender(RenderManager rm, ViewPort vp) {
+
+        // Only called when we are not culled, take the closest camera
+        rendered = true;
+        distanceSquared = Math.min(distanceSquared, vp.getCamera().getLocation().distanceSquared(spatial.getWorldTranslation()));
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        super.setEnabled(enabled);
+        if (!enabled) {
+            frameStep = 1;
+            rendered = true;
+            distanceSquared = 0;
+        }
+    }
+
+}
@@ -39,108 +39,150 @@ import com.jme3.export.InputCapsule;
 import com.jme3.export.JmeExporter;
 import com.jme3.export.JmeImporter;
 import com.jme3.export.OutputCapsule;
-import com.jme3.export.Savable;
-import com.jme3.math.Vector3f;
+import com.jme3.material.Material;
+import com.jme3.math.FastMath;
 import com.jme3.scene.Geometry;
-import com.jme3.scene.Mesh;
 import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
 import com.jme3.scene.VertexBuffer;
 import com.jme3.scene.VertexBuffer.Type;
+import com.jme3.texture.Image;
+import com.jme3.texture.Texture;
+import com.jme3.texture.Texture2D;
+import com.jme3.texture.image.ColorSpace;
 import com.jme3.util.BufferUtils;
 import com.jme3.util.TempVars;
 import com.jme3.util.clone.Cloner;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
-import javax.annotation.Nullable;
+import java.util.Arrays;
 
 /**
- * A single track of pose animation associated with a certain mesh.
+ * A single track of pose animation associated with a certain mesh. The vertex
+ * positions are baked for every frame. When the material of the mesh has a
+ * pose map, the positions are morphed in the vertex shader and the track only
+ * sets the frame. Otherwise the positions of the frame are copied to the mesh.
  */
 public final class PoseTrack implements Track, ClonableTrack {
 
+    /**
+     * The pose map texture width, the rows are filled before growing higher
+     */
+    public static final int POSE_MAP_WIDTH = 1024;
+    public static final String POSE_MAP = "PoseMap";
+    public static final String POSE_FRAME = "PoseFrame";
+
     private int targetMeshIndex;
-    private PoseTrack.PoseFrame[] frames;
     private float[] times;
+    private int vertexCount;
+    private float[] positions;
+    private int appliedFrame = -1;
+    private static int animatedVertexCount;
 
-    public static class PoseFrame implements Savable, Cloneable {
-
-        Pose[] poses;
-        float[] weights;
-
-        public PoseFrame(Pose[] poses, float[] weights) {
-            this.poses = poses;
-            this.weights = weights;
-        }
+    /**
+     * Create a new pose track
+     *
+     * @param targetMeshIndex the index of the animated mesh
+     * @param times the frame times
+     * @param vertexCount the number of vertices in the mesh
+     * @param positions the vertex positions of all the frames, frame by frame
+     */
+    public PoseTrack(int targetMeshIndex, float[] times, int vertexCount, float[] positions) {
+        this.targetMeshIndex = targetMeshIndex;
+        this.times = times;
+        this.vertexCount = vertexCount;
+        this.positions = positions;
+    }
 
-        /**
-         * Serialization-only. Do not use.
-         */
-        public PoseFrame() {
-        }
+    /**
+     * Serialization-only. Do not use.
+     */
+    public PoseTrack() {
+    }
 
-        /**
-         * This method creates a clone of the current object.
-         *
-         * @return a clone of the current object
-         */
-        @Override
-        public PoseTrack.PoseFrame clone() {
-            try {
-                PoseTrack.PoseFrame result = (PoseTrack.PoseFrame) super.clone();
-                result.weights = this.weights.clone();
-                if (this.poses != null) {
-                    result.poses = new Pose[this.poses.length];
-                    for (int i = 0; i < this.poses.length; ++i) {
-                        result.poses[i] = this.poses[i].clone();
-                    }
-                }
-                return result;
-            } catch (CloneNotSupportedException e) {
-                throw new AssertionError();
-            }
-        }
+    /**
+     * Get the index of the mesh this track animates
+     *
+     * @return the target mesh index
+     */
+    public int getTargetMeshIndex() {
+        return targetMeshIndex;
+    }
 
-        @Override
-        public void write(JmeExporter e) throws IOException {
-            OutputCapsule out = e.getCapsule(this);
-            out.write(poses, "poses", null);
-            out.write(weights, "weights", null);
-        }
+    /**
+     * Get the frame times
+     *
+     * @return the frame times
+     */
+    public float[] getTimes() {
+        return times;
+    }
 
-        @Override
-        public void read(JmeImporter i) throws IOException {
-            InputCapsule in = i.getCapsule(this);
-            weights = in.readFloatArray("weights", null);
+    /**
+     * Get the number of vertices in a frame
+     *
+     * @return the vertex count
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
 
-            Savable[] readSavableArray = in.readSavableArray("poses", null);
-            if (readSavableArray != null) {
-                poses = new Pose[readSavableArray.length];
-                System.arraycopy(readSavableArray, 0, poses, 0, readSavableArray.length);
-            }
-        }
+    /**
+     * Get the vertex positions of all the frames. The frames are one after
+     * another, each having the x, y and z of every vertex.
+     *
+     * @return the vertex positions
+     */
+    public float[] getPositions() {
+        return positions;
     }
 
-    public PoseTrack(int targetMeshIndex, float[] times, PoseTrack.PoseFrame[] frames) {
-        this.targetMeshIndex = targetMeshIndex;
-        this.times = times;
-        this.frames = frames;
+    /**
+     * Get the number of vertices animated on the CPU since the last call, and
+     * reset the count. Used to follow the cost of the animations per frame.
+     *
+     * @return the number of animated vertices
+     */
+    public static int pollAnimatedVertexCount() {
+        int count = animatedVertexCount;
+        animatedVertexCount = 0;
+        return count;
     }
 
     /**
-     * Serialization-only. Do not use.
+     * Create a texture of the baked positions for the vertex shader. The
+     * position of a vertex in a frame is at texel frame * vertex count +
+     * vertex, in rows of {@link #POSE_MAP_WIDTH}. The positions are stored as
+     * half floats.
+     *
+     * @return the pose map
      */
-    public PoseTrack() {
+    public Texture2D createPoseMap() {
+        int texels = positions.length / 3;
+        int width = Math.min(texels, POSE_MAP_WIDTH);
+        int height = (texels + width - 1) / width;
+        ByteBuffer data = BufferUtils.createByteBuffer(width * height * 3 * 2);
+        for (float position : positions) {
+            data.putShort(FastMath.convertFloatToHalf(position));
+        }
+        data.clear();
+
+        Texture2D texture = new Texture2D(new Image(Image.Format.RGB16F, width, height, data, ColorSpace.Linear));
+        texture.setMagFilter(Texture.MagFilter.Nearest);
+        texture.setMinFilter(Texture.MinFilter.NearestNoMipMaps);
+        texture.setWrap(Texture.WrapMode.EdgeClamp);
+        return texture;
     }
 
     @Override
     public float[] getKeyFrameTimes() {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return times;
     }
 
     @Override
     public Track cloneForSpatial(Spatial spatial) {
-        PoseTrack track = new PoseTrack(targetMeshIndex, times, frames);
+        PoseTrack track = new PoseTrack(targetMeshIndex, times, vertexCount, positions);
         return track;
     }
 
@@ -149,81 +191,79 @@ public final class PoseTrack implements Track, ClonableTrack {
 
     }
 
-    private void applyFrame(Mesh target, int frameIndex) {
-        PoseFrame frame = frames[frameIndex];
-        VertexBuffer pb = target.getBuffer(Type.Position);
-        for (int i = 0; i < frame.poses.length / 2; i++) {
+    @Override
+    public void setTime(float time, float weight, AnimControl control,
+            AnimChannel channel, TempVars vars) {
+        Spatial spat = control.getSpatial();
 
-            // Poses come in pairs of two [startPose] + [endPose], weight tells us how close we are to the end
-            // The pose pair must have the same vertices in the same order
-            applyPose(frame.poses[i * 2], frame.poses[i * 2 + 1], frame.weights[i], (FloatBuffer) pb.getData());
+        // The level of detail may skip frames, or the whole update when not visible
+        int frameStep = AnimationLodControl.getFrameStep(spat);
+        if (frameStep == 0) {
+            return;
         }
+        Geometry geom = findGeom(spat);
 
-        // force to re-upload data to gpu
-        pb.updateData(pb.getData());
-    }
-
-    /**
-     * Applies pose for this frame
-     *
-     * @param startPose starting pose for the vertices
-     * @param endPose ending pose for the vertices
-     * @param weight weight on which to apply the interpolation
-     * @param vertexBuffer the vertex buffer
-     */
-    private void applyPose(@Nullable Pose startPose, Pose endPose, float weight, FloatBuffer vertexBuffer) {
-        if (startPose == null) {
-            // FIXME should we skip if null?
+        // Morphed on the GPU, just the frame
+        Material material = geom.getMaterial();
+        if (material.getParam(POSE_MAP) != null) {
+            material.setFloat(POSE_FRAME, getFrame(time));
             return;
         }
-        int[] startingIndices = startPose.getIndices();
-        Vector3f interpOffset = new Vector3f();
-        for (int i = 0; i < startingIndices.length; i++) {
-            int vertIndex = startingIndices[i];
-            Vector3f startOffset = startPose.getOffsets()[i];
-            Vector3f endOffset = endPose.getOffsets()[i];
-
-            // Interpolate
-            interpOffset.set(endOffset);
-            interpOffset.subtractLocal(startOffset);
-            interpOffset.multLocal(weight);
-            interpOffset.addLocal(startOffset);
-
-            // Write modified vertex
-            BufferUtils.setInBuffer(interpOffset, vertexBuffer, vertIndex);
+
+        int frameIndex = getFrameIndex(time);
+        if (frameStep > 1 && frameIndex < times.length - 1) {
+            frameIndex -= frameIndex % frameStep;
         }
-    }
 
-    @Override
-    public void setTime(float time, float weight, AnimControl control,
-            AnimChannel channel, TempVars vars) {
-        Spatial spat = control.getSpatial();
-        Geometry geom = findGeom(spat);
-        Mesh target = geom.getMesh();
+        // The frames are not interpolated, nothing changes until the frame does
+        if (frameIndex == appliedFrame) {
+            return;
+        }
+        appliedFrame = frameIndex;
 
-        VertexBuffer bindPos = target.getBuffer(Type.BindPosePosition);
-        VertexBuffer pos = target.getBuffer(Type.Position);
+        VertexBuffer pos = geom.getMesh().getBuffer(Type.Position);
         FloatBuffer pb = (FloatBuffer) pos.getData();
-        FloatBuffer bpb = (FloatBuffer) bindPos.getData();
         pb.clear();
-        bpb.clear();
-        pb.put(bpb).clear();
+        pb.put(positions, frameIndex * vertexCount * 3, vertexCount * 3).clear();
+        animatedVertexCount += vertexCount;
 
+        // force to re-upload data to gpu
+        pos.updateData(pb);
+    }
+
+    private int getFrameIndex(float time) {
         if (time < times[0]) {
-            applyFrame(target, 0);
+            return 0;
         } else if (time > times[times.length - 1]) {
-            applyFrame(target, times.length - 1);
-        } else {
-            int startFrame = 0;
-            for (int i = 0; i < times.length; i++) {
-                if (times[i] < time) {
-                    startFrame = i;
-                }
-            }
+            return times.length - 1;
+        }
 
-            int endFrame = startFrame + 1;
-            applyFrame(target, endFrame);
+        // The frame after the last frame that started before the time
+        int index = Arrays.binarySearch(times, time);
+        int startFrame = Math.max((index >= 0 ? index : -index - 1) - 1, 0);
+        return Math.min(startFrame + 1, times.length - 1);
+    }
+
+    /**
+     * Get the continuous frame at the given time, the fraction is the
+     * interpolation to the next frame
+     *
+     * @param time the animation time
+     * @return the frame
+     */
+    private float getFrame(float time) {
+        if (time <= times[0]) {
+            return 0;
+        } else if (time >= times[times.length - 1]) {
+            return times.length - 1;
         }
+
+        int index = Arrays.binarySearch(times, time);
+        if (index >= 0) {
+            return index;
+        }
+        int startFrame = -index - 2;
+        return startFrame + (time - times[startFrame]) / (times[startFrame + 1] - times[startFrame]);
     }
 
     public Geometry findGeom(Spatial spatial) {
@@ -249,7 +289,8 @@ public final class PoseTrack implements Track, ClonableTrack {
     }
 
     /**
-     * This method creates a clone of the current object.
+     * This method creates a clone of the current object. The baked positions
+     * are never modified, they are shared.
      *
      * @return a clone of the current object
      */
@@ -257,13 +298,8 @@ public final class PoseTrack implements Track, ClonableTrack {
     public PoseTrack clone() {
         try {
             PoseTrack result = (PoseTrack) super.clone();
+            result.appliedFrame = -1;
             result.times = this.times.clone();
-            if (this.frames != null) {
-                result.frames = new PoseTrack.PoseFrame[this.frames.length];
-                for (int i = 0; i < this.frames.length; ++i) {
-                    result.frames[i] = this.frames[i].clone();
-                }
-            }
             return result;
         } catch (CloneNotSupportedException e) {
             throw new AssertionError();
@@ -283,15 +319,17 @@ public final class PoseTrack implements Track, ClonableTrack {
     public void cloneFields(Cloner cloner, Object o) {
         PoseTrack poseTrack = (PoseTrack) o;
         this.times = poseTrack.times;
-        this.frames = poseTrack.frames;
+        this.positions = poseTrack.positions;
+        this.appliedFrame = -1;
     }
 
     @Override
     public void write(JmeExporter e) throws IOException {
         OutputCapsule out = e.getCapsule(this);
         out.write(targetMeshIndex, "meshIndex", 0);
-        out.write(frames, "frames", null);
         out.write(times, "times", null);
+        out.write(vertexCount, "vertexCount", 0);
+        out.write(positions, "positions", null);
     }
 
     @Override
@@ -299,11 +337,7 @@ public final class PoseTrack implements Track, ClonableTrack {
         InputCapsule in = i.getCapsule(this);
         targetMeshIndex = in.readInt("meshIndex", 0);
         times = in.readFloatArray("times", null);
-
-        Savable[] readSavableArray = in.readSavableArray("frames", null);
-        if (readSavableArray != null) {
-            frames = new PoseTrack.PoseFrame[readSavableArray.length];
-            System.arraycopy(readSavableArray, 0, frames, 0, readSavableArray.length);
-        }
+        vertexCount = in.readInt("vertexCount", 0);
+        positions = in.readFloatArray("positions", null);
     }
 }
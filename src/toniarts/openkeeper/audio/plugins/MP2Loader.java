@@ -20,12 +20,14 @@ import com.jme3.asset.AssetInfo;
 import com.jme3.asset.AssetLoader;
 import com.jme3.audio.AudioBuffer;
 import com.jme3.audio.AudioData;
+import com.jme3.audio.AudioData.DataType;
 import com.jme3.audio.AudioKey;
 import com.jme3.audio.AudioStream;
 import com.jme3.util.BufferUtils;
-import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import toniarts.openkeeper.audio.plugins.decoder.AudioInformation;
@@ -33,15 +35,33 @@ import toniarts.openkeeper.audio.plugins.decoder.Decoder;
 import toniarts.openkeeper.audio.plugins.decoder.MediaInformation;
 import toniarts.openkeeper.audio.plugins.decoder.MpxReader;
 import toniarts.openkeeper.audio.plugins.decoder.UnsupportedMediaException;
+import toniarts.openkeeper.tools.convert.AssetsConverter;
 
 /**
- * Plays MPx files, not MP3s though
+ * Plays MPx files, not MP3s though<br>
+ * Streams are decoded as they are played. Buffers are decoded in fixed chunks
+ * through pooled buffers, and the short ones are kept in the {@link PcmCache}.
  *
  * @author Toni Helenius <helenius.toni@gmail.com>
  */
 public class MP2Loader implements AssetLoader {
 
     public static final String FILE_EXTENSION = "mp2";
+    /**
+     * Sound files bigger than this should be streamed, about four seconds of
+     * 128 kbit/s audio
+     */
+    public static final long STREAM_THRESHOLD = 64 * 1024;
+
+    /**
+     * The decoding chunk size
+     */
+    private static final int CHUNK_SIZE = 16 * 1024;
+    /**
+     * Bigger decoding buffers than this are not kept for the next file
+     */
+    private static final int MAX_POOLED_SIZE = 2 * 1024 * 1024;
+    private static final ThreadLocal<DecodingBuffers> DECODING_BUFFERS = ThreadLocal.withInitial(DecodingBuffers::new);
 
     private boolean readStream = false;
     private AudioBuffer audioBuffer;
@@ -111,21 +131,67 @@ public class MP2Loader implements AssetLoader {
         }
     }
 
+    /**
+     * The decoding buffers of a loader thread, reused between the files
+     */
+    private static class DecodingBuffers {
+
+        private final byte[] chunk = new byte[CHUNK_SIZE];
+        private ByteBuffer pcm = BufferUtils.createByteBuffer(CHUNK_SIZE * 8);
+
+        private void put(int length) {
+            if (pcm.remaining() < length) {
+                ByteBuffer bigger = BufferUtils.createByteBuffer(Math.max(pcm.capacity() * 2, pcm.position() + length));
+                pcm.flip();
+                bigger.put(pcm);
+                pcm = bigger;
+            }
+            pcm.put(chunk, 0, length);
+        }
+
+        private void release() {
+            pcm.clear();
+            if (pcm.capacity() > MAX_POOLED_SIZE) {
+                pcm = BufferUtils.createByteBuffer(CHUNK_SIZE * 8);
+            }
+        }
+    }
+
+    /**
+     * Get the data type the given sound file should be loaded with. Long
+     * sounds are streamed, the rest are decoded to buffers.
+     *
+     * @param file the sound file asset name
+     * @return the data type to use
+     */
+    public static DataType getDataType(String file) {
+        File soundFile = new File(AssetsConverter.getAssetsFolder().concat(file));
+        return soundFile.length() > STREAM_THRESHOLD ? DataType.Stream : DataType.Buffer;
+    }
+
     private void readDataChunkForBuffer(Decoder decoder) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        byte[] buffer = new byte[8192];
-        int length;
-        while ((length = decoder.read(buffer)) > -1) {
-            baos.write(buffer, 0, length);
+        DecodingBuffers buffers = DECODING_BUFFERS.get();
+        try {
+            int length;
+            while ((length = decoder.read(buffers.chunk)) > -1) {
+                buffers.put(length);
+            }
+
+            // Copy to an exact sized buffer, the decoding buffer stays in the pool
+            buffers.pcm.flip();
+            ByteBuffer data = BufferUtils.createByteBuffer(buffers.pcm.remaining());
+            data.put(buffers.pcm).flip();
+            audioBuffer.updateData(data);
+        } finally {
+            buffers.release();
         }
-        audioBuffer.updateData(BufferUtils.createByteBuffer(baos.toByteArray()));
     }
 
     private void readDataChunkForStream(InputStream inputStream, Decoder decoder) {
         audioStream.updateData(new MPxStream(inputStream, decoder), 0);
     }
 
-    private AudioData load(InputStream inputStream, boolean stream) throws IOException {
+    private AudioData load(InputStream inputStream, boolean stream, String name) throws IOException {
 
         readStream = stream;
         if (readStream) {
@@ -152,6 +218,8 @@ public class MP2Loader implements AssetLoader {
                     readDataChunkForStream(inputStream, decoder);
                 } else {
                     readDataChunkForBuffer(decoder);
+                    PcmCache.put(name, new PcmCache.Entry(audioBuffer.getData(), audioBuffer.getChannels(),
+                            audioBuffer.getBitsPerSample(), audioBuffer.getSampleRate()));
                 }
                 return audioData;
             }
@@ -164,10 +232,23 @@ public class MP2Loader implements AssetLoader {
     @Override
     public Object load(AssetInfo info) throws IOException {
         AudioData data;
+        AudioKey key = (AudioKey) info.getKey();
+
+        // Short sounds may have been decoded already
+        if (!key.isStream()) {
+            PcmCache.Entry entry = PcmCache.get(key.getName());
+            if (entry != null) {
+                AudioBuffer buffer = new AudioBuffer();
+                buffer.setupFormat(entry.getChannels(), entry.getBitsPerSample(), entry.getSampleRate());
+                buffer.updateData(entry.getData());
+                return buffer;
+            }
+        }
+
         InputStream inputStream = null;
         try {
             inputStream = info.openStream();
-            data = load(inputStream, ((AudioKey) info.getKey()).isStream());
+            data = load(inputStream, key.isStream(), key.getName());
             if (data instanceof AudioStream) {
                 inputStream = null;
             }
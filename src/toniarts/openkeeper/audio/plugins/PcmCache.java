@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.audio.plugins;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A small cache of decoded PCM audio, so that the frequently played sound
+ * effects don't need to be decoded again after the asset manager has let go of
+ * them. The least recently used sounds are evicted once the cache is full.
+ * Only short sounds are cached.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public final class PcmCache {
+
+    /**
+     * The maximum size of all the cached PCM data, in bytes
+     */
+    public static final int MAX_SIZE = 16 * 1024 * 1024;
+    /**
+     * The maximum size of a single cached sound, in bytes
+     */
+    public static final int MAX_ENTRY_SIZE = 1024 * 1024;
+
+    private static final Map<String, Entry> CACHE = new LinkedHashMap<>(64, 0.75f, true);
+    private static int size = 0;
+    private static int hits = 0;
+    private static int misses = 0;
+
+    private PcmCache() {
+        // Nope
+    }
+
+    /**
+     * Get the decoded sound
+     *
+     * @param name the asset name
+     * @return the cached sound or {@code null} if not cached
+     */
+    public static synchronized Entry get(String name) {
+        Entry entry = CACHE.get(name);
+        if (entry != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return entry;
+    }
+
+    /**
+     * Cache a decoded sound. Too big sounds are not cached.
+     *
+     * @param name the asset name
+     * @param entry the decoded sound
+     */
+    public static synchronized void put(String name, Entry entry) {
+        int entrySize = entry.data.capacity();
+        if (entrySize > MAX_ENTRY_SIZE) {
+            return;
+        }
+
+        Entry old = CACHE.put(name, entry);
+        if (old != null) {
+            size -= old.data.capacity();
+        }
+        size += entrySize;
+
+        // Evict the least recently used
+        Iterator<Entry> iter = CACHE.values().iterator();
+        while (size > MAX_SIZE && iter.hasNext()) {
+            Entry evicted = iter.next();
+            if (evicted != entry) {
+                size -= evicted.data.capacity();
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Empty the cache
+     */
+    public static synchronized void clear() {
+        CACHE.clear();
+        size = 0;
+    }
+
+    /**
+     * Get the size of the cached PCM data
+     *
+     * @return the size in bytes
+     */
+    public static synchronized int getSize() {
+        return size;
+    }
+
+    /**
+     * Get the cache statistics for debugging
+     *
+     * @return the statistics as text
+     */
+    public static synchronized String getStatistics() {
+        return CACHE.size() + " sounds, " + (size / 1024) + " KB, " + hits + " hits, " + misses + " misses";
+    }
+
+    /**
+     * A decoded sound. The data is shared, never modify it.
+     */
+    public static final class Entry {
+
+        private final ByteBuffer data;
+        private final int channels;
+        private final int bitsPerSample;
+        private final int sampleRate;
+
+        public Entry(ByteBuffer data, int channels, int bitsPerSample, int sampleRate) {
+            this.data = data;
+            this.channels = channels;
+            this.bitsPerSample = bitsPerSample;
+            this.sampleRate = sampleRate;
+        }
+
+        /**
+         * Get a view of the PCM data, positioned at the start
+         *
+         * @return the PCM data
+         */
+        public ByteBuffer getData() {
+            ByteBuffer view = data.duplicate();
+            view.clear();
+            return view;
+        }
+
+        public int getChannels() {
+            return channels;
+        }
+
+        public int getBitsPerSample() {
+            return bitsPerSample;
+        }
+
+        public int getSampleRate() {
+            return sampleRate;
+        }
+    }
+}
@@ -261,6 +261,11 @@ public abstract class Decoder extends AudioInformation implements AudioHashkeys,
      * an progressive streaming buffer underflow.
      */
     public final static int ACTIVE_SEEKING_ABORTED = -3;
+    /**
+     * The system property for decoding with the original double precision
+     * synthesis filterbank instead of the faster float filterbank.
+     */
+    public final static String REFERENCE_SYNTHESIS_PROPERTY = "openkeeper.referenceSynthesis";
 
     /**
      * Constructs an instance of
@@ -463,4 +468,19 @@ public abstract class Decoder extends AudioInformation implements AudioHashkeys,
     public void close() {
         clear();
     }
+
+    /**
+     * Selects the synthesis filterbank of the decoders created after this. The
+     * float filterbank is the default, the double precision filterbank is the
+     * reference it is validated against.
+     *
+     * @param enabled <code>true</code> for the float filterbank
+     */
+    public static void setFloatSynthesis(boolean enabled) {
+        Synthesizer.setFloatSynthesis(enabled);
+    }
+
+    public static boolean isFloatSynthesis() {
+        return Synthesizer.isFloatSynthesis();
+    }
 }
@@ -0,0 +1,239 @@
+/* Copyright (C) 2003-2014 Michael Scheerer. All Rights Reserved. */
+
+/*
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ */
+package toniarts.openkeeper.audio.plugins.decoder;
+
+import java.util.Arrays;
+
+/**
+ * The
+ * <code>FloatSynthesizer</code> class is a single precision polyphase
+ * synthesis filterbank. It computes the same fast IDCT as the
+ * {@link DoubleSynthesizer}, but with the butterfly stages as loops over
+ * coefficient tables and with local arrays instead of fields. The window
+ * offsets are calculated once per call instead of masking every tap, and the
+ * 16 taps of a sample are summed in a register.
+ *
+ * @author Michael Scheerer
+ */
+final class FloatSynthesizer extends Synthesizer {
+
+    // 1 / (2 * Cos((2 * k + 1) * PI / 64))
+    private final static float COS64[] = new float[16];
+    // 1 / (2 * Cos((2 * k + 1) * PI / 32))
+    private final static float COS32[] = new float[8];
+    // 1 / (2 * Cos((2 * k + 1) * PI / 16)), every other group negated
+    private final static float COS16[] = new float[16];
+    // 1 / (2 * Cos((2 * k + 1) * PI / 8)), every other group negated
+    private final static float COS8[] = new float[16];
+    // 1 / (2 * Cos(PI / 4)), every other pair negated
+    private final static float COS4[] = new float[16];
+
+    static {
+        for (int k = 0; k < 16; k++) {
+            COS64[k] = (float) (1 / (2 * Math.cos((2 * k + 1) * Math.PI / 64)));
+            COS16[k] = (float) ((k / 4 % 2 == 0 ? 1 : -1) / (2 * Math.cos((2 * (k % 4) + 1) * Math.PI / 16)));
+            COS8[k] = (float) ((k / 2 % 2 == 0 ? 1 : -1) / (2 * Math.cos((2 * (k % 2) + 1) * Math.PI / 8)));
+            COS4[k] = (float) ((k % 2 == 0 ? 1 : -1) / (2 * Math.cos(Math.PI / 4)));
+        }
+        for (int k = 0; k < 8; k++) {
+            COS32[k] = (float) (1 / (2 * Math.cos((2 * k + 1) * Math.PI / 32)));
+        }
+    }
+
+    private final float[] a = new float[SBLIMIT];
+    private final float[] b = new float[SBLIMIT];
+    private final int[] offsets = new int[16];
+    private float[][] u;
+    private int writePos;
+    private int j;
+
+    FloatSynthesizer(int i, float af[]) {
+        super(i, af);
+        u = new float[2][512];
+    }
+
+    @Override
+    void close() {
+        samples = null;
+        u = null;
+    }
+
+    private void idct(float vec1[], float vec2[]) {
+        final float[] a = this.a;
+        final float[] b = this.b;
+
+        // 32 -> 2 * 16
+        for (int k = 0; k < 16; k++) {
+            float s1 = (float) samples[k];
+            float s2 = (float) samples[31 - k];
+            a[k] = s1 + s2;
+            a[31 - k] = (s1 - s2) * COS64[k];
+        }
+
+        // 2 * 16 -> 4 * 8
+        for (int k = 0; k < 8; k++) {
+            b[k] = a[k] + a[15 - k];
+            b[15 - k] = (a[k] - a[15 - k]) * COS32[k];
+            b[16 + k] = a[16 + k] + a[31 - k];
+            b[31 - k] = (a[31 - k] - a[16 + k]) * COS32[k];
+        }
+
+        // 4 * 8 -> 8 * 4
+        for (int g = 0; g < 32; g += 8) {
+            for (int k = 0; k < 4; k++) {
+                a[g + k] = b[g + k] + b[g + 7 - k];
+                a[g + 7 - k] = (b[g + k] - b[g + 7 - k]) * COS16[(g >> 1) + k];
+            }
+        }
+
+        // 8 * 4 -> 16 * 2
+        for (int g = 0; g < 32; g += 4) {
+            for (int k = 0; k < 2; k++) {
+                b[g + k] = a[g + k] + a[g + 3 - k];
+                b[g + 3 - k] = (a[g + k] - a[g + 3 - k]) * COS8[(g >> 1) + k];
+            }
+        }
+
+        // 16 * 2 -> 32
+        for (int k = 0; k < 32; k += 2) {
+            a[k] = b[k] + b[k + 1];
+            a[k + 1] = (b[k] - b[k + 1]) * COS4[k >> 1];
+        }
+
+        a[2] += a[3];
+        a[6] += a[7];
+        a[4] += a[6];
+        a[6] += a[5];
+        a[5] += a[7];
+        a[10] += a[11];
+        a[14] += a[15];
+        a[12] += a[14];
+        a[14] += a[13];
+        a[13] += a[15];
+        a[18] += a[19];
+        a[22] += a[23];
+        a[20] += a[22];
+        a[22] += a[21];
+        a[21] += a[23];
+        a[26] += a[27];
+        a[30] += a[31];
+        a[28] += a[30];
+        a[30] += a[29];
+        a[29] += a[31];
+        a[8] += a[12];
+        a[12] += a[10];
+        a[10] += a[14];
+        a[14] += a[9];
+        a[9] += a[13];
+        a[13] += a[11];
+        a[11] += a[15];
+        a[24] += a[28];
+        a[28] += a[26];
+        a[26] += a[30];
+        a[30] += a[25];
+        a[25] += a[29];
+        a[29] += a[27];
+        a[27] += a[31];
+
+        // vector loading
+        int p = writePos;
+        vec1[p] = -a[1];
+        vec1[p | 31] = vec1[p | 1] = -a[30] - a[17];
+        vec1[p | 30] = vec1[p | 2] = -a[14];
+        vec1[p | 29] = vec1[p | 3] = -a[22] - a[30];
+        vec1[p | 28] = vec1[p | 4] = -a[6];
+        vec1[p | 27] = vec1[p | 5] = -a[26] - a[22];
+        vec1[p | 26] = vec1[p | 6] = -a[10];
+        vec1[p | 25] = vec1[p | 7] = -a[18] - a[26];
+        vec1[p | 24] = vec1[p | 8] = -a[2];
+        vec1[p | 23] = vec1[p | 9] = -a[28] - a[18];
+        vec1[p | 22] = vec1[p | 10] = -a[12];
+        vec1[p | 21] = vec1[p | 11] = -a[20] - a[28];
+        vec1[p | 20] = vec1[p | 12] = -a[4];
+        vec1[p | 19] = vec1[p | 13] = -a[24] - a[20];
+        vec1[p | 18] = vec1[p | 14] = -a[8];
+        vec1[p | 17] = vec1[p | 15] = -a[16] - a[24];
+        vec1[p | 16] = -a[0];
+
+        vec2[p] = a[1];
+        vec2[p | 31] = -(vec2[p | 1] = a[17] + a[25]);
+        vec2[p | 30] = -(vec2[p | 2] = a[9]);
+        vec2[p | 29] = -(vec2[p | 3] = a[25] + a[21]);
+        vec2[p | 28] = -(vec2[p | 4] = a[5]);
+        vec2[p | 27] = -(vec2[p | 5] = a[21] + a[29]);
+        vec2[p | 26] = -(vec2[p | 6] = a[13]);
+        vec2[p | 25] = -(vec2[p | 7] = a[29] + a[19]);
+        vec2[p | 24] = -(vec2[p | 8] = a[3]);
+        vec2[p | 23] = -(vec2[p | 9] = a[19] + a[27]);
+        vec2[p | 22] = -(vec2[p | 10] = a[11]);
+        vec2[p | 21] = -(vec2[p | 11] = a[27] + a[23]);
+        vec2[p | 20] = -(vec2[p | 12] = a[7]);
+        vec2[p | 19] = -(vec2[p | 13] = a[23] + a[31]);
+        vec2[p | 18] = -(vec2[p | 14] = a[15]);
+        vec2[p | 17] = -(vec2[p | 15] = a[31]);
+        vec2[p | 16] = 0;
+    }
+
+    @Override
+    void synthesize(Output output) {
+        idct(u[j], u[j + 1 & 0x1]);
+
+        j = j + 1 & 0x1;
+        final float[] v = u[j];
+
+        for (int tap = 0; tap < 16; tap++) {
+            offsets[tap] = writePos - 32 * tap & 0x1FF;
+        }
+
+        // The same summing order as with the double precision
+        final int[] o = offsets;
+        for (int i = 0; i < SBLIMIT; i++) {
+            final float[] w = WINDOW[i];
+            float f = v[o[0] + i] * w[0];
+            f += v[o[1] + i] * w[1];
+            f += v[o[2] + i] * w[2];
+            f += v[o[3] + i] * w[3];
+            f += v[o[4] + i] * w[4];
+            f += v[o[5] + i] * w[5];
+            f += v[o[6] + i] * w[6];
+            f += v[o[7] + i] * w[7];
+            f += v[o[8] + i] * w[8];
+            f += v[o[9] + i] * w[9];
+            f += v[o[10] + i] * w[10];
+            f += v[o[11] + i] * w[11];
+            f += v[o[12] + i] * w[12];
+            f += v[o[13] + i] * w[13];
+            f += v[o[14] + i] * w[14];
+            f += v[o[15] + i] * w[15];
+            output.setBuffer(f, samples[i], i, channelNumber);
+        }
+
+        writePos = writePos + 32 & 0x1FF;
+
+        Arrays.fill(samples, 0);
+    }
+
+    @Override
+    void reset() {
+        u = new float[2][512];
+        samples = new double[SBLIMIT];
+        j = 0;
+        writePos = 0;
+    }
+}
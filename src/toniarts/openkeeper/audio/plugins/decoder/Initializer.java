@@ -112,9 +112,9 @@ abstract class Initializer extends Decoder {
     private void initializeSynthesizer() {
         float af[] = equalizer.getBands();
 
-        filter1 = new Synthesizer(0, af);
+        filter1 = Synthesizer.create(0, af);
         if (outputChannels == 2) {
-            filter2 = new Synthesizer(1, af);
+            filter2 = Synthesizer.create(1, af);
         }
     }
 }
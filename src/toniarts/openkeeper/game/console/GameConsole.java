@@ -22,12 +22,15 @@ import de.lessvoid.nifty.controls.ConsoleCommands;
 import de.lessvoid.nifty.controls.ConsoleCommands.ConsoleCommand;
 import de.lessvoid.nifty.tools.Color;
 import java.util.Collection;
+import toniarts.openkeeper.audio.plugins.PcmCache;
 import toniarts.openkeeper.game.data.Keeper;
 import toniarts.openkeeper.game.state.CheatState;
 import toniarts.openkeeper.game.state.GameClientState;
 import toniarts.openkeeper.game.state.GameState;
 import toniarts.openkeeper.game.state.PlayerState;
+import toniarts.openkeeper.game.state.SoundState;
 import toniarts.openkeeper.tools.convert.map.Creature;
+import toniarts.openkeeper.view.PlayerEntityViewState;
 import toniarts.openkeeper.world.WorldState;
 
 /**
@@ -58,11 +61,13 @@ public class GameConsole {
      * These commands don't have parameter
      */
     private enum SimpleCommands {
+        ANIMATION_STATS,
         CLEAR,
         EXIT,
         HELP,
         LOOSE_LEVEL,
         LEVEL_MAX,
+        SOUND_STATS,
         SPAWN_IMP,
         UNLOCK_ROOMS,
         UNLOCK_SPELLS,
@@ -126,6 +131,9 @@ public class GameConsole {
         public void execute(final String[] args) {
             String command = args[0].toUpperCase();
             switch (SimpleCommands.valueOf(command)) {
+                case ANIMATION_STATS:
+                    console.output("Animated vertices per frame: " + stateManager.getState(PlayerEntityViewState.class).getAnimatedVertexCount(), messageOutputColor);
+                    break;
                 case CLEAR:
                     console.clear();
                     break;
@@ -135,6 +143,10 @@ public class GameConsole {
                 case LOOSE_LEVEL:
                     stateManager.getState(GameState.class).setEnd(false);
                     break;
+                case SOUND_STATS:
+                    console.output("Decoded sound cache: " + PcmCache.getStatistics(), messageOutputColor);
+                    console.output("Sound mixer: " + stateManager.getState(SoundState.class).getSoundStatistics(), messageOutputColor);
+                    break;
                 case SPAWN_IMP:
                     spawnImp();
                     break;
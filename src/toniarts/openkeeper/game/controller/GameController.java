@@ -19,6 +19,8 @@ package toniarts.openkeeper.game.controller;
 import com.badlogic.gdx.ai.GdxAI;
 import com.jme3.util.SafeArrayList;
 import com.simsilica.es.EntityData;
+import com.simsilica.es.EntityId;
+import java.awt.Point;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -37,6 +39,10 @@ import toniarts.openkeeper.game.data.GameTimer;
 import toniarts.openkeeper.game.data.GeneralLevel;
 import toniarts.openkeeper.game.data.Keeper;
 import toniarts.openkeeper.game.data.Settings;
+import toniarts.openkeeper.game.listener.MapListener;
+import toniarts.openkeeper.game.listener.PlayerCreatureListener;
+import toniarts.openkeeper.game.listener.PlayerGoldListener;
+import toniarts.openkeeper.game.listener.PlayerManaListener;
 import toniarts.openkeeper.game.logic.ChickenAiSystem;
 import toniarts.openkeeper.game.logic.ChickenSpawnSystem;
 import toniarts.openkeeper.game.logic.CreatureAiSystem;
@@ -51,6 +57,7 @@ import toniarts.openkeeper.game.logic.DeathSystem;
 import toniarts.openkeeper.game.logic.DecaySystem;
 import toniarts.openkeeper.game.logic.DoorViewSystem;
 import toniarts.openkeeper.game.logic.DungeonHeartConstruction;
+import toniarts.openkeeper.game.logic.EntityComponentCache;
 import toniarts.openkeeper.game.logic.GameLogicManager;
 import toniarts.openkeeper.game.logic.HaulingSystem;
 import toniarts.openkeeper.game.logic.HealthSystem;
@@ -63,12 +70,15 @@ import toniarts.openkeeper.game.logic.PlayerCreatureSystem;
 import toniarts.openkeeper.game.logic.PlayerSpellSystem;
 import toniarts.openkeeper.game.logic.PositionSystem;
 import toniarts.openkeeper.game.logic.SlapSystem;
+import toniarts.openkeeper.game.map.MapTile;
 import toniarts.openkeeper.game.navigation.INavigationService;
 import toniarts.openkeeper.game.navigation.NavigationService;
 import toniarts.openkeeper.game.state.session.PlayerService;
 import toniarts.openkeeper.game.task.ITaskManager;
 import toniarts.openkeeper.game.task.TaskManager;
 import toniarts.openkeeper.game.trigger.TriggerControl;
+import toniarts.openkeeper.game.trigger.TriggerInputs;
+import toniarts.openkeeper.game.trigger.actionpoint.ActionPointRegistry;
 import toniarts.openkeeper.game.trigger.actionpoint.ActionPointTriggerLogicController;
 import toniarts.openkeeper.game.trigger.creature.CreatureTriggerLogicController;
 import toniarts.openkeeper.game.trigger.door.DoorTriggerLogicController;
@@ -76,6 +86,7 @@ import toniarts.openkeeper.game.trigger.object.ObjectTriggerLogicController;
 import toniarts.openkeeper.game.trigger.party.PartyTriggerLogicController;
 import toniarts.openkeeper.game.trigger.player.PlayerTriggerLogicController;
 import toniarts.openkeeper.tools.convert.ConversionUtils;
+import toniarts.openkeeper.tools.convert.map.Creature;
 import toniarts.openkeeper.tools.convert.map.KeeperSpell;
 import toniarts.openkeeper.tools.convert.map.KwdFile;
 import toniarts.openkeeper.tools.convert.map.Player;
@@ -116,6 +127,8 @@ public class GameController implements IGameLogicUpdatable, AutoCloseable, IGame
     private PartyTriggerLogicController partyTriggerState;
     private ActionPointTriggerLogicController actionPointController;
     private PlayerTriggerLogicController playerTriggerLogicController;
+    private final TriggerInputs triggerInputs = new TriggerInputs();
+    private int gameTimeSeconds = 0;
     private final List<Integer> flags = new ArrayList<>(LEVEL_FLAG_MAX_COUNT);
     private final SafeArrayList<GameTimer> timers = new SafeArrayList<>(GameTimer.class, LEVEL_TIMER_MAX_COUNT);
     private final Map<Integer, ActionPoint> actionPointsById = new HashMap<>();
@@ -125,6 +138,7 @@ public class GameController implements IGameLogicUpdatable, AutoCloseable, IGame
     private GameWorldController gameWorldController;
     private INavigationService navigationService;
     private PositionSystem positionSystem;
+    private EntityComponentCache componentCache;
 
     private GameResult gameResult = null;
     private Float timeLimit = null;
@@ -219,7 +233,8 @@ public class GameController implements IGameLogicUpdatable, AutoCloseable, IGame
         gameWorldController = new GameWorldController(kwdFile, entityData, gameSettings, players, playerControllers, this);
         gameWorldController.createNewGame(this, this);
 
-        positionSystem = new PositionSystem(gameWorldController.getMapController(), entityData, gameWorldController.getCreaturesController(), gameWorldController.getDoorsController(), gameWorldController.getObjectsController());
+        componentCache = new EntityComponentCache(entityData);
+        positionSystem = new PositionSystem(gameWorldController.getMapController(), entityData, gameWorldController.getCreaturesController(), gameWorldController.getDoorsController(), gameWorldController.getObjectsController(), componentCache);
 
         // Navigation
         navigationService = new NavigationService(gameWorldController.getMapController(), positionSystem);
@@ -228,11 +243,14 @@ public class GameController implements IGameLogicUpdatable, AutoCloseable, IGame
         taskManager = new TaskManager(entityData, gameWorldController, gameWorldController.getMapController(), gameWorldController.getCreaturesController(), navigationService, playerControllers.values(), this, positionSystem);
 
         // The triggers
+        initTriggerInputs();
         partyTriggerState = new PartyTriggerLogicController(this, this, this, gameWorldController.getMapController(), gameWorldController.getCreaturesController());
         creatureTriggerState = new CreatureTriggerLogicController(this, this, this, gameWorldController.getMapController(), gameWorldController.getCreaturesController(), playerService, entityData);
         objectTriggerState = new ObjectTriggerLogicController(this, this, this, gameWorldController.getMapController(), gameWorldController.getCreaturesController(), playerService, entityData, gameWorldController.getObjectsController());
         doorTriggerState = new DoorTriggerLogicController(this, this, this, gameWorldController.getMapController(), gameWorldController.getCreaturesController(), playerService, entityData, gameWorldController.getDoorsController());
-        actionPointController = new ActionPointTriggerLogicController(this, this, this, gameWorldController.getMapController(), gameWorldController.getCreaturesController(), positionSystem);
+        ActionPointRegistry actionPointRegistry = new ActionPointRegistry(actionPoints, gameWorldController.getMapController().getMapData(), positionSystem, componentCache, triggerInputs);
+        positionSystem.addListener(actionPointRegistry);
+        actionPointController = new ActionPointTriggerLogicController(this, this, this, gameWorldController.getMapController(), gameWorldController.getCreaturesController(), actionPointRegistry);
         playerTriggerLogicController = new PlayerTriggerLogicController(this, this, this, gameWorldController.getMapController(), gameWorldController.getCreaturesController(), playerService);
 
         // Trigger data
@@ -251,12 +269,13 @@ public class GameController implements IGameLogicUpdatable, AutoCloseable, IGame
 
         // Create the game loops ready to start
         // Game logic
-        gameLogicThread = new GameLogicManager(positionSystem,
+        gameLogicThread = new GameLogicManager(componentCache,
+                positionSystem,
                 gameWorldController.getMapController(),
                 new DecaySystem(entityData),
                 new CreatureExperienceSystem(entityData, kwdFile, gameSettings, gameWorldController.getCreaturesController()),
                 new SlapSystem(entityData, kwdFile, playerControllers.values(), gameSettings),
-                new HealthSystem(entityData, kwdFile, positionSystem, gameSettings, gameWorldController.getCreaturesController()),
+                new HealthSystem(entityData, kwdFile, positionSystem, gameSettings, gameWorldController.getCreaturesController(), componentCache),
                 new CreatureRecuperatingSystem(entityData, gameSettings),
                 new CreatureImprisonSystem(entityData, gameSettings),
                 new CreatureTorturingSystem(entityData, this, gameSettings),
@@ -266,7 +285,7 @@ public class GameController implements IGameLogicUpdatable, AutoCloseable, IGame
                 this,
                 new CreatureSpawnSystem(gameWorldController.getCreaturesController(), playerControllers.values(), gameSettings, this, gameWorldController.getMapController()),
                 new ChickenSpawnSystem(gameWorldController.getObjectsController(), playerControllers.values(), gameSettings, this, gameWorldController.getMapController()),
-                new ManaCalculatorLogic(gameSettings, playerControllers.values(), gameWorldController.getMapController()),
+                new ManaCalculatorLogic(gameSettings, playerControllers.values(), gameWorldController),
                 new CreatureAiSystem(entityData, gameWorldController.getCreaturesController()),
                 new ChickenAiSystem(entityData, gameWorldController.getObjectsController()),
                 new CreatureViewSystem(entityData),
@@ -281,7 +300,21 @@ public class GameController implements IGameLogicUpdatable, AutoCloseable, IGame
         gameAnimationLoop = new GameLoop(gameAnimationThread, GameLoop.INTERVAL_FPS_60, "GameAnimation");
 
         // Steering
-        steeringCalculatorLoop = new GameLoop(new GameLogicManager(new MovementSystem(entityData)), GameLoop.INTERVAL_FPS_60, "SteeringCalculator");
+        steeringCalculatorLoop = new GameLoop(new GameLogicManager(new MovementSystem(entityData, positionSystem)), GameLoop.INTERVAL_FPS_60, "SteeringCalculator");
+    }
+
+    /**
+     * Hooks the trigger inputs to the game state changes, so that the
+     * triggers know when to re-evaluate their conditions
+     */
+    private void initTriggerInputs() {
+        TriggerInputListener listener = new TriggerInputListener();
+        gameWorldController.getMapController().addListener(listener);
+        for (IPlayerController playerController : playerControllers.values()) {
+            playerController.getGoldControl().addListener(listener);
+            playerController.getManaControl().addListener(listener);
+            playerController.getCreatureControl().addListener(listener);
+        }
     }
 
     public void startGame() {
@@ -416,18 +449,30 @@ public class GameController implements IGameLogicUpdatable, AutoCloseable, IGame
         GdxAI.getTimepiece().update(tpf);
 
         // Time limit is a special timer, it just ticks towards 0 if it is set
+        boolean secondPassed = false;
         if (timeLimit != null) {
+            int seconds = timeLimit.intValue();
             timeLimit -= tpf;
 
             // We rest on zero
             if (timeLimit < 0) {
                 timeLimit = 0f;
             }
+            secondPassed = seconds != timeLimit.intValue();
         }
 
         // Advance game timers
         for (GameTimer timer : timers.getArray()) {
+            int seconds = (int) timer.getTime();
             timer.update(tpf);
+            secondPassed |= seconds != (int) timer.getTime();
+        }
+
+        // Let the triggers depending on time know that they need to check again
+        secondPassed |= gameTimeSeconds != (int) Math.floor(gameTime);
+        gameTimeSeconds = (int) Math.floor(gameTime);
+        if (secondPassed) {
+            triggerInputs.changed(TriggerInputs.Input.TIME);
         }
 
         if (triggerControl != null) {
@@ -482,6 +527,7 @@ public class GameController implements IGameLogicUpdatable, AutoCloseable, IGame
     @Override
     public void setFlag(int id, int value) {
         flags.set(id, value);
+        triggerInputs.changed(TriggerInputs.Input.FLAGS);
     }
 
     @Override
@@ -509,6 +555,7 @@ public class GameController implements IGameLogicUpdatable, AutoCloseable, IGame
     @Override
     public void setTimeLimit(float timeLimit) {
         this.timeLimit = timeLimit;
+        triggerInputs.changed(TriggerInputs.Input.TIME);
     }
 
     @Override
@@ -578,6 +625,12 @@ public class GameController implements IGameLogicUpdatable, AutoCloseable, IGame
     @Override
     public void setLevelScore(int levelScore) {
         this.levelScore = levelScore;
+        triggerInputs.changed(TriggerInputs.Input.FLAGS);
+    }
+
+    @Override
+    public TriggerInputs getTriggerInputs() {
+        return triggerInputs;
     }
 
     public CreatureTriggerLogicController getCreatureTriggerState() {
@@ -676,4 +729,45 @@ public class GameController implements IGameLogicUpdatable, AutoCloseable, IGame
         return positionSystem;
     }
 
+    @Override
+    public EntityComponentCache getComponentCache() {
+        return componentCache;
+    }
+
+    /**
+     * Relays the game state changes to the trigger inputs
+     */
+    private class TriggerInputListener implements MapListener, PlayerGoldListener, PlayerManaListener, PlayerCreatureListener {
+
+        @Override
+        public void onTilesChange(List<MapTile> updatedTiles) {
+            triggerInputs.changed(TriggerInputs.Input.MAP_TILES);
+        }
+
+        @Override
+        public void onTileFlash(List<Point> points, boolean enabled, short keeperId) {
+
+        }
+
+        @Override
+        public void onGoldChange(short keeperId, int gold) {
+            triggerInputs.changed(TriggerInputs.Input.GOLD);
+        }
+
+        @Override
+        public void onManaChange(short keeperId, int mana, int manaLoose, int manaGain) {
+            triggerInputs.changed(TriggerInputs.Input.MANA);
+        }
+
+        @Override
+        public void onCreatureAdded(short keeperId, EntityId entityId, Creature creature) {
+            triggerInputs.changed(TriggerInputs.Input.CREATURES);
+        }
+
+        @Override
+        public void onCreatureRemoved(short keeperId, EntityId entityId, Creature creature) {
+            triggerInputs.changed(TriggerInputs.Input.CREATURES);
+        }
+    }
+
 }
@@ -66,6 +66,7 @@ import toniarts.openkeeper.game.controller.room.storage.IRoomObjectControl;
 import toniarts.openkeeper.game.controller.room.storage.RoomGoldControl;
 import toniarts.openkeeper.game.data.Keeper;
 import toniarts.openkeeper.game.listener.PlayerActionListener;
+import toniarts.openkeeper.game.listener.RoomListener;
 import toniarts.openkeeper.game.map.MapTile;
 import toniarts.openkeeper.tools.convert.map.GameObject;
 import toniarts.openkeeper.tools.convert.map.KwdFile;
@@ -139,12 +140,7 @@ public class GameWorldController implements IGameWorldController, IPlayerActions
 
         // The max money$$$
         for (IRoomController room : mapController.getRoomControllers()) {
-            if (room.canStoreGold()) {
-                IPlayerController playerController = playerControllers.get(room.getRoomInstance().getOwnerId());
-                if (playerController != null) {
-                    playerController.getGoldControl().setGoldMax(playerController.getGoldControl().getGoldMax() + room.getObjectControl(ObjectType.GOLD).getMaxCapacity());
-                }
-            }
+            addGoldCapacityToPlayer(room, room.getRoomInstance().getOwnerId());
         }
 
         // Set up the money$$$
@@ -167,8 +163,9 @@ public class GameWorldController implements IGameWorldController, IPlayerActions
                 playerController.getRoomControl().init(rooms);
             }
 
-            // Add the listener
+            // Add the listeners
             mapController.addListener(player.getId(), playerController.getRoomControl());
+            mapController.addListener(player.getId(), new RoomGoldCapacityListener(player.getId()));
         }
     }
 
@@ -281,23 +278,31 @@ public class GameWorldController implements IGameWorldController, IPlayerActions
     }
 
     private void substractGoldCapacityFromPlayer(RoomInstance instance) {
+        substractGoldCapacityFromPlayer(mapController.getRoomController(instance), instance.getOwnerId());
+    }
+
+    private void substractGoldCapacityFromPlayer(IRoomController roomController, short playerId) {
         synchronized (GOLD_LOCK) {
-            IRoomController roomController = mapController.getRoomController(instance);
-            if (roomController.canStoreGold()) {
+            IPlayerController playerController = playerControllers.get(playerId);
+            if (roomController.canStoreGold() && playerController != null) {
                 RoomGoldControl roomGoldControl = roomController.getObjectControl(ObjectType.GOLD);
-                PlayerGoldControl playerGoldControl = playerControllers.get(instance.getOwnerId()).getGoldControl();
-                playerGoldControl.setGoldMax(playerGoldControl.getGoldMax() - roomGoldControl.getMaxCapacity());
+                PlayerGoldControl playerGoldControl = playerController.getGoldControl();
+                playerGoldControl.setGoldMax(playerGoldControl.getGoldMax() - roomGoldControl.releaseAccountedCapacity());
             }
         }
     }
 
     private void addGoldCapacityToPlayer(RoomInstance instance) {
+        addGoldCapacityToPlayer(mapController.getRoomController(instance), instance.getOwnerId());
+    }
+
+    private void addGoldCapacityToPlayer(IRoomController roomController, short playerId) {
         synchronized (GOLD_LOCK) {
-            IRoomController roomController = mapController.getRoomController(instance);
-            if (roomController.canStoreGold()) {
+            IPlayerController playerController = playerControllers.get(playerId);
+            if (roomController.canStoreGold() && playerController != null) {
                 RoomGoldControl roomGoldControl = roomController.getObjectControl(ObjectType.GOLD);
-                PlayerGoldControl playerGoldControl = playerControllers.get(instance.getOwnerId()).getGoldControl();
-                playerGoldControl.setGoldMax(playerGoldControl.getGoldMax() + roomGoldControl.getMaxCapacity());
+                PlayerGoldControl playerGoldControl = playerController.getGoldControl();
+                playerGoldControl.setGoldMax(playerGoldControl.getGoldMax() + roomGoldControl.updateAccountedCapacity());
             }
         }
     }
@@ -882,4 +887,37 @@ public class GameWorldController implements IGameWorldController, IPlayerActions
     public ITrapsController getTrapsController() {
         return trapsController;
     }
+
+    /**
+     * Moves the gold capacity of the captured rooms between the players
+     */
+    private class RoomGoldCapacityListener implements RoomListener {
+
+        private final short playerId;
+
+        public RoomGoldCapacityListener(short playerId) {
+            this.playerId = playerId;
+        }
+
+        @Override
+        public void onBuild(IRoomController room) {
+
+        }
+
+        @Override
+        public void onCaptured(IRoomController room) {
+            addGoldCapacityToPlayer(room, playerId);
+        }
+
+        @Override
+        public void onCapturedByEnemy(IRoomController room) {
+            substractGoldCapacityFromPlayer(room, playerId);
+        }
+
+        @Override
+        public void onSold(IRoomController room) {
+
+        }
+    }
+
 }
@@ -18,6 +18,7 @@ package toniarts.openkeeper.game.controller;
 
 import java.util.Collection;
 import toniarts.openkeeper.game.data.GameResult;
+import toniarts.openkeeper.game.logic.EntityComponentCache;
 import toniarts.openkeeper.game.logic.IEntityPositionLookup;
 import toniarts.openkeeper.game.navigation.INavigationService;
 import toniarts.openkeeper.game.task.ITaskManager;
@@ -69,6 +70,8 @@ public interface IGameController {
 
     public IEntityPositionLookup getEntityLookupService();
 
+    public EntityComponentCache getComponentCache();
+
     public IGameWorldController getGameWorldController();
 
 }
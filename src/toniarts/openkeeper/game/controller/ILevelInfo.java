@@ -21,6 +21,7 @@ import java.util.List;
 import toniarts.openkeeper.game.data.ActionPoint;
 import toniarts.openkeeper.game.data.GameTimer;
 import toniarts.openkeeper.game.data.Keeper;
+import toniarts.openkeeper.game.trigger.TriggerInputs;
 import toniarts.openkeeper.tools.convert.map.KwdFile;
 
 /**
@@ -75,4 +76,11 @@ public interface ILevelInfo {
      */
     List<ActionPoint> getActionPoints();
 
+    /**
+     * Get the change tracking of the state the triggers read
+     *
+     * @return the trigger inputs
+     */
+    TriggerInputs getTriggerInputs();
+
 }
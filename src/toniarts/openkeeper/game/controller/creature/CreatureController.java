@@ -71,6 +71,7 @@ import toniarts.openkeeper.game.controller.room.AbstractRoomController;
 import toniarts.openkeeper.game.controller.room.IRoomController;
 import toniarts.openkeeper.game.data.Keeper;
 import toniarts.openkeeper.game.data.ObjectiveType;
+import toniarts.openkeeper.game.logic.EntityComponentCache;
 import toniarts.openkeeper.game.logic.IEntityPositionLookup;
 import toniarts.openkeeper.game.map.MapTile;
 import toniarts.openkeeper.game.navigation.INavigationService;
@@ -98,6 +99,7 @@ public class CreatureController extends EntityController implements ICreatureCon
     private final Map<Variable.MiscVariable.MiscType, Variable.MiscVariable> gameSettings;
     private final ICreaturesController creaturesController;
     private final IEntityPositionLookup entityPositionLookup;
+    private final EntityComponentCache componentCache;
     private final ILevelInfo levelInfo;
     // TODO: All the data is not supposed to be on entities as they become too big, but I don't want these here either
     private final Creature creature;
@@ -110,8 +112,8 @@ public class CreatureController extends EntityController implements ICreatureCon
 
     public CreatureController(EntityId entityId, EntityData entityData, Creature creature, INavigationService navigationService,
             ITaskManager taskManager, IGameTimer gameTimer, Map<Variable.MiscVariable.MiscType, Variable.MiscVariable> gameSettings,
-            ICreaturesController creaturesController, IEntityPositionLookup entityPositionLookup, IMapController mapController,
-            ILevelInfo levelInfo, IObjectsController objectsController) {
+            ICreaturesController creaturesController, IEntityPositionLookup entityPositionLookup, EntityComponentCache componentCache,
+            IMapController mapController, ILevelInfo levelInfo, IObjectsController objectsController) {
         super(entityId, entityData, objectsController, mapController);
         this.navigationService = navigationService;
         this.taskManager = taskManager;
@@ -120,6 +122,7 @@ public class CreatureController extends EntityController implements ICreatureCon
         this.gameSettings = gameSettings;
         this.creaturesController = creaturesController;
         this.entityPositionLookup = entityPositionLookup;
+        this.componentCache = componentCache;
         this.levelInfo = levelInfo;
         this.stateMachine = new DefaultStateMachine<>(this);
     }
@@ -717,7 +720,19 @@ public class CreatureController extends EntityController implements ICreatureCon
     }
 
     private boolean isIncapacitated(EntityId entityId) {
-        return isIncapacitated(entityData, entityId);
+
+        // Other entities are looked up from the component cache first, a lot cheaper in the loops
+        int row = componentCache.getRow(entityId);
+        if (row == EntityComponentCache.NO_ROW) {
+
+            // Not in the cache yet, e.g. spawned this tick
+            return isIncapacitated(entityData, entityId);
+        }
+        if (!componentCache.hasHealth(row) || componentCache.isUnconscious(row)) {
+            return true;
+        }
+
+        return isRecuperatingOrFallingOrInHand(entityData, entityId);
     }
 
     private static boolean isIncapacitated(EntityData entityData, EntityId entityId) {
@@ -726,6 +741,10 @@ public class CreatureController extends EntityController implements ICreatureCon
             return true;
         }
 
+        return isRecuperatingOrFallingOrInHand(entityData, entityId);
+    }
+
+    private static boolean isRecuperatingOrFallingOrInHand(EntityData entityData, EntityId entityId) {
         CreatureRecuperating recuperating = entityData.getComponent(entityId, CreatureRecuperating.class);
         if (recuperating != null) {
             return true;
@@ -1065,11 +1084,11 @@ public class CreatureController extends EntityController implements ICreatureCon
     }
 
     private boolean isAlly(EntityId entity) {
-        Owner otherOwner = entityData.getComponent(entity, Owner.class);
-        if (otherOwner != null) {
+        int row = componentCache.getRow(entity);
+        if (row != EntityComponentCache.NO_ROW && componentCache.hasOwner(row)) {
             Keeper keeper = levelInfo.getPlayer(getOwnerId());
             if (keeper != null) {
-                return keeper.isAlly(otherOwner.ownerId);
+                return keeper.isAlly(componentCache.getOwnerId(row));
             }
         }
 
@@ -1086,11 +1105,11 @@ public class CreatureController extends EntityController implements ICreatureCon
     }
 
     private boolean isEnemy(EntityId entity) {
-        Owner otherOwner = entityData.getComponent(entity, Owner.class);
-        if (otherOwner != null) {
+        int row = componentCache.getRow(entity);
+        if (row != EntityComponentCache.NO_ROW && componentCache.hasOwner(row)) {
             Keeper keeper = levelInfo.getPlayer(getOwnerId());
             if (keeper != null) {
-                return keeper.isEnemy(otherOwner.ownerId);
+                return keeper.isEnemy(componentCache.getOwnerId(row));
             }
         }
 
@@ -1098,9 +1117,9 @@ public class CreatureController extends EntityController implements ICreatureCon
     }
 
     private int getThreat(EntityId entity) {
-        Threat threat = entityData.getComponent(entity, Threat.class);
-        if (threat != null) {
-            return threat.threat;
+        int row = componentCache.getRow(entity);
+        if (row != EntityComponentCache.NO_ROW && componentCache.hasThreat(row)) {
+            return componentCache.getThreat(row);
         }
 
         return 0;
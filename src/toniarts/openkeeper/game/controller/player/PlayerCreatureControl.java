@@ -16,6 +16,7 @@
  */
 package toniarts.openkeeper.game.controller.player;
 
+import com.jme3.util.SafeArrayList;
 import com.simsilica.es.EntityId;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -25,6 +26,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import toniarts.openkeeper.game.data.Keeper;
+import toniarts.openkeeper.game.listener.PlayerCreatureListener;
 import toniarts.openkeeper.tools.convert.map.Creature;
 import toniarts.openkeeper.world.listener.CreatureListener;
 
@@ -36,6 +38,7 @@ import toniarts.openkeeper.world.listener.CreatureListener;
 public class PlayerCreatureControl extends AbstractPlayerControl<Creature, Set<EntityId>, Short> {
 
     private List<CreatureListener> creatureListeners;
+    private final SafeArrayList<PlayerCreatureListener> listeners = new SafeArrayList<>(PlayerCreatureListener.class);
     private final Creature imp;
     private int creatureCount = 0;
 
@@ -65,6 +68,9 @@ public class PlayerCreatureControl extends AbstractPlayerControl<Creature, Set<E
         creatureSet.add(entityId);
 
         // Listeners
+        for (PlayerCreatureListener listener : listeners.getArray()) {
+            listener.onCreatureAdded(keeper.getId(), entityId, creature);
+        }
         if (!isImp(creature)) {
             creatureCount++;
             if (creatureListeners != null) {
@@ -84,6 +90,9 @@ public class PlayerCreatureControl extends AbstractPlayerControl<Creature, Set<E
         }
 
         // Listeners
+        for (PlayerCreatureListener listener : listeners.getArray()) {
+            listener.onCreatureRemoved(keeper.getId(), entityId, creature);
+        }
         if (!isImp(creature)) {
             creatureCount--;
             if (creatureListeners != null) {
@@ -127,6 +136,19 @@ public class PlayerCreatureControl extends AbstractPlayerControl<Creature, Set<E
         creatureListeners.add(listener);
     }
 
+    /**
+     * Listen to creature additions and removals. Including imps
+     *
+     * @param listener the listener
+     */
+    public void addListener(PlayerCreatureListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(PlayerCreatureListener listener) {
+        listeners.remove(listener);
+    }
+
     private boolean isImp(Creature creature) {
         return creature.equals(imp);
     }
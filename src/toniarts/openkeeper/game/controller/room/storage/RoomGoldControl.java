@@ -41,6 +41,7 @@ import toniarts.openkeeper.tools.convert.map.KwdFile;
 public abstract class RoomGoldControl extends AbstractRoomObjectControl<Integer> {
 
     private int storedGold = 0;
+    private int accountedCapacity = 0;
 
     public RoomGoldControl(KwdFile kwdFile, IRoomController parent, IObjectsController objectsController, IGameTimer gameTimer) {
         super(kwdFile, parent, objectsController, gameTimer);
@@ -195,6 +196,42 @@ public abstract class RoomGoldControl extends AbstractRoomObjectControl<Integer>
         return getObjectsPerTile() * getNumberOfAccessibleTiles() * getGoldPerObject();
     }
 
+    /**
+     * Get the gold capacity currently counted to the owning player's maximum
+     * gold
+     *
+     * @return the accounted gold capacity
+     */
+    public int getAccountedCapacity() {
+        return accountedCapacity;
+    }
+
+    /**
+     * Marks the current maximum capacity as accounted to the owning player.
+     * The player's maximum gold is then adjusted by the returned difference,
+     * so that it never needs to be recalculated from all the rooms
+     *
+     * @return the change in capacity since the last accounting
+     */
+    public int updateAccountedCapacity() {
+        int maxCapacity = getMaxCapacity();
+        int delta = maxCapacity - accountedCapacity;
+        accountedCapacity = maxCapacity;
+        return delta;
+    }
+
+    /**
+     * Releases the capacity accounted to the owning player, i.e. the room is
+     * removed or it changes owner
+     *
+     * @return the capacity that was accounted to the player
+     */
+    public int releaseAccountedCapacity() {
+        int capacity = accountedCapacity;
+        accountedCapacity = 0;
+        return capacity;
+    }
+
     protected abstract int getGoldPerObject();
 
     @Override
@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.game.listener;
+
+import com.simsilica.es.EntityId;
+import toniarts.openkeeper.tools.convert.map.Creature;
+
+/**
+ * Listen changes in the creatures a player owns
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public interface PlayerCreatureListener {
+
+    void onCreatureAdded(short keeperId, EntityId entityId, Creature creature);
+
+    void onCreatureRemoved(short keeperId, EntityId entityId, Creature creature);
+
+}
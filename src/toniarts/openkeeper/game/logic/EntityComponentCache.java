@@ -0,0 +1,448 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.game.logic;
+
+import com.simsilica.es.Entity;
+import com.simsilica.es.EntityData;
+import com.simsilica.es.EntityId;
+import com.simsilica.es.EntitySet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import toniarts.openkeeper.game.component.CreatureComponent;
+import toniarts.openkeeper.game.component.Health;
+import toniarts.openkeeper.game.component.Owner;
+import toniarts.openkeeper.game.component.Position;
+import toniarts.openkeeper.game.component.Threat;
+
+/**
+ * Column oriented cache of the most frequently read components. Each entity
+ * gets a row, and the component fields are stored in primitive arrays indexed
+ * by that row. So instead of doing a map lookup per component per entity, the
+ * systems can resolve the row once and read all the hot data directly.<br>
+ * The cache is synchronized from the entity sets once per tick, so the values
+ * reflect the state at the start of the tick (plus the writes done through
+ * this cache). Writes are kept as changes and merged with the live components
+ * when flushed, so they don't overwrite what other systems have set during the
+ * tick. This is meant to be used from the game logic thread only.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class EntityComponentCache implements IGameLogicUpdatable {
+
+    public static final int NO_ROW = -1;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private static final byte POSITION = 1;
+    private static final byte HEALTH = 1 << 1;
+    private static final byte OWNER = 1 << 2;
+    private static final byte CREATURE = 1 << 3;
+    private static final byte THREAT = 1 << 4;
+
+    private final EntityData entityData;
+    private final EntitySet positionEntities;
+    private final EntitySet healthEntities;
+    private final EntitySet ownerEntities;
+    private final EntitySet creatureEntities;
+    private final EntitySet threatEntities;
+    private final Map<EntityId, Integer> rowsByEntityId = new HashMap<>();
+
+    private int capacity = INITIAL_CAPACITY;
+    private int rowCount = 0;
+    private int[] freeRows = new int[INITIAL_CAPACITY];
+    private int freeRowCount = 0;
+    private EntityId[] entityIds = new EntityId[INITIAL_CAPACITY];
+    private byte[] components = new byte[INITIAL_CAPACITY];
+
+    // Position
+    private float[] positionX = new float[INITIAL_CAPACITY];
+    private float[] positionY = new float[INITIAL_CAPACITY];
+    private float[] positionZ = new float[INITIAL_CAPACITY];
+    private float[] rotation = new float[INITIAL_CAPACITY];
+
+    // Health
+    private int[] ownLandHealthIncrease = new int[INITIAL_CAPACITY];
+    private int[] health = new int[INITIAL_CAPACITY];
+    private int[] maxHealth = new int[INITIAL_CAPACITY];
+    private boolean[] unconscious = new boolean[INITIAL_CAPACITY];
+
+    // Owner
+    private short[] ownerId = new short[INITIAL_CAPACITY];
+
+    // Creature
+    private short[] creatureId = new short[INITIAL_CAPACITY];
+    private int[] fear = new int[INITIAL_CAPACITY];
+    private float[] stunDuration = new float[INITIAL_CAPACITY];
+    private boolean[] worker = new boolean[INITIAL_CAPACITY];
+
+    // Threat
+    private int[] threat = new int[INITIAL_CAPACITY];
+
+    // Pending health writes
+    private boolean[] healthDirty = new boolean[INITIAL_CAPACITY];
+    private int[] healthChange = new int[INITIAL_CAPACITY];
+    private boolean[] unconsciousChanged = new boolean[INITIAL_CAPACITY];
+    private int[] dirtyHealthRows = new int[INITIAL_CAPACITY];
+    private int dirtyHealthCount = 0;
+
+    public EntityComponentCache(EntityData entityData) {
+        this.entityData = entityData;
+
+        positionEntities = entityData.getEntities(Position.class);
+        healthEntities = entityData.getEntities(Health.class);
+        ownerEntities = entityData.getEntities(Owner.class);
+        creatureEntities = entityData.getEntities(CreatureComponent.class);
+        threatEntities = entityData.getEntities(Threat.class);
+
+        processAddedEntities(positionEntities, POSITION);
+        processAddedEntities(healthEntities, HEALTH);
+        processAddedEntities(ownerEntities, OWNER);
+        processAddedEntities(creatureEntities, CREATURE);
+        processAddedEntities(threatEntities, THREAT);
+    }
+
+    @Override
+    public void processTick(float tpf, double gameTime) {
+
+        // Anything left unwritten from the last tick
+        flush();
+
+        applyChanges(positionEntities, POSITION);
+        applyChanges(healthEntities, HEALTH);
+        applyChanges(ownerEntities, OWNER);
+        applyChanges(creatureEntities, CREATURE);
+        applyChanges(threatEntities, THREAT);
+    }
+
+    private void applyChanges(EntitySet entitySet, byte component) {
+        if (entitySet.applyChanges()) {
+            processDeletedEntities(entitySet.getRemovedEntities(), component);
+
+            processAddedEntities(entitySet.getAddedEntities(), component);
+
+            processChangedEntities(entitySet.getChangedEntities(), component);
+        }
+    }
+
+    private void processAddedEntities(Set<Entity> entities, byte component) {
+        for (Entity entity : entities) {
+            Integer row = rowsByEntityId.get(entity.getId());
+            if (row == null) {
+                row = allocateRow(entity.getId());
+            }
+            components[row] |= component;
+            copyComponent(entity, row, component);
+        }
+    }
+
+    private void processChangedEntities(Set<Entity> entities, byte component) {
+        for (Entity entity : entities) {
+            Integer row = rowsByEntityId.get(entity.getId());
+            if (row != null) {
+                copyComponent(entity, row, component);
+            }
+        }
+    }
+
+    private void processDeletedEntities(Set<Entity> entities, byte component) {
+        for (Entity entity : entities) {
+            Integer row = rowsByEntityId.get(entity.getId());
+            if (row == null) {
+                continue;
+            }
+            components[row] &= ~component;
+            if (component == HEALTH) {
+                clearHealthChange(row);
+            }
+            if (components[row] == 0) {
+                releaseRow(entity.getId(), row);
+            }
+        }
+    }
+
+    private void copyComponent(Entity entity, int row, byte component) {
+        switch (component) {
+            case POSITION: {
+                Position position = entity.get(Position.class);
+                positionX[row] = position.position.x;
+                positionY[row] = position.position.y;
+                positionZ[row] = position.position.z;
+                rotation[row] = position.rotation;
+                break;
+            }
+            case HEALTH: {
+                Health healthComponent = entity.get(Health.class);
+                ownLandHealthIncrease[row] = healthComponent.ownLandHealthIncrease;
+                health[row] = healthComponent.health;
+                maxHealth[row] = healthComponent.maxHealth;
+                unconscious[row] = healthComponent.unconscious;
+                break;
+            }
+            case OWNER: {
+                ownerId[row] = entity.get(Owner.class).ownerId;
+                break;
+            }
+            case CREATURE: {
+                CreatureComponent creatureComponent = entity.get(CreatureComponent.class);
+                creatureId[row] = creatureComponent.creatureId;
+                fear[row] = creatureComponent.fear;
+                stunDuration[row] = creatureComponent.stunDuration;
+                worker[row] = creatureComponent.worker;
+                break;
+            }
+            case THREAT: {
+                threat[row] = entity.get(Threat.class).threat;
+                break;
+            }
+        }
+    }
+
+    private int allocateRow(EntityId entityId) {
+        int row;
+        if (freeRowCount > 0) {
+            row = freeRows[--freeRowCount];
+        } else {
+            if (rowCount == capacity) {
+                grow();
+            }
+            row = rowCount++;
+        }
+        entityIds[row] = entityId;
+        rowsByEntityId.put(entityId, row);
+
+        return row;
+    }
+
+    private void releaseRow(EntityId entityId, int row) {
+        rowsByEntityId.remove(entityId);
+        entityIds[row] = null;
+        freeRows[freeRowCount++] = row;
+    }
+
+    private void grow() {
+        capacity *= 2;
+        freeRows = Arrays.copyOf(freeRows, capacity);
+        entityIds = Arrays.copyOf(entityIds, capacity);
+        components = Arrays.copyOf(components, capacity);
+        positionX = Arrays.copyOf(positionX, capacity);
+        positionY = Arrays.copyOf(positionY, capacity);
+        positionZ = Arrays.copyOf(positionZ, capacity);
+        rotation = Arrays.copyOf(rotation, capacity);
+        ownLandHealthIncrease = Arrays.copyOf(ownLandHealthIncrease, capacity);
+        health = Arrays.copyOf(health, capacity);
+        maxHealth = Arrays.copyOf(maxHealth, capacity);
+        unconscious = Arrays.copyOf(unconscious, capacity);
+        ownerId = Arrays.copyOf(ownerId, capacity);
+        creatureId = Arrays.copyOf(creatureId, capacity);
+        fear = Arrays.copyOf(fear, capacity);
+        stunDuration = Arrays.copyOf(stunDuration, capacity);
+        worker = Arrays.copyOf(worker, capacity);
+        threat = Arrays.copyOf(threat, capacity);
+        healthDirty = Arrays.copyOf(healthDirty, capacity);
+        healthChange = Arrays.copyOf(healthChange, capacity);
+        unconsciousChanged = Arrays.copyOf(unconsciousChanged, capacity);
+        dirtyHealthRows = Arrays.copyOf(dirtyHealthRows, capacity);
+    }
+
+    /**
+     * Writes all the pending component changes to the entity data. Called
+     * automatically in the beginning of each tick, but systems batching writes
+     * should call this once they are done.<br>
+     * The changes are applied on top of the current components, other systems
+     * may have changed them after the sync.
+     */
+    public void flush() {
+        for (int i = 0; i < dirtyHealthCount; i++) {
+            int row = dirtyHealthRows[i];
+            if (!healthDirty[row]) {
+                continue;
+            }
+            int change = healthChange[row];
+            boolean unconsciousChange = unconsciousChanged[row];
+            clearHealthChange(row);
+
+            // Don't resurrect anything that got its health removed after the sync
+            Health current = entityData.getComponent(entityIds[row], Health.class);
+            if (current == null || (change == 0 && !unconsciousChange)) {
+                continue;
+            }
+            entityData.setComponent(entityIds[row], new Health(current.ownLandHealthIncrease, current.health + change,
+                    current.maxHealth, unconsciousChange ? unconscious[row] : current.unconscious));
+        }
+        dirtyHealthCount = 0;
+    }
+
+    private void clearHealthChange(int row) {
+        healthDirty[row] = false;
+        healthChange[row] = 0;
+        unconsciousChanged[row] = false;
+    }
+
+    /**
+     * Get the row of the given entity
+     *
+     * @param entityId the entity
+     * @return the row index, or {@link #NO_ROW} if the entity has none of the
+     * cached components
+     */
+    public int getRow(EntityId entityId) {
+        Integer row = rowsByEntityId.get(entityId);
+        if (row == null) {
+            return NO_ROW;
+        }
+
+        return row;
+    }
+
+    /**
+     * Get the upper bound of the rows, for iterating over all the rows. Not
+     * all rows below this are in use, see {@link #getEntityId(int)}
+     *
+     * @return row count
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Get the entity occupying the given row
+     *
+     * @param row the row
+     * @return the entity, or {@code null} if the row is free
+     */
+    public EntityId getEntityId(int row) {
+        return entityIds[row];
+    }
+
+    public boolean hasPosition(int row) {
+        return (components[row] & POSITION) != 0;
+    }
+
+    public float getPositionX(int row) {
+        return positionX[row];
+    }
+
+    public float getPositionY(int row) {
+        return positionY[row];
+    }
+
+    public float getPositionZ(int row) {
+        return positionZ[row];
+    }
+
+    public float getRotation(int row) {
+        return rotation[row];
+    }
+
+    public boolean hasHealth(int row) {
+        return (components[row] & HEALTH) != 0;
+    }
+
+    public int getHealth(int row) {
+        return health[row];
+    }
+
+    public int getMaxHealth(int row) {
+        return maxHealth[row];
+    }
+
+    public int getOwnLandHealthIncrease(int row) {
+        return ownLandHealthIncrease[row];
+    }
+
+    public boolean isUnconscious(int row) {
+        return unconscious[row];
+    }
+
+    /**
+     * Sets the health of an entity. The value is visible in the cache
+     * immediately, but written to the entity data only on {@link #flush()}. Only
+     * the difference to the cached health is written, and the unconscious
+     * status only if it is changed here.
+     *
+     * @param row the row of the entity, must have health
+     * @param health the new health
+     * @param unconscious the new unconscious status
+     */
+    public void setHealth(int row, int health, boolean unconscious) {
+        healthChange[row] += health - this.health[row];
+        if (this.unconscious[row] != unconscious) {
+            unconsciousChanged[row] = !unconsciousChanged[row];
+        }
+        this.health[row] = health;
+        this.unconscious[row] = unconscious;
+        if (!healthDirty[row]) {
+            healthDirty[row] = true;
+            dirtyHealthRows[dirtyHealthCount++] = row;
+        }
+    }
+
+    public boolean hasOwner(int row) {
+        return (components[row] & OWNER) != 0;
+    }
+
+    public short getOwnerId(int row) {
+        return ownerId[row];
+    }
+
+    public boolean hasCreature(int row) {
+        return (components[row] & CREATURE) != 0;
+    }
+
+    public short getCreatureId(int row) {
+        return creatureId[row];
+    }
+
+    public int getFear(int row) {
+        return fear[row];
+    }
+
+    public float getStunDuration(int row) {
+        return stunDuration[row];
+    }
+
+    public boolean isWorker(int row) {
+        return worker[row];
+    }
+
+    public boolean hasThreat(int row) {
+        return (components[row] & THREAT) != 0;
+    }
+
+    public int getThreat(int row) {
+        return threat[row];
+    }
+
+    @Override
+    public void start() {
+
+    }
+
+    @Override
+    public void stop() {
+        flush();
+        positionEntities.release();
+        healthEntities.release();
+        ownerEntities.release();
+        creatureEntities.release();
+        threatEntities.release();
+        rowsByEntityId.clear();
+    }
+
+}
@@ -16,12 +16,10 @@
  */
 package toniarts.openkeeper.game.logic;
 
-import com.jme3.util.SafeArrayList;
 import com.simsilica.es.Entity;
 import com.simsilica.es.EntityData;
 import com.simsilica.es.EntityId;
 import com.simsilica.es.EntitySet;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -33,7 +31,6 @@ import toniarts.openkeeper.game.component.Health;
 import toniarts.openkeeper.game.component.Interaction;
 import toniarts.openkeeper.game.component.Navigation;
 import toniarts.openkeeper.game.component.ObjectViewState;
-import toniarts.openkeeper.game.component.Owner;
 import toniarts.openkeeper.game.controller.ICreaturesController;
 import toniarts.openkeeper.game.controller.creature.CreatureState;
 import toniarts.openkeeper.game.map.MapTile;
@@ -54,7 +51,7 @@ public class HealthSystem implements IGameLogicUpdatable {
     private final KwdFile kwdFile;
     private final EntitySet healthEntities;
     private final EntityData entityData;
-    private final SafeArrayList<EntityId> entityIds;
+    private final EntityComponentCache componentCache;
     private final IEntityPositionLookup entityPositionLookup;
     private final ICreaturesController creaturesController;
     private final int timeToDeath;
@@ -63,36 +60,37 @@ public class HealthSystem implements IGameLogicUpdatable {
 
     public HealthSystem(EntityData entityData, KwdFile kwdFile, IEntityPositionLookup entityPositionLookup,
             Map<Variable.MiscVariable.MiscType, Variable.MiscVariable> gameSettings,
-            ICreaturesController creaturesController) {
+            ICreaturesController creaturesController, EntityComponentCache componentCache) {
         this.kwdFile = kwdFile;
         this.entityData = entityData;
         this.entityPositionLookup = entityPositionLookup;
         this.creaturesController = creaturesController;
-        entityIds = new SafeArrayList<>(EntityId.class);
+        this.componentCache = componentCache;
 
         timeToDeath = (int) gameSettings.get(Variable.MiscVariable.MiscType.CREATURE_DYING_STATE_DURATION_SECONDS).getValue();
 
         healthEntities = entityData.getEntities(Health.class);
-        processAddedEntities(healthEntities);
     }
 
     @Override
     public void processTick(float tpf, double gameTime) {
         if (healthEntities.applyChanges()) {
 
-            processAddedEntities(healthEntities.getAddedEntities());
-
             processDeletedEntities(healthEntities.getRemovedEntities());
 
             processChangedEntities(healthEntities.getChangedEntities(), gameTime);
         }
 
         // Bring death to those unfortunate and increase the health of the fortunate
-        for (EntityId entityId : entityIds.getArray()) {
-            Health health = entityData.getComponent(entityId, Health.class);
+        for (int row = 0; row < componentCache.getRowCount(); row++) {
+            if (!componentCache.hasHealth(row)) {
+                continue;
+            }
+            EntityId entityId = componentCache.getEntityId(row);
+            int health = componentCache.getHealth(row);
 
             // From unconsciousness we start the countdown to death
-            if (health.unconscious) {
+            if (componentCache.isUnconscious(row)) {
                 if (gameTime - timeUnconsciousByEntityId.get(entityId) >= timeToDeath) {
                     processDeath(entityId, gameTime);
                 }
@@ -100,12 +98,12 @@ public class HealthSystem implements IGameLogicUpdatable {
             }
 
             // Normal health related routines
-            if (health.health <= 0) {
+            if (health <= 0) {
 
                 // Death or destruction!!!!
                 CreatureComponent creatureComponent = entityData.getComponent(entityId, CreatureComponent.class);
                 if (creatureComponent != null && kwdFile.getCreature(creatureComponent.creatureId).getFlags().contains(Creature.CreatureFlag.GENERATE_DEAD_BODY)) {
-                    entityData.setComponent(entityId, new Health(health.ownLandHealthIncrease, 0, health.maxHealth, true));
+                    componentCache.setHealth(row, 0, true);
                     //entityData.setComponent(entityId, new CreatureAi(gameTime, CreatureState.UNCONSCIOUS, creatureComponent.creatureId)); // Hmm
                     creaturesController.createController(entityId).getStateMachine().changeState(CreatureState.UNCONSCIOUS);
                     entityData.removeComponent(entityId, Navigation.class);
@@ -113,10 +111,9 @@ public class HealthSystem implements IGameLogicUpdatable {
                 } else {
                     entityPositionLookup.getEntityController(entityId).remove();
                 }
-            } else if (health.ownLandHealthIncrease > 0 && health.health != health.maxHealth) {
+            } else if (componentCache.getOwnLandHealthIncrease(row) > 0 && health != componentCache.getMaxHealth(row)) {
                 MapTile tile = entityPositionLookup.getEntityLocation(entityId);
-                Owner owner = entityData.getComponent(entityId, Owner.class);
-                if (tile != null && owner != null && tile.getOwnerId() == owner.ownerId) {
+                if (tile != null && componentCache.hasOwner(row) && tile.getOwnerId() == componentCache.getOwnerId(row)) {
 
                     // In own land
                     Double lastTimeOnOwnLand = timeOnOwnLandByEntityId.get(entityId);
@@ -125,7 +122,7 @@ public class HealthSystem implements IGameLogicUpdatable {
                     } else if (gameTime - lastTimeOnOwnLand >= 1) {
 
                         // Increase health
-                        entityData.setComponent(entityId, new Health(health.ownLandHealthIncrease, Math.max(health.health + health.ownLandHealthIncrease, health.maxHealth), health.maxHealth, false));
+                        componentCache.setHealth(row, Math.max(health + componentCache.getOwnLandHealthIncrease(row), componentCache.getMaxHealth(row)), false);
                     }
                 } else {
 
@@ -134,6 +131,9 @@ public class HealthSystem implements IGameLogicUpdatable {
                 }
             }
         }
+
+        // Write the health changes in one go
+        componentCache.flush();
     }
 
     private void processDeath(EntityId entityId, double gameTime) {
@@ -146,17 +146,8 @@ public class HealthSystem implements IGameLogicUpdatable {
         entityData.setComponent(entityId, new Death(gameTime));
     }
 
-    private void processAddedEntities(Set<Entity> entities) {
-        for (Entity entity : entities) {
-            int index = Collections.binarySearch(entityIds, entity.getId());
-            entityIds.add(~index, entity.getId());
-        }
-    }
-
     private void processDeletedEntities(Set<Entity> entities) {
         for (Entity entity : entities) {
-            int index = Collections.binarySearch(entityIds, entity.getId());
-            entityIds.remove(index);
             timeOnOwnLandByEntityId.remove(entity.getId());
             timeUnconsciousByEntityId.remove(entity.getId());
         }
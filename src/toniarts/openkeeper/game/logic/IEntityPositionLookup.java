@@ -18,6 +18,7 @@ package toniarts.openkeeper.game.logic;
 
 import com.simsilica.es.EntityId;
 import java.awt.Point;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import toniarts.openkeeper.game.controller.entity.IEntityController;
@@ -55,6 +56,18 @@ public interface IEntityPositionLookup {
      */
     List<EntityId> getEntitiesInLocation(MapTile mapTile);
 
+    /**
+     * Adds the entities in specified map point to the given collection. Does
+     * not create any new lists and can be called from outside the game logic
+     * thread.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param entities the collection where to add the entities in given
+     * location
+     */
+    void getEntitiesInLocation(int x, int y, Collection<EntityId> entities);
+
     /**
      * Get the map tile of an entity
      *
@@ -16,45 +16,65 @@
  */
 package toniarts.openkeeper.game.logic;
 
+import java.awt.Point;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import toniarts.openkeeper.game.controller.IGameWorldController;
 import toniarts.openkeeper.game.controller.IMapController;
 import toniarts.openkeeper.game.controller.IPlayerController;
 import toniarts.openkeeper.game.controller.player.PlayerCreatureControl;
 import toniarts.openkeeper.game.controller.player.PlayerManaControl;
+import toniarts.openkeeper.game.listener.MapListener;
+import toniarts.openkeeper.game.listener.PlayerActionListener;
 import toniarts.openkeeper.game.map.MapData;
 import toniarts.openkeeper.game.map.MapTile;
 import toniarts.openkeeper.tools.convert.map.Variable;
 
 /**
- * Calculates mana for all players. TODO: maybe listener based, that only reacts
- * to changes? TODO: Posession, Players, Entity based?
+ * Calculates mana for all players. The mana gain from the map tiles is kept as
+ * running totals per player, updated from the tile changes, so that the actual
+ * mana update is only dependent on the number of players.
  *
  * @author Toni Helenius <helenius.toni@gmail.com>
  */
-public class ManaCalculatorLogic implements IGameLogicUpdatable {
+public class ManaCalculatorLogic implements IGameLogicUpdatable, MapListener, PlayerActionListener {
 
     private float tick = 0;
     private final Map<Short, PlayerManaControl> manaControls = new HashMap<>(4);
     private final Map<Short, PlayerCreatureControl> creatureControls = new HashMap<>(4);
-    private final Map<Short, Integer> manaGains;
-    private final Map<Short, Integer> manaLosses;
+    private final IGameWorldController gameWorldController;
     private final IMapController mapController;
     private final int manaGainBase;
     private final static int MANA_LOSE_PER_IMP = 7;  // I don't find in Creature.java
 
-    public ManaCalculatorLogic(Map<Variable.MiscVariable.MiscType, Variable.MiscVariable> gameSettings, Collection<IPlayerController> playerControllers, IMapController mapController) {
-        this.mapController = mapController;
+    /**
+     * Tile mana gain totals by player ID
+     */
+    private final int[] tileManaGains;
+
+    /**
+     * The owner & mana gain of each tile we have currently accounted for, by
+     * tile index
+     */
+    private short[] accountedTileOwners;
+    private int[] accountedTileManaGains;
+    private final Object tileLock = new Object();
+
+    public ManaCalculatorLogic(Map<Variable.MiscVariable.MiscType, Variable.MiscVariable> gameSettings, Collection<IPlayerController> playerControllers, IGameWorldController gameWorldController) {
+        this.gameWorldController = gameWorldController;
+        this.mapController = gameWorldController.getMapController();
+        short maxPlayerId = 0;
         for (IPlayerController playerController : playerControllers) {
             PlayerManaControl manaControl = playerController.getManaControl();
             if (manaControl != null) {
                 manaControls.put(playerController.getKeeper().getId(), manaControl);
                 creatureControls.put(playerController.getKeeper().getId(), playerController.getCreatureControl());
+                maxPlayerId = (short) Math.max(maxPlayerId, playerController.getKeeper().getId());
             }
         }
-        manaGains = new HashMap<>(manaControls.size());
-        manaLosses = new HashMap<>(manaControls.size());
+        tileManaGains = new int[maxPlayerId + 1];
         manaGainBase = (int) gameSettings.get(Variable.MiscVariable.MiscType.DUNGEON_HEART_MANA_GENERATION_INCREASE_PER_SECOND).getValue();
     }
 
@@ -62,52 +82,100 @@ public class ManaCalculatorLogic implements IGameLogicUpdatable {
     public void processTick(float tpf, double gameTime) {
         tick += tpf;
         if (tick >= 1) {
-            reset();
-            calculateGainFromMapTiles();
-            calculateLooseFromCreatures();
-            updateManaControls(tpf);
+            updateManaControls();
             tick -= 1;
         }
     }
 
-    private void reset() {
-        for (Short playerId : manaControls.keySet()) {
-            manaGains.put(playerId, manaGainBase);
-            manaLosses.put(playerId, 0);
+    private void updateManaControls() {
+        for (Map.Entry<Short, PlayerManaControl> entry : manaControls.entrySet()) {
+            int gain;
+            synchronized (tileLock) {
+                gain = manaGainBase + tileManaGains[entry.getKey()];
+            }
+            int loss = creatureControls.get(entry.getKey()).getImpCount() * MANA_LOSE_PER_IMP;
+            entry.getValue().updateMana(gain, loss);
         }
     }
 
+    /**
+     * Scans the whole map once and sets up the running totals
+     */
     private void calculateGainFromMapTiles() {
         MapData mapData = mapController.getMapData();
-        for (int x = 0; x < mapData.getWidth(); x++) {
-            for (int y = 0; y < mapData.getHeight(); y++) {
-                MapTile tile = mapData.getTile(x, y);
-                if (manaGains.containsKey(tile.getOwnerId())) {
-                    manaGains.put(tile.getOwnerId(), manaGains.get(tile.getOwnerId()) + tile.getManaGain());
+        synchronized (tileLock) {
+            accountedTileOwners = new short[mapData.getWidth() * mapData.getHeight()];
+            accountedTileManaGains = new int[mapData.getWidth() * mapData.getHeight()];
+            for (int i = 0; i < tileManaGains.length; i++) {
+                tileManaGains[i] = 0;
+            }
+            for (int x = 0; x < mapData.getWidth(); x++) {
+                for (int y = 0; y < mapData.getHeight(); y++) {
+                    updateTile(mapData.getTile(x, y));
                 }
             }
         }
     }
 
-    private void calculateLooseFromCreatures() {
-        for (Short playerId : manaControls.keySet()) {
-            manaLosses.put(playerId, creatureControls.get(playerId).getImpCount() * MANA_LOSE_PER_IMP);
+    private void updateTiles(List<MapTile> tiles) {
+        synchronized (tileLock) {
+            if (accountedTileOwners == null) {
+                return; // Not started yet, the initial scan will pick these up
+            }
+            for (MapTile tile : tiles) {
+                updateTile(tile);
+            }
         }
     }
 
-    private void updateManaControls(float tpf) {
-        for (Map.Entry<Short, PlayerManaControl> entry : manaControls.entrySet()) {
-            entry.getValue().updateMana(manaGains.getOrDefault(entry.getKey(), 0), manaLosses.getOrDefault(entry.getKey(), 0));
+    private void updateTile(MapTile tile) {
+        int index = tile.getX() * mapController.getMapData().getHeight() + tile.getY();
+
+        // Remove the old contribution and add the current one
+        addTileManaGain(accountedTileOwners[index], -accountedTileManaGains[index]);
+        addTileManaGain(tile.getOwnerId(), tile.getManaGain());
+        accountedTileOwners[index] = tile.getOwnerId();
+        accountedTileManaGains[index] = tile.getManaGain();
+    }
+
+    private void addTileManaGain(short playerId, int manaGain) {
+        if (playerId >= 0 && playerId < tileManaGains.length) {
+            tileManaGains[playerId] += manaGain;
         }
     }
 
+    @Override
+    public void onTilesChange(List<MapTile> updatedTiles) {
+        updateTiles(updatedTiles);
+    }
+
+    @Override
+    public void onTileFlash(List<Point> points, boolean enabled, short keeperId) {
+        // Not interested
+    }
+
+    @Override
+    public void onBuild(short keeperId, List<MapTile> tiles) {
+        updateTiles(tiles);
+    }
+
+    @Override
+    public void onSold(short keeperId, List<MapTile> tiles) {
+        updateTiles(tiles);
+    }
+
     @Override
     public void start() {
 
+        // Listen first so that no change gets lost during the initial scan, the accounting is idempotent
+        mapController.addListener(this);
+        gameWorldController.addListener(this);
+        calculateGainFromMapTiles();
     }
 
     @Override
     public void stop() {
-
+        mapController.removeListener(this);
+        gameWorldController.removeListener(this);
     }
 }
@@ -16,57 +16,81 @@
  */
 package toniarts.openkeeper.game.logic;
 
-import com.badlogic.gdx.ai.steer.SteeringAcceleration;
-import com.badlogic.gdx.math.Vector2;
-import com.jme3.util.SafeArrayList;
+import com.jme3.math.Vector3f;
 import com.simsilica.es.Entity;
 import com.simsilica.es.EntityData;
 import com.simsilica.es.EntityId;
 import com.simsilica.es.EntitySet;
 import java.awt.Point;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Logger;
 import toniarts.openkeeper.game.component.Mobile;
 import toniarts.openkeeper.game.component.Navigation;
 import toniarts.openkeeper.game.component.Position;
 import toniarts.openkeeper.game.navigation.steering.EntitySteeringBehavior;
 import toniarts.openkeeper.game.navigation.steering.EntitySteeringFactory;
-import toniarts.openkeeper.game.navigation.steering.ISteerableEntity;
+import toniarts.openkeeper.game.navigation.steering.SteerableEntities;
 import toniarts.openkeeper.game.navigation.steering.SteerableEntity;
-import toniarts.openkeeper.game.navigation.steering.SteeringUtils;
+import toniarts.openkeeper.game.navigation.steering.TileProximity;
 
 /**
- * Handles moving of the entities
+ * Handles moving of the entities. The movement state is kept in
+ * {@link SteerableEntities} and the {@link Position} components are published
+ * only at a lower rate, or immediately if the entity changes tiles or arrives.
  *
  * @author Toni Helenius <helenius.toni@gmail.com>
  */
 public class MovementSystem implements IGameLogicUpdatable {
 
-    private final SafeArrayList<EntitySteeringBehavior> steeringBehaviors = new SafeArrayList<>(EntitySteeringBehavior.class);
-    private final Map<EntityId, ISteerableEntity> steerableEntitiesByEntityId = new HashMap<>();
-    private final Map<ISteerableEntity, EntitySteeringBehavior> steeringBehaviorsBySteerableEntity = new HashMap<>();
-    private final Map<EntitySteeringBehavior, ISteerableEntity> steerableEntitiesBySteeringBehavior = new HashMap<>();
-    private final Map<EntitySteeringBehavior, EntityId> entityIdsBySteeringBehavior = new HashMap<>();
+    /**
+     * Default interval for publishing the positions of moving entities, in
+     * seconds
+     */
+    public static final float DEFAULT_PUBLISH_INTERVAL = 1 / 30f;
+
+    /**
+     * Default amount of moving entities after which the steering is
+     * calculated in parallel
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 200;
+
+    private final SteerableEntities steerableEntities = new SteerableEntities();
 
     // For tracking the changes in navigation itself, for now it might be enough to just see that if the target has been changed
     private final Map<EntityId, Point> targetPointsByEntityId = new HashMap<>();
 
-    /**
-     * This is for saving in object creation
-     */
-    private final Map<EntitySteeringBehavior, SteeringAcceleration<Vector2>> steeringOutputsBySteeringBehaviors = new HashMap<>();
     private final EntitySet movableEntities;
     private final EntityData entityData;
-
-    private final static boolean INDEPENDENT_FACING = false;
+    private final IEntityPositionLookup entityPositionLookup;
+    private final float publishInterval;
+    private final int parallelThreshold;
+    private ForkJoinPool forkJoinPool;
 
     private static final Logger LOGGER = Logger.getLogger(MovementSystem.class.getName());
 
-    public MovementSystem(EntityData entityData) {
+    public MovementSystem(EntityData entityData, IEntityPositionLookup entityPositionLookup) {
+        this(entityData, entityPositionLookup, DEFAULT_PUBLISH_INTERVAL, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Creates a new movement system
+     *
+     * @param entityData the entity data
+     * @param entityPositionLookup the tile based entity lookup, used for
+     * finding the neighbours to avoid
+     * @param publishInterval the interval in seconds in which the position
+     * components are updated at least, while the entity is moving
+     * @param parallelThreshold the amount of moving entities after which the
+     * steering is split across multiple threads, 0 or less to never do it
+     */
+    public MovementSystem(EntityData entityData, IEntityPositionLookup entityPositionLookup, float publishInterval, int parallelThreshold) {
         this.entityData = entityData;
+        this.entityPositionLookup = entityPositionLookup;
+        this.publishInterval = publishInterval;
+        this.parallelThreshold = parallelThreshold;
         movableEntities = entityData.getEntities(Position.class, Mobile.class, Navigation.class);
 
         processAddedEntities(movableEntities);
@@ -82,23 +106,51 @@ public class MovementSystem implements IGameLogicUpdatable {
             processChangedEntities(movableEntities.getChangedEntities());
         }
 
-        // Process ticks
-        for (EntitySteeringBehavior steeringBehavior : steeringBehaviors.getArray()) {
-
-            // Calculate steering acceleration
-            SteeringAcceleration<Vector2> steeringOutput = steeringOutputsBySteeringBehaviors.get(steeringBehavior);
-            steeringBehavior.calculateSteering(steeringOutput);
-
-            /*
-             * Here you might want to add a motor control layer filtering steering accelerations.
-             *
-             * For instance, a car in a driving game has physical constraints on its movement: it cannot turn while stationary; the
-             * faster it moves, the slower it can turn (without going into a skid); it can brake much more quickly than it can
-             * accelerate; and it only moves in the direction it is facing (ignoring power slides).
-             */
-            // Apply steering acceleration
-            applySteering(entityIdsBySteeringBehavior.get(steeringBehavior), steerableEntitiesBySteeringBehavior.get(steeringBehavior), steeringOutput, tpf);
+        // Calculate steering accelerations for all, and only then move them
+        /*
+         * Here you might want to add a motor control layer filtering steering accelerations.
+         *
+         * For instance, a car in a driving game has physical constraints on its movement: it cannot turn while stationary; the
+         * faster it moves, the slower it can turn (without going into a skid); it can brake much more quickly than it can
+         * accelerate; and it only moves in the direction it is facing (ignoring power slides).
+         */
+        int count = steerableEntities.size();
+        steerableEntities.update(tpf, isParallel(count) ? getForkJoinPool() : null, SteerableEntities.DEFAULT_CHUNK_SIZE);
+
+        // Update the real components
+        for (int i = 0; i < count; i++) {
+            EntityId entityId = steerableEntities.getEntityId(i);
+
+            // We are done
+            boolean arrived = steerableEntities.isArrived(i);
+            if (arrived) {
+                entityData.removeComponent(entityId, Navigation.class);
+            }
+
+            if (steerableEntities.isPublishDue(i, publishInterval)) {
+                publishPosition(entityId, i);
+            }
+        }
+    }
+
+    private boolean isParallel(int count) {
+        return parallelThreshold > 0 && count >= parallelThreshold && Runtime.getRuntime().availableProcessors() > 1;
+    }
+
+    private ForkJoinPool getForkJoinPool() {
+        if (forkJoinPool == null) {
+            forkJoinPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+        return forkJoinPool;
+    }
+
+    private void publishPosition(EntityId entityId, int index) {
+        Position oldPosition = entityData.getComponent(entityId, Position.class);
+        if (oldPosition == null) {
+            return;
         }
+        Vector3f position = new Vector3f(steerableEntities.getPositionX(index), oldPosition.position.y, steerableEntities.getPositionY(index));
+        entityData.setComponent(entityId, new Position(-steerableEntities.getOrientation(index), position));
     }
 
     private void processAddedEntities(Set<Entity> addedEntities) {
@@ -111,21 +163,17 @@ public class MovementSystem implements IGameLogicUpdatable {
         Mobile mobile = entity.get(Mobile.class);
         Navigation navigation = entity.get(Navigation.class);
         Position position = entity.get(Position.class);
-        ISteerableEntity steerableEntity = new SteerableEntity(entity.getId(), mobile.maxSpeed, 0.25f, position.position.x, position.position.z, position.rotation);
-        EntitySteeringBehavior steeringBehavior = EntitySteeringFactory.navigateToPoint(navigation.navigationPath, navigation.faceTarget, steerableEntity, navigation.target);
+        SteerableEntity steerableEntity = steerableEntities.add(entity.getId(), mobile.maxSpeed, 0.25f, position.position.x, position.position.z, position.rotation);
+        EntitySteeringBehavior steeringBehavior = EntitySteeringFactory.navigateToPoint(navigation.navigationPath, navigation.faceTarget, steerableEntity, navigation.target,
+                new TileProximity(steerableEntity, steerableEntities, entityPositionLookup));
         if (steeringBehavior == null) {
 
             // The fug, can't navigate, are we there already??
+            steerableEntities.remove(entity.getId());
             entityData.removeComponent(entity.getId(), Navigation.class);
             return;
         }
-        steerableEntitiesByEntityId.put(entity.getId(), steerableEntity);
-        steeringBehaviorsBySteerableEntity.put(steerableEntity, steeringBehavior);
-        steerableEntitiesBySteeringBehavior.put(steeringBehavior, steerableEntity);
-        int index = Collections.binarySearch(steeringBehaviors, steeringBehavior);
-        steeringBehaviors.add(~index, steeringBehavior);
-        steeringOutputsBySteeringBehaviors.put(steeringBehavior, new SteeringAcceleration<>(new Vector2()));
-        entityIdsBySteeringBehavior.put(steeringBehavior, entity.getId());
+        steerableEntities.setSteeringBehavior(steerableEntity, steeringBehavior);
         targetPointsByEntityId.put(entity.getId(), navigation.target);
     }
 
@@ -136,15 +184,13 @@ public class MovementSystem implements IGameLogicUpdatable {
     }
 
     private void deleteEntity(Entity entity) {
-        ISteerableEntity steerableEntity = steerableEntitiesByEntityId.remove(entity.getId());
-        EntitySteeringBehavior steeringBehavior = steeringBehaviorsBySteerableEntity.remove(steerableEntity);
-        steerableEntitiesBySteeringBehavior.remove(steeringBehavior);
-        if (steeringBehavior != null) {
-            int index = Collections.binarySearch(steeringBehaviors, steeringBehavior);
-            steeringBehaviors.remove(index);
+        SteerableEntity steerableEntity = steerableEntities.get(entity.getId());
+        if (steerableEntity != null) {
+
+            // Don't lose the last bit of movement we haven't published yet
+            publishPosition(entity.getId(), steerableEntities.getIndex(steerableEntity));
+            steerableEntities.remove(entity.getId());
         }
-        steeringOutputsBySteeringBehaviors.remove(steeringBehavior);
-        entityIdsBySteeringBehavior.remove(steeringBehavior);
         targetPointsByEntityId.remove(entity.getId());
     }
 
@@ -153,63 +199,32 @@ public class MovementSystem implements IGameLogicUpdatable {
 
             // Dirty trick to try to see if the navigation has changed
             Navigation navigation = entity.get(Navigation.class);
-            if (!navigation.target.equals(targetPointsByEntityId.get(entity.getId()))) {
-                deleteEntity(entity);
+            SteerableEntity steerableEntity = steerableEntities.get(entity.getId());
+            if (steerableEntity == null) {
                 addEntity(entity);
                 continue;
             }
+            if (!navigation.target.equals(targetPointsByEntityId.get(entity.getId()))) {
+
+                // Just swap the behavior, the position we have is more recent than the one in the component
+                EntitySteeringBehavior steeringBehavior = EntitySteeringFactory.navigateToPoint(navigation.navigationPath, navigation.faceTarget, steerableEntity, navigation.target,
+                        new TileProximity(steerableEntity, steerableEntities, entityPositionLookup));
+                if (steeringBehavior == null) {
+                    deleteEntity(entity);
+                    entityData.removeComponent(entity.getId(), Navigation.class);
+                    continue;
+                }
+                steerableEntities.setSteeringBehavior(steerableEntity, steeringBehavior);
+                targetPointsByEntityId.put(entity.getId(), navigation.target);
+            }
 
             // We are only prepared for the changes in Mobile
             // Not the position, the position is managed by us only
             Mobile mobile = entity.get(Mobile.class);
-
-            ISteerableEntity steerableEntity = steerableEntitiesByEntityId.get(entity.getId());
             steerableEntity.setMaxLinearSpeed(mobile.maxSpeed);
         }
     }
 
-    private void applySteering(EntityId entityId, ISteerableEntity steerableEntity, SteeringAcceleration<Vector2> steering, float tpf) {
-
-        // We are done
-        if (steering.isZero()) {
-            entityData.removeComponent(entityId, Navigation.class);
-        }
-
-        // Update position and linear velocity. Velocity is trimmed to maximum speed
-        if (steering.linear.isZero() && steering.angular != 0) {
-            steerableEntity.getLinearVelocity().setZero();
-        } else {
-            steerableEntity.getLinearVelocity().mulAdd(steering.linear, tpf).limit(steerableEntity.getMaxLinearSpeed());
-        }
-        steerableEntity.getPosition().add(steerableEntity.getLinearVelocity().x * tpf, steerableEntity.getLinearVelocity().y * tpf);
-
-        // Update angular velocity. Velocity is trimmed to maximum speed
-        steerableEntity.setAngularVelocity(steerableEntity.getAngularVelocity() + steering.angular * tpf);
-        if (steerableEntity.getAngularVelocity() > steerableEntity.getMaxAngularSpeed()) {
-            steerableEntity.setAngularVelocity(steerableEntity.getMaxAngularSpeed());
-        }
-
-        // Update orientation and angular velocity
-        if (INDEPENDENT_FACING) {
-            steerableEntity.setOrientation(steerableEntity.getOrientation() + steerableEntity.getAngularVelocity() * tpf);
-        } else // If we haven't got any velocity, then we can do nothing.
-        {
-            if (!steerableEntity.getLinearVelocity().isZero()) {
-                float newOrientation = SteeringUtils.calculateVectorToAngle(steerableEntity.getLinearVelocity());
-                steerableEntity.setAngularVelocity((newOrientation - steerableEntity.getOrientation()) * tpf);
-                steerableEntity.setOrientation(newOrientation);
-            } else if (steerableEntity.getAngularVelocity() != 0) {
-                steerableEntity.setOrientation(steerableEntity.getOrientation() + steerableEntity.getAngularVelocity() * tpf);
-            }
-        }
-
-        // Also update the real components
-        Position oldPosition = entityData.getComponent(entityId, Position.class);
-        oldPosition.position.x = steerableEntity.getPosition().x;
-        oldPosition.position.z = steerableEntity.getPosition().y;
-        entityData.setComponent(entityId, new Position(-steerableEntity.getOrientation(), oldPosition.position));
-    }
-
     @Override
     public void start() {
 
@@ -218,12 +233,11 @@ public class MovementSystem implements IGameLogicUpdatable {
     @Override
     public void stop() {
         movableEntities.release();
-        steeringBehaviors.clear();
-        steerableEntitiesByEntityId.clear();
-        steerableEntitiesBySteeringBehavior.clear();
-        steeringBehaviorsBySteerableEntity.clear();
-        steeringOutputsBySteeringBehaviors.clear();
-        entityIdsBySteeringBehavior.clear();
+        if (forkJoinPool != null) {
+            forkJoinPool.shutdown();
+            forkJoinPool = null;
+        }
+        steerableEntities.clear();
         targetPointsByEntityId.clear();
     }
 
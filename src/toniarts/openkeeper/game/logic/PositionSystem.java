@@ -16,20 +16,22 @@
  */
 package toniarts.openkeeper.game.logic;
 
+import com.jme3.util.SafeArrayList;
 import com.simsilica.es.Entity;
 import com.simsilica.es.EntityData;
 import com.simsilica.es.EntityId;
 import com.simsilica.es.EntitySet;
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import toniarts.openkeeper.game.component.DoorComponent;
-import toniarts.openkeeper.game.component.Owner;
 import toniarts.openkeeper.game.component.Position;
 import toniarts.openkeeper.game.component.Senses;
 import toniarts.openkeeper.game.controller.ICreaturesController;
@@ -41,6 +43,7 @@ import toniarts.openkeeper.game.controller.creature.ICreatureController;
 import toniarts.openkeeper.game.controller.door.IDoorController;
 import toniarts.openkeeper.game.controller.entity.EntityController;
 import toniarts.openkeeper.game.controller.entity.IEntityController;
+import toniarts.openkeeper.game.listener.EntityPositionListener;
 import toniarts.openkeeper.game.map.MapTile;
 import toniarts.openkeeper.tools.convert.map.Terrain;
 import toniarts.openkeeper.utils.WorldUtils;
@@ -55,18 +58,22 @@ public class PositionSystem implements IGameLogicUpdatable, IEntityPositionLooku
     private final EntityData entityData;
     private final IMapController mapController;
     private final IObjectsController objectsController;
+    private final EntityComponentCache componentCache;
     private final EntitySet positionedEntities;
-    private final Map<MapTile, Set<EntityId>> entitiesByMapTile = new HashMap<>();
+    // Concurrent so that the steering can query the neighbours from its own thread
+    private final Map<MapTile, Set<EntityId>> entitiesByMapTile = new ConcurrentHashMap<>();
     private final Map<MapTile, Set<EntityId>> obstaclesByMapTile = new HashMap<>();
     private final Map<EntityId, MapTile> mapTilesByEntities = new HashMap<>();
     private final Map<Class, IEntityWrapper<?>> entityWrappers = new HashMap<>();
+    private final SafeArrayList<EntityPositionListener> listeners = new SafeArrayList<>(EntityPositionListener.class);
 
     private final Map<EntityId, Set<EntityId>> sensedEntitiesByEntity = new HashMap<>();
 
-    public PositionSystem(IMapController mapController, EntityData entityData, ICreaturesController creaturesController, IDoorsController doorsController, IObjectsController objectsController) {
+    public PositionSystem(IMapController mapController, EntityData entityData, ICreaturesController creaturesController, IDoorsController doorsController, IObjectsController objectsController, EntityComponentCache componentCache) {
         this.entityData = entityData;
         this.mapController = mapController;
         this.objectsController = objectsController;
+        this.componentCache = componentCache;
         entityWrappers.put(ICreatureController.class, creaturesController);
         entityWrappers.put(IDoorController.class, doorsController);
 
@@ -110,6 +117,11 @@ public class PositionSystem implements IGameLogicUpdatable, IEntityPositionLooku
                 }
 
                 addEntityToTile(currentMapTile, entity);
+
+                // Listeners
+                for (EntityPositionListener listener : listeners.getArray()) {
+                    listener.onEntityMoved(entity.getId(), previousMapTile, currentMapTile);
+                }
             }
         }
     }
@@ -117,7 +129,7 @@ public class PositionSystem implements IGameLogicUpdatable, IEntityPositionLooku
     private void addEntityToTile(MapTile mapTile, Entity entity) {
         Set<EntityId> entitiesInTile = entitiesByMapTile.get(mapTile);
         if (entitiesInTile == null) {
-            entitiesInTile = new HashSet<>();
+            entitiesInTile = ConcurrentHashMap.newKeySet();
         }
         entitiesInTile.add(entity.getId());
         entitiesByMapTile.put(mapTile, entitiesInTile);
@@ -142,6 +154,11 @@ public class PositionSystem implements IGameLogicUpdatable, IEntityPositionLooku
             if (obstaclesByMapTile.containsKey(mapTile)) {
                 obstaclesByMapTile.get(mapTile).remove(entity.getId());
             }
+
+            // Listeners
+            for (EntityPositionListener listener : listeners.getArray()) {
+                listener.onEntityRemoved(entity.getId(), mapTile);
+            }
         }
     }
 
@@ -154,9 +171,28 @@ public class PositionSystem implements IGameLogicUpdatable, IEntityPositionLooku
             mapTilesByEntities.put(entity.getId(), mapTile);
 
             addEntityToTile(mapTile, entity);
+
+            // Listeners
+            for (EntityPositionListener listener : listeners.getArray()) {
+                listener.onEntityAdded(entity.getId(), mapTile);
+            }
         }
     }
 
+    /**
+     * Listen to the entities moving from tile to tile. The listener is not
+     * told about the entities already in place.
+     *
+     * @param listener the listener
+     */
+    public void addListener(EntityPositionListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(EntityPositionListener listener) {
+        listeners.remove(listener);
+    }
+
     @Override
     public List<EntityId> getEntitiesInLocation(Point p) {
         MapTile mapTile = mapController.getMapData().getTile(p);
@@ -179,6 +215,18 @@ public class PositionSystem implements IGameLogicUpdatable, IEntityPositionLooku
         return Collections.emptyList();
     }
 
+    @Override
+    public void getEntitiesInLocation(int x, int y, Collection<EntityId> entities) {
+        MapTile mapTile = mapController.getMapData().getTile(x, y);
+        if (mapTile == null) {
+            return;
+        }
+        Set<EntityId> entityIds = entitiesByMapTile.get(mapTile);
+        if (entityIds != null) {
+            entities.addAll(entityIds);
+        }
+    }
+
     @Override
     public MapTile getEntityLocation(EntityId entityId) {
         return mapTilesByEntities.get(entityId);
@@ -291,8 +339,8 @@ public class PositionSystem implements IGameLogicUpdatable, IEntityPositionLooku
                     if (doorComponent.locked) {
                         return true;
                     }
-                    Owner owner = entityData.getComponent(entityId, Owner.class);
-                    return owner == null || owner.ownerId != playerId;
+                    int row = componentCache.getRow(entityId);
+                    return row == EntityComponentCache.NO_ROW || !componentCache.hasOwner(row) || componentCache.getOwnerId(row) != playerId;
                 }
             }
         }
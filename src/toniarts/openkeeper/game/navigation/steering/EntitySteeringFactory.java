@@ -16,6 +16,8 @@
  */
 package toniarts.openkeeper.game.navigation.steering;
 
+import com.badlogic.gdx.ai.steer.Proximity;
+import com.badlogic.gdx.ai.steer.behaviors.CollisionAvoidance;
 import com.badlogic.gdx.ai.steer.behaviors.FollowPath;
 import com.badlogic.gdx.ai.steer.behaviors.ReachOrientation;
 import com.badlogic.gdx.ai.steer.utils.paths.LinePath;
@@ -34,35 +36,30 @@ public class EntitySteeringFactory {
     private EntitySteeringFactory() {
     }
 
-    public static EntitySteeringBehavior navigateToPoint(List<Vector2> path, final Point faceTarget, final ISteerableEntity steerable, final Point p) {
+    /**
+     * Creates a steering for navigating to the given point
+     *
+     * @param path the path to follow
+     * @param faceTarget the point to face at the end, can be {@code null}
+     * @param steerable the entity
+     * @param p the target point
+     * @param proximity the neighbours for collision avoidance, can be
+     * {@code null} for no avoidance
+     * @return the steering behavior, or {@code null} if there is nothing to
+     * do
+     */
+    public static EntitySteeringBehavior navigateToPoint(List<Vector2> path, final Point faceTarget, final ISteerableEntity steerable, final Point p, final Proximity<Vector2> proximity) {
         if (path.size() > 1 || faceTarget != null) {
 
             EntitySteeringBehavior prioritySteering = new EntitySteeringBehavior(steerable);
 
             if (path.size() > 1) {
+
                 // Add regular avoidance
-//                CollisionAvoidance<Vector2> ca = new CollisionAvoidance<>(creature, new ProximityBase<Vector2>(creature, null) {
-//
-//                    @Override
-//                    public int findNeighbors(Proximity.ProximityCallback<Vector2> callback) {
-//                        List<CreatureControl> creatures = new ArrayList<>(creature.getVisibleCreatures());
-//                        int neighborCount = 0;
-//                        int agentCount = creatures.size();
-//                        for (int i = 0; i < agentCount; i++) {
-//                            Steerable<Vector2> currentAgent = creatures.get(i);
-//
-//                            // Skip if this is us, when sharing collission avoidance i.e. this can contain us
-//                            if (!currentAgent.equals(owner)) {
-//                                if (callback.reportNeighbor(currentAgent)) {
-//                                    neighborCount++;
-//                                }
-//                            }
-//                        }
-//
-//                        return neighborCount;
-//                    }
-//                });
-//                prioritySteering.add(ca);
+                if (proximity != null) {
+                    CollisionAvoidance<Vector2> ca = new CollisionAvoidance<>(steerable, proximity);
+                    prioritySteering.add(ca);
+                }
 
                 // Navigate
                 FollowPath<Vector2, LinePath.LinePathParam> followPath = new FollowPath(steerable,
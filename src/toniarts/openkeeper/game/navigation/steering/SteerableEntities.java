@@ -0,0 +1,419 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.game.navigation.steering;
+
+import com.badlogic.gdx.ai.steer.SteeringAcceleration;
+import com.badlogic.gdx.math.Vector2;
+import com.simsilica.es.EntityId;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import toniarts.openkeeper.world.MapLoader;
+
+/**
+ * Packed movement state of all the steerable entities. Position, velocity,
+ * orientation and the movement limits are stored in parallel primitive arrays
+ * so that the integration can run in one tight loop. The
+ * {@link SteerableEntity} instances handed to the steering behaviors are just
+ * views to these arrays.<br>
+ * The slots are kept dense, removing an entity moves the last one to its
+ * place.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class SteerableEntities {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The smallest range worth handing to a separate worker
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 32;
+    private static final boolean INDEPENDENT_FACING = false;
+
+    private int size = 0;
+    private final Map<EntityId, SteerableEntity> steerablesByEntityId = new HashMap<>();
+
+    private SteerableEntity[] steerables = new SteerableEntity[INITIAL_CAPACITY];
+    private EntitySteeringBehavior[] steeringBehaviors = new EntitySteeringBehavior[INITIAL_CAPACITY];
+    private SteeringAcceleration<Vector2>[] steeringOutputs = newSteeringOutputs(INITIAL_CAPACITY);
+
+    // Kinematics
+    float[] positionX = new float[INITIAL_CAPACITY];
+    float[] positionY = new float[INITIAL_CAPACITY];
+    float[] velocityX = new float[INITIAL_CAPACITY];
+    float[] velocityY = new float[INITIAL_CAPACITY];
+    float[] orientation = new float[INITIAL_CAPACITY];
+    float[] angularVelocity = new float[INITIAL_CAPACITY];
+
+    // Limits
+    float[] maxLinearSpeed = new float[INITIAL_CAPACITY];
+    float[] maxLinearAcceleration = new float[INITIAL_CAPACITY];
+    float[] maxAngularSpeed = new float[INITIAL_CAPACITY];
+    float[] maxAngularAcceleration = new float[INITIAL_CAPACITY];
+    float[] zeroLinearSpeedThreshold = new float[INITIAL_CAPACITY];
+    float[] boundingRadius = new float[INITIAL_CAPACITY];
+    boolean[] tagged = new boolean[INITIAL_CAPACITY];
+
+    // Steering output
+    private float[] linearX = new float[INITIAL_CAPACITY];
+    private float[] linearY = new float[INITIAL_CAPACITY];
+    private float[] angular = new float[INITIAL_CAPACITY];
+    private boolean[] arrived = new boolean[INITIAL_CAPACITY];
+
+    // Publishing
+    private int[] tileX = new int[INITIAL_CAPACITY];
+    private int[] tileY = new int[INITIAL_CAPACITY];
+    private float[] timeSincePublish = new float[INITIAL_CAPACITY];
+
+    /**
+     * Adds a new steerable entity
+     *
+     * @param entityId the entity ID
+     * @param maxSpeed maximum linear speed
+     * @param boundingRadius the bounding radius
+     * @param xPos x position
+     * @param yPos y position (z in the 3D world)
+     * @param orientation the orientation
+     * @return the steerable view to the entity, to give to the steering
+     * behaviors
+     */
+    public SteerableEntity add(EntityId entityId, float maxSpeed, float boundingRadius, float xPos, float yPos, float orientation) {
+        if (size == steerables.length) {
+            grow();
+        }
+
+        int index = size++;
+        SteerableEntity steerableEntity = new SteerableEntity(entityId, this, index);
+        steerables[index] = steerableEntity;
+        steeringBehaviors[index] = null;
+
+        positionX[index] = xPos;
+        positionY[index] = yPos;
+        velocityX[index] = 0;
+        velocityY[index] = 0;
+        this.orientation[index] = orientation;
+        angularVelocity[index] = 0;
+
+        maxLinearSpeed[index] = maxSpeed;
+        // FIXME how calculate acceleration? mass & maxLinearSpeed?
+        maxLinearAcceleration[index] = maxSpeed * 4;
+        maxAngularSpeed[index] = 10.0f;
+        maxAngularAcceleration[index] = 20.0f;
+        // FIXME how calculate zero linear speed threshold?
+        zeroLinearSpeedThreshold[index] = 0.01f;
+        this.boundingRadius[index] = boundingRadius;
+        tagged[index] = false;
+
+        arrived[index] = false;
+        tileX[index] = toTile(xPos);
+        tileY[index] = toTile(yPos);
+        timeSincePublish[index] = 0;
+
+        steerablesByEntityId.put(entityId, steerableEntity);
+
+        return steerableEntity;
+    }
+
+    /**
+     * Sets the steering behavior for the given entity
+     *
+     * @param steerableEntity the steerable entity, as returned by
+     * {@link #add(com.simsilica.es.EntityId, float, float, float, float, float)}
+     * @param steeringBehavior the behavior
+     */
+    public void setSteeringBehavior(SteerableEntity steerableEntity, EntitySteeringBehavior steeringBehavior) {
+        steeringBehaviors[steerableEntity.getIndex()] = steeringBehavior;
+    }
+
+    /**
+     * Removes the given entity. The last entity is moved to its slot.
+     *
+     * @param entityId the entity to remove
+     * @return true if the entity was found and removed
+     */
+    public boolean remove(EntityId entityId) {
+        SteerableEntity steerableEntity = steerablesByEntityId.remove(entityId);
+        if (steerableEntity == null) {
+            return false;
+        }
+
+        int index = steerableEntity.getIndex();
+        int last = --size;
+        if (index != last) {
+            moveSlot(last, index);
+        }
+        steerables[last] = null;
+        steeringBehaviors[last] = null;
+
+        return true;
+    }
+
+    private void moveSlot(int from, int to) {
+        steerables[to] = steerables[from];
+        steerables[to].setIndex(to);
+        steeringBehaviors[to] = steeringBehaviors[from];
+
+        // The output objects are just swapped, they are reused anyway
+        SteeringAcceleration<Vector2> steeringOutput = steeringOutputs[to];
+        steeringOutputs[to] = steeringOutputs[from];
+        steeringOutputs[from] = steeringOutput;
+
+        positionX[to] = positionX[from];
+        positionY[to] = positionY[from];
+        velocityX[to] = velocityX[from];
+        velocityY[to] = velocityY[from];
+        orientation[to] = orientation[from];
+        angularVelocity[to] = angularVelocity[from];
+        maxLinearSpeed[to] = maxLinearSpeed[from];
+        maxLinearAcceleration[to] = maxLinearAcceleration[from];
+        maxAngularSpeed[to] = maxAngularSpeed[from];
+        maxAngularAcceleration[to] = maxAngularAcceleration[from];
+        zeroLinearSpeedThreshold[to] = zeroLinearSpeedThreshold[from];
+        boundingRadius[to] = boundingRadius[from];
+        tagged[to] = tagged[from];
+        linearX[to] = linearX[from];
+        linearY[to] = linearY[from];
+        angular[to] = angular[from];
+        arrived[to] = arrived[from];
+        tileX[to] = tileX[from];
+        tileY[to] = tileY[from];
+        timeSincePublish[to] = timeSincePublish[from];
+    }
+
+    private void grow() {
+        int capacity = steerables.length * 2;
+        steerables = Arrays.copyOf(steerables, capacity);
+        steeringBehaviors = Arrays.copyOf(steeringBehaviors, capacity);
+        SteeringAcceleration<Vector2>[] outputs = newSteeringOutputs(capacity);
+        System.arraycopy(steeringOutputs, 0, outputs, 0, steeringOutputs.length);
+        steeringOutputs = outputs;
+        positionX = Arrays.copyOf(positionX, capacity);
+        positionY = Arrays.copyOf(positionY, capacity);
+        velocityX = Arrays.copyOf(velocityX, capacity);
+        velocityY = Arrays.copyOf(velocityY, capacity);
+        orientation = Arrays.copyOf(orientation, capacity);
+        angularVelocity = Arrays.copyOf(angularVelocity, capacity);
+        maxLinearSpeed = Arrays.copyOf(maxLinearSpeed, capacity);
+        maxLinearAcceleration = Arrays.copyOf(maxLinearAcceleration, capacity);
+        maxAngularSpeed = Arrays.copyOf(maxAngularSpeed, capacity);
+        maxAngularAcceleration = Arrays.copyOf(maxAngularAcceleration, capacity);
+        zeroLinearSpeedThreshold = Arrays.copyOf(zeroLinearSpeedThreshold, capacity);
+        boundingRadius = Arrays.copyOf(boundingRadius, capacity);
+        tagged = Arrays.copyOf(tagged, capacity);
+        linearX = Arrays.copyOf(linearX, capacity);
+        linearY = Arrays.copyOf(linearY, capacity);
+        angular = Arrays.copyOf(angular, capacity);
+        arrived = Arrays.copyOf(arrived, capacity);
+        tileX = Arrays.copyOf(tileX, capacity);
+        tileY = Arrays.copyOf(tileY, capacity);
+        timeSincePublish = Arrays.copyOf(timeSincePublish, capacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SteeringAcceleration<Vector2>[] newSteeringOutputs(int capacity) {
+        SteeringAcceleration<Vector2>[] outputs = new SteeringAcceleration[capacity];
+        for (int i = 0; i < capacity; i++) {
+            outputs[i] = new SteeringAcceleration<>(new Vector2());
+        }
+        return outputs;
+    }
+
+    /**
+     * Runs a full movement step for all the entities. First the steering is
+     * calculated for everyone, and only then all are moved.
+     *
+     * @param tpf the time step
+     * @param forkJoinPool if given, the work is split in chunks and run in
+     * this pool. Otherwise all is run on the calling thread
+     * @param chunkSize the size of the chunks
+     */
+    public void update(float tpf, ForkJoinPool forkJoinPool, int chunkSize) {
+        if (forkJoinPool == null) {
+            calculateSteering(0, size);
+            integrate(0, size, tpf);
+        } else {
+            forkJoinPool.invoke(new SteeringTask(this, 0, size, chunkSize));
+            forkJoinPool.invoke(new SteeringTask(this, 0, size, chunkSize, tpf));
+        }
+    }
+
+    /**
+     * Calculates the steering for the given range of entities. Only the
+     * steering output of the slot is written, so ranges can be calculated
+     * independently. The entity positions stay intact until
+     * {@link #integrate(int, int, float)}.
+     *
+     * @param start the first slot, inclusive
+     * @param end the last slot, exclusive
+     */
+    public void calculateSteering(int start, int end) {
+        for (int i = start; i < end; i++) {
+            SteeringAcceleration<Vector2> steeringOutput = steeringOutputs[i];
+            EntitySteeringBehavior steeringBehavior = steeringBehaviors[i];
+            if (steeringBehavior != null) {
+                steeringBehavior.calculateSteering(steeringOutput);
+            } else {
+                steeringOutput.setZero();
+            }
+
+            linearX[i] = steeringOutput.linear.x;
+            linearY[i] = steeringOutput.linear.y;
+            angular[i] = steeringOutput.angular;
+            arrived[i] = steeringOutput.isZero();
+        }
+    }
+
+    /**
+     * Applies the calculated steering to the given range of entities. Velocity
+     * is trimmed to maximum speed.
+     *
+     * @param start the first slot, inclusive
+     * @param end the last slot, exclusive
+     * @param tpf the time step
+     */
+    public void integrate(int start, int end, float tpf) {
+        for (int i = start; i < end; i++) {
+
+            // Update position and linear velocity
+            float vx;
+            float vy;
+            if (linearX[i] == 0 && linearY[i] == 0 && angular[i] != 0) {
+                vx = 0;
+                vy = 0;
+            } else {
+                vx = velocityX[i] + linearX[i] * tpf;
+                vy = velocityY[i] + linearY[i] * tpf;
+                float len2 = vx * vx + vy * vy;
+                float limit2 = maxLinearSpeed[i] * maxLinearSpeed[i];
+                if (len2 > limit2) {
+                    float scale = (float) Math.sqrt(limit2 / len2);
+                    vx *= scale;
+                    vy *= scale;
+                }
+            }
+            velocityX[i] = vx;
+            velocityY[i] = vy;
+            positionX[i] += vx * tpf;
+            positionY[i] += vy * tpf;
+
+            // Update angular velocity
+            float av = angularVelocity[i] + angular[i] * tpf;
+            if (av > maxAngularSpeed[i]) {
+                av = maxAngularSpeed[i];
+            }
+
+            // Update orientation
+            if (INDEPENDENT_FACING) {
+                orientation[i] += av * tpf;
+            } else if (vx != 0 || vy != 0) {
+
+                // If we haven't got any velocity, then we can do nothing
+                float newOrientation = (float) Math.atan2(-vx, vy);
+                av = (newOrientation - orientation[i]) * tpf;
+                orientation[i] = newOrientation;
+            } else if (av != 0) {
+                orientation[i] += av * tpf;
+            }
+            angularVelocity[i] = av;
+
+            timeSincePublish[i] += tpf;
+        }
+    }
+
+    /**
+     * Checks whether the entity in the slot should be published now. Entities
+     * are published when they change tiles, when they have arrived or when
+     * enough time has passed since the last publish.
+     *
+     * @param index the slot
+     * @param publishInterval the minimum interval between regular publishes
+     * @return true if publish is due, the publish timer is reset
+     */
+    public boolean isPublishDue(int index, float publishInterval) {
+        int x = toTile(positionX[index]);
+        int y = toTile(positionY[index]);
+        if (x != tileX[index] || y != tileY[index] || arrived[index] || timeSincePublish[index] >= publishInterval) {
+            tileX[index] = x;
+            tileY[index] = y;
+            timeSincePublish[index] = 0;
+            return true;
+        }
+
+        return false;
+    }
+
+    private static int toTile(float coordinate) {
+        return Math.round(coordinate / MapLoader.TILE_WIDTH);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public SteerableEntity get(EntityId entityId) {
+        return steerablesByEntityId.get(entityId);
+    }
+
+    /**
+     * Get the slot of the given entity
+     *
+     * @param entityId the entity
+     * @return the slot, or -1 if the entity is not moving
+     */
+    public int indexOf(EntityId entityId) {
+        SteerableEntity steerableEntity = steerablesByEntityId.get(entityId);
+        if (steerableEntity == null) {
+            return -1;
+        }
+
+        return steerableEntity.getIndex();
+    }
+
+    public int getIndex(SteerableEntity steerableEntity) {
+        return steerableEntity.getIndex();
+    }
+
+    public EntityId getEntityId(int index) {
+        return steerables[index].getEntityId();
+    }
+
+    public boolean isArrived(int index) {
+        return arrived[index];
+    }
+
+    public float getPositionX(int index) {
+        return positionX[index];
+    }
+
+    public float getPositionY(int index) {
+        return positionY[index];
+    }
+
+    public float getOrientation(int index) {
+        return orientation[index];
+    }
+
+    public void clear() {
+        Arrays.fill(steerables, 0, size, null);
+        Arrays.fill(steeringBehaviors, 0, size, null);
+        steerablesByEntityId.clear();
+        size = 0;
+    }
+
+}
@@ -23,81 +23,78 @@ import toniarts.openkeeper.world.creature.steering.CreatureLocation;
 
 /**
  * Simple steerable entity. For saving games etc. I would perhaps store this
- * data in an entity component still. This would manage the updating still.
+ * data in an entity component still. This would manage the updating still.<br>
+ * The state itself lives in the packed arrays of {@link SteerableEntities},
+ * this is just a view to it for the steering behaviors. The vectors returned
+ * are refreshed on every call, modifying them has no effect.
  *
  * @author Toni Helenius <helenius.toni@gmail.com>
  */
 public class SteerableEntity implements ISteerableEntity {
 
     private final EntityId entityId;
+    private final SteerableEntities steerableEntities;
+    private int index;
     private final Vector2 position = new Vector2();
-    private float orientation = 0;
     private final Vector2 linearVelocity = new Vector2();
-    private float angularVelocity;
-    private boolean tagged;
-    private float maxLinearSpeed = 1;
-    private float maxLinearAcceleration = 2;
-    private float maxAngularSpeed = 10.0f;
-    private float maxAngularAcceleration = 20.0f;
-    private float zeroLinearSpeedThreshold = 0.01f;
-    private final float boundingRadius;
-
-    public SteerableEntity(EntityId entityId, float maxSpeed, float boundingRadius, float xPos, float yPos, float orientation) {
+
+    SteerableEntity(EntityId entityId, SteerableEntities steerableEntities, int index) {
         this.entityId = entityId;
-        this.boundingRadius = boundingRadius;
-        this.maxLinearSpeed = maxSpeed;
-        // FIXME how calculate acceleration? mass & maxLinearSpeed?
-        this.maxLinearAcceleration = maxLinearSpeed * 4;
-        // FIXME how calculate zero linear speed threshold?
-        //zeroLinearSpeedThreshold = maxLinearSpeed / 3;
-        this.position.x = xPos;
-        this.position.y = yPos;
-        this.orientation = orientation;
+        this.steerableEntities = steerableEntities;
+        this.index = index;
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
     }
 
     @Override
     public Vector2 getPosition() {
-        return position;
+        return position.set(steerableEntities.positionX[index], steerableEntities.positionY[index]);
     }
 
     @Override
     public float getOrientation() {
-        return orientation;
+        return steerableEntities.orientation[index];
     }
 
     @Override
     public void setOrientation(float orientation) {
-        this.orientation = orientation;
+        steerableEntities.orientation[index] = orientation;
     }
 
     @Override
     public Vector2 getLinearVelocity() {
-        return linearVelocity;
+        return linearVelocity.set(steerableEntities.velocityX[index], steerableEntities.velocityY[index]);
     }
 
     @Override
     public float getAngularVelocity() {
-        return angularVelocity;
+        return steerableEntities.angularVelocity[index];
     }
 
     @Override
     public void setAngularVelocity(float angularVelocity) {
-        this.angularVelocity = angularVelocity;
+        steerableEntities.angularVelocity[index] = angularVelocity;
     }
 
     @Override
     public float getBoundingRadius() {
-        return boundingRadius;
+        return steerableEntities.boundingRadius[index];
     }
 
     @Override
     public boolean isTagged() {
-        return tagged;
+        return steerableEntities.tagged[index];
     }
 
     @Override
     public void setTagged(boolean tagged) {
-        this.tagged = tagged;
+        steerableEntities.tagged[index] = tagged;
     }
 
     @Override
@@ -117,52 +114,52 @@ public class SteerableEntity implements ISteerableEntity {
 
     @Override
     public float getMaxLinearSpeed() {
-        return maxLinearSpeed;
+        return steerableEntities.maxLinearSpeed[index];
     }
 
     @Override
     public void setMaxLinearSpeed(float maxLinearSpeed) {
-        this.maxLinearSpeed = maxLinearSpeed;
+        steerableEntities.maxLinearSpeed[index] = maxLinearSpeed;
     }
 
     @Override
     public float getMaxLinearAcceleration() {
-        return maxLinearAcceleration;
+        return steerableEntities.maxLinearAcceleration[index];
     }
 
     @Override
     public void setMaxLinearAcceleration(float maxLinearAcceleration) {
-        this.maxLinearAcceleration = maxLinearAcceleration;
+        steerableEntities.maxLinearAcceleration[index] = maxLinearAcceleration;
     }
 
     @Override
     public float getMaxAngularSpeed() {
-        return maxAngularSpeed;
+        return steerableEntities.maxAngularSpeed[index];
     }
 
     @Override
     public void setMaxAngularSpeed(float maxAngularSpeed) {
-        this.maxAngularSpeed = maxAngularSpeed;
+        steerableEntities.maxAngularSpeed[index] = maxAngularSpeed;
     }
 
     @Override
     public float getMaxAngularAcceleration() {
-        return maxAngularAcceleration;
+        return steerableEntities.maxAngularAcceleration[index];
     }
 
     @Override
     public void setMaxAngularAcceleration(float maxAngularAcceleration) {
-        this.maxAngularAcceleration = maxAngularAcceleration;
+        steerableEntities.maxAngularAcceleration[index] = maxAngularAcceleration;
     }
 
     @Override
     public float getZeroLinearSpeedThreshold() {
-        return zeroLinearSpeedThreshold;
+        return steerableEntities.zeroLinearSpeedThreshold[index];
     }
 
     @Override
     public void setZeroLinearSpeedThreshold(float value) {
-        this.zeroLinearSpeedThreshold = value;
+        steerableEntities.zeroLinearSpeedThreshold[index] = value;
     }
 
     @Override
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.game.navigation.steering;
+
+import com.badlogic.gdx.ai.steer.Steerable;
+import com.badlogic.gdx.ai.utils.Location;
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Read only copy of a steerable entity state, reported as a neighbour by
+ * {@link TileProximity}. Each proximity has its own copies, so the steering
+ * behaviors running on different threads never touch the same objects.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+final class SteerableSnapshot implements Steerable<Vector2> {
+
+    private final Vector2 position = new Vector2();
+    private final Vector2 linearVelocity = new Vector2();
+    private float orientation;
+    private float angularVelocity;
+    private float boundingRadius;
+    private float maxLinearSpeed;
+    private float maxLinearAcceleration;
+    private float maxAngularSpeed;
+    private float maxAngularAcceleration;
+    private float zeroLinearSpeedThreshold;
+    private boolean tagged;
+
+    void set(SteerableEntities steerableEntities, int index) {
+        position.set(steerableEntities.positionX[index], steerableEntities.positionY[index]);
+        linearVelocity.set(steerableEntities.velocityX[index], steerableEntities.velocityY[index]);
+        orientation = steerableEntities.orientation[index];
+        angularVelocity = steerableEntities.angularVelocity[index];
+        boundingRadius = steerableEntities.boundingRadius[index];
+        maxLinearSpeed = steerableEntities.maxLinearSpeed[index];
+        maxLinearAcceleration = steerableEntities.maxLinearAcceleration[index];
+        maxAngularSpeed = steerableEntities.maxAngularSpeed[index];
+        maxAngularAcceleration = steerableEntities.maxAngularAcceleration[index];
+        zeroLinearSpeedThreshold = steerableEntities.zeroLinearSpeedThreshold[index];
+        tagged = false;
+    }
+
+    @Override
+    public Vector2 getLinearVelocity() {
+        return linearVelocity;
+    }
+
+    @Override
+    public float getAngularVelocity() {
+        return angularVelocity;
+    }
+
+    @Override
+    public float getBoundingRadius() {
+        return boundingRadius;
+    }
+
+    @Override
+    public boolean isTagged() {
+        return tagged;
+    }
+
+    @Override
+    public void setTagged(boolean tagged) {
+        this.tagged = tagged;
+    }
+
+    @Override
+    public Vector2 getPosition() {
+        return position;
+    }
+
+    @Override
+    public float getOrientation() {
+        return orientation;
+    }
+
+    @Override
+    public void setOrientation(float orientation) {
+        this.orientation = orientation;
+    }
+
+    @Override
+    public float vectorToAngle(Vector2 vector) {
+        return SteeringUtils.calculateVectorToAngle(vector);
+    }
+
+    @Override
+    public Vector2 angleToVector(Vector2 outVector, float angle) {
+        return SteeringUtils.calculateAngleToVector(outVector, angle);
+    }
+
+    @Override
+    public Location<Vector2> newLocation() {
+        return new TargetLocation(orientation);
+    }
+
+    @Override
+    public float getZeroLinearSpeedThreshold() {
+        return zeroLinearSpeedThreshold;
+    }
+
+    @Override
+    public void setZeroLinearSpeedThreshold(float value) {
+        this.zeroLinearSpeedThreshold = value;
+    }
+
+    @Override
+    public float getMaxLinearSpeed() {
+        return maxLinearSpeed;
+    }
+
+    @Override
+    public void setMaxLinearSpeed(float maxLinearSpeed) {
+        this.maxLinearSpeed = maxLinearSpeed;
+    }
+
+    @Override
+    public float getMaxLinearAcceleration() {
+        return maxLinearAcceleration;
+    }
+
+    @Override
+    public void setMaxLinearAcceleration(float maxLinearAcceleration) {
+        this.maxLinearAcceleration = maxLinearAcceleration;
+    }
+
+    @Override
+    public float getMaxAngularSpeed() {
+        return maxAngularSpeed;
+    }
+
+    @Override
+    public void setMaxAngularSpeed(float maxAngularSpeed) {
+        this.maxAngularSpeed = maxAngularSpeed;
+    }
+
+    @Override
+    public float getMaxAngularAcceleration() {
+        return maxAngularAcceleration;
+    }
+
+    @Override
+    public void setMaxAngularAcceleration(float maxAngularAcceleration) {
+        this.maxAngularAcceleration = maxAngularAcceleration;
+    }
+
+}
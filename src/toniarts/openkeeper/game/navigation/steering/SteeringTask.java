@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.game.navigation.steering;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork-join task that runs either the steering calculation or the integration
+ * over a range of steerable entities. The range is split in half until it is
+ * small enough. Each slot is only ever written by the task owning it, so the
+ * result does not depend on how the work gets scheduled.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+class SteeringTask extends RecursiveAction {
+
+    private final SteerableEntities steerableEntities;
+    private final int start;
+    private final int end;
+    private final int chunkSize;
+    private final boolean integrate;
+    private final float tpf;
+
+    /**
+     * Creates a steering calculation task
+     */
+    SteeringTask(SteerableEntities steerableEntities, int start, int end, int chunkSize) {
+        this(steerableEntities, start, end, chunkSize, false, 0);
+    }
+
+    /**
+     * Creates an integration task
+     */
+    SteeringTask(SteerableEntities steerableEntities, int start, int end, int chunkSize, float tpf) {
+        this(steerableEntities, start, end, chunkSize, true, tpf);
+    }
+
+    private SteeringTask(SteerableEntities steerableEntities, int start, int end, int chunkSize, boolean integrate, float tpf) {
+        this.steerableEntities = steerableEntities;
+        this.start = start;
+        this.end = end;
+        this.chunkSize = chunkSize;
+        this.integrate = integrate;
+        this.tpf = tpf;
+    }
+
+    @Override
+    protected void compute() {
+        if (end - start <= chunkSize) {
+            if (integrate) {
+                steerableEntities.integrate(start, end, tpf);
+            } else {
+                steerableEntities.calculateSteering(start, end);
+            }
+            return;
+        }
+
+        int middle = (start + end) >>> 1;
+        invokeAll(new SteeringTask(steerableEntities, start, middle, chunkSize, integrate, tpf),
+                new SteeringTask(steerableEntities, middle, end, chunkSize, integrate, tpf));
+    }
+
+}
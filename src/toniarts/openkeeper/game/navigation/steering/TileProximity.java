@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.game.navigation.steering;
+
+import com.badlogic.gdx.ai.steer.Proximity;
+import com.badlogic.gdx.ai.steer.Steerable;
+import com.badlogic.gdx.math.Vector2;
+import com.simsilica.es.EntityId;
+import java.util.ArrayList;
+import java.util.List;
+import toniarts.openkeeper.game.logic.IEntityPositionLookup;
+import toniarts.openkeeper.world.MapLoader;
+
+/**
+ * Proximity that finds the neighbours from the tile buckets of the entity
+ * position lookup. Only the 3x3 tile block around the owner is checked, so
+ * there is no need to go through all the entities. Only other moving entities
+ * are reported.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class TileProximity implements Proximity<Vector2> {
+
+    private ISteerableEntity owner;
+    private final SteerableEntities steerableEntities;
+    private final IEntityPositionLookup entityPositionLookup;
+    private final List<EntityId> entitiesInRange = new ArrayList<>();
+    private final List<SteerableSnapshot> neighbors = new ArrayList<>();
+
+    public TileProximity(ISteerableEntity owner, SteerableEntities steerableEntities, IEntityPositionLookup entityPositionLookup) {
+        this.owner = owner;
+        this.steerableEntities = steerableEntities;
+        this.entityPositionLookup = entityPositionLookup;
+    }
+
+    @Override
+    public Steerable<Vector2> getOwner() {
+        return owner;
+    }
+
+    @Override
+    public void setOwner(Steerable<Vector2> owner) {
+        this.owner = (ISteerableEntity) owner;
+    }
+
+    @Override
+    public int findNeighbors(ProximityCallback<Vector2> callback) {
+        Vector2 position = owner.getPosition();
+        int x = Math.round(position.x / MapLoader.TILE_WIDTH);
+        int y = Math.round(position.y / MapLoader.TILE_WIDTH);
+
+        entitiesInRange.clear();
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                entityPositionLookup.getEntitiesInLocation(x + dx, y + dy, entitiesInRange);
+            }
+        }
+
+        int neighborCount = 0;
+        int snapshotCount = 0;
+        for (int i = 0; i < entitiesInRange.size(); i++) {
+            EntityId entityId = entitiesInRange.get(i);
+
+            // Skip us
+            if (entityId.equals(owner.getEntityId())) {
+                continue;
+            }
+
+            int index = steerableEntities.indexOf(entityId);
+            if (index < 0) {
+                continue;
+            }
+
+            if (snapshotCount == neighbors.size()) {
+                neighbors.add(new SteerableSnapshot());
+            }
+            SteerableSnapshot neighbor = neighbors.get(snapshotCount++);
+            neighbor.set(steerableEntities, index);
+            if (callback.reportNeighbor(neighbor)) {
+                neighborCount++;
+            }
+        }
+
+        return neighborCount;
+    }
+
+}
@@ -0,0 +1,455 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.game.sound;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.audio.AudioData;
+import com.jme3.audio.AudioNode;
+import com.jme3.audio.AudioSource;
+import com.jme3.math.Vector3f;
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import toniarts.openkeeper.tools.convert.AssetsConverter;
+import toniarts.openkeeper.tools.modelviewer.SoundsLoader;
+import toniarts.openkeeper.utils.Utils;
+
+/**
+ * Plays the game sound effects with a fixed budget of voices. The sound
+ * events can be sent from any thread, they are collected and mixed once per
+ * frame in the render thread, where also the sound groups are resolved:
+ * <ul>
+ * <li>Events of the same sound group close to a voice that just started are
+ * merged to it, dozens of imps digging sound like a few</li>
+ * <li>Positional events too far from the camera are dropped</li>
+ * <li>The rest are ranked by priority and distance, and played if there is a
+ * free voice, both in total and for the sound group. Otherwise a lower ranked
+ * voice is stopped or the event is dropped</li>
+ * </ul>
+ * The audio nodes are pooled per sound file and reused, and only a few new
+ * ones are loaded per frame.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class SoundMixer {
+
+    /**
+     * Sound priority, the weight when ranking the events against each other
+     */
+    public enum Priority {
+
+        LOW(1f),
+        NORMAL(2f),
+        HIGH(4f);
+
+        private final float weight;
+
+        private Priority(float weight) {
+            this.weight = weight;
+        }
+
+        public float getWeight() {
+            return weight;
+        }
+    }
+
+    public static final int MAX_VOICES = 16;
+    public static final int MAX_GROUP_VOICES = 3;
+    /**
+     * Positional sounds further away from the camera than this are not played
+     */
+    public static final float MAX_DISTANCE = 40f;
+    /**
+     * The distance where the positional sounds start to fade
+     */
+    public static final float REF_DISTANCE = 5f;
+    /**
+     * Events closer than this to a voice of the same group are merged to it
+     */
+    public static final float MERGE_DISTANCE = 3f;
+    /**
+     * Events are merged to voices younger than this, in seconds
+     */
+    public static final float MERGE_TIME = 0.25f;
+    private static final int MAX_EVENTS_PER_FRAME = 64;
+    private static final int MAX_LOADS_PER_FRAME = 4;
+    private static final int MAX_POOLED_NODES = MAX_GROUP_VOICES + 1;
+    private static final Logger LOGGER = Logger.getLogger(SoundMixer.class.getName());
+
+    private final AssetManager assetManager;
+    private final Queue<Event> events = new ConcurrentLinkedQueue<>();
+    private final List<Event> batch = new ArrayList<>(MAX_EVENTS_PER_FRAME);
+    private final List<Voice> voices = new ArrayList<>(MAX_VOICES);
+    private final Map<String, Deque<AudioNode>> pool = new HashMap<>();
+    private volatile boolean paused = false;
+    private float volume = 1f;
+    private int loads;
+    private int played;
+    private int merged;
+    private int dropped;
+    private int stolen;
+
+    public SoundMixer(AssetManager assetManager) {
+        this.assetManager = assetManager;
+    }
+
+    /**
+     * Play a random sound from the sound group. The group is looked up on the
+     * next update.
+     *
+     * @param soundCategory the sound category
+     * @param groupId the sound group ID in the category
+     * @param position the position, {@code null} for a non-positional sound
+     * @param priority the sound priority
+     */
+    public void play(String soundCategory, int groupId, @Nullable Vector3f position, Priority priority) {
+        if (!paused) {
+            events.add(new Event(soundCategory, groupId, position != null ? position.clone() : null, priority));
+        }
+    }
+
+    /**
+     * Play a single sound file
+     *
+     * @param file the sound asset
+     * @param position the position, {@code null} for a non-positional sound
+     * @param priority the sound priority
+     */
+    public void play(String file, @Nullable Vector3f position, Priority priority) {
+        play(file, file, position, priority);
+    }
+
+    private void play(String group, String file, @Nullable Vector3f position, Priority priority) {
+        if (!paused) {
+            events.add(new Event(group, file, position != null ? position.clone() : null, priority));
+        }
+    }
+
+    /**
+     * Mix the sound events sent since the last update
+     *
+     * @param tpf time per frame
+     * @param listener the camera location
+     */
+    public void update(float tpf, Vector3f listener) {
+
+        // Release the voices that have finished
+        Iterator<Voice> iter = voices.iterator();
+        while (iter.hasNext()) {
+            Voice voice = iter.next();
+            if (voice.node.getStatus() == AudioSource.Status.Stopped) {
+                iter.remove();
+                release(voice);
+            } else {
+                voice.age += tpf;
+                voice.score = getScore(voice.position, voice.priority, listener);
+            }
+        }
+
+        // Collect & rank the events, the best first
+        Event event;
+        while ((event = events.poll()) != null) {
+            if (event.file == null && !resolve(event)) {
+                dropped++;
+                continue;
+            }
+            event.score = getScore(event.position, event.priority, listener);
+            if (batch.size() >= MAX_EVENTS_PER_FRAME || event.score <= 0) {
+                dropped++;
+            } else {
+                batch.add(event);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        batch.sort((e1, e2) -> Float.compare(e2.score, e1.score));
+
+        loads = 0;
+        for (Event e : batch) {
+            if (merge(e)) {
+                merged++;
+                continue;
+            }
+
+            // Find a voice
+            Voice victim = null;
+            if (getVoiceCount(e.group) >= MAX_GROUP_VOICES) {
+                victim = getLowestVoice(e.group);
+            } else if (voices.size() >= MAX_VOICES) {
+                victim = getLowestVoice(null);
+            }
+            if (victim != null) {
+                if (victim.score >= e.score) {
+                    dropped++;
+                    continue;
+                }
+                voices.remove(victim);
+                release(victim);
+                stolen++;
+            }
+
+            AudioNode node = obtain(e.file);
+            if (node == null) {
+                dropped++;
+                continue;
+            }
+            start(node, e);
+        }
+        batch.clear();
+    }
+
+    /**
+     * Pick the sound file for an event sent with a sound group. The sound
+     * categories are loaded and cached here, in the render thread
+     *
+     * @param event the event
+     * @return {@code false} if there is no sound to play
+     */
+    private static boolean resolve(Event event) {
+        SoundCategory sc = SoundsLoader.load(event.category);
+        SoundGroup group = (sc != null ? sc.getGroup(event.groupId) : null);
+        if (group == null) {
+            LOGGER.log(Level.WARNING, "Sound group {0} not found in category {1}", new Object[]{event.groupId, event.category});
+            return false;
+        }
+
+        SoundFile file = Utils.getRandomItem(group.getFiles());
+        if (file == null) {
+            return false;
+        }
+        event.group = group.getCategory().getName() + "/" + group.getId();
+        event.file = AssetsConverter.SOUNDS_FOLDER + File.separator + file.getFilename();
+        return true;
+    }
+
+    private boolean merge(Event event) {
+        for (Voice voice : voices) {
+            if (voice.group.equals(event.group) && voice.age < MERGE_TIME
+                    && (voice.position == null ? event.position == null
+                            : event.position != null && voice.position.distanceSquared(event.position) < MERGE_DISTANCE * MERGE_DISTANCE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int getVoiceCount(String group) {
+        int count = 0;
+        for (Voice voice : voices) {
+            if (voice.group.equals(group)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Nullable
+    private Voice getLowestVoice(@Nullable String group) {
+        Voice result = null;
+        for (Voice voice : voices) {
+            if ((group == null || voice.group.equals(group)) && (result == null || voice.score < result.score)) {
+                result = voice;
+            }
+        }
+        return result;
+    }
+
+    private static float getScore(@Nullable Vector3f position, Priority priority, Vector3f listener) {
+        if (position == null) {
+            return priority.getWeight();
+        }
+
+        float distance = position.distance(listener);
+        if (distance > MAX_DISTANCE) {
+            return 0;
+        }
+        return priority.getWeight() / (1 + distance / REF_DISTANCE);
+    }
+
+    @Nullable
+    private AudioNode obtain(String file) {
+        Deque<AudioNode> nodes = pool.get(file);
+        if (nodes != null && !nodes.isEmpty()) {
+            return nodes.poll();
+        }
+
+        // Only load so many new sounds per frame
+        if (loads >= MAX_LOADS_PER_FRAME) {
+            return null;
+        }
+        loads++;
+        try {
+            AudioNode node = new AudioNode(assetManager, file, AudioData.DataType.Buffer);
+            node.setLooping(false);
+            node.setReverbEnabled(false);
+            node.setRefDistance(REF_DISTANCE);
+            node.setMaxDistance(MAX_DISTANCE);
+            return node;
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to load sound " + file + "!", e);
+            return null;
+        }
+    }
+
+    private void start(AudioNode node, Event event) {
+
+        // Only mono sounds can be positional
+        Vector3f position = event.position;
+        if (position != null && node.getAudioData().getChannels() > 1) {
+            position = null;
+        }
+        node.setPositional(position != null);
+        if (position != null) {
+            node.setLocalTranslation(position);
+
+            // The nodes are not in the scene graph
+            node.updateGeometricState();
+        }
+        node.setVolume(volume);
+        node.play();
+
+        voices.add(new Voice(node, event.group, event.file, position, event.priority, event.score));
+        played++;
+    }
+
+    private void release(Voice voice) {
+        if (voice.node.getStatus() != AudioSource.Status.Stopped) {
+            voice.node.stop();
+        }
+
+        Deque<AudioNode> nodes = pool.computeIfAbsent(voice.file, (file) -> new ArrayDeque<>(MAX_POOLED_NODES));
+        if (nodes.size() < MAX_POOLED_NODES) {
+            nodes.add(voice.node);
+        }
+    }
+
+    /**
+     * Pause or resume all the playing sounds. Sound events are ignored while
+     * paused.
+     *
+     * @param paused paused
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+        for (Voice voice : voices) {
+            if (paused && voice.node.getStatus() == AudioSource.Status.Playing) {
+                voice.node.pause();
+            } else if (!paused && voice.node.getStatus() == AudioSource.Status.Paused) {
+                voice.node.play();
+            }
+        }
+    }
+
+    /**
+     * Set the volume of the new sounds
+     *
+     * @param volume the volume
+     */
+    public void setVolume(float volume) {
+        this.volume = volume;
+    }
+
+    /**
+     * Stop all the sounds and empty the pool
+     */
+    public void clear() {
+        for (Voice voice : voices) {
+            voice.node.stop();
+        }
+        voices.clear();
+        events.clear();
+        pool.clear();
+    }
+
+    /**
+     * Get the mixer statistics for debugging
+     *
+     * @return the statistics as text
+     */
+    public String getStatistics() {
+        int pooledNodes = 0;
+        for (Deque<AudioNode> nodes : pool.values()) {
+            pooledNodes += nodes.size();
+        }
+        return voices.size() + "/" + MAX_VOICES + " voices, " + pooledNodes + " pooled, " + played + " played, "
+                + merged + " merged, " + dropped + " dropped, " + stolen + " stolen";
+    }
+
+    /**
+     * A sound event waiting to be mixed
+     */
+    private static class Event {
+
+        private final String category;
+        private final int groupId;
+        private String group;
+        private String file;
+        private final Vector3f position;
+        private final Priority priority;
+        private float score;
+
+        public Event(String group, String file, Vector3f position, Priority priority) {
+            this.category = null;
+            this.groupId = 0;
+            this.group = group;
+            this.file = file;
+            this.position = position;
+            this.priority = priority;
+        }
+
+        public Event(String category, int groupId, Vector3f position, Priority priority) {
+            this.category = category;
+            this.groupId = groupId;
+            this.position = position;
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * A playing sound
+     */
+    private static class Voice {
+
+        private final AudioNode node;
+        private final String group;
+        private final String file;
+        private final Vector3f position;
+        private final Priority priority;
+        private float score;
+        private float age;
+
+        public Voice(AudioNode node, String group, String file, Vector3f position, Priority priority, float score) {
+            this.node = node;
+            this.group = group;
+            this.file = file;
+            this.position = position;
+            this.priority = priority;
+            this.score = score;
+        }
+    }
+}
@@ -17,8 +17,6 @@
 package toniarts.openkeeper.game.state;
 
 import com.jme3.app.Application;
-import com.jme3.audio.AudioData.DataType;
-import com.jme3.audio.AudioNode;
 import com.jme3.input.RawInputListener;
 import com.jme3.input.event.JoyAxisEvent;
 import com.jme3.input.event.JoyButtonEvent;
@@ -29,6 +27,7 @@ import com.jme3.input.event.TouchEvent;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nonnull;
+import toniarts.openkeeper.game.sound.SoundMixer;
 
 /**
  * State for handling cheats
@@ -88,10 +87,7 @@ public abstract class CheatState extends AbstractPauseAwareState implements RawI
 
     private void playSound(boolean enabled) {
         String file = String.format("Sounds/Global/MistressHW/ms_1ft0%s.mp2", enabled ? "1" : "2");
-        AudioNode sound = new AudioNode(app.getAssetManager(), file, DataType.Buffer);
-        sound.setLooping(false);
-        sound.setPositional(false);
-        sound.play();
+        app.getStateManager().getState(SoundState.class).playSound(file, null, SoundMixer.Priority.HIGH);
     }
 
     @Override
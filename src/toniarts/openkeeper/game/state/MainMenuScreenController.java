@@ -1246,7 +1246,7 @@ public class MainMenuScreenController implements IMainMenuScreenController {
                         ((Level) state.selectedLevel).getLevel());
                 state.levelBriefing = new AudioNode(state.assetManager,
                         ConversionUtils.getCanonicalAssetKey(speech),
-                        AudioData.DataType.Buffer);
+                        AudioData.DataType.Stream);
                 state.levelBriefing.setLooping(false);
                 state.levelBriefing.setDirectional(false);
                 state.levelBriefing.setPositional(false);
@@ -21,18 +21,22 @@ import com.jme3.app.state.AppStateManager;
 import com.jme3.audio.AudioData.DataType;
 import com.jme3.audio.AudioNode;
 import com.jme3.audio.AudioSource;
+import com.jme3.math.Vector3f;
 import java.io.File;
 import java.util.ArrayDeque;
 import java.util.Iterator;
 import java.util.Queue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 import toniarts.openkeeper.Main;
+import toniarts.openkeeper.audio.plugins.MP2Loader;
 import toniarts.openkeeper.game.data.Settings;
 import toniarts.openkeeper.game.sound.MentorType;
 import toniarts.openkeeper.game.sound.SoundCategory;
 import toniarts.openkeeper.game.sound.SoundFile;
 import toniarts.openkeeper.game.sound.SoundGroup;
+import toniarts.openkeeper.game.sound.SoundMixer;
 import toniarts.openkeeper.tools.convert.AssetsConverter;
 import toniarts.openkeeper.tools.convert.map.KwdFile;
 import toniarts.openkeeper.tools.modelviewer.SoundsLoader;
@@ -65,6 +69,7 @@ public class SoundState extends AbstractPauseAwareState {
     private AppStateManager stateManager;
     private AudioNode speechNode = null;
     private AudioNode backgroundNode = null;
+    private SoundMixer soundMixer;
     private KwdFile kwdFile;
 
     /**
@@ -85,6 +90,15 @@ public class SoundState extends AbstractPauseAwareState {
 
         this.app = (Main) app;
         this.stateManager = stateManager;
+        soundMixer = new SoundMixer(app.getAssetManager());
+        soundMixer.setPaused(!isEnabled());
+    }
+
+    @Override
+    public void cleanup() {
+        soundMixer.clear();
+
+        super.cleanup();
     }
 
     @Override
@@ -113,6 +127,8 @@ public class SoundState extends AbstractPauseAwareState {
                         backgroundNode.pause();
                     }
                 }
+
+                soundMixer.setPaused(!enabled);
             });
         }
     }
@@ -172,7 +188,9 @@ public class SoundState extends AbstractPauseAwareState {
     }
 
     private void playSpeech(Speech speech) {
-        speechNode = new AudioNode(app.getAssetManager(), speech.file, DataType.Buffer);
+
+        // Long speeches are streamed, the short ones may come from the decoded sound cache
+        speechNode = new AudioNode(app.getAssetManager(), speech.file, MP2Loader.getDataType(speech.file));
         if (speechNode == null) {
             LOGGER.log(Level.WARNING, "Audio file {0} not found", speech.file);
             return;
@@ -198,6 +216,52 @@ public class SoundState extends AbstractPauseAwareState {
         });
     }
 
+    /**
+     * Plays a sound effect from a sound group. The sounds are mixed with a
+     * limited number of voices, so the sound might not be played if there are
+     * more important sounds playing.
+     *
+     * @param soundCategory the sound category
+     * @param groupId the sound group ID in the category
+     * @param position the position in the world, {@code null} for a
+     * non-positional sound
+     * @param priority the sound priority
+     */
+    public void playSound(String soundCategory, int groupId, @Nullable Vector3f position, SoundMixer.Priority priority) {
+        if (soundMixer == null || !Main.getUserSettings().getBoolean(Settings.Setting.SFX_ENABLED)) {
+            return;
+        }
+
+        soundMixer.play(soundCategory, groupId, position, priority);
+    }
+
+    /**
+     * Plays a sound effect file. The sounds are mixed with a limited number of
+     * voices, so the sound might not be played if there are more important
+     * sounds playing.
+     *
+     * @param file the sound asset
+     * @param position the position in the world, {@code null} for a
+     * non-positional sound
+     * @param priority the sound priority
+     */
+    public void playSound(String file, @Nullable Vector3f position, SoundMixer.Priority priority) {
+        if (soundMixer == null || !Main.getUserSettings().getBoolean(Settings.Setting.SFX_ENABLED)) {
+            return;
+        }
+
+        soundMixer.play(file, position, priority);
+    }
+
+    /**
+     * Get the sound effect mixer statistics for debugging
+     *
+     * @return the statistics as text
+     */
+    public String getSoundStatistics() {
+        return soundMixer != null ? soundMixer.getStatistics() : "";
+    }
+
     private void playBackground() {
         if (!Main.getUserSettings().getBoolean(Settings.Setting.MUSIC_ENABLED)) {
             return;
@@ -205,7 +269,7 @@ public class SoundState extends AbstractPauseAwareState {
 
         String file = AssetsConverter.SOUNDS_FOLDER + File.separator + backgroundState.getNext();
 
-        backgroundNode = new AudioNode(app.getAssetManager(), file, DataType.Buffer);
+        backgroundNode = new AudioNode(app.getAssetManager(), file, DataType.Stream);
         if (backgroundNode == null) {
             LOGGER.log(Level.WARNING, "Audio file {0} not found", file);
             return;
@@ -226,6 +290,10 @@ public class SoundState extends AbstractPauseAwareState {
             return;
         }
 
+        soundMixer.setVolume(Main.getUserSettings().getFloat(Settings.Setting.MASTER_VOLUME)
+                * Main.getUserSettings().getFloat(Settings.Setting.SFX_VOLUME));
+        soundMixer.update(tpf, app.getCamera().getLocation());
+
         if (!speechQueue.isEmpty()) {
             if (speechNode == null || speechNode.getStatus() == AudioSource.Status.Stopped) {
                 playSpeech(speechQueue.poll());
@@ -53,5 +53,6 @@ public abstract class AbstractThingTriggerControl<T> extends PlayerTriggerContro
      */
     protected void setThing(T thingInstance) {
         instanceControl = thingInstance;
+        wakeUp();
     }
 }
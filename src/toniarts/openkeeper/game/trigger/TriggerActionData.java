@@ -16,17 +16,28 @@
  */
 package toniarts.openkeeper.game.trigger;
 
+import java.util.EnumSet;
+import toniarts.openkeeper.game.controller.creature.PartyType;
+import toniarts.openkeeper.tools.convert.map.Creature;
+import toniarts.openkeeper.tools.convert.map.KeeperSpell;
+import toniarts.openkeeper.tools.convert.map.Thing;
 import toniarts.openkeeper.tools.convert.map.TriggerAction;
 
 /**
+ * A compiled trigger action node. Enumerated arguments of the action are
+ * resolved on load.
  *
  * @author ArchDemon
  */
-
-
 public class TriggerActionData extends TriggerData {
 
     private TriggerAction.ActionType actionType;
+    private TriggerAction.MakeType makeType;
+    private EnumSet<TriggerAction.FlagTargetValueActionType> flagTargetValueActionTypes;
+    private EnumSet<Creature.CreatureFlag> creatureFlags;
+    private PartyType partyType;
+    private Thing.HeroParty.Objective objective;
+    private KeeperSpell keeperSpell;
 
     public TriggerActionData() {
         super();
@@ -36,12 +47,8 @@ public class TriggerActionData extends TriggerData {
         super(id);
     }
 
-    public TriggerActionData(int id, TriggerGenericData parent) {
-        super(id, parent);
-    }
-
-    public TriggerActionData(int id, TriggerGenericData parent, TriggerAction.ActionType actionType) {
-        super(id, parent);
+    public TriggerActionData(int id, TriggerAction.ActionType actionType) {
+        super(id);
         this.actionType = actionType;
     }
 
@@ -49,21 +56,86 @@ public class TriggerActionData extends TriggerData {
         return actionType;
     }
 
-    protected void setType(TriggerAction.ActionType actionType) {
+    void setType(TriggerAction.ActionType actionType) {
         this.actionType = actionType;
     }
 
     /**
-     * <code>removeFromParent</code> removes this TriggerActionData from it's parent.
+     * The make type, for the MAKE and FLASH_BUTTON actions
      *
-     * @return true if it has a parent and performed the remove.
+     * @return make type
      */
-    public boolean removeFromParent() {
-        if (parent != null) {
-            parent.detachChild(this);
-            return true;
-        }
-        return false;
+    public TriggerAction.MakeType getMakeType() {
+        return makeType;
+    }
+
+    void setMakeType(TriggerAction.MakeType makeType) {
+        this.makeType = makeType;
+    }
+
+    /**
+     * The flag operation, for the FLAG action
+     *
+     * @return flag operation
+     */
+    public EnumSet<TriggerAction.FlagTargetValueActionType> getFlagTargetValueActionTypes() {
+        return flagTargetValueActionTypes;
+    }
+
+    void setFlagTargetValueActionTypes(EnumSet<TriggerAction.FlagTargetValueActionType> flagTargetValueActionTypes) {
+        this.flagTargetValueActionTypes = flagTargetValueActionTypes;
+    }
+
+    /**
+     * The creature flags, for the CREATE_CREATURE action
+     *
+     * @return creature flags
+     */
+    public EnumSet<Creature.CreatureFlag> getCreatureFlags() {
+        return creatureFlags;
+    }
+
+    void setCreatureFlags(EnumSet<Creature.CreatureFlag> creatureFlags) {
+        this.creatureFlags = creatureFlags;
+    }
+
+    /**
+     * The party type, for the CREATE_HERO_PARTY action
+     *
+     * @return party type
+     */
+    public PartyType getPartyType() {
+        return partyType;
+    }
+
+    void setPartyType(PartyType partyType) {
+        this.partyType = partyType;
+    }
+
+    /**
+     * The hero objective, for the SET_OBJECTIVE action
+     *
+     * @return the objective
+     */
+    public Thing.HeroParty.Objective getObjective() {
+        return objective;
+    }
+
+    void setObjective(Thing.HeroParty.Objective objective) {
+        this.objective = objective;
+    }
+
+    /**
+     * The keeper spell referenced by the MAKE action
+     *
+     * @return the keeper spell
+     */
+    public KeeperSpell getKeeperSpell() {
+        return keeperSpell;
+    }
+
+    void setKeeperSpell(KeeperSpell keeperSpell) {
+        this.keeperSpell = keeperSpell;
     }
 
     @Override
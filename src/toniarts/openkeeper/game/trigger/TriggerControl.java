@@ -30,9 +30,7 @@ import toniarts.openkeeper.game.controller.IPlayerController;
 import toniarts.openkeeper.game.controller.creature.PartyType;
 import toniarts.openkeeper.game.data.ActionPoint;
 import toniarts.openkeeper.game.data.Keeper;
-import toniarts.openkeeper.tools.convert.ConversionUtils;
 import toniarts.openkeeper.tools.convert.map.Creature;
-import toniarts.openkeeper.tools.convert.map.KwdFile;
 import toniarts.openkeeper.tools.convert.map.Player;
 import toniarts.openkeeper.tools.convert.map.TriggerAction;
 import toniarts.openkeeper.tools.convert.map.TriggerAction.FlagTargetValueActionType;
@@ -51,6 +49,27 @@ public class TriggerControl extends Control {
     protected TriggerGenericData trigger;
     protected TriggerGenericData root;
 
+    /**
+     * The runtime state of the program nodes, by node index
+     */
+    private short[] repeatTimes;
+    private int[] lastTriggerIndices;
+    private int[] childCounts;
+    private boolean[] detached;
+
+    /**
+     * Idle tracking, a full pass through the program that didn't do anything
+     * will do nothing on the following passes either until its inputs change
+     */
+    private TriggerInputs triggerInputs;
+    private long[] passVersions;
+    private int passInputs;
+    private boolean passStarted = false;
+    private boolean passEffects = false;
+    private long[] idleVersions;
+    private int idleInputs;
+    private boolean idle = false;
+
     protected ILevelInfo levelInfo;
     protected IGameTimer gameTimer;
     protected IGameController gameController;
@@ -74,55 +93,140 @@ public class TriggerControl extends Control {
         this.mapController = mapController;
         this.creaturesController = creaturesController;
 
-        root = new TriggerLoader(levelInfo.getLevelData()).load(triggerId);
-        if (root == null) {
+        TriggerProgram program = new TriggerLoader(levelInfo.getLevelData()).load(triggerId);
+        if (program == null) {
             throw new IllegalArgumentException("trigger can not be null");
         }
+        root = program.getRoot();
         trigger = root;
+
+        // Initialize the state
+        repeatTimes = new short[program.getSize()];
+        lastTriggerIndices = new int[program.getSize()];
+        childCounts = new int[program.getSize()];
+        detached = new boolean[program.getSize()];
+        triggerInputs = levelInfo.getTriggerInputs();
+        passVersions = TriggerInputs.createSnapshot();
+        idleVersions = TriggerInputs.createSnapshot();
+        for (int i = 0; i < program.getSize(); i++) {
+            TriggerData node = program.getNode(i);
+            lastTriggerIndices[i] = -1;
+            if (node instanceof TriggerGenericData) {
+                repeatTimes[i] = ((TriggerGenericData) node).getRepeatTimes();
+                childCounts[i] = ((TriggerGenericData) node).getQuantity();
+            }
+        }
     }
 
     @Override
     protected void updateControl(float tpf) {
-        TriggerGenericData next = null;
-        trigger.subRepeatTimes();
+        if (idle) {
+            if (!triggerInputs.hasChanged(idleInputs, idleVersions)) {
+                return;
+            }
+            idle = false;
+        }
+
+        // A pass starts when we are at the root and start from its first child
+        if (trigger == root && lastTriggerIndices[root.getIndex()] == -1) {
+            if (passStarted && !passEffects) {
+
+                // Nothing happened on the whole pass, sleep until the inputs change
+                long[] versions = idleVersions;
+                idleVersions = passVersions;
+                passVersions = versions;
+                idleInputs = passInputs;
+                if (!triggerInputs.hasChanged(idleInputs, idleVersions)) {
+                    idle = true;
+                    passStarted = false;
+                    return;
+                }
+            }
+            triggerInputs.getVersions(passVersions);
+            passInputs = 0;
+            passEffects = false;
+            passStarted = true;
+        }
 
-        for (int i = trigger.getLastTriggerIndex() + 1; i < trigger.getQuantity(); i++) {
-            TriggerData value = trigger.getChild(i);
+        TriggerGenericData next = null;
+        subRepeatTimes(trigger);
 
-            if (value == null) {
-                LOGGER.warning("Trigger is null!");
+        TriggerData[] children = trigger.getChildren();
+        for (int i = lastTriggerIndices[trigger.getIndex()] + 1; i < children.length; i++) {
+            TriggerData value = children[i];
+            if (detached[value.getIndex()]) {
+                continue;
+            }
 
-            } else if (value instanceof TriggerGenericData) {
+            if (value instanceof TriggerGenericData) {
 
+                passInputs |= ((TriggerGenericData) value).getInputs();
                 if (next == null && isActive((TriggerGenericData) value)) {
-                    trigger.setLastTrigger((TriggerGenericData) value);
+                    lastTriggerIndices[trigger.getIndex()] = i;
                     next = (TriggerGenericData) value;
                 }
 
-            } else if (value instanceof TriggerActionData) {
+            } else {
 
                 //System.out.println(String.format("%s: %d %s", this.getClass().getSimpleName(), trigger.getId(), trigger.getType()));
+                passEffects = true;
                 doAction((TriggerActionData) value);
-                if (!trigger.isRepeateable()) {
-                    trigger.detachChild(value);
-                    i--;
+                if (!isRepeateable(trigger)) {
+                    detach(value);
                 }
             }
         }
 
-        if (trigger.getQuantity() == 0 && trigger.getParent() != null) {
+        if (childCounts[trigger.getIndex()] == 0 && trigger.getParent() != null) {
             next = trigger.getParent();
-            trigger.detachFromParent();
+            detach(trigger);
         }
 
         if (next == null) {
-            trigger.setLastTrigger(null);
+            lastTriggerIndices[trigger.getIndex()] = -1;
             trigger = (trigger.getParent() != null) ? trigger.getParent() : root;
         } else {
             trigger = next;
         }
     }
 
+    /**
+     * Wakes up the trigger and discards the current pass. Use when the state
+     * the conditions read changes without the change being tracked by the
+     * {@link TriggerInputs}
+     */
+    protected void wakeUp() {
+        idle = false;
+        passStarted = false;
+    }
+
+    private void subRepeatTimes(TriggerGenericData trigger) {
+        short times = repeatTimes[trigger.getIndex()];
+        if (times != 255 && times > 0) {
+            repeatTimes[trigger.getIndex()] = (short) (times - 1);
+        }
+    }
+
+    private boolean isRepeateable(TriggerGenericData trigger) {
+        return repeatTimes[trigger.getIndex()] > 0;
+    }
+
+    /**
+     * Removes a node from the program for the rest of the game. If the parent
+     * was continuing from this node, it starts over.
+     *
+     * @param node the node to detach
+     */
+    private void detach(TriggerData node) {
+        passEffects = true;
+        detached[node.getIndex()] = true;
+        TriggerGenericData parent = node.getParent();
+        childCounts[parent.getIndex()]--;
+        if (lastTriggerIndices[parent.getIndex()] == node.getPosition()) {
+            lastTriggerIndices[parent.getIndex()] = -1;
+        }
+    }
+
     protected boolean isActive(TriggerGenericData trigger) {
         boolean result = false;
 
@@ -132,7 +236,7 @@ public class TriggerControl extends Control {
         TriggerGeneric.TargetType targetType = trigger.getType();
         switch (targetType) {
             case FLAG:
-                short targetId = (Short) trigger.getUserData("targetId");
+                short targetId = trigger.getTargetId();
                 if (targetId == LEVEL_SCORE_FLAG_ID) {
 
                     // A special value, level score
@@ -140,31 +244,31 @@ public class TriggerControl extends Control {
                 } else {
                     target = levelInfo.getFlag(targetId);
                 }
-                if ((Short) trigger.getUserData("flag") == 1) {
-                    value = (Integer) trigger.getUserData("value");
+                if (trigger.isValueFlag()) {
+                    value = trigger.getValue();
                 } else {
-                    value = levelInfo.getFlag((Short) trigger.getUserData("flagId"));
+                    value = levelInfo.getFlag(trigger.getFlagId());
                 }
                 break;
 
             case TIMER:
-                targetId = (short) trigger.getUserData("targetId");
+                targetId = trigger.getTargetId();
                 if (targetId == TIME_LIMIT_TIMER_ID) {
                     target = (levelInfo.getTimeLimit() != null ? levelInfo.getTimeLimit().intValue() : 0);
                 } else {
                     target = (int) levelInfo.getTimer(targetId).getTime();
                 }
 
-                if ((Short) trigger.getUserData("flag") == 1) {
-                    value = (Integer) trigger.getUserData("value");
+                if (trigger.isValueFlag()) {
+                    value = trigger.getValue();
                 } else {
-                    value = (int) Math.floor(levelInfo.getTimer((Short) trigger.getUserData("timerId")).getTime());
+                    value = (int) Math.floor(levelInfo.getTimer(trigger.getTimerId()).getTime());
                 }
                 break;
 
             case LEVEL_TIME:
                 target = (int) Math.floor(gameTimer.getGameTime());
-                value = (Integer) trigger.getUserData("value");
+                value = trigger.getValue();
                 break;
             case LEVEL_CREATURES:
                 return false;
@@ -190,35 +294,32 @@ public class TriggerControl extends Control {
         switch (type) {
 
             case CREATE_CREATURE:
-                short creatureId = trigger.getUserData("creatureId", short.class);
-                short playerId = trigger.getUserData("playerId", short.class);
-                short level = trigger.getUserData("level", short.class);
-                EnumSet<Creature.CreatureFlag> flags = ConversionUtils.parseFlagValue(trigger.getUserData("flag", short.class), Creature.CreatureFlag.class);
-                Point p = new Point(trigger.getUserData("posX", int.class) - 1,
-                        trigger.getUserData("posY", int.class) - 1);
+                short creatureId = trigger.getCreatureId();
+                short playerId = trigger.getPlayerId();
+                short level = trigger.getLevel();
+                EnumSet<Creature.CreatureFlag> flags = trigger.getCreatureFlags();
+                Point p = new Point(trigger.getPosX() - 1,
+                        trigger.getPosY() - 1);
                 // TODO: flags!
                 creaturesController.spawnCreature(creatureId, playerId, level, WorldUtils.pointToVector2f(p), false);
                 break;
 
             case MAKE:
-                TriggerAction.MakeType flag = ConversionUtils.parseEnum(trigger.getUserData("type", short.class),
-                        TriggerAction.MakeType.class);
-                boolean available = trigger.getUserData("available", short.class) != 0;
-                playerId = trigger.getUserData("playerId", short.class);
-                KwdFile kwdFile = levelInfo.getLevelData();
-                short targetId = trigger.getUserData("targetId", short.class);
+                TriggerAction.MakeType flag = trigger.getMakeType();
+                boolean available = trigger.isAvailable();
+                playerId = trigger.getPlayerId();
                 // TODO this
                 switch (flag) {
                     case CREATURE:
-                        getPlayerController(playerId).getCreatureControl().setTypeAvailable(kwdFile.getCreature(targetId), available);
+                        getPlayerController(playerId).getCreatureControl().setTypeAvailable(trigger.getCreature(), available);
                         break;
                     case DOOR:
                         break;
                     case KEEPER_SPELL:
-                        getPlayerController(playerId).getSpellControl().setTypeAvailable(kwdFile.getKeeperSpellById(targetId), available);
+                        getPlayerController(playerId).getSpellControl().setTypeAvailable(trigger.getKeeperSpell(), available);
                         break;
                     case ROOM:
-                        getPlayerController(playerId).getRoomControl().setTypeAvailable(kwdFile.getRoomById(targetId), available);
+                        getPlayerController(playerId).getRoomControl().setTypeAvailable(trigger.getRoom(), available);
                         break;
                     case TRAP:
                         break;
@@ -226,10 +327,9 @@ public class TriggerControl extends Control {
                 break;
 
             case FLAG:
-                short flagId = trigger.getUserData("flagId", short.class);
-                EnumSet<FlagTargetValueActionType> flagType = ConversionUtils.parseFlagValue(trigger.getUserData("flag", short.class),
-                        FlagTargetValueActionType.class);
-                int value = trigger.getUserData("value", int.class);
+                short flagId = trigger.getFlagId();
+                EnumSet<FlagTargetValueActionType> flagType = trigger.getFlagTargetValueActionTypes();
+                int value = trigger.getValue();
                 if (flagType.contains(FlagTargetValueActionType.TARGET)) {
                     value = levelInfo.getFlag(value);
                 }
@@ -243,19 +343,20 @@ public class TriggerControl extends Control {
                 break;
 
             case INITIALIZE_TIMER:
-                short timerId = trigger.getUserData("timerId", short.class);
+                short timerId = trigger.getTimerId();
                 if (timerId == TIME_LIMIT_TIMER_ID) {
-                    value = trigger.getUserData("value", int.class);
+                    value = trigger.getValue();
                     levelInfo.setTimeLimit(value);
                 } else {
                     levelInfo.getTimer(timerId).initialize();
+                    triggerInputs.changed(TriggerInputs.Input.TIME);
                 }
                 break;
 
             case SET_TIME_LIMIT:
-                timerId = trigger.getUserData("timerId", short.class);
+                timerId = trigger.getTimerId();
                 if (timerId == TIME_LIMIT_TIMER_ID) {
-                    value = trigger.getUserData("value", int.class);
+                    value = trigger.getValue();
                     levelInfo.setTimeLimit(value);
                 } else {
                     LOGGER.warning("Only level time limit supported!");
@@ -263,16 +364,16 @@ public class TriggerControl extends Control {
                 break;
 
             case CREATE_HERO_PARTY:
-                ActionPoint ap = levelInfo.getActionPoint(trigger.getUserData("actionPointId", short.class));
-                short partyId = trigger.getUserData("partyId", short.class);
-                PartyType partyType = ConversionUtils.parseEnum(trigger.getUserData("type", short.class), PartyType.class);
+                ActionPoint ap = levelInfo.getActionPoint(trigger.getActionPointId());
+                short partyId = trigger.getPartyId();
+                PartyType partyType = trigger.getPartyType();
                 creaturesController.spawnHeroParty(partyId, partyType, WorldUtils.ActionPointToVector2f(ap));
                 break;
 
             case SET_ALLIANCE:
-                short playerOneId = trigger.getUserData("playerOneId", short.class);
-                short playerTwoId = trigger.getUserData("playerTwoId", short.class);
-                available = trigger.getUserData("available", short.class) == 0; // 0 = Create, !0 = Break
+                short playerOneId = trigger.getPlayerOneId();
+                short playerTwoId = trigger.getPlayerTwoId();
+                available = !trigger.isAvailable(); // 0 = Create, !0 = Break
                 if (available) {
                     gameController.createAlliance(playerOneId, playerTwoId);
                 } else {
@@ -281,44 +382,44 @@ public class TriggerControl extends Control {
                 break;
 
             case ALTER_TERRAIN_TYPE:
-                p = new Point(trigger.getUserData("posX", int.class) - 1,
-                        trigger.getUserData("posY", int.class) - 1);
-                short terrainId = trigger.getUserData("terrainId", short.class);
-                playerId = trigger.getUserData("playerId", short.class);
+                p = new Point(trigger.getPosX() - 1,
+                        trigger.getPosY() - 1);
+                short terrainId = trigger.getTerrainId();
+                playerId = trigger.getPlayerId();
                 mapController.alterTerrain(p, terrainId, playerId);
                 break;
 
             case COLLAPSE_HERO_GATE:
                 // TODO this
-                p = new Point(trigger.getUserData("posX", int.class) - 1,
-                        trigger.getUserData("posY", int.class) - 1);
+                p = new Point(trigger.getPosX() - 1,
+                        trigger.getPosY() - 1);
                 break;
 
             case SET_CREATURE_MOODS:
                 // TODO this
-                available = trigger.getUserData("available", short.class) != 0;
+                available = trigger.isAvailable();
                 break;
 
             case SET_SYSTEM_MESSAGES:
                 // TODO this
-                available = trigger.getUserData("available", short.class) != 0;
+                available = trigger.isAvailable();
                 break;
 
             case CHANGE_ROOM_OWNER:
                 // TODO this
-                playerId = trigger.getUserData("playerId", short.class);
-                p = new Point(trigger.getUserData("posX", int.class) - 1,
-                        trigger.getUserData("posY", int.class) - 1);
+                playerId = trigger.getPlayerId();
+                p = new Point(trigger.getPosX() - 1,
+                        trigger.getPosY() - 1);
                 break;
 
             case SET_SLAPS_LIMIT:
                 // TODO this
-                value = trigger.getUserData("value", int.class); // 0 = Off
+                value = trigger.getValue(); // 0 = Off
                 break;
 
             case SET_TIMER_SPEECH:
                 // TODO this
-                available = trigger.getUserData("available", short.class) != 0;
+                available = trigger.isAvailable();
                 break;
 
             default:
@@ -16,28 +16,77 @@
  */
 package toniarts.openkeeper.game.trigger;
 
-import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import toniarts.openkeeper.tools.convert.map.Creature;
+import toniarts.openkeeper.tools.convert.map.Room;
 
 /**
+ * A compiled trigger node. The arguments of the trigger are resolved to
+ * primitive fields when the trigger program is loaded, and the nodes are not
+ * modified after that. The runtime state lives in the
+ * {@link TriggerControl}.
  *
  * @author ArchDemon
  */
 public abstract class TriggerData {
 
     /**
-     * This TriggerActionData's id.
+     * This TriggerData's id.
      */
     protected final int id;
     /**
-     * TriggerActionData's parent, or null if it has none.
+     * TriggerData's parent, or null if it has none.
      */
     protected transient TriggerGenericData parent;
-    protected Map<String, Number> userData = null;
+
+    /**
+     * Index of this node in the program
+     */
+    private int index;
+
+    /**
+     * Index of this node in the parent's children
+     */
+    private int position;
+
+    // Arguments
+    private short playerId;
+    private short targetId;
+    private short targetType;
+    private short flag;
+    private short flagId;
+    private short timerId;
+    private short creatureId;
+    private short roomId;
+    private short terrainId;
+    private short level;
+    private short type;
+    private short available;
+    private short partyId;
+    private short text;
+    private short introduction;
+    private short playerOneId;
+    private short playerTwoId;
+    private short unknown;
+    private short generatorId;
+    private short objectId;
+    private int value;
+    private int actionPointId;
+    private int angle;
+    private int time;
+    private int pathId;
+    private int posX;
+    private int posY;
+    private int objectiveId;
+    private int speechId;
+    private int textId;
+    private int informationId;
+
+    // Resolved references
+    private Creature creature;
+    private Room room;
+
     private static final Logger LOGGER = Logger.getLogger(TriggerData.class.getName());
 
     public TriggerData() {
@@ -48,15 +97,10 @@ public abstract class TriggerData {
         this.id = id;
     }
 
-    public TriggerData(int id, TriggerGenericData parent) {
-        this(id);
-        this.parent = parent;
-    }
-
     /**
      * Returns the id of this TriggerData.
      *
-     * @return This TriggerActionData's id.
+     * @return This TriggerData's id.
      */
     public int getId() {
         return id;
@@ -73,20 +117,43 @@ public abstract class TriggerData {
     }
 
     /**
-     * Called by {@link TriggerGenericData#attachChildAt(TriggerActionData)} and
-     * * {@link TriggerGenericData#detachChild(TriggerActionData)} - don't call
-     * directly. <code>setParent</code> sets the parent of this
-     * TriggerActionData.
+     * Called by the {@link TriggerLoader} when compiling the program - don't
+     * call directly.
      *
-     * @param parent the parent of this TriggerActionData.
+     * @param parent the parent of this TriggerData.
+     * @param position the index in the parent's children
      */
-    protected void setParent(TriggerGenericData parent) {
+    void setParent(TriggerGenericData parent, int position) {
         this.parent = parent;
+        this.position = position;
+    }
+
+    /**
+     * Get the index of this node in the program, for storing node specific
+     * runtime state
+     *
+     * @return the program index
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
+    /**
+     * Get the index of this node in the parent's children
+     *
+     * @return the position
+     */
+    public int getPosition() {
+        return position;
     }
 
     /**
      * determines if the provided TriggerGenericData is the parent, or parent's
-     * parent, etc. of this TriggerActionData.
+     * parent, etc. of this TriggerData.
      *
      * @param ancestor the ancestor object to look for.
      * @return true if the ancestor is found, false otherwise.
@@ -101,48 +168,275 @@ public abstract class TriggerData {
         }
     }
 
-    public void setUserData(String key, Number data) {
-        if (userData == null) {
-            userData = new HashMap<>();
+    /**
+     * Sets an argument from the raw trigger data. Only used when compiling
+     * the program.
+     *
+     * @param key the argument name
+     * @param data the value
+     */
+    void setArgument(String key, Number data) {
+        switch (key) {
+            case "playerId":
+                playerId = data.shortValue();
+                break;
+            case "targetId":
+                targetId = data.shortValue();
+                break;
+            case "targetType":
+                targetType = data.shortValue();
+                break;
+            case "flag":
+                flag = data.shortValue();
+                break;
+            case "flagId":
+                flagId = data.shortValue();
+                break;
+            case "timerId":
+                timerId = data.shortValue();
+                break;
+            case "creatureId":
+                creatureId = data.shortValue();
+                break;
+            case "roomId":
+                roomId = data.shortValue();
+                break;
+            case "terrainId":
+                terrainId = data.shortValue();
+                break;
+            case "level":
+                level = data.shortValue();
+                break;
+            case "type":
+                type = data.shortValue();
+                break;
+            case "available":
+                available = data.shortValue();
+                break;
+            case "partyId":
+                partyId = data.shortValue();
+                break;
+            case "text":
+                text = data.shortValue();
+                break;
+            case "introduction":
+                introduction = data.shortValue();
+                break;
+            case "playerOneId":
+                playerOneId = data.shortValue();
+                break;
+            case "playerTwoId":
+                playerTwoId = data.shortValue();
+                break;
+            case "unknown":
+                unknown = data.shortValue();
+                break;
+            case "generatorId":
+                generatorId = data.shortValue();
+                break;
+            case "objectId":
+                objectId = data.shortValue();
+                break;
+            case "value":
+                value = data.intValue();
+                break;
+            case "actionPointId":
+                actionPointId = data.intValue();
+                break;
+            case "angle":
+                angle = data.intValue();
+                break;
+            case "time":
+                time = data.intValue();
+                break;
+            case "pathId":
+                pathId = data.intValue();
+                break;
+            case "posX":
+                posX = data.intValue();
+                break;
+            case "posY":
+                posY = data.intValue();
+                break;
+            case "objectiveId":
+                objectiveId = data.intValue();
+                break;
+            case "speechId":
+                speechId = data.intValue();
+                break;
+            case "textId":
+                textId = data.intValue();
+                break;
+            case "informationId":
+                informationId = data.intValue();
+                break;
+            default:
+                LOGGER.log(Level.WARNING, "Unknown trigger argument {0} in trigger {1}!", new Object[]{key, id});
         }
+    }
 
-        if (data == null) {
-            userData.remove(key);
-        } else if (data instanceof Number) {
-            userData.put(key, (Number) data);
-        } else {
-            LOGGER.log(Level.SEVERE, "Unexpected class {0}!", data);
-            throw new RuntimeException("Unexpected class");
-        }
+    void setCreature(Creature creature) {
+        this.creature = creature;
     }
 
-    public <T extends Number> T getUserData(String key) {
-        if (userData == null) {
-            return null;
-        }
+    void setRoom(Room room) {
+        this.room = room;
+    }
 
-        Number s = userData.get(key);
-        return (T) s;
+    public short getPlayerId() {
+        return playerId;
     }
 
-    public <T extends Number> T getUserData(String key, Class<T> dataClass) {
-        return (T) getUserData(key);
+    public short getTargetId() {
+        return targetId;
     }
 
-    public Collection<String> getUserDataKeys() {
-        if (userData != null) {
-            return userData.keySet();
-        }
+    public short getTargetType() {
+        return targetType;
+    }
 
-        return Collections.emptySet();
+    public short getFlag() {
+        return flag;
     }
 
-    public boolean hasUserDataKey(String key) {
-        if (userData != null) {
-            return userData.containsKey(key);
-        }
+    /**
+     * Many of the triggers compare either to a fixed value or to a value of
+     * something else (player, flag, timer)
+     *
+     * @return true if the target is compared to {@link #getValue()}
+     */
+    public boolean isValueFlag() {
+        return flag == 1;
+    }
+
+    public short getFlagId() {
+        return flagId;
+    }
+
+    public short getTimerId() {
+        return timerId;
+    }
+
+    public short getCreatureId() {
+        return creatureId;
+    }
+
+    /**
+     * Get the creature referenced by the creature ID
+     *
+     * @return the creature, or {@code null} if any creature
+     */
+    public Creature getCreature() {
+        return creature;
+    }
+
+    public short getRoomId() {
+        return roomId;
+    }
+
+    /**
+     * Get the room referenced by the room ID
+     *
+     * @return the room, or {@code null} if any room
+     */
+    public Room getRoom() {
+        return room;
+    }
+
+    public short getTerrainId() {
+        return terrainId;
+    }
+
+    public short getLevel() {
+        return level;
+    }
+
+    public short getTypeId() {
+        return type;
+    }
+
+    public short getAvailable() {
+        return available;
+    }
+
+    public boolean isAvailable() {
+        return available != 0;
+    }
+
+    public short getPartyId() {
+        return partyId;
+    }
+
+    public short getText() {
+        return text;
+    }
+
+    public short getIntroduction() {
+        return introduction;
+    }
+
+    public short getPlayerOneId() {
+        return playerOneId;
+    }
+
+    public short getPlayerTwoId() {
+        return playerTwoId;
+    }
+
+    public short getUnknown() {
+        return unknown;
+    }
+
+    public short getGeneratorId() {
+        return generatorId;
+    }
+
+    public short getObjectId() {
+        return objectId;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public int getActionPointId() {
+        return actionPointId;
+    }
+
+    public int getAngle() {
+        return angle;
+    }
+
+    public int getTime() {
+        return time;
+    }
+
+    public int getPathId() {
+        return pathId;
+    }
+
+    public int getPosX() {
+        return posX;
+    }
+
+    public int getPosY() {
+        return posY;
+    }
+
+    public int getObjectiveId() {
+        return objectiveId;
+    }
+
+    public int getSpeechId() {
+        return speechId;
+    }
+
+    public int getTextId() {
+        return textId;
+    }
 
-        return false;
+    public int getInformationId() {
+        return informationId;
     }
 
     @Override
@@ -16,23 +16,23 @@
  */
 package toniarts.openkeeper.game.trigger;
 
-import com.jme3.util.SafeArrayList;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 import toniarts.openkeeper.tools.convert.map.TriggerGeneric;
 
 /**
+ * A compiled trigger condition node. The children are held in a fixed array,
+ * see {@link TriggerControl} for the runtime state handling.
  *
  * @author ArchDemon
  */
 public class TriggerGenericData extends TriggerData {
 
+    private static final TriggerData[] NO_CHILDREN = new TriggerData[0];
+
     private TriggerGeneric.ComparisonType comparison; // Target comparison type
     private TriggerGeneric.TargetType target;
     private short repeatTimes; // Repeat x times, 255 = always
-    private TriggerGenericData lastTrigger = null;
-    private final SafeArrayList<TriggerData> children = new SafeArrayList<>(TriggerData.class);
-    private static final Logger LOGGER = Logger.getLogger(TriggerGenericData.class.getName());
+    private int inputs; // The inputs the condition reads, see TriggerInputs
+    private TriggerData[] children = NO_CHILDREN;
 
     public TriggerGenericData() {
         super();
@@ -51,7 +51,7 @@ public class TriggerGenericData extends TriggerData {
         return comparison;
     }
 
-    protected void setComparison(TriggerGeneric.ComparisonType comparison) {
+    void setComparison(TriggerGeneric.ComparisonType comparison) {
         this.comparison = comparison;
     }
 
@@ -59,62 +59,53 @@ public class TriggerGenericData extends TriggerData {
         return target;
     }
 
-    protected void setType(TriggerGeneric.TargetType target) {
+    void setType(TriggerGeneric.TargetType target) {
         this.target = target;
     }
 
-    protected void setRepeatTimes(short repeatTimes) {
-        this.repeatTimes = repeatTimes;
-    }
-
-    public void subRepeatTimes() {
-        if (repeatTimes != 255 && repeatTimes > 0) {
-            repeatTimes--;
-        }
-    }
-
-    public boolean isRepeateable() {
-        return (repeatTimes > 0);
+    /**
+     * Get the inputs this condition reads
+     *
+     * @return the input mask
+     * @see TriggerInputs#getInputs(TriggerGeneric.TargetType)
+     */
+    public int getInputs() {
+        return inputs;
     }
 
-    public int getLastTriggerIndex() {
-        return children.indexOf(lastTrigger);
+    void setInputs(int inputs) {
+        this.inputs = inputs;
     }
 
-    public void setLastTrigger(TriggerGenericData lastTrigger) {
-        this.lastTrigger = lastTrigger;
+    /**
+     * Get the initial repeat times of this trigger
+     *
+     * @return repeat times, 255 = always
+     */
+    public short getRepeatTimes() {
+        return repeatTimes;
     }
 
     public int getQuantity() {
-        return children.size();
+        return children.length;
     }
 
-    /**
-     * <code>getChild</code> returns the first child found with exactly the
-     * given id (case sensitive.) This method does a depth first recursive
-     * search of all descendants of this node, it will return the first spatial
-     * found with a matching name.
-     *
-     * @param i the id of the child to retrieve. If null, we'll return null.
-     * @return the child if found, or null.
-     */
     public TriggerData getChild(int i) {
-        return children.get(i);
+        return children[i];
     }
 
     /**
-     * Determines if the provided TriggerActionData is contained in the children
-     * map of this TriggerGenericData.
+     * Determines if the provided TriggerData is contained in the children of
+     * this TriggerGenericData or their children.
      *
      * @param trigger the child object to look for.
      * @return true if the object is contained, false otherwise.
      */
     public boolean hasChild(TriggerData trigger) {
-        if (children.contains(trigger)) {
-            return true;
-        }
-
-        for (TriggerData child : children.getArray()) {
+        for (TriggerData child : children) {
+            if (child.equals(trigger)) {
+                return true;
+            }
             if (child instanceof TriggerGenericData && ((TriggerGenericData) child).hasChild(trigger)) {
                 return true;
             }
@@ -124,145 +115,26 @@ public class TriggerGenericData extends TriggerData {
     }
 
     /**
-     * Returns all children to this TriggerGenericData. Note that modifying that
-     * given list is not allowed.
+     * Returns all children of this TriggerGenericData. Note that modifying the
+     * given array is not allowed.
      *
-     * @return a list containing all children to this node
+     * @return an array containing all children of this node
      */
-    public SafeArrayList<TriggerData> getChildren() {
+    public TriggerData[] getChildren() {
         return children;
     }
 
     /**
+     * Called by the {@link TriggerLoader} when compiling the program - don't
+     * call directly.
      *
-     * <code>attachChildAt</code> attaches a child to this node at an index.
-     * This node becomes the child's parent. The current number of children
-     * maintained is returned.
-     * <br>
-     * If the child already had a parent it is detached from that former parent.
-     *
-     * @param child the child to attach to this node.
-     * @param index the index to add to
-     * @return the number of children maintained by this node.
-     * @throws NullPointerException if child is null.
-     */
-    public int attachChildAt(TriggerData child, int index) {
-        if (child == null) {
-            throw new IllegalArgumentException("child cannot be null");
-        }
-
-        if (child.getParent() != this && child != this) {
-            if (child.getParent() != null) {
-                child.getParent().detachChild(child);
-            }
-            child.setParent(this);
-            children.add(index, child);
-
-            if (LOGGER.isLoggable(Level.FINE)) {
-                LOGGER.log(Level.FINE, "Child ({0}) attached to this trigger ({1})",
-                        new Object[]{child.getId(), getId()});
-            }
-        }
-
-        return children.size();
-    }
-
-    /**
-     *
-     * <code>attachChild</code> attaches a child to this TriggerGenericData at
-     * an index. This node becomes the child's parent. The current number of
-     * children maintained is returned.
-     * <br>
-     * If the child already had a parent it is detached from that former parent.
-     *
-     * @param child the child to attach to this TriggerGenericData.
-     * @return the number of children maintained by this TriggerGenericData.
-     * @throws NullPointerException if child is null.
-     */
-    public int attachChild(TriggerData child) {
-        if (child == null) {
-            throw new NullPointerException();
-        }
-
-        if (child.getParent() != this && child != this) {
-            if (child.getParent() != null) {
-                child.getParent().detachChild(child);
-            }
-            child.setParent(this);
-            children.add(child);
-
-            if (LOGGER.isLoggable(Level.FINE)) {
-                LOGGER.log(Level.FINE, "Child ({0}) attached to this TriggerData ({1})",
-                        new Object[]{child.getId(), getId()});
-            }
-        }
-
-        return children.size();
-    }
-
-    /**
-     *
-     * <code>detachAllChildren</code> removes all children attached to this
-     * TriggerGenericData.
-     */
-    public void detachAllChildren() {
-        for (int i = children.size() - 1; i >= 0; i--) {
-            detachChildAt(i);
-        }
-        LOGGER.log(Level.FINE, "{0}: All children removed.", this.toString());
-    }
-
-    public int detachChild(TriggerData child) {
-        if (child == null) {
-            throw new NullPointerException();
-        }
-
-        if (child.getParent() == this) {
-            int index = children.indexOf(child);
-            if (index != -1) {
-                detachChildAt(index);
-            }
-            return index;
-        }
-
-        return -1;
-    }
-
-    /**
-     * <code>detachChild</code> removes a given child from the
-     * TriggerGenericData's map. This child will no longer be maintained. Only
-     * the first child with a matching id is removed.
-     *
-     * @param index the child to remove
-     * @return the index the child was at. -1 if the child was not in the list.
+     * @param children the children of this node
      */
-    public TriggerData detachChildAt(int index) {
-        TriggerData child = children.remove(index);
-        if (child != null) {
-            child.setParent(null);
-            LOGGER.log(Level.FINE, "{0}: Child removed.", this.toString());
+    void setChildren(TriggerData[] children) {
+        this.children = children;
+        for (int i = 0; i < children.length; i++) {
+            children[i].setParent(this, i);
         }
-
-        return child;
-    }
-
-    public int detachFromParent() {
-        if (parent != null) {
-            return parent.detachChild(this);
-        }
-        return -1;
-    }
-
-    /**
-     * <code>getChildIndex</code> returns the index of the given TriggerData in
-     * this TriggerGenericData's list of children.
-     *
-     * @param child The TriggerData to look up
-     * @return The index of the TriggerData in the TriggerGenericData's
-     * children, or -1 if the TriggerData is not attached to this node
-     */
-    public int getChildIndex(TriggerData child) {
-        return children.indexOf(child);
     }
 
     @Override
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.game.trigger;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import toniarts.openkeeper.tools.convert.map.TriggerGeneric;
+
+/**
+ * Keeps track of the changes in the game state the trigger conditions read.
+ * Every input has a version number that is bumped whenever the input changes.
+ * The trigger controls use these to sleep while nothing they depend on has
+ * changed.<br>
+ * Conditions that are not backed by change notifications are marked as
+ * {@link Input#POLLED}, they are evaluated every tick like before.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public final class TriggerInputs {
+
+    public enum Input {
+
+        /**
+         * Level flags and the level score
+         */
+        FLAGS,
+        /**
+         * Whole seconds of the level time, timers and the time limit
+         */
+        TIME,
+        /**
+         * Player creatures
+         */
+        CREATURES,
+        /**
+         * Player gold
+         */
+        GOLD,
+        /**
+         * Player mana
+         */
+        MANA,
+        /**
+         * Map tile ownership, terrain and tagging, also rooms
+         */
+        MAP_TILES,
+        /**
+         * Entities entering and leaving action points
+         */
+        ACTION_POINTS,
+        /**
+         * No change notifications, always considered changed
+         */
+        POLLED;
+
+        public int getMask() {
+            return 1 << ordinal();
+        }
+    }
+
+    private final AtomicLongArray versions = new AtomicLongArray(Input.values().length);
+
+    /**
+     * Notify that an input has changed
+     *
+     * @param input the changed input
+     */
+    public void changed(Input input) {
+        versions.incrementAndGet(input.ordinal());
+    }
+
+    /**
+     * Takes a snapshot of the current versions
+     *
+     * @param snapshot the array to store the versions to
+     */
+    public void getVersions(long[] snapshot) {
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = versions.get(i);
+        }
+    }
+
+    /**
+     * Has any of the given inputs changed since the snapshot was taken
+     *
+     * @param inputs the input mask, see {@link #getInputs(TriggerGeneric.TargetType)}
+     * @param snapshot the versions snapshot
+     * @return {@code true} if the inputs have changed
+     */
+    public boolean hasChanged(int inputs, long[] snapshot) {
+        if ((inputs & Input.POLLED.getMask()) != 0) {
+            return true;
+        }
+        for (Input input : Input.values()) {
+            if ((inputs & input.getMask()) != 0 && versions.get(input.ordinal()) != snapshot[input.ordinal()]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates a snapshot array for holding the versions
+     *
+     * @return a new snapshot array
+     */
+    public static long[] createSnapshot() {
+        return new long[Input.values().length];
+    }
+
+    /**
+     * Get the inputs a condition type reads. The conditions that are not
+     * implemented and always return the same result have no inputs.
+     *
+     * @param targetType the condition type
+     * @return the input mask
+     */
+    public static int getInputs(TriggerGeneric.TargetType targetType) {
+        if (targetType == null) {
+            return 0;
+        }
+        switch (targetType) {
+            case FLAG:
+                return Input.FLAGS.getMask();
+            case TIMER:
+            case LEVEL_TIME:
+                return Input.TIME.getMask();
+            case PLAYER_CREATURES:
+                return Input.CREATURES.getMask();
+            case PLAYER_GOLD:
+            case PLAYER_GOLD_MINED:
+                return Input.GOLD.getMask();
+            case PLAYER_MANA:
+                return Input.MANA.getMask();
+            case PLAYER_ROOMS:
+            case PLAYER_ROOM_SLABS:
+            case AP_CLAIM_PART_OF:
+            case AP_CLAIM_ALL_OF:
+            case AP_SLAB_TYPES:
+            case AP_TAG_PART_OF:
+            case AP_TAG_ALL_OF:
+                return Input.MAP_TILES.getMask();
+            case AP_CONGREGATE_IN:
+
+                // The creatures are counted by owner, which can change while in the action point
+                return Input.ACTION_POINTS.getMask() | Input.CREATURES.getMask();
+
+            // The GUI has no change notifications
+            case GUI_TRANSITION_ENDS:
+            case GUI_BUTTON_PRESSED:
+                return Input.POLLED.getMask();
+
+            // Not implemented yet
+            case LEVEL_CREATURES:
+            case LEVEL_PAY_DAY:
+            case LEVEL_PLAYED:
+            case PLAYER_HAPPY_CREATURES:
+            case PLAYER_ANGRY_CREATURES:
+            case PLAYER_CREATURES_KILLED:
+            case PLAYER_KILLS_CREATURES:
+            case PLAYER_ROOM_SIZE:
+            case PLAYER_DOORS:
+            case PLAYER_TRAPS:
+            case PLAYER_KEEPER_SPELL:
+            case PLAYER_DESTROYS:
+            case PLAYER_CREATURES_AT_LEVEL:
+            case PLAYER_KILLED:
+            case PLAYER_DUNGEON_BREACHED:
+            case PLAYER_ENEMY_BREACHED:
+            case PLAYER_CREATURE_SACKED:
+            case PLAYER_ROOM_FURNITURE:
+            case PLAYER_SLAPS:
+            case PLAYER_CREATURES_GROUPED:
+            case PLAYER_CREATURES_DYING:
+            case AP_POSESSED_CREATURE_ENTERS:
+                return 0;
+            default:
+                return Input.POLLED.getMask();
+        }
+    }
+}
@@ -16,36 +16,57 @@
  */
 package toniarts.openkeeper.game.trigger;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import toniarts.openkeeper.game.controller.creature.PartyType;
+import toniarts.openkeeper.tools.convert.ConversionUtils;
+import toniarts.openkeeper.tools.convert.map.Creature;
 import toniarts.openkeeper.tools.convert.map.KwdFile;
+import toniarts.openkeeper.tools.convert.map.Thing;
 import toniarts.openkeeper.tools.convert.map.Trigger;
 import toniarts.openkeeper.tools.convert.map.TriggerAction;
 import toniarts.openkeeper.tools.convert.map.TriggerGeneric;
 
 /**
  *
- * Loads all the triggers from a KWD file
+ * Loads all the triggers from a KWD file. The triggers are compiled into a
+ * {@link TriggerProgram}, with all the arguments and references resolved so
+ * that running them doesn't need any lookups.
  *
  * @author ArchDemon
  */
 public class TriggerLoader {
 
+    private final KwdFile kwdFile;
     private final Map<Integer, Trigger> triggers;
 
     public TriggerLoader(KwdFile kwdFile) {
+        this.kwdFile = kwdFile;
         this.triggers = kwdFile.getTriggers();
     }
 
-    public TriggerGenericData load(int triggerId) {
-        TriggerGenericData root = null;
+    /**
+     * Compiles the trigger tree starting from the given trigger
+     *
+     * @param triggerId the first trigger
+     * @return the trigger program, or {@code null} if the trigger ID is 0
+     */
+    public TriggerProgram load(int triggerId) {
+        TriggerProgram program = null;
         if (triggerId != 0) {
-            root = new TriggerGenericData();
-            parse(root, triggerId);
+            List<TriggerData> nodes = new ArrayList<>();
+            TriggerGenericData root = new TriggerGenericData();
+            root.setIndex(nodes.size());
+            nodes.add(root);
+            parse(root, triggerId, nodes);
+            program = new TriggerProgram(triggerId, root, nodes.toArray(new TriggerData[nodes.size()]));
         }
-        return root;
+        return program;
     }
 
-    private void parse(TriggerGenericData parent, int id) {
+    private void parse(TriggerGenericData parent, int id, List<TriggerData> nodes) {
+        List<TriggerData> children = new ArrayList<>();
         while (true) {
             Trigger temp = triggers.get(id);
             TriggerData trigger;
@@ -54,26 +75,26 @@ public class TriggerLoader {
                 trigger = new TriggerGenericData(id, temp.getRepeatTimes());
                 ((TriggerGenericData) trigger).setType(((TriggerGeneric) temp).getType());
                 ((TriggerGenericData) trigger).setComparison(((TriggerGeneric) temp).getTargetValueComparison());
+                ((TriggerGenericData) trigger).setInputs(TriggerInputs.getInputs(((TriggerGeneric) temp).getType()));
+                setArguments(trigger, temp);
 
-                for (String key : temp.getUserDataKeys()) {
-                    trigger.setUserData(key, temp.getUserData(key));
-                }
-
-                parent.attachChild(trigger);
+                trigger.setIndex(nodes.size());
+                nodes.add(trigger);
+                children.add(trigger);
 
                 if (temp.hasChildren()) {
-                    parse(((TriggerGenericData) trigger), temp.getIdChild());
+                    parse(((TriggerGenericData) trigger), temp.getIdChild(), nodes);
                 }
 
             } else if (temp instanceof TriggerAction) {
                 trigger = new TriggerActionData(id);
                 ((TriggerActionData) trigger).setType(((TriggerAction) temp).getType());
+                setArguments(trigger, temp);
+                resolveAction((TriggerActionData) trigger);
 
-                for (String key : temp.getUserDataKeys()) {
-                    trigger.setUserData(key, temp.getUserData(key));
-                }
-
-                parent.attachChild(trigger);
+                trigger.setIndex(nodes.size());
+                nodes.add(trigger);
+                children.add(trigger);
 
             } else {
                 throw new RuntimeException("Unexpected class " + temp + "!");
@@ -85,5 +106,62 @@ public class TriggerLoader {
                 break;
             }
         }
+        parent.setChildren(children.toArray(new TriggerData[children.size()]));
+    }
+
+    private void setArguments(TriggerData trigger, Trigger temp) {
+        for (String key : temp.getUserDataKeys()) {
+            Number data = temp.getUserData(key);
+            if (data != null) {
+                trigger.setArgument(key, data);
+            }
+        }
+
+        // Resolve the references
+        if (trigger.getCreatureId() != 0) {
+            trigger.setCreature(kwdFile.getCreature(trigger.getCreatureId()));
+        }
+        if (trigger.getRoomId() != 0) {
+            trigger.setRoom(kwdFile.getRoomById(trigger.getRoomId()));
+        }
+    }
+
+    private void resolveAction(TriggerActionData trigger) {
+        if (trigger.getType() == null) {
+            return;
+        }
+        switch (trigger.getType()) {
+            case MAKE:
+                trigger.setMakeType(ConversionUtils.parseEnum(trigger.getTypeId(), TriggerAction.MakeType.class));
+                if (trigger.getMakeType() != null) {
+                    switch (trigger.getMakeType()) {
+                        case CREATURE:
+                            trigger.setCreature(kwdFile.getCreature(trigger.getTargetId()));
+                            break;
+                        case KEEPER_SPELL:
+                            trigger.setKeeperSpell(kwdFile.getKeeperSpellById(trigger.getTargetId()));
+                            break;
+                        case ROOM:
+                            trigger.setRoom(kwdFile.getRoomById(trigger.getTargetId()));
+                            break;
+                    }
+                }
+                break;
+            case FLASH_BUTTON:
+                trigger.setMakeType(ConversionUtils.parseEnum(trigger.getTypeId(), TriggerAction.MakeType.class));
+                break;
+            case FLAG:
+                trigger.setFlagTargetValueActionTypes(ConversionUtils.parseFlagValue(trigger.getFlag(), TriggerAction.FlagTargetValueActionType.class));
+                break;
+            case CREATE_CREATURE:
+                trigger.setCreatureFlags(ConversionUtils.parseFlagValue(trigger.getFlag(), Creature.CreatureFlag.class));
+                break;
+            case CREATE_HERO_PARTY:
+                trigger.setPartyType(ConversionUtils.parseEnum(trigger.getTypeId(), PartyType.class));
+                break;
+            case SET_OBJECTIVE:
+                trigger.setObjective(ConversionUtils.parseEnum(trigger.getTypeId(), Thing.HeroParty.Objective.class));
+                break;
+        }
     }
 }
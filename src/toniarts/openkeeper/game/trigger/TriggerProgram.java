@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.game.trigger;
+
+/**
+ * A compiled trigger tree of a level. Immutable, the trigger controls running
+ * the program hold their own state indexed by {@link TriggerData#getIndex()}.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public final class TriggerProgram {
+
+    private final int triggerId;
+    private final TriggerGenericData root;
+    private final TriggerData[] nodes;
+
+    TriggerProgram(int triggerId, TriggerGenericData root, TriggerData[] nodes) {
+        this.triggerId = triggerId;
+        this.root = root;
+        this.nodes = nodes;
+    }
+
+    /**
+     * The ID of the first trigger in the program
+     *
+     * @return the trigger ID
+     */
+    public int getTriggerId() {
+        return triggerId;
+    }
+
+    /**
+     * The root of the program, holds the first level triggers
+     *
+     * @return the root node
+     */
+    public TriggerGenericData getRoot() {
+        return root;
+    }
+
+    /**
+     * Get the number of nodes in this program, including the root
+     *
+     * @return the node count
+     */
+    public int getSize() {
+        return nodes.length;
+    }
+
+    /**
+     * Get a node by its program index
+     *
+     * @param index the index
+     * @return the node
+     */
+    public TriggerData getNode(int index) {
+        return nodes[index];
+    }
+}
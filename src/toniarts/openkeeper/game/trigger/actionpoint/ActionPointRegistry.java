@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.game.trigger.actionpoint;
+
+import com.simsilica.es.EntityId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import toniarts.openkeeper.game.data.ActionPoint;
+import toniarts.openkeeper.game.listener.EntityPositionListener;
+import toniarts.openkeeper.game.logic.EntityComponentCache;
+import toniarts.openkeeper.game.logic.IEntityPositionLookup;
+import toniarts.openkeeper.game.map.MapData;
+import toniarts.openkeeper.game.map.MapTile;
+import toniarts.openkeeper.game.trigger.TriggerInputs;
+
+/**
+ * Keeps track of the entities inside each action point. The occupants are
+ * updated from the entity tile changes so the action point triggers don't
+ * need to scan the tiles.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class ActionPointRegistry implements EntityPositionListener {
+
+    private static final ActionPoint[] NO_ACTION_POINTS = new ActionPoint[0];
+
+    private final EntityComponentCache componentCache;
+    private final TriggerInputs triggerInputs;
+    private final int mapWidth;
+    private final int mapHeight;
+
+    /**
+     * The action points by tile index, the action points may overlap
+     */
+    private final ActionPoint[][] actionPointsByTile;
+    private final Map<ActionPoint, Set<EntityId>> occupantsByActionPoint = new HashMap<>();
+
+    public ActionPointRegistry(Collection<ActionPoint> actionPoints, MapData mapData, IEntityPositionLookup entityPositionLookup,
+            EntityComponentCache componentCache, TriggerInputs triggerInputs) {
+        this.componentCache = componentCache;
+        this.triggerInputs = triggerInputs;
+        mapWidth = mapData.getWidth();
+        mapHeight = mapData.getHeight();
+
+        // Index the action point areas
+        List<List<ActionPoint>> actionPointLists = new ArrayList<>(mapWidth * mapHeight);
+        for (int i = 0; i < mapWidth * mapHeight; i++) {
+            actionPointLists.add(null);
+        }
+        for (ActionPoint actionPoint : actionPoints) {
+            occupantsByActionPoint.put(actionPoint, new HashSet<>());
+            for (int x = actionPoint.getStart().x; x <= actionPoint.getEnd().x; x++) {
+                for (int y = actionPoint.getStart().y; y <= actionPoint.getEnd().y; y++) {
+                    int index = getTileIndex(x, y);
+                    if (index < 0) {
+                        continue;
+                    }
+                    List<ActionPoint> list = actionPointLists.get(index);
+                    if (list == null) {
+                        list = new ArrayList<>(1);
+                        actionPointLists.set(index, list);
+                    }
+                    list.add(actionPoint);
+                }
+            }
+        }
+        actionPointsByTile = new ActionPoint[mapWidth * mapHeight][];
+        for (int i = 0; i < actionPointsByTile.length; i++) {
+            List<ActionPoint> list = actionPointLists.get(i);
+            actionPointsByTile[i] = (list != null ? list.toArray(new ActionPoint[list.size()]) : NO_ACTION_POINTS);
+        }
+
+        // The entities already in place
+        for (ActionPoint actionPoint : actionPoints) {
+            Set<EntityId> occupants = occupantsByActionPoint.get(actionPoint);
+            for (int x = actionPoint.getStart().x; x <= actionPoint.getEnd().x; x++) {
+                for (int y = actionPoint.getStart().y; y <= actionPoint.getEnd().y; y++) {
+                    entityPositionLookup.getEntitiesInLocation(x, y, occupants);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onEntityAdded(EntityId entityId, MapTile mapTile) {
+        boolean changed = false;
+        for (ActionPoint actionPoint : getActionPoints(mapTile)) {
+            changed |= occupantsByActionPoint.get(actionPoint).add(entityId);
+        }
+        if (changed) {
+            triggerInputs.changed(TriggerInputs.Input.ACTION_POINTS);
+        }
+    }
+
+    @Override
+    public void onEntityMoved(EntityId entityId, MapTile previousMapTile, MapTile mapTile) {
+        ActionPoint[] previousActionPoints = getActionPoints(previousMapTile);
+        ActionPoint[] actionPoints = getActionPoints(mapTile);
+        if (previousActionPoints == actionPoints) {
+            return;
+        }
+
+        // Moving inside the same action point is not a change
+        boolean changed = false;
+        for (ActionPoint actionPoint : previousActionPoints) {
+            if (!contains(actionPoints, actionPoint)) {
+                changed |= occupantsByActionPoint.get(actionPoint).remove(entityId);
+            }
+        }
+        for (ActionPoint actionPoint : actionPoints) {
+            if (!contains(previousActionPoints, actionPoint)) {
+                changed |= occupantsByActionPoint.get(actionPoint).add(entityId);
+            }
+        }
+        if (changed) {
+            triggerInputs.changed(TriggerInputs.Input.ACTION_POINTS);
+        }
+    }
+
+    @Override
+    public void onEntityRemoved(EntityId entityId, MapTile mapTile) {
+        boolean changed = false;
+        for (ActionPoint actionPoint : getActionPoints(mapTile)) {
+            changed |= occupantsByActionPoint.get(actionPoint).remove(entityId);
+        }
+        if (changed) {
+            triggerInputs.changed(TriggerInputs.Input.ACTION_POINTS);
+        }
+    }
+
+    /**
+     * Get the entities currently inside the action point
+     *
+     * @param actionPoint the action point
+     * @return the entities inside, read only
+     */
+    public Set<EntityId> getOccupants(ActionPoint actionPoint) {
+        Set<EntityId> occupants = occupantsByActionPoint.get(actionPoint);
+        if (occupants == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(occupants);
+    }
+
+    /**
+     * Get the number of entities inside the action point
+     *
+     * @param actionPoint the action point
+     * @return number of entities inside
+     */
+    public int getOccupantCount(ActionPoint actionPoint) {
+        Set<EntityId> occupants = occupantsByActionPoint.get(actionPoint);
+        return (occupants != null ? occupants.size() : 0);
+    }
+
+    /**
+     * Get the number of creatures inside the action point
+     *
+     * @param actionPoint the action point
+     * @param playerId the owner of the creatures, 0 for any
+     * @param creatureId the creature type, 0 for any
+     * @return number of creatures inside
+     */
+    public int getCreatureCount(ActionPoint actionPoint, short playerId, short creatureId) {
+        Set<EntityId> occupants = occupantsByActionPoint.get(actionPoint);
+        if (occupants == null) {
+            return 0;
+        }
+
+        int count = 0;
+        for (EntityId entityId : occupants) {
+            int row = componentCache.getRow(entityId);
+            if (row == EntityComponentCache.NO_ROW || !componentCache.hasCreature(row)) {
+                continue;
+            }
+            if ((playerId == 0 || (componentCache.hasOwner(row) && componentCache.getOwnerId(row) == playerId))
+                    && (creatureId == 0 || componentCache.getCreatureId(row) == creatureId)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Is any creature of the given player inside the action point
+     *
+     * @param actionPoint the action point
+     * @param playerId the player, 0 for any
+     * @return {@code true} if the player has creatures inside
+     */
+    public boolean hasPlayerEntered(ActionPoint actionPoint, short playerId) {
+        return getCreatureCount(actionPoint, playerId, (short) 0) > 0;
+    }
+
+    private ActionPoint[] getActionPoints(MapTile mapTile) {
+        if (mapTile == null) {
+            return NO_ACTION_POINTS;
+        }
+        int index = getTileIndex(mapTile.getX(), mapTile.getY());
+        return (index < 0 ? NO_ACTION_POINTS : actionPointsByTile[index]);
+    }
+
+    private int getTileIndex(int x, int y) {
+        if (x < 0 || y < 0 || x >= mapWidth || y >= mapHeight) {
+            return -1;
+        }
+        return x * mapHeight + y;
+    }
+
+    private static boolean contains(ActionPoint[] actionPoints, ActionPoint actionPoint) {
+        for (ActionPoint ap : actionPoints) {
+            if (ap == actionPoint) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
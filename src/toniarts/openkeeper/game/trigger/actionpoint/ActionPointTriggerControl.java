@@ -23,9 +23,7 @@ import toniarts.openkeeper.game.controller.IGameController;
 import toniarts.openkeeper.game.controller.IGameTimer;
 import toniarts.openkeeper.game.controller.ILevelInfo;
 import toniarts.openkeeper.game.controller.IMapController;
-import toniarts.openkeeper.game.controller.creature.ICreatureController;
 import toniarts.openkeeper.game.data.ActionPoint;
-import toniarts.openkeeper.game.logic.IEntityPositionLookup;
 import toniarts.openkeeper.game.map.MapData;
 import toniarts.openkeeper.game.map.MapTile;
 import toniarts.openkeeper.game.trigger.TriggerControl;
@@ -41,7 +39,7 @@ public class ActionPointTriggerControl extends TriggerControl {
     private static final Logger LOGGER = Logger.getLogger(ActionPointTriggerControl.class.getName());
 
     private ActionPoint ap;
-    private IEntityPositionLookup entityPositionLookup;
+    private ActionPointRegistry actionPointRegistry;
 
     public ActionPointTriggerControl() { // empty serialization constructor
         super();
@@ -49,10 +47,10 @@ public class ActionPointTriggerControl extends TriggerControl {
 
     public ActionPointTriggerControl(final IGameController gameController, final ILevelInfo levelInfo, final IGameTimer gameTimer,
             final IMapController mapController, final ICreaturesController creaturesController, int triggerId, ActionPoint ap,
-            final IEntityPositionLookup entityPositionLookup) {
+            final ActionPointRegistry actionPointRegistry) {
         super(gameController, levelInfo, gameTimer, mapController, creaturesController, triggerId);
         this.ap = ap;
-        this.entityPositionLookup = entityPositionLookup;
+        this.actionPointRegistry = actionPointRegistry;
     }
 
     @Override
@@ -65,22 +63,14 @@ public class ActionPointTriggerControl extends TriggerControl {
         TriggerGeneric.TargetType targetType = trigger.getType();
         switch (targetType) {
             case AP_CONGREGATE_IN:
-                short playerId = trigger.getUserData("playerId", short.class);
-                short targetId = trigger.getUserData("targetId", short.class);
-                value = trigger.getUserData("value", int.class);
-                short type = trigger.getUserData("targetType", short.class);
+                short playerId = trigger.getPlayerId();
+                short targetId = trigger.getTargetId();
+                value = trigger.getValue();
+                short type = trigger.getTargetType();
                 switch (type) {
                     case 0:
                     case 3: // Creature
-                        for (int x = (int) ap.getStart().x; x <= (int) ap.getEnd().x; x++) {
-                            for (int y = (int) ap.getStart().y; y <= (int) ap.getEnd().y; y++) {
-                                for (ICreatureController creature : entityPositionLookup.getEntityTypesInLocation(x, y, ICreatureController.class)) {
-                                    if ((playerId == 0 || creature.getOwnerId() == playerId) && (targetId == 0 || creature.getCreature().getCreatureId() == targetId)) {
-                                        target++;
-                                    }
-                                }
-                            }
-                        }
+                        target = actionPointRegistry.getCreatureCount(ap, playerId, targetId);
                         break;
                     case 6: // Object
                         break;
@@ -91,10 +81,10 @@ public class ActionPointTriggerControl extends TriggerControl {
                 return false;
 
             case AP_POSESSED_CREATURE_ENTERS:
-                playerId = trigger.getUserData("playerId", short.class);
-                targetId = trigger.getUserData("targetId", short.class);
-                value = trigger.getUserData("value", int.class);
-                type = trigger.getUserData("targetType", short.class);
+                playerId = trigger.getPlayerId();
+                targetId = trigger.getTargetId();
+                value = trigger.getValue();
+                type = trigger.getTargetType();
                 switch (type) {
                     //case 0:
                     case 3: // Creature
@@ -108,8 +98,8 @@ public class ActionPointTriggerControl extends TriggerControl {
                 return false;
 
             case AP_CLAIM_PART_OF:
-                playerId = trigger.getUserData("playerId", short.class);
-                value = trigger.getUserData("value", int.class);
+                playerId = trigger.getPlayerId();
+                value = trigger.getValue();
 
                 MapData map = mapController.getMapData();
                 for (int x = (int) ap.getStart().x; x <= (int) ap.getEnd().x; x++) {
@@ -122,8 +112,8 @@ public class ActionPointTriggerControl extends TriggerControl {
                 break;
 
             case AP_CLAIM_ALL_OF:
-                playerId = trigger.getUserData("playerId", short.class);
-                // value = trigger.getUserData("value", int.class); // Unusefull ?
+                playerId = trigger.getPlayerId();
+                // value = trigger.getValue(); // Unusefull ?
                 map = mapController.getMapData();
                 for (int x = (int) ap.getStart().x; x <= (int) ap.getEnd().x; x++) {
                     for (int y = (int) ap.getStart().y; y <= (int) ap.getEnd().y; y++) {
@@ -135,9 +125,9 @@ public class ActionPointTriggerControl extends TriggerControl {
                 return true;
 
             case AP_SLAB_TYPES:
-                playerId = trigger.getUserData("playerId", short.class);
-                targetId = trigger.getUserData("terrainId", short.class);
-                value = trigger.getUserData("value", int.class);
+                playerId = trigger.getPlayerId();
+                targetId = trigger.getTerrainId();
+                value = trigger.getValue();
 
                 map = mapController.getMapData();
                 for (int x = (int) ap.getStart().x; x <= (int) ap.getEnd().x; x++) {
@@ -154,8 +144,8 @@ public class ActionPointTriggerControl extends TriggerControl {
                 break;
 
             case AP_TAG_PART_OF:
-                playerId = trigger.getUserData("playerId", short.class);
-                value = trigger.getUserData("value", int.class);
+                playerId = trigger.getPlayerId();
+                value = trigger.getValue();
 
                 map = mapController.getMapData();
                 for (int x = (int) ap.getStart().x; x <= (int) ap.getEnd().x; x++) {
@@ -169,8 +159,8 @@ public class ActionPointTriggerControl extends TriggerControl {
                 break;
 
             case AP_TAG_ALL_OF:
-                playerId = trigger.getUserData("playerId", short.class);
-                // value = trigger.getUserData("value", int.class); // Unusefull ?
+                playerId = trigger.getPlayerId();
+                // value = trigger.getValue(); // Unusefull ?
                 map = mapController.getMapData();
                 for (int x = (int) ap.getStart().x; x <= (int) ap.getEnd().x; x++) {
                     for (int y = (int) ap.getStart().y; y <= (int) ap.getEnd().y; y++) {
@@ -23,7 +23,6 @@ import toniarts.openkeeper.game.controller.IGameTimer;
 import toniarts.openkeeper.game.controller.ILevelInfo;
 import toniarts.openkeeper.game.controller.IMapController;
 import toniarts.openkeeper.game.data.ActionPoint;
-import toniarts.openkeeper.game.logic.IEntityPositionLookup;
 import toniarts.openkeeper.game.logic.IGameLogicUpdatable;
 
 /**
@@ -35,12 +34,12 @@ public class ActionPointTriggerLogicController implements IGameLogicUpdatable {
     private final SafeArrayList<ActionPointTriggerControl> triggers = new SafeArrayList<>(ActionPointTriggerControl.class);
 
     public ActionPointTriggerLogicController(final IGameController gameController, final ILevelInfo levelInfo, final IGameTimer gameTimer, final IMapController mapController,
-            final ICreaturesController creaturesController, final IEntityPositionLookup entityPositionLookup) {
+            final ICreaturesController creaturesController, final ActionPointRegistry actionPointRegistry) {
 
         // Create the triggers
         for (ActionPoint actionPoint : levelInfo.getActionPoints()) {
             if (actionPoint.getTriggerId() != 0) {
-                triggers.add(new ActionPointTriggerControl(gameController, levelInfo, gameTimer, mapController, creaturesController, actionPoint.getTriggerId(), actionPoint, entityPositionLookup));
+                triggers.add(new ActionPointTriggerControl(gameController, levelInfo, gameTimer, mapController, creaturesController, actionPoint.getTriggerId(), actionPoint, actionPointRegistry));
             }
         }
     }
@@ -28,7 +28,6 @@ import toniarts.openkeeper.game.state.session.PlayerService;
 import toniarts.openkeeper.game.trigger.AbstractThingTriggerControl;
 import toniarts.openkeeper.game.trigger.TriggerActionData;
 import toniarts.openkeeper.game.trigger.TriggerGenericData;
-import toniarts.openkeeper.tools.convert.ConversionUtils;
 import toniarts.openkeeper.tools.convert.map.Thing;
 import toniarts.openkeeper.tools.convert.map.TriggerAction;
 import toniarts.openkeeper.tools.convert.map.TriggerGeneric;
@@ -144,7 +143,7 @@ public class CreatureTriggerControl extends AbstractThingTriggerControl<ICreatur
 
         TriggerGeneric.ComparisonType comparisonType = trigger.getComparison();
         if (comparisonType != null && comparisonType != TriggerGeneric.ComparisonType.NONE) {
-            result = compare(target, comparisonType, (int) trigger.getUserData("value"));
+            result = compare(target, comparisonType, trigger.getValue());
         }
 
         return result;
@@ -167,19 +166,19 @@ public class CreatureTriggerControl extends AbstractThingTriggerControl<ICreatur
 
             case SHOW_HEALTH_FLOWER:
                 if (instanceControl != null) {
-                    getPlayerService().showUnitFlower(instanceControl.getEntityId(), trigger.getUserData("value", Integer.class), getPlayer().getId());
+                    getPlayerService().showUnitFlower(instanceControl.getEntityId(), trigger.getValue(), getPlayer().getId());
                 }
                 break;
 
             case ALTER_SPEED:
-                boolean available = trigger.getUserData("available", short.class) != 0; // 0 = Walk, !0 = Run
+                boolean available = trigger.isAvailable(); // 0 = Walk, !0 = Run
                 break;
 
             case REMOVE_FROM_MAP:
                 break;
 
             case SET_FIGHT_FLAG:
-                available = trigger.getUserData("available", short.class) != 0; // 0 = Don`t Fight, !0 = Fight
+                available = trigger.isAvailable(); // 0 = Don`t Fight, !0 = Fight
                 break;
 
             case ZOOM_TO:
@@ -189,9 +188,9 @@ public class CreatureTriggerControl extends AbstractThingTriggerControl<ICreatur
                 break;
 
             case SET_OBJECTIVE: // Creature part. Only for Good player
-                short playerId = trigger.getUserData("playerId", short.class);
-                Thing.HeroParty.Objective jobType = ConversionUtils.parseEnum(trigger.getUserData("type", short.class), Thing.HeroParty.Objective.class);
-                int apId = trigger.getUserData("actionPointId", int.class);
+                short playerId = trigger.getPlayerId();
+                Thing.HeroParty.Objective jobType = trigger.getObjective();
+                int apId = trigger.getActionPointId();
 
                 // Assign to creature
                 if (instanceControl != null) {
@@ -204,7 +203,7 @@ public class CreatureTriggerControl extends AbstractThingTriggerControl<ICreatur
                 break;
 
             case MAKE_OBJECTIVE: // Game part
-                short targetId = trigger.getUserData("targetId", short.class);
+                short targetId = trigger.getTargetId();
                 if (targetId == 0) {
                     super.makeObjectiveOff();
                 }
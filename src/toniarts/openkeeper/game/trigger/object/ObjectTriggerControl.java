@@ -59,7 +59,7 @@ public class ObjectTriggerControl extends AbstractThingTriggerControl<IObjectCon
 
 //        TriggerGeneric.ComparisonType comparisonType = trigger.getComparison();
 //        if (comparisonType != null && comparisonType != TriggerGeneric.ComparisonType.NONE) {
-//            result = compare(target, comparisonType, (int) trigger.getUserData("value"));
+//            result = compare(target, comparisonType, trigger.getValue());
 //        }
 //
 //        return result;
@@ -58,8 +58,8 @@ public class PartyTriggerControl extends TriggerControl {
                 return partyController.isCreated();
 
             case PARTY_MEMBERS_KILLED:
-                short unknown = (short) trigger.getUserData("unknown");
-                value = (int) trigger.getUserData("value");
+                short unknown = trigger.getUnknown();
+                value = trigger.getValue();
                 if (partyController.isCreated()) {
                     for (ICreatureController creature : partyController.getActualMembers()) {
                         if (creature.isDead()) {
@@ -71,12 +71,12 @@ public class PartyTriggerControl extends TriggerControl {
                 return false;
 
             case PARTY_MEMBERS_CAPTURED:
-                value = (int) trigger.getUserData("value");
+                value = trigger.getValue();
                 break;
 
             case PARTY_MEMBERS_INCAPACITATED:
-                unknown = (short) trigger.getUserData("unknown");
-                value = (int) trigger.getUserData("value");
+                unknown = trigger.getUnknown();
+                value = trigger.getValue();
                 if (partyController.isCreated()) {
                     for (ICreatureController creature : partyController.getActualMembers()) {
                         if (creature.isIncapacitated()) {
@@ -33,7 +33,8 @@ import toniarts.openkeeper.game.state.session.PlayerService;
 import toniarts.openkeeper.game.trigger.TriggerActionData;
 import toniarts.openkeeper.game.trigger.TriggerControl;
 import toniarts.openkeeper.game.trigger.TriggerGenericData;
-import toniarts.openkeeper.tools.convert.ConversionUtils;
+import toniarts.openkeeper.tools.convert.map.Creature;
+import toniarts.openkeeper.tools.convert.map.Room;
 import toniarts.openkeeper.tools.convert.map.TriggerAction;
 import toniarts.openkeeper.tools.convert.map.TriggerGeneric;
 import toniarts.openkeeper.utils.WorldUtils;
@@ -78,16 +79,16 @@ public class PlayerTriggerControl extends TriggerControl {
         TriggerGeneric.TargetType targetType = trigger.getType();
         switch (targetType) {
             case PLAYER_CREATURES:
-                short creatureId = trigger.getUserData("creatureId", short.class);
-                boolean isValue = trigger.getUserData("flag", short.class) == 1;
+                Creature creature = trigger.getCreature();
+                boolean isValue = trigger.isValueFlag();
 
-                target = getCreaturesCount(playerId, creatureId);
+                target = getCreaturesCount(playerId, creature);
 
                 if (isValue) {
-                    value = trigger.getUserData("value", int.class);
+                    value = trigger.getValue();
                 } else {
-                    short otherPlayerId = trigger.getUserData("playerId", short.class);
-                    value = getCreaturesCount(otherPlayerId, creatureId);
+                    short otherPlayerId = trigger.getPlayerId();
+                    value = getCreaturesCount(otherPlayerId, creature);
                 }
                 break;
 
@@ -101,30 +102,30 @@ public class PlayerTriggerControl extends TriggerControl {
                 return false;
 
             case PLAYER_ROOM_SLABS:
-                short roomId = trigger.getUserData("roomId", short.class);
-                isValue = trigger.getUserData("flag", short.class) == 1;
+                Room room = trigger.getRoom();
+                isValue = trigger.isValueFlag();
 
-                target = getRoomSlabsCount(playerId, roomId);
+                target = getRoomSlabsCount(playerId, room);
 
                 if (isValue) {
-                    value = trigger.getUserData("value", int.class);
+                    value = trigger.getValue();
                 } else {
-                    short otherPlayerId = trigger.getUserData("playerId", short.class);
-                    value = getRoomSlabsCount(otherPlayerId, roomId);
+                    short otherPlayerId = trigger.getPlayerId();
+                    value = getRoomSlabsCount(otherPlayerId, room);
                 }
                 break;
 
             case PLAYER_ROOMS:
-                roomId = trigger.getUserData("roomId", short.class);
-                isValue = trigger.getUserData("flag", short.class) == 1;
+                room = trigger.getRoom();
+                isValue = trigger.isValueFlag();
 
-                target = getRoomCount(playerId, roomId);
+                target = getRoomCount(playerId, room);
 
                 if (isValue) {
-                    value = trigger.getUserData("value", int.class);
+                    value = trigger.getValue();
                 } else {
-                    short otherPlayerId = trigger.getUserData("playerId", short.class);
-                    value = getRoomCount(otherPlayerId, roomId);
+                    short otherPlayerId = trigger.getPlayerId();
+                    value = getRoomCount(otherPlayerId, room);
                 }
                 break;
 
@@ -138,40 +139,40 @@ public class PlayerTriggerControl extends TriggerControl {
                 return false;
 
             case PLAYER_GOLD:
-                isValue = trigger.getUserData("flag", short.class) == 1;
+                isValue = trigger.isValueFlag();
 
                 target = getPlayer().getGold();
 
                 if (isValue) {
-                    value = trigger.getUserData("value", int.class);
+                    value = trigger.getValue();
                 } else {
-                    short otherPlayerId = trigger.getUserData("playerId", short.class);
+                    short otherPlayerId = trigger.getPlayerId();
                     value = getPlayer(otherPlayerId).getGold();
                 }
                 break;
 
             case PLAYER_GOLD_MINED:
-                isValue = trigger.getUserData("flag", short.class) == 1;
+                isValue = trigger.isValueFlag();
 
                 target = getPlayer().getGoldMined();
 
                 if (isValue) {
-                    value = trigger.getUserData("value", int.class);
+                    value = trigger.getValue();
                 } else {
-                    short otherPlayerId = trigger.getUserData("playerId", short.class);
+                    short otherPlayerId = trigger.getPlayerId();
                     value = getPlayer(otherPlayerId).getGoldMined();
                 }
                 break;
 
             case PLAYER_MANA:
-                isValue = trigger.getUserData("flag", short.class) == 1;
+                isValue = trigger.isValueFlag();
 
                 target = getPlayer().getMana();
 
                 if (isValue) {
-                    value = trigger.getUserData("value", int.class);
+                    value = trigger.getValue();
                 } else {
-                    short otherPlayerId = trigger.getUserData("playerId", short.class);
+                    short otherPlayerId = trigger.getPlayerId();
                     value = getPlayer(otherPlayerId).getMana();
                 }
                 break;
@@ -189,38 +190,38 @@ public class PlayerTriggerControl extends TriggerControl {
 
             case PLAYER_CREATURE_PICKED_UP:
                 PlayerStatsControl psc = getPlayerController(playerId).getStatsControl();
-                creatureId = trigger.getUserData("creatureId", short.class);
+                creature = trigger.getCreature();
 
-                if (creatureId == 0) {
+                if (creature == null) {
                     // Any creature
                     return psc.hasPickedUp();
                 } else {
                     // Certain creature
-                    return psc.hasPickedUp(levelInfo.getLevelData().getCreature(creatureId));
+                    return psc.hasPickedUp(creature);
                 }
 
             case PLAYER_CREATURE_DROPPED:
                 psc = getPlayerController(playerId).getStatsControl();
-                creatureId = trigger.getUserData("creatureId", short.class);
+                creature = trigger.getCreature();
 
-                if (creatureId == 0) {
+                if (creature == null) {
                     // Any creature
                     return psc.hasDropped();
                 } else {
                     // Certain creature
-                    return psc.hasDropped(levelInfo.getLevelData().getCreature(creatureId));
+                    return psc.hasDropped(creature);
                 }
 
             case PLAYER_CREATURE_SLAPPED:
                 psc = getPlayerController(playerId).getStatsControl();
-                creatureId = trigger.getUserData("creatureId", short.class);
+                creature = trigger.getCreature();
 
-                if (creatureId == 0) {
+                if (creature == null) {
                     // Any creature
                     return psc.hasSlapped();
                 } else {
                     // Certain creature
-                    return psc.hasSlapped(levelInfo.getLevelData().getCreature(creatureId));
+                    return psc.hasSlapped(creature);
                 }
 
             case PLAYER_CREATURE_SACKED:
@@ -266,8 +267,8 @@ public class PlayerTriggerControl extends TriggerControl {
                 break;
 
             case GENERATE_CREATURE: // Creature part. Only for keeper x
-                short creatureId = trigger.getUserData("creatureId", short.class);
-                short level = trigger.getUserData("level", short.class);
+                short creatureId = trigger.getCreatureId();
+                short level = trigger.getLevel();
 
                 // Get first spawn point of the player (this flag is only for the players)
                 Set<IRoomController> rooms = getPlayerController(playerId).getRoomControl().getTypes().get(levelInfo.getLevelData().getPortal());
@@ -280,17 +281,16 @@ public class PlayerTriggerControl extends TriggerControl {
                 break;
 
             case SET_PORTAL_STATUS: // Creature part. Only for keeper x
-                boolean available = trigger.getUserData("available", short.class) != 0;
+                boolean available = trigger.isAvailable();
                 getPlayerController(playerId).getRoomControl().setPortalsOpen(available);
                 break;
 
             case FLASH_BUTTON: // gui part. Only for keeper x
 //                if (playerId == playerState.getPlayerId()) {
-                TriggerAction.MakeType buttonType = ConversionUtils.parseEnum(trigger.getUserData("type", short.class),
-                        TriggerAction.MakeType.class);
-                short targetId = trigger.getUserData("targetId", short.class);
-                available = trigger.getUserData("available", short.class) != 0;
-                int time = trigger.getUserData("value", int.class);
+                TriggerAction.MakeType buttonType = trigger.getMakeType();
+                short targetId = trigger.getTargetId();
+                available = trigger.isAvailable();
+                int time = trigger.getValue();
                 playerService.flashButton(targetId, buttonType, available, time, playerId);
 //                    playerState.flashButton(targetId, buttonType, available, time);
 //                }
@@ -301,14 +301,14 @@ public class PlayerTriggerControl extends TriggerControl {
 //                    // TODO disable control
 //                    //GameState.setEnabled(false);
 //                    PlayerCameraState pcs = stateManager.getState(PlayerCameraState.class);
-                ActionPoint ap = levelInfo.getActionPoint(trigger.getUserData("actionPointId", short.class));
-//                    pcs.doTransition(trigger.getUserData("pathId", short.class), ap);
+                ActionPoint ap = levelInfo.getActionPoint(trigger.getActionPointId());
+//                    pcs.doTransition(trigger.getPathId(), ap);
 //                }
-                playerService.doTransition(trigger.getUserData("pathId", short.class), WorldUtils.ActionPointToVector3f(ap), playerId);
+                playerService.doTransition((short) trigger.getPathId(), WorldUtils.ActionPointToVector3f(ap), playerId);
                 break;
 
             case MAKE_OBJECTIVE: // Game part
-                targetId = trigger.getUserData("targetId", short.class);
+                targetId = trigger.getTargetId();
                 if (targetId == 0) { // 0 = Off
                     makeObjectiveOff();
                 } else {
@@ -318,9 +318,9 @@ public class PlayerTriggerControl extends TriggerControl {
 
             case FLASH_ACTION_POINT: // AP part
 //                if (playerId == playerState.getPlayerId()) {
-                ap = levelInfo.getActionPoint(trigger.getUserData("actionPointId", short.class));
-                time = trigger.getUserData("value", int.class);
-                available = trigger.getUserData("available", short.class) != 0;
+                ap = levelInfo.getActionPoint(trigger.getActionPointId());
+                time = trigger.getValue();
+                available = trigger.isAvailable();
                 if (available) {
                     mapController.flashTiles(ap.getPoints(), playerId, time);
                 } else {
@@ -341,17 +341,17 @@ public class PlayerTriggerControl extends TriggerControl {
 
             case ZOOM_TO_ACTION_POINT: // AP part
 //                if (playerId == playerState.getPlayerId()) {
-                short apId = trigger.getUserData("targetId", short.class);
+                short apId = trigger.getTargetId();
                 zoomToAP(apId);
 //                }
                 break;
 
             case ROTATE_AROUND_ACTION_POINT: // AP part
 //                if (playerId == playerState.getPlayerId()) {
-                ap = levelInfo.getActionPoint(trigger.getUserData("actionPointId", short.class));
-                boolean isRelative = trigger.getUserData("available", short.class) == 0;
-                int angle = trigger.getUserData("angle", int.class);
-                time = trigger.getUserData("time", int.class);
+                ap = levelInfo.getActionPoint(trigger.getActionPointId());
+                boolean isRelative = !trigger.isAvailable();
+                int angle = trigger.getAngle();
+                time = trigger.getTime();
 //
 //                    PlayerCameraState pcs = stateManager.getState(PlayerCameraState.class);
 //                    ap.addControl(new PlayerCameraRotateControl(pcs.getCamera(), isRelative, angle, time));
@@ -362,47 +362,47 @@ public class PlayerTriggerControl extends TriggerControl {
             case DISPLAY_OBJECTIVE: // Info part
 //                if (playerId == playerState.getPlayerId()) {
                 // TODO this
-                int objectiveId = trigger.getUserData("objectiveId", int.class); // limit 32767
-                apId = trigger.getUserData("actionPointId", short.class);
+                int objectiveId = trigger.getObjectiveId(); // limit 32767
+                apId = (short) trigger.getActionPointId();
                 // if != 0 => Zoom To AP = this
                 zoomToAP(apId);
 //                }
                 break;
 
             case PLAY_SPEECH: // Info part
-                int speechId = trigger.getUserData("speechId", int.class);
+                int speechId = trigger.getSpeechId();
                 //stateManager.getState(SoundState.class).attachLevelSpeech(speechId);
                 //stateManager.getState(SystemMessageState.class).addMessage(SystemMessageState.MessageType.INFO, String.format("${level.%d}", speechId - 1));
-                int pathId = trigger.getUserData("pathId", int.class);
+                int pathId = trigger.getPathId();
                 // text show when Cinematic camera by pathId
-                boolean introduction = trigger.getUserData("introduction", short.class) != 0;
-                boolean showText = trigger.getUserData("text", short.class) == 0;
+                boolean introduction = trigger.getIntroduction() != 0;
+                boolean showText = trigger.getText() == 0;
                 playerService.playSpeech(speechId, showText, introduction, pathId, playerId);
                 break;
 
             case DISPLAY_TEXT_STRING: // Info part
 //                if (playerId == playerState.getPlayerId()) {
-                int textId = trigger.getUserData("textId", int.class);
+                int textId = trigger.getTextId();
                 playerService.showMessage(textId, playerId);
 //                }
                 break;
 
             case SET_WIDESCREEN_MODE: // Info part
-                available = trigger.getUserData("available", short.class) != 0;
+                available = trigger.isAvailable();
                 playerService.setWidescreen(available, playerId);
                 break;
 
             case DISPLAY_SLAB_OWNER: // Info part
 //                if (playerId == playerState.getPlayerId()) {
 //                    // TODO this
-//                    available = trigger.getUserData("available", short.class) != 0;
+//                    available = trigger.isAvailable();
 //                }
                 break;
 
             case DISPLAY_NEXT_ROOM_TYPE: // Info part
 //                if (playerId == playerState.getPlayerId()) {
 //                    // TODO this
-//                    targetId = trigger.getUserData("targetId", short.class); // 0 = Off or roomId
+//                    targetId = trigger.getTargetId(); // 0 = Off or roomId
 //                }
                 break;
 
@@ -416,27 +416,27 @@ public class PlayerTriggerControl extends TriggerControl {
         return super.getPlayer(playerId);
     }
 
-    private int getCreaturesCount(short playerId, short creatureId) {
-        if (creatureId == 0) {
+    private int getCreaturesCount(short playerId, Creature creature) {
+        if (creature == null) {
             return getPlayerController(playerId).getCreatureControl().getTypeCount();
         } else {
-            return getPlayerController(playerId).getCreatureControl().getTypeCount(levelInfo.getLevelData().getCreature(creatureId));
+            return getPlayerController(playerId).getCreatureControl().getTypeCount(creature);
         }
     }
 
-    private int getRoomSlabsCount(short playerId, short roomId) {
-        if (roomId == 0) {
+    private int getRoomSlabsCount(short playerId, Room room) {
+        if (room == null) {
             return getPlayerController(playerId).getRoomControl().getRoomSlabsCount();
         } else {
-            return getPlayerController(playerId).getRoomControl().getRoomSlabsCount(levelInfo.getLevelData().getRoomById(roomId));
+            return getPlayerController(playerId).getRoomControl().getRoomSlabsCount(room);
         }
     }
 
-    private int getRoomCount(short playerId, short roomId) {
-        if (roomId == 0) {
+    private int getRoomCount(short playerId, Room room) {
+        if (room == null) {
             return getPlayerController(playerId).getRoomControl().getTypeCount();
         } else {
-            return getPlayerController(playerId).getRoomControl().getTypeCount(levelInfo.getLevelData().getRoomById(roomId));
+            return getPlayerController(playerId).getRoomControl().getTypeCount(room);
         }
     }
 
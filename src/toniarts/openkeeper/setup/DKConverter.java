@@ -20,6 +20,7 @@ import com.jme3.asset.AssetManager;
 import java.awt.event.WindowEvent;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.JOptionPane;
@@ -37,8 +38,7 @@ public abstract class DKConverter extends javax.swing.JFrame implements IFrameCl
     private final AssetManager assetManager;
     private static final Logger logger = Logger.getLogger(DKConverter.class.getName());
     private int totalProcesses = 0;
-    private int currentProcessNumber = 0;
-    private AssetsConverter.ConvertProcess currentProcess = null;
+    private final EnumSet<AssetsConverter.ConvertProcess> completedProcesses = EnumSet.noneOf(AssetsConverter.ConvertProcess.class);
 
     /**
      * Creates new form DKConverter
@@ -203,12 +203,13 @@ public abstract class DKConverter extends javax.swing.JFrame implements IFrameCl
     }
 
     private void updateStatus(Integer currentProgress, Integer totalProgress, AssetsConverter.ConvertProcess process) {
-        if (!process.equals(currentProcess)) {
-            currentProcessNumber++;
-            currentProcess = process;
+
+        // The processes run in parallel, count the finished ones
+        if (currentProgress != null && currentProgress.equals(totalProgress)) {
+            completedProcesses.add(process);
         }
         totalProgressBar.setMaximum(totalProcesses);
-        totalProgressBar.setValue(currentProcessNumber);
+        totalProgressBar.setValue(completedProcesses.size());
         String progress = "Converting " + process.toString().toLowerCase();
         if (currentProgress != null && totalProgress != null) {
             progress += " (" + currentProgress + " / " + totalProgress + ")";
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.tools.benchmark;
+
+import com.jme3.math.Vector3f;
+import com.simsilica.es.EntityData;
+import com.simsilica.es.EntityId;
+import com.simsilica.es.base.DefaultEntityData;
+import java.util.ArrayList;
+import java.util.List;
+import toniarts.openkeeper.game.component.CreatureComponent;
+import toniarts.openkeeper.game.component.Health;
+import toniarts.openkeeper.game.component.Owner;
+import toniarts.openkeeper.game.component.Position;
+import toniarts.openkeeper.game.component.Threat;
+import toniarts.openkeeper.game.logic.EntityComponentCache;
+
+/**
+ * Simple micro benchmark comparing the direct entity data component lookups
+ * with the reads through {@link EntityComponentCache}. Mimics the access
+ * pattern of the health system and the creature threat assessment.<br>
+ * Parameters: entity count (optional), iterations (optional)
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class ComponentAccessBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 200;
+
+    public static void main(String[] args) {
+        int entityCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        EntityData entityData = new DefaultEntityData();
+        List<EntityId> entityIds = new ArrayList<>(entityCount);
+        for (int i = 0; i < entityCount; i++) {
+            EntityId entityId = entityData.createEntity();
+            entityData.setComponents(entityId,
+                    new Position(0, new Vector3f(i, 0, i)),
+                    new Health(1, 100, 100, false),
+                    new Owner((short) (i % 4)),
+                    new Threat(i % 10));
+            CreatureComponent creatureComponent = new CreatureComponent();
+            creatureComponent.creatureId = (short) (i % 20);
+            entityData.setComponent(entityId, creatureComponent);
+            entityIds.add(entityId);
+        }
+        EntityComponentCache componentCache = new EntityComponentCache(entityData);
+
+        // Warm up
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            readDirect(entityData, entityIds);
+            readCached(componentCache, entityIds);
+        }
+
+        long start = System.nanoTime();
+        long result = 0;
+        for (int i = 0; i < iterations; i++) {
+            result += readDirect(entityData, entityIds);
+        }
+        long directTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            result -= readCached(componentCache, entityIds);
+        }
+        long cachedTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            result -= readCachedRows(componentCache);
+        }
+        long rowTime = System.nanoTime() - start;
+
+        componentCache.stop();
+
+        System.out.println("Entities: " + entityCount + ", iterations: " + iterations + " (checksum " + result + ")");
+        print("EntityData.getComponent", directTime, entityCount, iterations);
+        print("Cache by entity", cachedTime, entityCount, iterations);
+        print("Cache by row", rowTime, entityCount, iterations);
+    }
+
+    private static long readDirect(EntityData entityData, List<EntityId> entityIds) {
+        long sum = 0;
+        for (EntityId entityId : entityIds) {
+            Health health = entityData.getComponent(entityId, Health.class);
+            Owner owner = entityData.getComponent(entityId, Owner.class);
+            Threat threat = entityData.getComponent(entityId, Threat.class);
+            CreatureComponent creatureComponent = entityData.getComponent(entityId, CreatureComponent.class);
+            Position position = entityData.getComponent(entityId, Position.class);
+            if (!health.unconscious) {
+                sum += health.health + owner.ownerId + threat.threat + creatureComponent.creatureId + (long) position.position.x;
+            }
+        }
+
+        return sum;
+    }
+
+    private static long readCached(EntityComponentCache componentCache, List<EntityId> entityIds) {
+        long sum = 0;
+        for (EntityId entityId : entityIds) {
+            int row = componentCache.getRow(entityId);
+            if (!componentCache.isUnconscious(row)) {
+                sum += componentCache.getHealth(row) + componentCache.getOwnerId(row) + componentCache.getThreat(row)
+                        + componentCache.getCreatureId(row) + (long) componentCache.getPositionX(row);
+            }
+        }
+
+        return sum;
+    }
+
+    private static long readCachedRows(EntityComponentCache componentCache) {
+        long sum = 0;
+        for (int row = 0; row < componentCache.getRowCount(); row++) {
+            if (componentCache.hasHealth(row) && !componentCache.isUnconscious(row)) {
+                sum += componentCache.getHealth(row) + componentCache.getOwnerId(row) + componentCache.getThreat(row)
+                        + componentCache.getCreatureId(row) + (long) componentCache.getPositionX(row);
+            }
+        }
+
+        return sum;
+    }
+
+    private static void print(String name, long time, int entityCount, int iterations) {
+        double nsPerEntity = (double) time / ((long) entityCount * iterations);
+        System.out.println(String.format("%-25s %8.2f ms total, %6.2f ns/entity", name, time / 1000000d, nsPerEntity));
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.tools.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import toniarts.openkeeper.tools.convert.ConversionUtils;
+import toniarts.openkeeper.tools.convert.IResourceReader;
+import toniarts.openkeeper.tools.convert.ResourceReader;
+import toniarts.openkeeper.tools.convert.textures.enginetextures.EngineTextureDecoder;
+import toniarts.openkeeper.tools.convert.textures.enginetextures.EngineTextureEntry;
+import toniarts.openkeeper.tools.convert.textures.enginetextures.EngineTexturesFile;
+import toniarts.openkeeper.utils.PathUtils;
+
+/**
+ * Simple benchmark for the engine texture decoding. Compares the old way of
+ * opening the archive and reading the values one by one for each texture and
+ * copying the pixels with setRGB to the bulk path decoding straight into the
+ * image data, sequentially and in parallel.<br>
+ * Parameters: Dungeon Keeper II root folder (optional), iterations (optional)
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class EngineTexturesBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 1;
+
+    public static void main(String[] args) throws IOException {
+        String dkIIFolder = args.length > 0 ? PathUtils.fixFilePath(args[0]) : PathUtils.getDKIIFolder();
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        if (dkIIFolder == null) {
+            throw new RuntimeException("Please provide the Dungeon Keeper II root folder as a first parameter!");
+        }
+
+        File file = new File(ConversionUtils.getRealFileName(dkIIFolder, "DK2TextureCache".concat(File.separator).concat("EngineTextures.dat")));
+        EngineTexturesFile etFile = new EngineTexturesFile(file);
+        List<String> textures = new ArrayList<>(etFile.getFileCount());
+        for (String texture : etFile) {
+            textures.add(texture);
+        }
+
+        // Warm up
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            decodeLegacy(file, etFile, textures);
+            decodeSequential(etFile, textures);
+            decodeParallel(etFile, textures);
+        }
+
+        long start = System.nanoTime();
+        long result = 0;
+        for (int i = 0; i < iterations; i++) {
+            result += decodeLegacy(file, etFile, textures);
+        }
+        long legacyTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            result -= decodeSequential(etFile, textures);
+        }
+        long sequentialTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            result -= decodeParallel(etFile, textures);
+        }
+        long parallelTime = System.nanoTime() - start;
+
+        etFile.close();
+
+        System.out.println("Textures: " + textures.size() + ", iterations: " + iterations + " (checksum " + result + ")");
+        print("Per value reads + setRGB", legacyTime, textures.size(), iterations);
+        print("Bulk, sequential", sequentialTime, textures.size(), iterations);
+        print("Bulk, parallel", parallelTime, textures.size(), iterations);
+    }
+
+    private static long decodeLegacy(File file, EngineTexturesFile etFile, List<String> textures) throws IOException {
+        long sum = 0;
+        EngineTextureDecoder decoder = new EngineTextureDecoder();
+        for (String texture : textures) {
+            EngineTextureEntry entry = etFile.getEntry(texture);
+            long[] buf;
+            try (IResourceReader rawTextures = new ResourceReader(file)) {
+                rawTextures.seek(entry.getDataStartLocation());
+                int count = entry.getSize() / 4;
+                buf = new long[count];
+                for (int i = 0; i < count; i++) {
+                    buf[i] = rawTextures.readUnsignedIntegerAsLong();
+                }
+            }
+
+            BufferedImage img = new BufferedImage(entry.getResX(), entry.getResY(), BufferedImage.TYPE_INT_ARGB);
+            byte[] pixels = decoder.dd_texture(buf, entry.getResX() * 4, entry.getResX(), entry.getResY(), entry.isAlphaFlag());
+            for (int x = 0; x < entry.getResX(); x++) {
+                for (int y = 0; y < entry.getResY(); y++) {
+                    int base = entry.getResX() * y * 4 + x * 4;
+                    int r = ConversionUtils.toUnsignedByte(pixels[base]);
+                    int g = ConversionUtils.toUnsignedByte(pixels[base + 1]);
+                    int b = ConversionUtils.toUnsignedByte(pixels[base + 2]);
+                    int a = ConversionUtils.toUnsignedByte(pixels[base + 3]);
+                    img.setRGB(x, y, (a << 24) | (r << 16) | (g << 8) | b);
+                }
+            }
+            sum += img.getRGB(0, 0);
+        }
+
+        return sum;
+    }
+
+    private static long decodeSequential(EngineTexturesFile etFile, List<String> textures) {
+        long sum = 0;
+        for (String texture : textures) {
+            sum += etFile.getImage(texture).getRGB(0, 0);
+        }
+
+        return sum;
+    }
+
+    private static long decodeParallel(EngineTexturesFile etFile, List<String> textures) {
+        return textures.parallelStream().mapToLong((texture) -> etFile.getImage(texture).getRGB(0, 0)).sum();
+    }
+
+    private static void print(String name, long time, int textureCount, int iterations) {
+        double texturesPerSecond = (double) textureCount * iterations / (time / 1000000000d);
+        System.out.println(String.format("%-25s %10.2f ms total, %8.1f textures/s", name, time / 1000000d, texturesPerSecond));
+    }
+}
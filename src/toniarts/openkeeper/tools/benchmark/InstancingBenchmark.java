@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.tools.benchmark;
+
+import com.jme3.app.SimpleApplication;
+import com.jme3.app.state.AppState;
+import com.jme3.asset.plugins.FileLocator;
+import com.jme3.light.AmbientLight;
+import com.jme3.light.DirectionalLight;
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Statistics;
+import com.jme3.scene.Spatial;
+import com.jme3.system.AppSettings;
+import java.io.File;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import toniarts.openkeeper.tools.convert.AssetsConverter;
+import toniarts.openkeeper.tools.convert.ModelCacheLoader;
+import toniarts.openkeeper.tools.convert.map.GameObject;
+import toniarts.openkeeper.tools.convert.map.KwdFile;
+import toniarts.openkeeper.tools.convert.map.Terrain;
+import toniarts.openkeeper.tools.convert.map.Thing;
+import toniarts.openkeeper.tools.convert.map.Tile;
+import toniarts.openkeeper.tools.convert.textures.enginetextures.EngineTexturesLocator;
+import toniarts.openkeeper.utils.AssetUtils;
+import toniarts.openkeeper.utils.PathUtils;
+import toniarts.openkeeper.utils.WorldUtils;
+import toniarts.openkeeper.view.map.InstancedModelNode;
+import toniarts.openkeeper.view.map.MapViewController;
+
+/**
+ * Compares the frame time and draw calls of drawing the map models (torches,
+ * objects and gold piles) as normal spatials and with the hardware instancing.
+ * Places the objects of a level, a torch on every wall where one fits and a
+ * gold pile on every room tile, like a late game dungeon. By default picks the
+ * biggest level for at least four players. The assets must be converted
+ * first.<br>
+ * Parameters: Dungeon Keeper II root folder (optional), level file name
+ * (optional), frames (optional)
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class InstancingBenchmark extends SimpleApplication {
+
+    private static final int WARMUP_FRAMES = 200;
+    private static final int PLAYERS = 4;
+    private static final String TORCH_MODEL = "Torch1";
+    private static final Logger LOGGER = Logger.getLogger(InstancingBenchmark.class.getName());
+
+    private final String dkIIFolder;
+    private final KwdFile kwdFile;
+    private final int frames;
+    private InstancedModelNode models;
+    private int phase;
+    private int frame;
+    private long frameStart;
+    private long time;
+    private long drawCalls;
+    private int drawCallsIndex = -1;
+    private int[] statistics;
+    private long result;
+
+    public static void main(String[] args) {
+        String dkIIFolder = args.length > 0 ? PathUtils.fixFilePath(args[0]) : PathUtils.getDKIIFolder();
+        if (dkIIFolder == null) {
+            throw new RuntimeException("Please provide the Dungeon Keeper II root folder as a first parameter!");
+        }
+        KwdFile kwdFile = args.length > 1 ? new KwdFile(dkIIFolder, new File(dkIIFolder + PathUtils.DKII_MAPS_FOLDER + args[1])) : getBiggestLevel(dkIIFolder);
+        int frames = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        AppSettings settings = new AppSettings(true);
+        settings.setResolution(1280, 720);
+        settings.setVSync(false);
+        settings.setFrameRate(-1);
+        settings.setTitle("Instancing benchmark");
+
+        InstancingBenchmark app = new InstancingBenchmark(dkIIFolder, kwdFile, frames);
+        app.setSettings(settings);
+        app.setShowSettings(false);
+        app.setPauseOnLostFocus(false);
+        app.start();
+    }
+
+    private static KwdFile getBiggestLevel(String dkIIFolder) {
+        File[] files = new File(dkIIFolder + PathUtils.DKII_MAPS_FOLDER).listFiles((File dir, String name) -> name.toLowerCase().endsWith(".kwd"));
+        if (files == null) {
+            throw new RuntimeException("No levels found!");
+        }
+
+        KwdFile result = null;
+        Arrays.sort(files);
+        for (File file : files) {
+            KwdFile kwdFile = new KwdFile(dkIIFolder, file, false);
+            if (kwdFile.getGameLevel().getPlayerCount() >= PLAYERS && (result == null
+                    || kwdFile.getMap().getWidth() * kwdFile.getMap().getHeight() > result.getMap().getWidth() * result.getMap().getHeight())) {
+                result = kwdFile;
+            }
+        }
+        if (result == null) {
+            throw new RuntimeException("No level with " + PLAYERS + " players found!");
+        }
+        result.load();
+
+        return result;
+    }
+
+    public InstancingBenchmark(String dkIIFolder, KwdFile kwdFile, int frames) {
+        super((AppState[]) null);
+        this.dkIIFolder = dkIIFolder;
+        this.kwdFile = kwdFile;
+        this.frames = frames;
+    }
+
+    @Override
+    public void simpleInitApp() {
+        assetManager.registerLocator(AssetsConverter.getAssetsFolder(), FileLocator.class);
+        EngineTexturesLocator.register(assetManager, dkIIFolder);
+        assetManager.registerLoader(ModelCacheLoader.class, ModelCacheLoader.FILE_EXTENSION);
+
+        // Lights, the models use the lighting material
+        DirectionalLight light = new DirectionalLight(new Vector3f(-1, -1, -1).normalizeLocal(), ColorRGBA.White);
+        rootNode.addLight(light);
+        rootNode.addLight(new AmbientLight(ColorRGBA.White.mult(0.5f)));
+
+        // Populate the map
+        models = new InstancedModelNode("Models");
+        models.setInstancing(false);
+        addObjects();
+        addTorches();
+        addGoldPiles();
+        rootNode.attachChild(models);
+        System.out.println("Level: " + kwdFile.getGameLevel().getName() + ", models: " + models.getQuantity() + ", frames: " + frames);
+
+        // See the whole map
+        float width = kwdFile.getMap().getWidth() * MapViewController.TILE_WIDTH;
+        float height = kwdFile.getMap().getHeight() * MapViewController.TILE_WIDTH;
+        Vector3f center = new Vector3f(width / 2, 0, height / 2);
+        cam.setFrustumFar(Math.max(width, height) * 4);
+        cam.setLocation(center.add(0, Math.max(width, height), height / 2));
+        cam.lookAt(center, Vector3f.UNIT_Y);
+
+        // Draw calls are the rendered objects
+        Statistics stats = renderer.getStatistics();
+        stats.setEnabled(true);
+        statistics = new int[stats.getLabels().length];
+        drawCallsIndex = Arrays.asList(stats.getLabels()).indexOf("Objects");
+    }
+
+    private void addObjects() {
+        for (Thing.Object thing : kwdFile.getThings(Thing.Object.class)) {
+            GameObject object = kwdFile.getObject(thing.getObjectId());
+            if (object != null && object.getMeshResource() != null) {
+                addModel(object.getMeshResource().getName(), WorldUtils.pointToVector3f(thing.getPosX(), thing.getPosY()), 0);
+            }
+        }
+    }
+
+    private void addTorches() {
+        for (int y = 0; y < kwdFile.getMap().getHeight(); y++) {
+            for (int x = 0; x < kwdFile.getMap().getWidth(); x++) {
+                Terrain terrain = getTerrain(x, y);
+                if (terrain == null || terrain.getFlags().contains(Terrain.TerrainFlag.SOLID) || (x % 2 != 0 && y % 2 != 0)) {
+                    continue;
+                }
+
+                // The first wall that fits a torch
+                int[][] directions = {{0, -1}, {-1, 0}, {0, 1}, {1, 0}};
+                for (int[] direction : directions) {
+                    Terrain wall = getTerrain(x + direction[0], y + direction[1]);
+                    if (wall != null && wall.getFlags().contains(Terrain.TerrainFlag.TORCH)) {
+                        Vector3f position = WorldUtils.pointToVector3f(x, y).addLocal(direction[0] * MapViewController.TILE_WIDTH / 2,
+                                MapViewController.TORCH_HEIGHT, direction[1] * MapViewController.TILE_WIDTH / 2);
+                        addModel(TORCH_MODEL, position, (float) Math.atan2(direction[0], direction[1]));
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private void addGoldPiles() {
+        GameObject gold = null;
+        for (GameObject object : kwdFile.getObjectList()) {
+            if (object.getFlags().contains(GameObject.ObjectFlag.OBJECT_TYPE_GOLD) && object.getMeshResource() != null
+                    && (gold == null || object.getObjectId() > gold.getObjectId())) {
+                gold = object;
+            }
+        }
+        if (gold == null) {
+            return;
+        }
+
+        for (int y = 0; y < kwdFile.getMap().getHeight(); y++) {
+            for (int x = 0; x < kwdFile.getMap().getWidth(); x++) {
+                Terrain terrain = getTerrain(x, y);
+                if (terrain != null && terrain.getFlags().contains(Terrain.TerrainFlag.ROOM)) {
+                    addModel(gold.getMeshResource().getName(), WorldUtils.pointToVector3f(x, y), 0);
+                }
+            }
+        }
+    }
+
+    private Terrain getTerrain(int x, int y) {
+        Tile tile = kwdFile.getMap().getTile(x, y);
+        if (tile == null) {
+            return null;
+        }
+        return kwdFile.getTerrain(tile.getTerrainId());
+    }
+
+    private void addModel(String name, Vector3f position, float angle) {
+        try {
+            Spatial model = AssetUtils.loadModel(assetManager, name);
+            model.setLocalTranslation(position);
+            model.rotate(0, angle, 0);
+            models.attachChild(model);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to load model " + name + "!", e);
+        }
+    }
+
+    @Override
+    public void simpleUpdate(float tpf) {
+        long now = System.nanoTime();
+        renderer.getStatistics().getData(statistics);
+        renderer.getStatistics().clearFrame();
+
+        // Phases: warm up & measure normal, warm up & measure instanced
+        frame++;
+        if (phase % 2 == 1) {
+            time += now - frameStart;
+            drawCalls += drawCallsIndex >= 0 ? statistics[drawCallsIndex] : 0;
+        }
+        frameStart = now;
+        if (frame < (phase % 2 == 0 ? WARMUP_FRAMES : frames)) {
+            return;
+        }
+
+        frame = 0;
+        phase++;
+        if (phase == 2) {
+            print("Normal", time, drawCalls, frames);
+            result += drawCalls;
+            time = 0;
+            drawCalls = 0;
+            models.setInstancing(true);
+        } else if (phase == 4) {
+            print("Instanced", time, drawCalls, frames);
+            result += drawCalls;
+            System.out.println("Instances: " + models.getInstanceCount() + " (checksum " + result + ")");
+            stop();
+        }
+    }
+
+    private static void print(String name, long time, long drawCalls, int frames) {
+        double msPerFrame = time / 1000000d / frames;
+        System.out.println(String.format("%-12s %10.3f ms/frame, %8.1f fps, %10.1f draw calls/frame", name, msPerFrame, 1000 / msPerFrame, drawCalls / (double) frames));
+    }
+}
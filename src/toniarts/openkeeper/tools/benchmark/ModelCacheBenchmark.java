@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.tools.benchmark;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.ModelKey;
+import com.jme3.asset.plugins.FileLocator;
+import com.jme3.scene.Spatial;
+import com.jme3.system.JmeSystem;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import toniarts.openkeeper.tools.convert.AssetsConverter;
+import toniarts.openkeeper.tools.convert.ConversionUtils;
+import toniarts.openkeeper.tools.convert.ModelCacheLoader;
+import toniarts.openkeeper.tools.convert.map.ArtResource;
+import toniarts.openkeeper.tools.convert.map.Creature;
+import toniarts.openkeeper.tools.convert.map.KwdFile;
+import toniarts.openkeeper.tools.convert.textures.enginetextures.EngineTexturesLocator;
+import toniarts.openkeeper.utils.PathUtils;
+
+/**
+ * Simple benchmark comparing the loading of the J3O models and our binary
+ * model cache. Loads all the creature models with both and reports the load
+ * time and the heap used by the loaded models. The assets must be converted
+ * first.<br>
+ * Parameters: Dungeon Keeper II root folder (optional), iterations (optional)
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class ModelCacheBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 2;
+
+    public static void main(String[] args) throws IOException {
+        String dkIIFolder = args.length > 0 ? PathUtils.fixFilePath(args[0]) : PathUtils.getDKIIFolder();
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        if (dkIIFolder == null) {
+            throw new RuntimeException("Please provide the Dungeon Keeper II root folder as a first parameter!");
+        }
+
+        AssetManager assetManager = JmeSystem.newAssetManager(
+                Thread.currentThread().getContextClassLoader()
+                        .getResource("com/jme3/asset/Desktop.cfg"));
+        assetManager.registerLocator(AssetsConverter.getAssetsFolder(), FileLocator.class);
+        EngineTexturesLocator.register(assetManager, dkIIFolder);
+        assetManager.registerLoader(ModelCacheLoader.class, ModelCacheLoader.FILE_EXTENSION);
+
+        // The creature models
+        KwdFile kwd = new KwdFile(dkIIFolder, new File(ConversionUtils.getRealFileName(dkIIFolder, PathUtils.DKII_MAPS_FOLDER + "FrontEnd3DLevel.kwd")));
+        List<String> j3oModels = new ArrayList<>();
+        List<String> cacheModels = new ArrayList<>();
+        long[] fileSizes = new long[2];
+        for (String model : getCreatureModels(kwd)) {
+            String filename = AssetsConverter.MODELS_FOLDER + File.separator + model + ".";
+            try {
+                File j3o = new File(ConversionUtils.getRealFileName(AssetsConverter.getAssetsFolder(), filename + ModelCacheLoader.MODEL_EXTENSION));
+                File cache = new File(ConversionUtils.getRealFileName(AssetsConverter.getAssetsFolder(), filename + ModelCacheLoader.FILE_EXTENSION));
+                j3oModels.add(ConversionUtils.getCanonicalAssetKey(filename + ModelCacheLoader.MODEL_EXTENSION));
+                cacheModels.add(ConversionUtils.getCanonicalAssetKey(filename + ModelCacheLoader.FILE_EXTENSION));
+                fileSizes[0] += j3o.length();
+                fileSizes[1] += cache.length();
+            } catch (IOException e) {
+                System.out.println("Model " + model + " not converted, skipping!");
+            }
+        }
+
+        // Warm up, this also loads and caches the materials and textures for both
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            loadModels(assetManager, j3oModels);
+            loadModels(assetManager, cacheModels);
+        }
+
+        long result = 0;
+        long j3oTime = 0;
+        long cacheTime = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            result += loadModels(assetManager, j3oModels).size();
+            j3oTime += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            result += loadModels(assetManager, cacheModels).size();
+            cacheTime += System.nanoTime() - start;
+        }
+
+        System.out.println("Models: " + j3oModels.size() + ", iterations: " + iterations + " (checksum " + result + ")");
+        print("J3O", j3oTime, j3oModels.size(), iterations, getHeapUsage(assetManager, j3oModels), fileSizes[0]);
+        print("Model cache", cacheTime, cacheModels.size(), iterations, getHeapUsage(assetManager, cacheModels), fileSizes[1]);
+    }
+
+    private static Set<String> getCreatureModels(KwdFile kwd) {
+        Set<String> models = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        for (Creature creature : kwd.getCreatureList()) {
+            for (ArtResource resource : creature.getAnimations().values()) {
+                if (resource != null && (resource.getType() == ArtResource.ArtResourceType.MESH
+                        || resource.getType() == ArtResource.ArtResourceType.ANIMATING_MESH)) {
+                    models.add(resource.getName());
+                }
+            }
+        }
+
+        return models;
+    }
+
+    private static List<Spatial> loadModels(AssetManager assetManager, List<String> models) {
+        List<Spatial> result = new ArrayList<>(models.size());
+        for (String model : models) {
+
+            // Don't let the asset cache serve the model
+            ModelKey key = new ModelKey(model);
+            result.add(assetManager.loadModel(key));
+            assetManager.deleteFromCache(key);
+        }
+
+        return result;
+    }
+
+    /**
+     * Heap used by the loaded models. The mesh data lives in direct buffers
+     * for both formats, so this is mostly the scene graph and the animations.
+     */
+    private static long getHeapUsage(AssetManager assetManager, List<String> models) {
+        long before = getUsedHeap();
+        List<Spatial> loaded = loadModels(assetManager, models);
+        long after = getUsedHeap();
+        if (loaded.isEmpty()) {
+            return 0;
+        }
+
+        return after - before;
+    }
+
+    private static long getUsedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void print(String name, long time, int count, int iterations, long heap, long fileSize) {
+        double msPerItem = time / 1000000d / ((long) count * iterations);
+        System.out.println(String.format("%-12s %10.2f ms total, %8.2f ms/model, %8.2f MB heap, %8.2f MB on disk", name, time / 1000000d, msPerItem, heap / 1048576d, fileSize / 1048576d));
+    }
+}
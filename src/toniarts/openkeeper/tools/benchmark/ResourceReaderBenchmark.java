@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.tools.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import toniarts.openkeeper.tools.convert.ConversionUtils;
+import toniarts.openkeeper.tools.convert.ResourceReaders;
+import toniarts.openkeeper.tools.convert.map.KwdFile;
+import toniarts.openkeeper.tools.convert.textures.enginetextures.EngineTexturesFile;
+import toniarts.openkeeper.utils.AssetUtils;
+import toniarts.openkeeper.utils.PathUtils;
+
+/**
+ * Simple benchmark comparing the file based and the memory mapped resource
+ * readers. Loads all the levels and extracts the engine textures with both.<br>
+ * Parameters: Dungeon Keeper II root folder (optional), iterations (optional)
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class ResourceReaderBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 2;
+
+    public static void main(String[] args) throws IOException {
+        String dkIIFolder = args.length > 0 ? PathUtils.fixFilePath(args[0]) : PathUtils.getDKIIFolder();
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        if (dkIIFolder == null) {
+            throw new RuntimeException("Please provide the Dungeon Keeper II root folder as a first parameter!");
+        }
+
+        File[] files = new File(dkIIFolder + PathUtils.DKII_MAPS_FOLDER).listFiles((dir, name) -> name.toLowerCase().endsWith(".kwd"));
+        if (files == null) {
+            throw new RuntimeException("No levels found from " + dkIIFolder + "!");
+        }
+        List<File> levels = Arrays.asList(files);
+        File engineTextures = new File(ConversionUtils.getRealFileName(dkIIFolder, "DK2TextureCache".concat(File.separator).concat("EngineTextures.dat")));
+        File destination = Files.createTempDirectory("openkeeper-benchmark").toFile();
+
+        try {
+
+            // Warm up
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                for (boolean memoryMapped : new boolean[]{false, true}) {
+                    ResourceReaders.setMemoryMapped(memoryMapped);
+                    loadLevels(dkIIFolder, levels);
+                    readEngineTextures(engineTextures);
+                }
+            }
+
+            long result = 0;
+            long[] levelTimes = new long[2];
+            long[] directoryTimes = new long[2];
+            long[] extractTimes = new long[2];
+            for (int i = 0; i < iterations; i++) {
+                for (int mode = 0; mode < 2; mode++) {
+                    ResourceReaders.setMemoryMapped(mode == 1);
+
+                    long start = System.nanoTime();
+                    result += loadLevels(dkIIFolder, levels);
+                    levelTimes[mode] += System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    EngineTexturesFile etFile = readEngineTextures(engineTextures);
+                    directoryTimes[mode] += System.nanoTime() - start;
+                    result += etFile.getFileCount();
+
+                    start = System.nanoTime();
+                    etFile.extractFileData(destination.toString().concat(File.separator));
+                    extractTimes[mode] += System.nanoTime() - start;
+                    etFile.close();
+                }
+            }
+
+            System.out.println("Levels: " + levels.size() + ", iterations: " + iterations + " (checksum " + result + ")");
+            print("KwdFile, file", levelTimes[0], levels.size(), iterations);
+            print("KwdFile, mapped", levelTimes[1], levels.size(), iterations);
+            print("EngineTextures.dir, file", directoryTimes[0], 1, iterations);
+            print("EngineTextures.dir, mapped", directoryTimes[1], 1, iterations);
+            print("EngineTextures.dat, file", extractTimes[0], 1, iterations);
+            print("EngineTextures.dat, mapped", extractTimes[1], 1, iterations);
+        } finally {
+            AssetUtils.deleteFolder(destination);
+        }
+    }
+
+    private static long loadLevels(String dkIIFolder, List<File> levels) {
+        long sum = 0;
+        for (File level : levels) {
+            KwdFile kwd = new KwdFile(dkIIFolder, level);
+            sum += kwd.getMap().getWidth() * kwd.getMap().getHeight() + kwd.getTriggers().size();
+        }
+
+        return sum;
+    }
+
+    private static EngineTexturesFile readEngineTextures(File engineTextures) {
+        return new EngineTexturesFile(engineTextures);
+    }
+
+    private static void print(String name, long time, int count, int iterations) {
+        double msPerItem = time / 1000000d / ((long) count * iterations);
+        System.out.println(String.format("%-28s %10.2f ms total, %8.2f ms/item", name, time / 1000000d, msPerItem));
+    }
+}
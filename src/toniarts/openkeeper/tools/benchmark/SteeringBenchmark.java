@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.tools.benchmark;
+
+import com.badlogic.gdx.math.Vector2;
+import com.simsilica.es.EntityId;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import toniarts.openkeeper.game.navigation.steering.EntitySteeringFactory;
+import toniarts.openkeeper.game.navigation.steering.SteerableEntities;
+import toniarts.openkeeper.game.navigation.steering.SteerableEntity;
+import toniarts.openkeeper.utils.GameLoop;
+
+/**
+ * Measures the steering step time with sequential and parallel execution,
+ * with different amounts of entities following paths.<br>
+ * Parameters: ticks per run (optional)
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class SteeringBenchmark {
+
+    private static final int[] ENTITY_COUNTS = {50, 100, 250, 500, 1000, 2000};
+    private static final int PATH_LENGTH = 200;
+    private static final float TPF = GameLoop.INTERVAL_FPS_60 / 1000000000f;
+
+    public static void main(String[] args) {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 600;
+        ForkJoinPool forkJoinPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+        System.out.println("Processors: " + Runtime.getRuntime().availableProcessors() + ", ticks: " + ticks);
+        System.out.println(String.format("%8s %16s %16s %8s", "Entities", "Sequential ms", "Parallel ms", "Speedup"));
+        for (int entityCount : ENTITY_COUNTS) {
+
+            // Warm up & run
+            run(entityCount, ticks, null);
+            run(entityCount, ticks, forkJoinPool);
+            double sequential = run(entityCount, ticks, null);
+            double parallel = run(entityCount, ticks, forkJoinPool);
+
+            System.out.println(String.format("%8d %16.3f %16.3f %8.2f", entityCount, sequential, parallel, sequential / parallel));
+        }
+        forkJoinPool.shutdown();
+    }
+
+    /**
+     * Runs the steering
+     *
+     * @return average time per tick in milliseconds
+     */
+    private static double run(int entityCount, int ticks, ForkJoinPool forkJoinPool) {
+        SteerableEntities steerableEntities = createEntities(entityCount);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            steerableEntities.update(TPF, forkJoinPool, SteerableEntities.DEFAULT_CHUNK_SIZE);
+        }
+
+        return (System.nanoTime() - start) / 1000000d / ticks;
+    }
+
+    private static SteerableEntities createEntities(int entityCount) {
+        Random random = new Random(entityCount);
+        SteerableEntities steerableEntities = new SteerableEntities();
+        for (int i = 0; i < entityCount; i++) {
+            List<Vector2> path = new ArrayList<>(PATH_LENGTH);
+            int x = random.nextInt(80);
+            int y = random.nextInt(80);
+            for (int j = 0; j < PATH_LENGTH; j++) {
+                path.add(new Vector2(x, y));
+                if (random.nextBoolean()) {
+                    x += random.nextBoolean() ? 1 : -1;
+                } else {
+                    y += random.nextBoolean() ? 1 : -1;
+                }
+            }
+            Vector2 first = path.get(0);
+            SteerableEntity steerableEntity = steerableEntities.add(new EntityId(i), 1.5f, 0.25f, first.x, first.y, 0);
+            steerableEntities.setSteeringBehavior(steerableEntity,
+                    EntitySteeringFactory.navigateToPoint(path, null, steerableEntity, new Point(x, y), null));
+        }
+
+        return steerableEntities;
+    }
+}
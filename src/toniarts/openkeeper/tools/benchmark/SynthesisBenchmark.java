@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.tools.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import toniarts.openkeeper.audio.plugins.decoder.AudioInformation;
+import toniarts.openkeeper.audio.plugins.decoder.Decoder;
+import toniarts.openkeeper.audio.plugins.decoder.MediaInformation;
+import toniarts.openkeeper.audio.plugins.decoder.MpxReader;
+import toniarts.openkeeper.audio.plugins.decoder.UnsupportedMediaException;
+import toniarts.openkeeper.tools.convert.AssetsConverter;
+
+/**
+ * Compares the MPEG audio decoding speed with the single precision synthesis
+ * filterbank and with the double precision reference. Also validates the
+ * single precision output against the reference, every decoded sample must be
+ * within one LSB. Decodes all the MP2 files in the sound folder. The assets
+ * must be converted first.<br>
+ * Parameters: sound folder (optional), iterations (optional)
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class SynthesisBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 2;
+    private static final int MAX_SAMPLE_DIFFERENCE = 1;
+
+    // Layer II, samples per channel
+    private static final int SAMPLES_PER_FRAME = 1152;
+
+    public static void main(String[] args) throws IOException {
+        File folder = new File(args.length > 0 ? args[0] : AssetsConverter.getAssetsFolder() + AssetsConverter.SOUNDS_FOLDER);
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        // The corpus, read to memory so that we only measure the decoding
+        List<File> files = new ArrayList<>();
+        collectFiles(folder, files);
+        if (files.isEmpty()) {
+            throw new RuntimeException("No MP2 files found from " + folder + "!");
+        }
+        Collections.sort(files);
+        List<byte[]> corpus = new ArrayList<>(files.size());
+        for (File file : files) {
+            corpus.add(readFile(file));
+        }
+
+        // Validate
+        long frames = 0;
+        long samples = 0;
+        long differingSamples = 0;
+        int maxDifference = 0;
+        int failed = 0;
+        for (int i = 0; i < corpus.size(); i++) {
+            Decoder.setFloatSynthesis(false);
+            Pcm reference = decode(corpus.get(i));
+            Decoder.setFloatSynthesis(true);
+            Pcm pcm = decode(corpus.get(i));
+            if (reference == null || pcm == null) {
+                System.out.println("Failed to decode " + files.get(i) + ", skipping!");
+                corpus.set(i, null);
+                continue;
+            }
+
+            int difference = 0;
+            int length = Math.min(reference.data.length, pcm.data.length);
+            for (int j = 0; j + 1 < length; j += 2) {
+                int sampleDifference = Math.abs(getSample(reference.data, j) - getSample(pcm.data, j));
+                if (sampleDifference > 0) {
+                    differingSamples++;
+                    difference = Math.max(difference, sampleDifference);
+                }
+            }
+            if (difference > MAX_SAMPLE_DIFFERENCE || reference.data.length != pcm.data.length) {
+                failed++;
+                System.out.println("Output of " + files.get(i) + " differs from the reference, max difference " + difference + "!");
+            }
+            maxDifference = Math.max(maxDifference, difference);
+            samples += reference.data.length / 2;
+            frames += reference.data.length / (2L * reference.channels * SAMPLES_PER_FRAME);
+        }
+        corpus.removeAll(Collections.singleton(null));
+        System.out.println("Files: " + corpus.size() + ", frames: " + frames + ", iterations: " + iterations);
+        System.out.println(String.format("Max difference %d LSB, %d of %d samples differ, %d files failed", maxDifference, differingSamples, samples, failed));
+
+        // Warm up
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            Decoder.setFloatSynthesis(false);
+            decodeAll(corpus);
+            Decoder.setFloatSynthesis(true);
+            decodeAll(corpus);
+        }
+
+        long result = 0;
+        long referenceTime = 0;
+        long floatTime = 0;
+        for (int i = 0; i < iterations; i++) {
+            Decoder.setFloatSynthesis(false);
+            long start = System.nanoTime();
+            result += decodeAll(corpus);
+            referenceTime += System.nanoTime() - start;
+
+            Decoder.setFloatSynthesis(true);
+            start = System.nanoTime();
+            result += decodeAll(corpus);
+            floatTime += System.nanoTime() - start;
+        }
+
+        System.out.println("Checksum " + result);
+        print("Double", referenceTime, frames * iterations);
+        print("Float", floatTime, frames * iterations);
+    }
+
+    private static void collectFiles(File folder, List<File> files) {
+        File[] children = folder.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File file : children) {
+            if (file.isDirectory()) {
+                collectFiles(file, files);
+            } else if (file.getName().toLowerCase().endsWith(".mp2")) {
+                files.add(file);
+            }
+        }
+    }
+
+    private static byte[] readFile(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+            byte[] buffer = new byte[16384];
+            int length;
+            while ((length = in.read(buffer)) > -1) {
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static long decodeAll(List<byte[]> corpus) {
+        long result = 0;
+        for (byte[] data : corpus) {
+            Pcm pcm = decode(data);
+            if (pcm != null) {
+                result += pcm.data.length;
+            }
+        }
+
+        return result;
+    }
+
+    private static Pcm decode(byte[] data) {
+        try (InputStream in = new BufferedInputStream(new ByteArrayInputStream(data))) {
+            MpxReader reader = new MpxReader();
+            MediaInformation info = reader.readInformation(in, true);
+            Decoder decoder = reader.getDecoder(in, true);
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 8);
+                byte[] buffer = new byte[16384];
+                int length;
+                while ((length = decoder.read(buffer)) > -1) {
+                    out.write(buffer, 0, length);
+                }
+
+                return new Pcm(out.toByteArray(), (int) info.get(AudioInformation.I_CHANNEL_NUMBER));
+            } finally {
+                decoder.close();
+            }
+        } catch (IOException | UnsupportedMediaException e) {
+            return null;
+        }
+    }
+
+    private static int getSample(byte[] data, int index) {
+
+        // 16-bit little-endian
+        return (short) ((data[index] & 0xFF) | (data[index + 1] << 8));
+    }
+
+    private static void print(String name, long time, long frames) {
+        double msTotal = time / 1000000d;
+        System.out.println(String.format("%-12s %10.2f ms total, %10.1f frames/s", name, msTotal, frames / (msTotal / 1000)));
+    }
+
+    private static class Pcm {
+
+        private final byte[] data;
+        private final int channels;
+
+        public Pcm(byte[] data, int channels) {
+            this.data = data;
+            this.channels = channels;
+        }
+    }
+}
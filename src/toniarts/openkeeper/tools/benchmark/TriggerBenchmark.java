@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.tools.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import toniarts.openkeeper.game.trigger.TriggerData;
+import toniarts.openkeeper.game.trigger.TriggerLoader;
+import toniarts.openkeeper.game.trigger.TriggerProgram;
+import toniarts.openkeeper.tools.convert.map.GameLevel.LevFlag;
+import toniarts.openkeeper.tools.convert.map.KwdFile;
+import toniarts.openkeeper.tools.convert.map.Player;
+import toniarts.openkeeper.tools.convert.map.Trigger;
+import toniarts.openkeeper.tools.convert.map.TriggerGeneric;
+import toniarts.openkeeper.utils.PathUtils;
+
+/**
+ * Measures the cost of going through all the triggers of the campaign levels
+ * once per tick, reading the arguments like the trigger controls do. Compares
+ * the string keyed raw trigger data to the compiled trigger programs.<br>
+ * Parameters: DK II folder, ticks per level (optional)
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class TriggerBenchmark {
+
+    private static final String[] ARGUMENTS = {"playerId", "targetId", "flag", "value", "creatureId", "roomId"};
+
+    public static void main(String[] args) {
+        if (args.length < 1 || !new File(args[0]).exists()) {
+            throw new RuntimeException("First parameter must be the Dungeon Keeper II folder!");
+        }
+        String dkIIFolder = PathUtils.fixFilePath(args[0]);
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+
+        File[] files = new File(dkIIFolder + PathUtils.DKII_MAPS_FOLDER).listFiles((File dir, String name) -> name.toLowerCase().endsWith(".kwd"));
+        if (files == null) {
+            throw new RuntimeException("No levels found!");
+        }
+
+        System.out.println(String.format("%-20s %6s %10s %14s %14s", "Level", "Nodes", "Compile ms", "Raw us/tick", "Compiled us/tick"));
+        long result = 0;
+        for (File file : files) {
+            KwdFile kwdFile = new KwdFile(dkIIFolder, file);
+            List<Integer> triggerIds = getTriggerIds(kwdFile);
+            if (triggerIds.isEmpty()) {
+                continue;
+            }
+
+            // Compile
+            long start = System.nanoTime();
+            List<TriggerProgram> programs = new ArrayList<>(triggerIds.size());
+            TriggerLoader triggerLoader = new TriggerLoader(kwdFile);
+            for (Integer triggerId : triggerIds) {
+                programs.add(triggerLoader.load(triggerId));
+            }
+            double compileTime = (System.nanoTime() - start) / 1000000d;
+            int nodes = 0;
+            for (TriggerProgram program : programs) {
+                nodes += program.getSize();
+            }
+
+            // Warm up
+            Map<Integer, Trigger> triggers = kwdFile.getTriggers();
+            for (int i = 0; i < ticks / 10; i++) {
+                result += readRaw(triggers, triggerIds);
+                result -= readCompiled(programs);
+            }
+
+            start = System.nanoTime();
+            for (int i = 0; i < ticks; i++) {
+                result += readRaw(triggers, triggerIds);
+            }
+            double rawTime = (System.nanoTime() - start) / 1000d / ticks;
+
+            start = System.nanoTime();
+            for (int i = 0; i < ticks; i++) {
+                result -= readCompiled(programs);
+            }
+            double compiledTime = (System.nanoTime() - start) / 1000d / ticks;
+
+            System.out.println(String.format("%-20s %6d %10.3f %14.3f %14.3f", file.getName(), nodes, compileTime, rawTime, compiledTime));
+        }
+        System.out.println("Checksum " + result + " (should be 0)");
+    }
+
+    /**
+     * Get the campaign level & player triggers
+     */
+    private static List<Integer> getTriggerIds(KwdFile kwdFile) {
+        List<Integer> triggerIds = new ArrayList<>();
+        if (kwdFile.getGameLevel().getLvlFlags().contains(LevFlag.IS_SKIRMISH_LEVEL)
+                || kwdFile.getGameLevel().getLvlFlags().contains(LevFlag.IS_MULTIPLAYER_LEVEL)) {
+            return triggerIds;
+        }
+        if (kwdFile.getGameLevel().getTriggerId() != 0) {
+            triggerIds.add(kwdFile.getGameLevel().getTriggerId());
+        }
+        for (Player player : kwdFile.getPlayers().values()) {
+            if (player.getTriggerId() != 0) {
+                triggerIds.add(player.getTriggerId());
+            }
+        }
+        return triggerIds;
+    }
+
+    private static long readRaw(Map<Integer, Trigger> triggers, List<Integer> triggerIds) {
+        long sum = 0;
+        for (Integer triggerId : triggerIds) {
+            sum += readRaw(triggers, triggerId);
+        }
+        return sum;
+    }
+
+    private static long readRaw(Map<Integer, Trigger> triggers, int id) {
+        long sum = 0;
+        while (true) {
+            Trigger trigger = triggers.get(id);
+            for (String key : ARGUMENTS) {
+                Number value = trigger.getUserData(key);
+                if (value != null) {
+                    sum += value.intValue();
+                }
+            }
+            if (trigger instanceof TriggerGeneric && trigger.hasChildren()) {
+                sum += readRaw(triggers, trigger.getIdChild());
+            }
+            if (!trigger.hasNext()) {
+                break;
+            }
+            id = trigger.getIdNext();
+        }
+        return sum;
+    }
+
+    private static long readCompiled(List<TriggerProgram> programs) {
+        long sum = 0;
+        for (TriggerProgram program : programs) {
+            for (int i = 1; i < program.getSize(); i++) {
+                TriggerData trigger = program.getNode(i);
+                sum += trigger.getPlayerId() + trigger.getTargetId() + trigger.getFlag() + trigger.getValue()
+                        + trigger.getCreatureId() + trigger.getRoomId();
+            }
+        }
+        return sum;
+    }
+}
@@ -40,12 +40,21 @@ import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.EnumSet;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -86,14 +95,13 @@ import toniarts.openkeeper.utils.MapThumbnailGenerator;
 public abstract class AssetsConverter {
 
     /**
-     * Processes are done in order
-     *
-     * @see ConvertProcess#getProcessNumber()
+     * Processes are run in parallel, the models and map thumbnails wait for the
+     * textures
      */
     public enum ConvertProcess {
 
-        TEXTURES(5),
-        MODELS(6),
+        TEXTURES(6),
+        MODELS(8),
         MOUSE_CURSORS(4),
         MUSIC_AND_SOUNDS(4),
         INTERFACE_TEXTS(3),
@@ -136,6 +144,9 @@ public abstract class AssetsConverter {
     }
     private final String dungeonKeeperFolder;
     private final AssetManager assetManager;
+    private final Object statusLock = new Object();
+    private ConversionManifest manifest;
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
     private static final boolean OVERWRITE_DATA = true; // Not exhausting your SDD :) or our custom graphics
     private static final String ASSETS_FOLDER = "assets" + File.separator + "Converted";
     private static final String ABSOLUTE_ASSETS_FOLDER = getCurrentFolder() + ASSETS_FOLDER + File.separator;
@@ -168,6 +179,38 @@ public abstract class AssetsConverter {
      */
     protected abstract void updateStatus(Integer currentProgress, Integer totalProgress, ConvertProcess process);
 
+    /**
+     * Reports the status, the processes run in parallel so this serializes the
+     * calls to {@link #updateStatus(java.lang.Integer, java.lang.Integer, toniarts.openkeeper.tools.convert.AssetsConverter.ConvertProcess)}
+     *
+     * @param currentProgress current progress, maybe null if not certain yet
+     * @param totalProgress total progress, maybe null if not certain yet
+     * @param process the process we are currently doing
+     */
+    private void reportStatus(Integer currentProgress, Integer totalProgress, ConvertProcess process) {
+        synchronized (statusLock) {
+            updateStatus(currentProgress, totalProgress, process);
+        }
+    }
+
+    /**
+     * Runs the action for each of the items in parallel and reports the
+     * progress. Must be called from within the conversion pool so that the
+     * work is split to the same pool.
+     *
+     * @param items the items to process
+     * @param progress the progress counter, shared by the whole process
+     * @param total the total progress
+     * @param process the process we are currently doing
+     * @param action the action to run
+     */
+    private <T> void forEachParallel(Collection<T> items, AtomicInteger progress, int total, ConvertProcess process, Consumer<T> action) {
+        items.parallelStream().forEach((item) -> {
+            reportStatus(progress.getAndIncrement(), total, process);
+            action.accept(item);
+        });
+    }
+
     public static boolean conversionNeeded(AppSettings settings) {
         boolean needConversion = false;
 
@@ -204,33 +247,43 @@ public abstract class AssetsConverter {
 
         //TODO: We need to search the normal assets before extracting do we actually already
         //have a user made asset there
-        //First and foremost, we need the textures
-        convertTextures(dungeonKeeperFolder, currentFolder.concat(TEXTURES_FOLDER).concat(File.separator));
+        final String assetsFolder = currentFolder;
 
-        //And the models, note that these already need to find the textures (our custom resource locator)
-        //In development this works without such
-        convertModels(dungeonKeeperFolder, currentFolder.concat(MODELS_FOLDER).concat(File.separator), assetManager);
-
-        //The mouse cursors
-        convertMouseCursors(dungeonKeeperFolder, currentFolder.concat(MOUSE_CURSORS_FOLDER).concat(File.separator));
-
-        //The sound and music
-        convertSounds(dungeonKeeperFolder, currentFolder.concat(SOUNDS_FOLDER).concat(File.separator));
-
-        //The texts
-        convertTexts(dungeonKeeperFolder, currentFolder.concat(TEXTS_FOLDER).concat(File.separator));
-
-        //The paths
-        convertPaths(dungeonKeeperFolder, currentFolder.concat(PATHS_FOLDER).concat(File.separator));
-
-        //HiScores
-        convertHiScores(dungeonKeeperFolder);
+        // The manifest tells us what is already converted
+        manifest = new ConversionManifest(new File(assetsFolder.concat(ConversionManifest.MANIFEST_FILE)));
+        ForkJoinPool pool = new ForkJoinPool(PARALLELISM);
+        try {
 
-        //The fonts
-        convertFonts(dungeonKeeperFolder, currentFolder.concat(FONTS_FOLDER).concat(File.separator));
+            //First and foremost, we need the textures
+            CompletableFuture<Void> textures = CompletableFuture.runAsync(() -> convertTextures(dungeonKeeperFolder, assetsFolder.concat(TEXTURES_FOLDER).concat(File.separator)), pool);
+
+            //And the models, note that these already need to find the textures (our custom resource locator)
+            //In development this works without such
+            CompletableFuture<Void> models = textures.thenRunAsync(() -> convertModels(dungeonKeeperFolder, assetsFolder.concat(MODELS_FOLDER).concat(File.separator), assetManager), pool);
+
+            //The map thumbnails, these need the palette from the textures
+            CompletableFuture<Void> mapThumbnails = textures.thenRunAsync(() -> generateMapThumbnails(dungeonKeeperFolder, assetsFolder.concat(MAP_THUMBNAILS_FOLDER).concat(File.separator)), pool);
+
+            // The rest are independent
+            CompletableFuture.allOf(textures, models, mapThumbnails,
+                    CompletableFuture.runAsync(() -> convertMouseCursors(dungeonKeeperFolder, assetsFolder.concat(MOUSE_CURSORS_FOLDER).concat(File.separator)), pool),
+                    CompletableFuture.runAsync(() -> convertSounds(dungeonKeeperFolder, assetsFolder.concat(SOUNDS_FOLDER).concat(File.separator)), pool),
+                    CompletableFuture.runAsync(() -> convertTexts(dungeonKeeperFolder, assetsFolder.concat(TEXTS_FOLDER).concat(File.separator)), pool),
+                    CompletableFuture.runAsync(() -> convertPaths(dungeonKeeperFolder, assetsFolder.concat(PATHS_FOLDER).concat(File.separator)), pool),
+                    CompletableFuture.runAsync(() -> convertHiScores(dungeonKeeperFolder), pool),
+                    CompletableFuture.runAsync(() -> convertFonts(dungeonKeeperFolder, assetsFolder.concat(FONTS_FOLDER).concat(File.separator)), pool)
+            ).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } finally {
+            pool.shutdown();
 
-        //The map thumbnails
-        generateMapThumbnails(dungeonKeeperFolder, currentFolder.concat(MAP_THUMBNAILS_FOLDER).concat(File.separator));
+            // Save what we got, even if we failed
+            manifest.save();
+        }
 
         // Log the time taken
         long duration = System.currentTimeMillis() - start;
@@ -238,7 +291,9 @@ public abstract class AssetsConverter {
     }
 
     /**
-     * Extract and copy DK II textures
+     * Extract and copy DK II textures. The EngineTextures.dat is not
+     * extracted, those textures are decoded on demand by the
+     * EngineTexturesLocator
      *
      * @param dungeonKeeperFolder DK II main folder
      * @param destination Destination folder
@@ -248,54 +303,22 @@ public abstract class AssetsConverter {
             return;
         }
         LOGGER.log(Level.INFO, "Extracting textures to: {0}", destination);
-        updateStatus(null, null, ConvertProcess.TEXTURES);
-        AssetUtils.deleteFolder(new File(destination));
-        EngineTexturesFile etFile = getEngineTexturesFile(dungeonKeeperFolder);
-        Pattern pattern = Pattern.compile("(?<name>\\w+)MM(?<mipmaplevel>\\d{1})");
-        WadFile frontEnd;
-        WadFile engineTextures;
-        try {
-            frontEnd = new WadFile(new File(ConversionUtils.getRealFileName(dungeonKeeperFolder, PathUtils.DKII_DATA_FOLDER + "FrontEnd.WAD")));
-            engineTextures = new WadFile(new File(ConversionUtils.getRealFileName(dungeonKeeperFolder, PathUtils.DKII_DATA_FOLDER + "EngineTextures.WAD")));
+        reportStatus(null, null, ConvertProcess.TEXTURES);
+        manifest.prepare(ConvertProcess.TEXTURES, new File(destination));
+        try (WadFile frontEnd = new WadFile(new File(ConversionUtils.getRealFileName(dungeonKeeperFolder, PathUtils.DKII_DATA_FOLDER + "FrontEnd.WAD")));
+                WadFile engineTextures = new WadFile(new File(ConversionUtils.getRealFileName(dungeonKeeperFolder, PathUtils.DKII_DATA_FOLDER + "EngineTextures.WAD")))) {
+
+            AtomicInteger progress = new AtomicInteger(0);
+            int total = frontEnd.getWadFileEntries().size() + engineTextures.getWadFileEntries().size();
+
+            // The containers may overwrite each others files, so keep them in order
+            Set<String> extracted = ConcurrentHashMap.newKeySet();
+            extractTextureContainer(progress, total, frontEnd, "FrontEnd.WAD", destination, extracted);
+            extractTextureContainer(progress, total, engineTextures, "EngineTextures.WAD", destination, extracted);
+            reportStatus(total, total, ConvertProcess.TEXTURES);
         } catch (IOException e) {
-            throw new RuntimeException("Failed to open a WAD file!", e);
-        }
-
-        int i = 0;
-        int total = etFile.getFileCount() + frontEnd.getWadFileEntries().size() + engineTextures.getWadFileEntries().size();
-
-        for (String textureFile : etFile) {
-            updateStatus(i, total, ConvertProcess.TEXTURES);
-            i++;
-
-            //All are PNG files, and MipMap levels are present, we need only the
-            //highest quality one, so don't bother extracting the other mipmap levels
-            Matcher matcher = pattern.matcher(textureFile);
-            boolean found = matcher.find();
-            if (found && Integer.parseInt(matcher.group("mipmaplevel")) == 0) {
-
-                //Highest resolution, extract and rename
-                File f = etFile.extractFileData(textureFile, destination, OVERWRITE_DATA);
-                File newFile = new File(f.toString().replaceFirst("MM" + matcher.group("mipmaplevel"), ""));
-                if (OVERWRITE_DATA && newFile.exists()) {
-                    newFile.delete();
-                } else if (!OVERWRITE_DATA && newFile.exists()) {
-
-                    // Delete the extracted file
-                    LOGGER.log(Level.INFO, "File {0} already exists, skipping!", newFile);
-                    f.delete();
-                    continue;
-                }
-                f.renameTo(newFile);
-            } else if (!found) {
-
-                // No mipmap levels, just extract
-                etFile.extractFileData(textureFile, destination, OVERWRITE_DATA);
-            }
+            throw new RuntimeException("Failed to read a WAD file!", e);
         }
-
-        extractTextureContainer(i, total, frontEnd, destination);
-        extractTextureContainer(i, total, engineTextures, destination);
     }
 
     /**
@@ -309,81 +332,89 @@ public abstract class AssetsConverter {
             return;
         }
         LOGGER.log(Level.INFO, "Extracting models to: {0}", destination);
-        updateStatus(null, null, ConvertProcess.MODELS);
-        AssetUtils.deleteFolder(new File(destination));
+        reportStatus(null, null, ConvertProcess.MODELS);
 
         // Create the materials folder or else the material file saving fails
         File materialFolder = new File(getAssetsFolder().concat(AssetsConverter.MATERIALS_FOLDER));
-        AssetUtils.deleteFolder(materialFolder);
+        manifest.prepare(ConvertProcess.MODELS, new File(destination), materialFolder);
         materialFolder.mkdirs();
 
         // Get the engine textures catalog
         EngineTexturesFile engineTexturesFile = getEngineTexturesFile(dungeonKeeperFolder);
 
         //Meshes are in the data folder, access the packed file
-        WadFile wad = new WadFile(new File(dungeonKeeperFolder + PathUtils.DKII_DATA_FOLDER + "Meshes.WAD"));
-        HashMap<String, KmfFile> kmfs = new HashMap<>();
-        File tmpdir = new File(System.getProperty("java.io.tmpdir"));
-        int i = 0;
-        int total = wad.getWadFileEntryCount();
-        for (final String entry : wad.getWadFileEntries()) {
-            try {
-                updateStatus(i, total, ConvertProcess.MODELS);
+        Map<String, KmfFile> kmfs = new ConcurrentHashMap<>();
+        Map<String, Long> checksums = new ConcurrentHashMap<>();
+        AtomicInteger progress = new AtomicInteger(0);
+        int total;
+        try (WadFile wad = new WadFile(new File(dungeonKeeperFolder + PathUtils.DKII_DATA_FOLDER + "Meshes.WAD"))) {
+            total = wad.getWadFileEntryCount();
+
+            // See what needs converting, only the stored data is needed for that
+            wad.getWadFileEntries().parallelStream().forEach((entry) -> {
 
                 // See if we already have this model
                 if (!OVERWRITE_DATA && new File(destination.concat(entry.substring(0, entry.length() - 4)).concat(".j3o")).exists()) {
                     LOGGER.log(Level.INFO, "File {0} already exists, skipping!", entry);
-                    i++;
-                    continue;
+                    reportStatus(progress.getAndIncrement(), total, ConvertProcess.MODELS);
+                    return;
                 }
 
-                // Extract each file to temp
-                File f = wad.extractFileData(entry, tmpdir.toString());
-                f.deleteOnExit();
-
-                // Parse
-                final KmfFile kmfFile = new KmfFile(f);
-
-                // If it is a regular model or animation, process it straight away
-                // Leave groups for later (since linking)
-                if (kmfFile.getType() == KmfFile.Type.MESH || kmfFile.getType() == KmfFile.Type.ANIM) {
-                    convertModel(assetManager, new Entry<String, KmfFile>() {
-                        @Override
-                        public String getKey() {
-                            return entry;
-                        }
-
-                        @Override
-                        public KmfFile getValue() {
-                            return kmfFile;
-                        }
-
-                        @Override
-                        public KmfFile setValue(KmfFile value) {
-                            throw new UnsupportedOperationException("Plz, don't do this!");
-                        }
-                    }, destination, engineTexturesFile);
-
-                    // We can delete the file straight
-                    f.delete();
-                    i++;
-                } else {
+                // Or if it is up to date
+                long checksum = wad.getChecksum(entry);
+                if (manifest.isConverted(ConvertProcess.MODELS, entry, checksum)) {
+                    reportStatus(progress.getAndIncrement(), total, ConvertProcess.MODELS);
+                    return;
+                }
+                checksums.put(entry, checksum);
+            });
 
-                    // For later processing
-                    kmfs.put(entry, kmfFile);
+            // Parse straight from the WAD, the entries are streamed in the archive order
+            wad.forEachEntry(checksums.keySet(), true, (entry, data, length) -> {
+                try {
+                    final KmfFile kmfFile = new KmfFile(entry, data, length);
+
+                    // If it is a regular model or animation, process it straight away
+                    // Leave groups for later (since linking)
+                    if (kmfFile.getType() == KmfFile.Type.MESH || kmfFile.getType() == KmfFile.Type.ANIM) {
+                        File output = convertModel(assetManager, new Entry<String, KmfFile>() {
+                            @Override
+                            public String getKey() {
+                                return entry;
+                            }
+
+                            @Override
+                            public KmfFile getValue() {
+                                return kmfFile;
+                            }
+
+                            @Override
+                            public KmfFile setValue(KmfFile value) {
+                                throw new UnsupportedOperationException("Plz, don't do this!");
+                            }
+                        }, destination, engineTexturesFile);
+                        manifest.setConverted(ConvertProcess.MODELS, entry, checksums.get(entry), output);
+                        reportStatus(progress.getAndIncrement(), total, ConvertProcess.MODELS);
+                    } else {
+
+                        // For later processing
+                        kmfs.put(entry, kmfFile);
+                    }
+                } catch (Exception ex) {
+                    LOGGER.log(Level.SEVERE, "Failed to create a file for WAD entry " + entry + "!", ex);
+                    throw ex;
                 }
-            } catch (Exception ex) {
-                LOGGER.log(Level.SEVERE, "Failed to create a file for WAD entry " + entry + "!", ex);
-                throw ex;
-            }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read the Meshes.WAD!", e);
         }
 
         // And the groups (now they can be linked)
-        for (Entry<String, KmfFile> entry : kmfs.entrySet()) {
-            updateStatus(i, total, ConvertProcess.MODELS);
-            convertModel(assetManager, entry, destination, engineTexturesFile);
-            i++;
-        }
+        forEachParallel(kmfs.entrySet(), progress, total, ConvertProcess.MODELS, (entry) -> {
+            File output = convertModel(assetManager, entry, destination, engineTexturesFile);
+            manifest.setConverted(ConvertProcess.MODELS, entry.getKey(), checksums.get(entry.getKey()), output);
+        });
+        reportStatus(total, total, ConvertProcess.MODELS);
     }
 
     /**
@@ -392,9 +423,10 @@ public abstract class AssetsConverter {
      * @param assetManager assetManager, for finding stuff
      * @param entry KMF / name entry
      * @param destination destination directory
+     * @return the converted model file
      * @throws RuntimeException May fail
      */
-    private void convertModel(AssetManager assetManager, Entry<String, KmfFile> entry, String destination, EngineTexturesFile engineTexturesFile) throws RuntimeException {
+    private File convertModel(AssetManager assetManager, Entry<String, KmfFile> entry, String destination, EngineTexturesFile engineTexturesFile) throws RuntimeException {
 
         //Remove the file extension from the file
         KmfAssetInfo ai = new KmfAssetInfo(assetManager, new AssetKey(entry.getKey()), entry.getValue(), true);
@@ -404,8 +436,14 @@ public abstract class AssetsConverter {
 
             // Export
             BinaryExporter exporter = BinaryExporter.getInstance();
-            File file = new File(destination.concat(entry.getKey().substring(0, entry.getKey().length() - 4)).concat(".j3o"));
+            String fileName = destination.concat(entry.getKey().substring(0, entry.getKey().length() - 4));
+            File file = new File(fileName.concat(".").concat(ModelCacheLoader.MODEL_EXTENSION));
             exporter.save(n, file);
+
+            // And the model cache, for faster loading
+            new ModelCacheExporter().save(n, new File(fileName.concat(".").concat(ModelCacheLoader.FILE_EXTENSION)));
+
+            return file;
         } catch (Exception ex) {
             String msg = "Failed to convert KMF entry " + entry.getKey() + "!";
             LOGGER.log(Level.SEVERE, msg, ex);
@@ -424,33 +462,42 @@ public abstract class AssetsConverter {
             return;
         }
         LOGGER.log(Level.INFO, "Extracting mouse cursors to: {0}", destination);
-        updateStatus(null, null, ConvertProcess.MOUSE_CURSORS);
-        AssetUtils.deleteFolder(new File(destination));
+        reportStatus(null, null, ConvertProcess.MOUSE_CURSORS);
 
         //Mouse cursors are PNG files in the Sprite.WAD
-        WadFile wadFile = new WadFile(new File(dungeonKeeperFolder + PathUtils.DKII_DATA_FOLDER + "Sprite.WAD"));
-        int i = 0;
-        int total = wadFile.getWadFileEntryCount();
-        File destinationFolder = new File(getAssetsFolder().concat(SPRITES_FOLDER).concat(File.separator));
-        AssetUtils.deleteFolder(destinationFolder);
-        destinationFolder.mkdirs();
-
-        for (String fileName : wadFile.getWadFileEntries()) {
-            updateStatus(i, total, ConvertProcess.MOUSE_CURSORS);
-            i++;
-            //Extract the file
-            File extracted = wadFile.extractFileData(fileName, destination);
-
-            if (fileName.toLowerCase().endsWith(".spr")) {
-                // Extract the spr and delete it afterwards
-                SprFile sprFile = new SprFile(extracted);
-                try {
-                    sprFile.extract(destinationFolder.getPath(), fileName.substring(0, fileName.length() - 4));
-                    extracted.delete();
-                } catch (Exception ex) {
-                    LOGGER.log(Level.SEVERE, "Error Sprite: {0}", ex);
+        try (WadFile wadFile = new WadFile(new File(dungeonKeeperFolder + PathUtils.DKII_DATA_FOLDER + "Sprite.WAD"))) {
+            AtomicInteger progress = new AtomicInteger(0);
+            int total = wadFile.getWadFileEntryCount();
+            File destinationFolder = new File(getAssetsFolder().concat(SPRITES_FOLDER).concat(File.separator));
+            manifest.prepare(ConvertProcess.MOUSE_CURSORS, new File(destination), destinationFolder);
+            destinationFolder.mkdirs();
+
+            forEachParallel(wadFile.getWadFileEntries(), progress, total, ConvertProcess.MOUSE_CURSORS, (fileName) -> {
+                long checksum = wadFile.getChecksum(fileName);
+                if (manifest.isConverted(ConvertProcess.MOUSE_CURSORS, fileName, checksum)) {
+                    return;
                 }
-            }
+
+                //Extract the file
+                File extracted = wadFile.extractFileData(fileName, destination);
+
+                if (fileName.toLowerCase().endsWith(".spr")) {
+                    // Extract the spr and delete it afterwards
+                    SprFile sprFile = new SprFile(extracted);
+                    try {
+                        sprFile.extract(destinationFolder.getPath(), fileName.substring(0, fileName.length() - 4));
+                        extracted.delete();
+                        manifest.setConverted(ConvertProcess.MOUSE_CURSORS, fileName, checksum, null);
+                    } catch (Exception ex) {
+                        LOGGER.log(Level.SEVERE, "Error Sprite: {0}", ex);
+                    }
+                } else {
+                    manifest.setConverted(ConvertProcess.MOUSE_CURSORS, fileName, checksum, extracted);
+                }
+            });
+            reportStatus(total, total, ConvertProcess.MOUSE_CURSORS);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read the Sprite.WAD!", e);
         }
     }
 
@@ -465,8 +512,8 @@ public abstract class AssetsConverter {
             return;
         }
         LOGGER.log(Level.INFO, "Extracting sounds to: {0}", destination);
-        updateStatus(null, null, ConvertProcess.MUSIC_AND_SOUNDS);
-        AssetUtils.deleteFolder(new File(destination));
+        reportStatus(null, null, ConvertProcess.MUSIC_AND_SOUNDS);
+        manifest.prepare(ConvertProcess.MUSIC_AND_SOUNDS, new File(destination));
         String dataDirectory = PathUtils.DKII_SFX_FOLDER;
 
         //Find all the sound files
@@ -495,17 +542,26 @@ public abstract class AssetsConverter {
 
         //Extract the sounds
         // FIXME: We should try to figure out the map files, but at least merge the sound track files
-        int i = 0;
+        AtomicInteger progress = new AtomicInteger(0);
         int total = sdtFiles.size();
-        for (File file : sdtFiles) {
-            updateStatus(i, total, ConvertProcess.MUSIC_AND_SOUNDS);
-            i++;
-
-            SdtFile sdt = new SdtFile(file);
+        final Path dataPath = dataDir.toPath();
+        forEachParallel(sdtFiles, progress, total, ConvertProcess.MUSIC_AND_SOUNDS, (file) -> {
 
             //Get a relative path
             String path = file.toString().substring(0, file.toString().length() - 4);
-            Path relative = dataDir.toPath().relativize(new File(path).toPath());
+            Path relative = dataPath.relativize(new File(path).toPath());
+
+            // The sound files are converted as a whole
+            long checksum;
+            try {
+                checksum = ConversionManifest.getChecksum(file);
+            } catch (IOException ex) {
+                throw new RuntimeException("Failed to read the sound file " + file + "!", ex);
+            }
+            if (manifest.isConverted(ConvertProcess.MUSIC_AND_SOUNDS, relative.toString(), checksum)) {
+                return;
+            }
+            SdtFile sdt = new SdtFile(file);
             String dest = destination;
             dest += relative.toString();
 
@@ -513,7 +569,9 @@ public abstract class AssetsConverter {
             //dest = dest.substring(0, dest.length() - file.toPath().getFileName().toString().length());
             //Extract
             sdt.extractFileData(dest);
-        }
+            manifest.setConverted(ConvertProcess.MUSIC_AND_SOUNDS, relative.toString(), checksum, null);
+        });
+        reportStatus(total, total, ConvertProcess.MUSIC_AND_SOUNDS);
     }
 
     /**
@@ -563,7 +621,7 @@ public abstract class AssetsConverter {
             return;
         }
         LOGGER.log(Level.INFO, "Extracting texts to: {0}", destination);
-        updateStatus(null, null, ConvertProcess.INTERFACE_TEXTS);
+        reportStatus(null, null, ConvertProcess.INTERFACE_TEXTS);
         AssetUtils.deleteFolder(new File(destination));
         String dataDirectory = dungeonKeeperFolder + PathUtils.DKII_TEXT_DEFAULT_FOLDER;
 
@@ -592,21 +650,16 @@ public abstract class AssetsConverter {
 
         //Convert the STR files to JAVA native resource bundles
         new File(destination).mkdirs(); // Ensure that the folder exists
-        int i = 0;
+        if (srtFiles.isEmpty()) {
+            return;
+        }
+        AtomicInteger progress = new AtomicInteger(0);
         int total = srtFiles.size();
-        MbToUniFile codePage = null;
-        for (File file : srtFiles) {
-            updateStatus(i, total, ConvertProcess.INTERFACE_TEXTS);
-            i++;
-
-            // The code page cache makes processing faster
-            StrFile strFile;
-            if (codePage == null) {
-                strFile = new StrFile(file);
-                codePage = strFile.getCodePage();
-            } else {
-                strFile = new StrFile(codePage, file);
-            }
+
+        // The code page cache makes processing faster, read it once
+        final MbToUniFile codePage = new StrFile(srtFiles.get(0)).getCodePage();
+        forEachParallel(srtFiles, progress, total, ConvertProcess.INTERFACE_TEXTS, (file) -> {
+            StrFile strFile = new StrFile(codePage, file);
 
             // Write the properties
             String fileName = file.getName();
@@ -621,37 +674,57 @@ public abstract class AssetsConverter {
                 LOGGER.log(Level.SEVERE, msg, ex);
                 throw new RuntimeException(msg, ex);
             }
-        }
+        });
+        reportStatus(total, total, ConvertProcess.INTERFACE_TEXTS);
     }
 
     /**
      * Extracts the wad files and updates the progress bar
      *
-     * @param i current entry number
+     * @param progress current entry number
      * @param total total entry number
      * @param wad wad file
+     * @param wadName name of the wad file, for the manifest
      * @param destination destination directory
+     * @param extracted the entries extracted from the previous containers,
+     * these are always extracted again since they might have been overwritten
      */
-    private void extractTextureContainer(int i, int total, WadFile wad, String destination) {
-        for (final String entry : wad.getWadFileEntries()) {
-            updateStatus(i, total, ConvertProcess.TEXTURES);
-            i++;
+    private void extractTextureContainer(AtomicInteger progress, int total, WadFile wad, String wadName, String destination, Set<String> extracted) {
+        List<String> entries = wad.getWadFileEntries();
+        Set<String> overwritten = new HashSet<>(extracted);
+        Map<String, Long> checksums = new ConcurrentHashMap<>();
+        entries.parallelStream().forEach((entry) -> {
+            long checksum = wad.getChecksum(entry);
+            String manifestEntry = wadName + "/" + entry;
+            if (!overwritten.contains(entry) && manifest.isConverted(ConvertProcess.TEXTURES, manifestEntry, checksum)) {
+                reportStatus(progress.getAndIncrement(), total, ConvertProcess.TEXTURES);
+                return;
+            }
+            extracted.add(entry);
+            checksums.put(entry, checksum);
+        });
+
+        wad.forEachEntry(checksums.keySet(), true, (entry, data, length) -> {
+            reportStatus(progress.getAndIncrement(), total, ConvertProcess.TEXTURES);
 
             // Some of these archives contain .444 files, convert these to PNGs
+            File output;
             if (entry.endsWith(".444")) {
-                LoadingScreenFile lsf = new LoadingScreenFile(wad.getFileData(entry));
+                LoadingScreenFile lsf = new LoadingScreenFile(data, length);
                 try {
                     File destFile = new File(destination + entry);
                     String destFilename = destFile.getCanonicalPath();
                     destFile.getParentFile().mkdirs();
-                    ImageIO.write(lsf.getImage(), "png", new File(destFilename.substring(0, destFilename.length() - 3).concat("png")));
+                    output = new File(destFilename.substring(0, destFilename.length() - 3).concat("png"));
+                    ImageIO.write(lsf.getImage(), "png", output);
                 } catch (IOException ex) {
                     throw new RuntimeException("Failed to save the wad entry " + entry + "!", ex);
                 }
             } else {
-                wad.extractFileData(entry, destination);
+                output = WadFile.extractFileData(entry, data, length, destination);
             }
-        }
+            manifest.setConverted(ConvertProcess.TEXTURES, wadName + "/" + entry, checksums.get(entry), output);
+        });
     }
 
     /**
@@ -665,62 +738,64 @@ public abstract class AssetsConverter {
             return;
         }
         LOGGER.log(Level.INFO, "Extracting paths to: {0}", destination);
-        updateStatus(null, null, ConvertProcess.PATHS);
+        reportStatus(null, null, ConvertProcess.PATHS);
         AssetUtils.deleteFolder(new File(destination));
 
         //Paths are in the data folder, access the packed file
-        WadFile wad = new WadFile(new File(dungeonKeeperFolder + PathUtils.DKII_DATA_FOLDER + "Paths.WAD"));
-        int i = 0;
-        int total = wad.getWadFileEntryCount();
-        File tmpdir = new File(System.getProperty("java.io.tmpdir"));
-        BinaryExporter exporter = BinaryExporter.getInstance();
-        for (final String entry : wad.getWadFileEntries()) {
-            try {
-                updateStatus(i, total, ConvertProcess.PATHS);
-                i++;
-
-                // Convert all the KCS entries
-                if (entry.toLowerCase().endsWith(".kcs")) {
-
-                    // Extract each file to temp
-                    File f = wad.extractFileData(entry, tmpdir.toString());
-                    f.deleteOnExit();
-
-                    // Open the entry
-                    KcsFile kcsFile = new KcsFile(f);
-
-                    // Convert
-                    List<CameraSweepDataEntry> entries = new ArrayList<>(kcsFile.getKcsEntries().size());
-                    for (KcsEntry kcsEntry : kcsFile.getKcsEntries()) {
-
-                        // Convert the rotation matrix to quatenion
-                        Matrix3f mat = new Matrix3f();
-                        Vector3f direction = ConversionUtils.convertVector(kcsEntry.getDirection());
-                        Vector3f left = ConversionUtils.convertVector(kcsEntry.getLeft());
-                        Vector3f up = ConversionUtils.convertVector(kcsEntry.getUp());
-                        mat.setColumn(0, new Vector3f(-direction.x, direction.y, direction.z));
-                        mat.setColumn(1, new Vector3f(left.x, -left.y, -left.z));
-                        mat.setColumn(2, new Vector3f(-up.x, up.y, up.z));
-
-                        entries.add(new CameraSweepDataEntry(ConversionUtils.convertVector(kcsEntry.getPosition()),
-                                new Quaternion().fromRotationMatrix(mat), FastMath.RAD_TO_DEG * kcsEntry.getLens(),
-                                kcsEntry.getNear()));
-                    }
-                    CameraSweepData cameraSweepData = new CameraSweepData(entries);
+        try (WadFile wad = new WadFile(new File(dungeonKeeperFolder + PathUtils.DKII_DATA_FOLDER + "Paths.WAD"))) {
+            AtomicInteger progress = new AtomicInteger(0);
+            int total = wad.getWadFileEntryCount();
+            File tmpdir = new File(System.getProperty("java.io.tmpdir"));
+            forEachParallel(wad.getWadFileEntries(), progress, total, ConvertProcess.PATHS, (entry) -> {
+                try {
 
-                    // Save it
-                    exporter.save(cameraSweepData, new File(destination.concat(entry.substring(0, entry.length() - 3)).concat(CameraSweepDataLoader.FILE_EXTENSION)));
-                } else if (entry.toLowerCase().endsWith(".txt")) {
+                    // Convert all the KCS entries
+                    if (entry.toLowerCase().endsWith(".kcs")) {
 
-                    // The text file is nice to have, it is an info text
-                    wad.extractFileData(entry, destination);
-                }
+                        // Extract each file to temp
+                        File f = wad.extractFileData(entry, tmpdir.toString());
+                        f.deleteOnExit();
 
-            } catch (Exception ex) {
-                String msg = "Failed to save the path file to " + destination + "!";
-                LOGGER.log(Level.SEVERE, msg, ex);
-                throw new RuntimeException(msg, ex);
-            }
+                        // Open the entry
+                        KcsFile kcsFile = new KcsFile(f);
+
+                        // Convert
+                        List<CameraSweepDataEntry> entries = new ArrayList<>(kcsFile.getKcsEntries().size());
+                        for (KcsEntry kcsEntry : kcsFile.getKcsEntries()) {
+
+                            // Convert the rotation matrix to quatenion
+                            Matrix3f mat = new Matrix3f();
+                            Vector3f direction = ConversionUtils.convertVector(kcsEntry.getDirection());
+                            Vector3f left = ConversionUtils.convertVector(kcsEntry.getLeft());
+                            Vector3f up = ConversionUtils.convertVector(kcsEntry.getUp());
+                            mat.setColumn(0, new Vector3f(-direction.x, direction.y, direction.z));
+                            mat.setColumn(1, new Vector3f(left.x, -left.y, -left.z));
+                            mat.setColumn(2, new Vector3f(-up.x, up.y, up.z));
+
+                            entries.add(new CameraSweepDataEntry(ConversionUtils.convertVector(kcsEntry.getPosition()),
+                                    new Quaternion().fromRotationMatrix(mat), FastMath.RAD_TO_DEG * kcsEntry.getLens(),
+                                    kcsEntry.getNear()));
+                        }
+                        CameraSweepData cameraSweepData = new CameraSweepData(entries);
+
+                        // Save it
+                        BinaryExporter exporter = BinaryExporter.getInstance();
+                        exporter.save(cameraSweepData, new File(destination.concat(entry.substring(0, entry.length() - 3)).concat(CameraSweepDataLoader.FILE_EXTENSION)));
+                    } else if (entry.toLowerCase().endsWith(".txt")) {
+
+                        // The text file is nice to have, it is an info text
+                        wad.extractFileData(entry, destination);
+                    }
+
+                } catch (Exception ex) {
+                    String msg = "Failed to save the path file to " + destination + "!";
+                    LOGGER.log(Level.SEVERE, msg, ex);
+                    throw new RuntimeException(msg, ex);
+                }
+            });
+            reportStatus(total, total, ConvertProcess.PATHS);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read the Paths.WAD!", e);
         }
     }
 
@@ -734,7 +809,7 @@ public abstract class AssetsConverter {
             return;
         }
         LOGGER.log(Level.INFO, "Converting hiscores");
-        updateStatus(0, 1, ConvertProcess.HI_SCORES);
+        reportStatus(0, 1, ConvertProcess.HI_SCORES);
         try {
 
             // Load the original
@@ -746,7 +821,7 @@ public abstract class AssetsConverter {
             for (HiScoresEntry entry : originalHiScores.getHiScoresEntries()) {
                 hiScores.add(entry.getScore(), entry.getName(), entry.getLevel());
             }
-            updateStatus(1, 1, ConvertProcess.HI_SCORES);
+            reportStatus(1, 1, ConvertProcess.HI_SCORES);
         } catch (Exception ex) {
             LOGGER.log(Level.WARNING, "Can not convert HiScores!", ex);
 
@@ -765,7 +840,7 @@ public abstract class AssetsConverter {
             return;
         }
         LOGGER.log(Level.INFO, "Extracting fonts to: {0}", destination);
-        updateStatus(null, null, ConvertProcess.FONTS);
+        reportStatus(null, null, ConvertProcess.FONTS);
         AssetUtils.deleteFolder(new File(destination));
 
         try {
@@ -790,11 +865,10 @@ public abstract class AssetsConverter {
             });
 
             // Go through the font files
-            int i = 0;
+            AtomicInteger progress = new AtomicInteger(0);
             int total = bf4Files.size();
             Pattern pattern = Pattern.compile("FONT_(?<name>\\D+)(?<size>\\d+)", Pattern.CASE_INSENSITIVE);
-            for (File file : bf4Files) {
-                updateStatus(i, total, ConvertProcess.FONTS);
+            forEachParallel(bf4Files, progress, total, ConvertProcess.FONTS, (file) -> {
 
                 // The file names
                 final int fontSize;
@@ -815,24 +889,27 @@ public abstract class AssetsConverter {
                 }
 
                 // Convert & save the font file
-                FontCreator fc = new FontCreator(new Bf4File(file)) {
-                    @Override
-                    protected int getFontSize() {
-                        return fontSize;
-                    }
+                try {
+                    FontCreator fc = new FontCreator(new Bf4File(file)) {
+                        @Override
+                        protected int getFontSize() {
+                            return fontSize;
+                        }
 
-                    @Override
-                    protected String getFileName() {
-                        return imageFileName.substring(destination.length());
+                        @Override
+                        protected String getFileName() {
+                            return imageFileName.substring(destination.length());
+                        }
+                    };
+                    ImageIO.write(fc.getFontImage(), "png", new File(imageFileName));
+                    try (OutputStreamWriter out = new OutputStreamWriter(new FileOutputStream(descriptionFileName))) {
+                        out.write(fc.getDescription());
                     }
-                };
-                ImageIO.write(fc.getFontImage(), "png", new File(imageFileName));
-                try (OutputStreamWriter out = new OutputStreamWriter(new FileOutputStream(descriptionFileName))) {
-                    out.write(fc.getDescription());
+                } catch (IOException ex) {
+                    throw new RuntimeException("Failed to save the font file " + imageFileName + "!", ex);
                 }
-
-                i++;
-            }
+            });
+            reportStatus(total, total, ConvertProcess.FONTS);
 
         } catch (Exception ex) {
             String msg = "Failed to save the font file to " + destination + "!";
@@ -852,7 +929,7 @@ public abstract class AssetsConverter {
             return;
         }
         LOGGER.log(Level.INFO, "Generating map thumbnails to: {0}", destination);
-        updateStatus(null, null, ConvertProcess.MAP_THUMBNAILS);
+        reportStatus(null, null, ConvertProcess.MAP_THUMBNAILS);
         File destFolder = new File(destination);
         AssetUtils.deleteFolder(destFolder);
         // Make sure it exists
@@ -868,24 +945,21 @@ public abstract class AssetsConverter {
                 }
             });
 
-            // Read them
-            List<KwdFile> maps = new ArrayList<>(files.length);
-            for (File file : files) {
+            // Read them and generate the thumbnails for the skirmish/mp maps
+            AtomicInteger progress = new AtomicInteger(0);
+            int total = files.length;
+            forEachParallel(Arrays.asList(files), progress, total, ConvertProcess.MAP_THUMBNAILS, (file) -> {
                 KwdFile kwd = new KwdFile(dungeonKeeperFolder, file, false);
                 if (kwd.getGameLevel().getLvlFlags().contains(LevFlag.IS_SKIRMISH_LEVEL)
                         || kwd.getGameLevel().getLvlFlags().contains(LevFlag.IS_MULTIPLAYER_LEVEL)) {
-                    maps.add(kwd);
+                    try {
+                        genererateMapThumbnail(kwd, destination);
+                    } catch (IOException ex) {
+                        throw new RuntimeException("Failed to save the map thumbnail for " + file + "!", ex);
+                    }
                 }
-            }
-
-            // Go through the map files
-            int i = 0;
-            int total = maps.size();
-            for (KwdFile kwd : maps) {
-                updateStatus(i, total, ConvertProcess.MAP_THUMBNAILS);
-                genererateMapThumbnail(kwd, destination);
-                i++;
-            }
+            });
+            reportStatus(total, total, ConvertProcess.MAP_THUMBNAILS);
         } catch (Exception ex) {
             String msg = "Failed to process the map thumbnails to " + destination + "!";
             LOGGER.log(Level.WARNING, msg, ex); // Not fatal
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.tools.convert;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import toniarts.openkeeper.tools.convert.AssetsConverter.ConvertProcess;
+import toniarts.openkeeper.utils.AssetUtils;
+
+/**
+ * Records what has been converted. Each source entry (WAD entry, texture entry,
+ * sound file...) is stored with a checksum of its contents and the version of
+ * the converter process. The conversion can then skip the entries that haven't
+ * changed.<br>
+ * The records are added only after an entry has been successfully converted,
+ * so an interrupted conversion can continue from where it was left.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class ConversionManifest {
+
+    public static final String MANIFEST_FILE = "conversion.manifest";
+    private static final String SEPARATOR = ";";
+
+    private final File file;
+    private final Map<String, String> records = new ConcurrentHashMap<>();
+
+    private static final Logger LOGGER = Logger.getLogger(ConversionManifest.class.getName());
+
+    /**
+     * Loads up the manifest, a missing or a broken manifest just means that
+     * everything is converted again
+     *
+     * @param file the manifest file
+     */
+    public ConversionManifest(File file) {
+        this.file = file;
+        if (file.exists()) {
+            Properties properties = new Properties();
+            try (InputStream is = new FileInputStream(file)) {
+                properties.load(is);
+                for (String key : properties.stringPropertyNames()) {
+                    records.put(key, properties.getProperty(key));
+                }
+            } catch (IOException | IllegalArgumentException ex) {
+                LOGGER.log(Level.WARNING, "Failed to read the conversion manifest " + file + "!", ex);
+                records.clear();
+            }
+        }
+    }
+
+    /**
+     * Prepares the process for conversion. If nothing has been converted with
+     * the current converter version, the old records are dropped and the
+     * output folders are cleared like in a full conversion. Same happens if
+     * any of the output folders has gone missing.
+     *
+     * @param process the process
+     * @param folders the output folders of the process
+     */
+    public void prepare(ConvertProcess process, File... folders) {
+        boolean valid = false;
+        String prefix = getKey(process, "");
+        String version = process.getVersion() + SEPARATOR;
+        for (Map.Entry<String, String> entry : records.entrySet()) {
+            if (entry.getKey().startsWith(prefix) && entry.getValue().startsWith(version)) {
+                valid = true;
+                break;
+            }
+        }
+        for (File folder : folders) {
+            if (!folder.exists()) {
+                valid = false;
+                break;
+            }
+        }
+
+        if (!valid) {
+            records.keySet().removeIf((key) -> key.startsWith(prefix));
+            for (File folder : folders) {
+                AssetUtils.deleteFolder(folder);
+            }
+        }
+    }
+
+    /**
+     * Is the entry already converted with the current converter version
+     *
+     * @param process the process
+     * @param entry the source entry name
+     * @param checksum the checksum of the source entry
+     * @return {@code true} if the entry doesn't need converting
+     */
+    public boolean isConverted(ConvertProcess process, String entry, long checksum) {
+        String record = records.get(getKey(process, entry));
+        if (record == null) {
+            return false;
+        }
+
+        // The output file is recorded if we have a single one
+        String[] values = record.split(SEPARATOR, 3);
+        if (values.length < 2 || !values[0].equals(Integer.toString(process.getVersion()))
+                || !values[1].equals(Long.toHexString(checksum))) {
+            return false;
+        }
+        return values.length < 3 || values[2].isEmpty() || new File(values[2]).exists();
+    }
+
+    /**
+     * Records an entry as converted
+     *
+     * @param process the process
+     * @param entry the source entry name
+     * @param checksum the checksum of the source entry
+     * @param output the converted file, if the entry converts to a single file,
+     * may be {@code null}
+     */
+    public void setConverted(ConvertProcess process, String entry, long checksum, File output) {
+        records.put(getKey(process, entry), process.getVersion() + SEPARATOR + Long.toHexString(checksum)
+                + SEPARATOR + (output != null ? output.getAbsolutePath() : ""));
+    }
+
+    /**
+     * Saves the manifest. The manifest is written to a temporary file first
+     * so that a crash doesn't leave us with a partial manifest.
+     */
+    public synchronized void save() {
+        Properties properties = new Properties();
+        properties.putAll(records);
+        File tempFile = new File(file.getPath() + ".tmp");
+        try {
+            file.getAbsoluteFile().getParentFile().mkdirs();
+            try (OutputStream os = new FileOutputStream(tempFile)) {
+                properties.store(os, "OpenKeeper asset conversion manifest");
+            }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Failed to save the conversion manifest " + file + "!", ex);
+        }
+    }
+
+    private static String getKey(ConvertProcess process, String entry) {
+        return process.name() + "/" + entry;
+    }
+
+    /**
+     * Calculates a checksum of the given data
+     *
+     * @param data the data
+     * @param offset the start offset in the data
+     * @param length the number of bytes
+     * @return the checksum
+     */
+    public static long getChecksum(byte[] data, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, offset, length);
+
+        // Add the length to the checksum to make the collisions even more unlikely
+        return ((long) length << 32) | crc.getValue();
+    }
+
+    /**
+     * Calculates a checksum of the given file
+     *
+     * @param file the file
+     * @return the checksum
+     * @throws IOException may fail
+     */
+    public static long getChecksum(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[65536];
+        long length = 0;
+        try (InputStream is = new FileInputStream(file)) {
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+                length += read;
+            }
+        }
+
+        return (length << 32) | crc.getValue();
+    }
+}
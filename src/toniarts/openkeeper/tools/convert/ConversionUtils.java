@@ -17,8 +17,10 @@
 package toniarts.openkeeper.tools.convert;
 
 import com.jme3.math.Vector3f;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.Charset;
@@ -38,6 +40,8 @@ import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
+import toniarts.openkeeper.tools.convert.textures.enginetextures.EngineTextureCache;
+import toniarts.openkeeper.utils.PathUtils;
 
 /**
  * Contains static helper methods
@@ -183,6 +187,23 @@ public class ConversionUtils {
         return byteArray;
     }
 
+    /**
+     * Reads the whole stream to an array of bytes
+     *
+     * @param is the input stream, not closed
+     * @return the byte array
+     * @throws IOException may fail
+     */
+    public static byte[] toByteArray(InputStream is) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            result.write(buffer, 0, read);
+        }
+        return result.toByteArray();
+    }
+
     /**
      * Bit play<br>
      * http://stackoverflow.com/questions/11419501/converting-bits-in-to-integer
@@ -222,9 +243,28 @@ public class ConversionUtils {
      * @return fully qualified and working asset key
      */
     public static String getCanonicalAssetKey(String asset) {
+
+        // Engine textures are served straight from the original archive, no need to look for them from the disk
+        String assetKey = asset.replace('\\', '/');
+        if (isEngineTexture(assetKey) && !new File(AssetsConverter.getAssetsFolder().concat(asset)).exists()) {
+            return assetKey;
+        }
+
         return getCanonicalRelativePath(AssetsConverter.getAssetsFolder(), asset).replaceAll(QUOTED_FILE_SEPARATOR, "/");
     }
 
+    private static boolean isEngineTexture(String assetKey) {
+        String dkIIFolder = PathUtils.getDKIIFolder();
+        if (dkIIFolder == null) {
+            return false;
+        }
+        try {
+            return EngineTextureCache.getInstance(dkIIFolder).getEntry(assetKey) != null;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
     /**
      * Returns case sensitive and valid relative path
      *
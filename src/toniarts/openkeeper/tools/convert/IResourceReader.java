@@ -55,6 +55,8 @@ public interface IResourceReader extends Closeable {
 
     int read(byte[] b) throws IOException;
 
+    int read(byte[] b, int off, int len) throws IOException;
+
     byte[] read(int length) throws IOException;
 
     /**
@@ -47,17 +47,13 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import toniarts.openkeeper.animation.Pose;
 import toniarts.openkeeper.animation.PoseTrack;
-import toniarts.openkeeper.animation.PoseTrack.PoseFrame;
-import static toniarts.openkeeper.tools.convert.KmfModelLoader.inputStreamToFile;
 import toniarts.openkeeper.tools.convert.kmf.Anim;
 import toniarts.openkeeper.tools.convert.kmf.AnimSprite;
 import toniarts.openkeeper.tools.convert.kmf.AnimVertex;
@@ -149,7 +145,9 @@ public class KmfModelLoader implements AssetLoader {
             kmfFile = ((KmfAssetInfo) assetInfo).getKmfFile();
             generateMaterialFile = ((KmfAssetInfo) assetInfo).isGenerateMaterialFile();
         } else {
-            kmfFile = new KmfFile(inputStreamToFile(assetInfo.openStream(), assetInfo.getKey().getName()));
+            try (InputStream is = assetInfo.openStream()) {
+                kmfFile = new KmfFile(assetInfo.getKey().getName(), ConversionUtils.toByteArray(is));
+            }
         }
 
         //Create a root
@@ -310,35 +308,21 @@ public class KmfModelLoader implements AssetLoader {
         int index = 0;
         for (AnimSprite animSprite : anim.getSprites()) {
 
-            // Animation
-            // Poses for each key frame (aproximate that every 1/3 is a key frame, pessimistic)
-            // Note that a key frame may not have all the vertices
-            Map<Integer, Map<KmfModelLoader.FrameInfo, Pose>> poses = new HashMap<>(anim.getFrames() / 3);
-
-            // Pose indices and indice offsets for each pose
-            Map<Integer, Map<KmfModelLoader.FrameInfo, List<Integer>>> frameIndices = new HashMap<>(anim.getFrames() / 3);
-            Map<Integer, Map<KmfModelLoader.FrameInfo, List<Vector3f>>> frameOffsets = new HashMap<>(anim.getFrames() / 3);
-
-            // For each frame, we need the previous key frame (pose) and the next, and the weights, for the pose frames
-            Map<Integer, List<KmfModelLoader.FrameInfo>> frameInfos = new HashMap<>(anim.getFrames());
-
-            //
             //Each sprite represents a geometry (+ mesh) since they each have their own material
             Mesh mesh = new Mesh();
 
+            // Animation, bake the vertex positions of every frame
+            // The vertices move between their own key frames, each frame is interpolated here once
+            int vertexCount = animSprite.getVertices().size();
+            float[] positions = new float[anim.getFrames() * vertexCount * 3];
+
             //Vertices, UV (texture coordinates), normals
-            Vector3f[] vertices = new Vector3f[animSprite.getVertices().size()];
-            Vector2f[] texCoord = new Vector2f[animSprite.getVertices().size()];
-            Vector3f[] normals = new Vector3f[animSprite.getVertices().size()];
+            Vector3f[] vertices = new Vector3f[vertexCount];
+            Vector2f[] texCoord = new Vector2f[vertexCount];
+            Vector3f[] normals = new Vector3f[vertexCount];
             int i = 0;
             for (AnimVertex animVertex : animSprite.getVertices()) {
 
-                // Bind Pose
-                javax.vecmath.Vector3f baseCoord = null;
-
-                // Keep the last frame for creating the target pose
-                KmfModelLoader.FrameInfo previousFrame = null;
-
                 //Go through every frame
                 for (int frame = 0; frame < anim.getFrames(); frame++) {
 
@@ -347,85 +331,21 @@ public class KmfModelLoader implements AssetLoader {
                     short geomOffset = anim.getOffsets()[animVertex.getItabIndex()][frame];
                     int geomIndex = geomBase + geomOffset;
 
+                    // Position between the key frame geometries
                     short frameBase = anim.getGeometries().get(geomIndex).getFrameBase();
                     short nextFrameBase = anim.getGeometries().get(geomIndex + 1).getFrameBase();
-                    float geomFactor = (float) ((frame & 0x7f) - frameBase) / (float) (nextFrameBase - frameBase);
+                    float geomFactor = (nextFrameBase != frameBase ? (float) ((frame & 0x7f) - frameBase) / (float) (nextFrameBase - frameBase) : 0f);
                     javax.vecmath.Vector3f coord = anim.getGeometries().get(geomIndex).getGeometry();
+                    javax.vecmath.Vector3f nextCoord = anim.getGeometries().get(geomIndex + 1).getGeometry();
 
-                    // Store the frame zero coord
-                    if (frame == 0) {
-                        baseCoord = coord;
-                    }
-
-                    // Create frame info
-                    int lastPose = ((frame >> 7) * 128 + frameBase);
-                    int nextPose = ((frame >> 7) * 128 + nextFrameBase);
-                    if (!frameInfos.containsKey(frame)) {
-                        frameInfos.put(frame, new ArrayList<>());
-                    }
-                    KmfModelLoader.FrameInfo frameInfo = new KmfModelLoader.FrameInfo(lastPose, nextPose, geomFactor);
-                    int x = Collections.binarySearch(frameInfos.get(frame), frameInfo);
-                    if (x < 0) {
-                        frameInfos.get(frame).add(~x, frameInfo);
-                    }
-
-                    // Only make poses from key frames
-                    if (frame == lastPose || frame == nextPose) {
-                        if (!frameIndices.containsKey(frame)) {
-                            frameIndices.put(frame, new HashMap<>());
-                        }
-                        if (!frameOffsets.containsKey(frame)) {
-                            frameOffsets.put(frame, new HashMap<>());
-                        }
-
-                        if (frame == nextPose) { // Last frame
-
-                            // Create a new frameInfo with weight as 1
-                            frameInfo = new KmfModelLoader.FrameInfo(frameInfo.previousPoseFrame, frameInfo.nextPoseFrame, 1f);
-                        }
-
-                        if (frameIndices.get(frame).get(frameInfo) == null) {
-                            frameIndices.get(frame).put(frameInfo, new ArrayList<>());
-                        }
-                        if (frameOffsets.get(frame).get(frameInfo) == null) {
-                            frameOffsets.get(frame).put(frameInfo, new ArrayList<>());
-                        }
-                        frameIndices.get(frame).get(frameInfo).add(i);
-                        frameOffsets.get(frame).get(frameInfo).add(new Vector3f(coord.x, -coord.z, coord.y));
-                    }
-
-                    // Add the pose target, we are in the last frame of the frame target
-                    if (previousFrame != null && !frameInfo.equals(previousFrame)) {
-                        if (!frameIndices.containsKey(frame)) {
-                            frameIndices.put(frame, new HashMap<>());
-                        }
-                        if (!frameOffsets.containsKey(frame)) {
-                            frameOffsets.put(frame, new HashMap<>());
-                        }
-
-                        // Create a new frameInfo with weight as 1
-                        KmfModelLoader.FrameInfo fi = new KmfModelLoader.FrameInfo(previousFrame.previousPoseFrame, previousFrame.nextPoseFrame, 1f);
-
-                        if (frameIndices.get(frame).get(fi) == null) {
-                            frameIndices.get(frame).put(fi, new ArrayList<>());
-                        }
-                        if (frameOffsets.get(frame).get(fi) == null) {
-                            frameOffsets.get(frame).put(fi, new ArrayList<>());
-                        }
-                        frameIndices.get(frame).get(fi).add(i);
-                        frameOffsets.get(frame).get(fi).add(new Vector3f(coord.x, -coord.z, coord.y));
-
-                        // Also add to the frame infos (otherwise it will never be applied fully with weight 1.0)
-                        x = Collections.binarySearch(frameInfos.get(frame), fi);
-                        if (x < 0) {
-                            frameInfos.get(frame).add(~x, fi);
-                        }
-                    }
-
-                    // Set the last frame
-                    previousFrame = frameInfo;
+                    int offset = (frame * vertexCount + i) * 3;
+                    positions[offset] = coord.x + (nextCoord.x - coord.x) * geomFactor;
+                    positions[offset + 1] = -(coord.z + (nextCoord.z - coord.z) * geomFactor);
+                    positions[offset + 2] = coord.y + (nextCoord.y - coord.y) * geomFactor;
                 }
-                vertices[i] = new Vector3f(baseCoord.x, -baseCoord.z, baseCoord.y);
+
+                // Bind Pose is the first frame
+                vertices[i] = new Vector3f(positions[i * 3], positions[i * 3 + 1], positions[i * 3 + 2]);
 
                 //Texture coordinate
                 Uv uv = animVertex.getUv();
@@ -438,57 +358,8 @@ public class KmfModelLoader implements AssetLoader {
                 i++;
             }
 
-            // We have all the animation vertices from a single pose
-            for (int frame = 0; frame < anim.getFrames(); frame++) {
-                if (frameIndices.containsKey(frame) && !poses.containsKey(frame)) {
-                    poses.put(frame, new HashMap<>());
-                }
-                if (frameIndices.containsKey(frame)) {
-                    for (Entry<KmfModelLoader.FrameInfo, List<Integer>> entry : frameIndices.get(frame).entrySet()) {
-
-                        if (entry.getKey().nextPoseFrame < entry.getKey().previousPoseFrame) {
-                            continue; // Huh?, last frame effect
-                        }
-
-                        List<Integer> list = entry.getValue();
-                        int[] array = new int[list.size()];
-                        for (int integer = 0; integer < list.size(); integer++) {
-                            array[integer] = list.get(integer);
-                        }
-                        Pose p = new Pose(index + ": " + frame + ", " + entry.getKey().previousPoseFrame + " - " + entry.getKey().nextPoseFrame, frameOffsets.get(frame).get(entry.getKey()).toArray(new Vector3f[frameOffsets.get(frame).get(entry.getKey()).size()]), array);
-                        poses.get(frame).put(entry.getKey(), p);
-                    }
-                }
-            }
-
-            // More animation, create the pose frames by the frame, mesh index specific
-            List<PoseFrame> frameList = new ArrayList<>(anim.getFrames());
-            for (int frame = 0; frame < anim.getFrames(); frame++) {
-
-                // Loop through all the frame infos here
-                Pose[] p = new Pose[frameInfos.get(frame).size() * 2];
-                float[] weights = new float[frameInfos.get(frame).size()];
-                int x = 0;
-                for (KmfModelLoader.FrameInfo frameInfo : frameInfos.get(frame)) {
-
-                    if (frameInfo.nextPoseFrame < frameInfo.previousPoseFrame) {
-                        continue; // Huh?, last frame effect
-                    }
-
-                    // The poses, always the start and the end
-                    p[x * 2] = poses.get(frameInfo.previousPoseFrame).get(frameInfo);
-                    p[x * 2 + 1] = poses.get(frameInfo.nextPoseFrame).get(frameInfo);
-
-                    // Weights
-                    weights[x] = frameInfo.weight;
-                    x++;
-                }
-                PoseFrame f = new PoseFrame(p, weights);
-                frameList.add(f);
-            }
-
             // Create a pose track for this mesh
-            PoseTrack poseTrack = new PoseTrack(index, times, frameList.toArray(new PoseFrame[frameList.size()]));
+            PoseTrack poseTrack = new PoseTrack(index, times, vertexCount, positions);
             poseTracks.add(poseTrack);
 
             // Create lod levels
@@ -634,6 +505,17 @@ public class KmfModelLoader implements AssetLoader {
      */
     private Map<Integer, List<Material>> getMaterials(KmfFile kmfFile, boolean generateMaterialFile, AssetInfo assetInfo) throws IOException {
 
+        // The material files and the cache are shared between the models, the conversion may run in parallel
+        if (generateMaterialFile) {
+            synchronized (materialCache) {
+                return createMaterials(kmfFile, generateMaterialFile, assetInfo);
+            }
+        }
+        return createMaterials(kmfFile, generateMaterialFile, assetInfo);
+    }
+
+    private Map<Integer, List<Material>> createMaterials(KmfFile kmfFile, boolean generateMaterialFile, AssetInfo assetInfo) throws IOException {
+
         //
         // Create the materials
         //
@@ -792,70 +674,4 @@ public class KmfModelLoader implements AssetLoader {
         Texture tex = assetInfo.getManager().loadTexture(textureKey);
         return tex;
     }
-
-    /**
-     * A frame info identifies an vertex transition, it has the start and the
-     * end pose frame indexes (key frames) which will identify it
-     */
-    private class FrameInfo implements Comparable<KmfModelLoader.FrameInfo> {
-
-        private final int previousPoseFrame;
-        private final int nextPoseFrame;
-        private final float weight;
-
-        public FrameInfo(int previousPoseFrame, int nextPoseFrame, float weight) {
-            this.previousPoseFrame = previousPoseFrame;
-            this.nextPoseFrame = nextPoseFrame;
-            this.weight = weight;
-        }
-
-        public int getPreviousPoseFrame() {
-            return previousPoseFrame;
-        }
-
-        public int getNextPoseFrame() {
-            return nextPoseFrame;
-        }
-
-        public float getWeight() {
-            return weight;
-        }
-
-        @Override
-        public int hashCode() {
-            int hash = 7;
-            hash = 79 * hash + this.previousPoseFrame;
-            hash = 79 * hash + this.nextPoseFrame;
-            return hash;
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (obj == null) {
-                return false;
-            }
-            if (getClass() != obj.getClass()) {
-                return false;
-            }
-            final KmfModelLoader.FrameInfo other = (KmfModelLoader.FrameInfo) obj;
-            if (this.previousPoseFrame != other.previousPoseFrame) {
-                return false;
-            }
-            if (this.nextPoseFrame != other.nextPoseFrame) {
-                return false;
-            }
-            return true;
-        }
-
-        @Override
-        public int compareTo(KmfModelLoader.FrameInfo o) {
-            int result = Integer.compare(previousPoseFrame, o.previousPoseFrame);
-            if (result == 0) {
-
-                // It is up to the second key then
-                result = Integer.compare(nextPoseFrame, o.nextPoseFrame);
-            }
-            return result;
-        }
-    }
 }
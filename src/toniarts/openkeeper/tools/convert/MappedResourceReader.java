@@ -0,0 +1,384 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.tools.convert;
+
+import com.jme3.util.BufferUtils;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Resource reader backed by a memory mapped file. The values are read straight
+ * from the little endian buffer without any intermediate arrays or system
+ * calls.<br>
+ * The mapping is released on close, any slices taken from this reader must not
+ * be used after that.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class MappedResourceReader implements IResourceReader {
+
+    private static final Charset CHARSET = Charset.forName("windows-1252");
+    private static final Charset CHARSET_UTF16 = Charset.forName("UTF_16LE");
+
+    private MappedByteBuffer mappedBuffer;
+    private final ByteBuffer buffer;
+
+    private static final Logger LOGGER = Logger.getLogger(MappedResourceReader.class.getName());
+
+    public MappedResourceReader(File file) throws IOException {
+
+        // The mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            mappedBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer = mappedBuffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public MappedResourceReader(String filename) throws IOException {
+        this(new File(filename));
+    }
+
+    /**
+     * Reads the given data, i.e. a file entry that is already in memory. The
+     * buffer is not released on close.
+     *
+     * @param data the data to read
+     */
+    public MappedResourceReader(ByteBuffer data) {
+        buffer = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void ensureAvailable(int length) throws IOException {
+        if (buffer.remaining() < length) {
+            throw new EOFException("Tried to read " + length + " bytes, only " + buffer.remaining() + " available!");
+        }
+    }
+
+    /**
+     * Get a little endian view to the next bytes and skip over them. The view
+     * is only valid until this reader is closed.
+     *
+     * @param length the number of bytes
+     * @return view to the data
+     * @throws IOException if there is not enough data
+     */
+    public ByteBuffer slice(int length) throws IOException {
+        ensureAvailable(length);
+        ByteBuffer slice = buffer.slice();
+        slice.limit(length);
+        buffer.position(buffer.position() + length);
+
+        return slice.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public int read(byte[] b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        int length = Math.min(b.length, buffer.remaining());
+        buffer.get(b, 0, length);
+
+        return length;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        int length = Math.min(len, buffer.remaining());
+        buffer.get(b, off, length);
+
+        return length;
+    }
+
+    @Override
+    public byte[] read(int length) throws IOException {
+        if (buffer.remaining() < length) {
+            String message = "Error reading byte array. Expect %s bytes and %s given";
+            throw new IOException(String.format(message, length, buffer.remaining()));
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+
+        return bytes;
+    }
+
+    @Override
+    public long readUnsignedIntegerAsLong() throws IOException {
+        return readInteger() & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public int readUnsignedInteger() throws IOException {
+        int result = readInteger();
+        if (result < 0) {
+
+            // Same as ConversionUtils.toUnsignedInteger
+            LOGGER.warning("This unsigned integer doesn't fit to JAVA integer! Use a different method!");
+        }
+
+        return result;
+    }
+
+    @Override
+    public int readInteger() throws IOException {
+        ensureAvailable(4);
+
+        return buffer.getInt();
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return readShort() & 0xFFFF;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        ensureAvailable(2);
+
+        return buffer.getShort();
+    }
+
+    @Override
+    public short readUnsignedByte() throws IOException {
+        return (short) (readByte() & 0xFF);
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        ensureAvailable(1);
+
+        return buffer.get();
+    }
+
+    @Override
+    public float readIntegerAsFloat() throws IOException {
+        return readInteger() / ConversionUtils.FLOAT;
+    }
+
+    @Override
+    public float readShortAsFloat() throws IOException {
+        return readShort() / ConversionUtils.FLOAT;
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        ensureAvailable(4);
+
+        return buffer.getFloat();
+    }
+
+    @Override
+    public short readRealShort() throws IOException {
+
+        // Big endian, like RandomAccessFile
+        return Short.reverseBytes(readShort());
+    }
+
+    @Override
+    public float readIntegerAsDouble() throws IOException {
+        return readInteger() / ConversionUtils.DOUBLE;
+    }
+
+    @Override
+    public String readString(int length) throws IOException {
+        return new String(read(length), CHARSET);
+    }
+
+    @Override
+    public String readStringUtf16(int length) throws IOException {
+        return new String(read(length * 2), CHARSET_UTF16);
+    }
+
+    @Override
+    public String readVaryingLengthStringUtf16(int length) throws IOException {
+        byte[] bytes = read(length * 2);
+        int end = 0;
+        while (end + 1 < bytes.length && (bytes[end] != 0 || bytes[end + 1] != 0)) {
+            end += 2;
+        }
+
+        return new String(bytes, 0, end, CHARSET_UTF16);
+    }
+
+    @Override
+    public List<String> readVaryingLengthStrings(int numberOfStrings) throws IOException {
+        List<String> strings = new ArrayList<>(numberOfStrings);
+
+        for (int i = 0; i < numberOfStrings; i++) {
+
+            // Find the terminating 0 byte
+            int start = buffer.position();
+            int end = start;
+            while (true) {
+                if (end >= buffer.limit()) {
+                    throw new EOFException("String not terminated!");
+                }
+                if (buffer.get(end) == 0) {
+                    break;
+                }
+                end++;
+            }
+            byte[] bytes = new byte[end - start];
+            buffer.get(bytes);
+            buffer.get(); // The 0 byte
+            strings.add(new String(bytes, CHARSET));
+        }
+
+        return strings;
+    }
+
+    @Override
+    public String readVaryingLengthString(int length) throws IOException {
+        byte[] bytes = read(length);
+        int end = 0;
+        while (end < bytes.length && bytes[end] != 0) {
+            end++;
+        }
+
+        return new String(bytes, 0, end, CHARSET);
+    }
+
+    @Override
+    public Date readTimestamp() throws IOException {
+        // Dates are in UTC
+        Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        cal.set(Calendar.YEAR, readUnsignedShort());
+        cal.set(Calendar.DAY_OF_MONTH, readUnsignedByte());
+        cal.set(Calendar.MONTH, readUnsignedByte());
+        skipBytes(2);
+        cal.set(Calendar.HOUR_OF_DAY, readUnsignedByte());
+        cal.set(Calendar.MINUTE, readUnsignedByte());
+        cal.set(Calendar.SECOND, readUnsignedByte());
+        skipBytes(1);
+
+        return cal.getTime();
+    }
+
+    @Override
+    public <E extends Enum & IValueEnum> E readIntegerAsEnum(Class<E> enumeration) throws IOException {
+        return ConversionUtils.parseEnum(readUnsignedInteger(), enumeration);
+    }
+
+    @Override
+    public <E extends Enum & IValueEnum> E readShortAsEnum(Class<E> enumeration) throws IOException {
+        return ConversionUtils.parseEnum(readUnsignedShort(), enumeration);
+    }
+
+    @Override
+    public <E extends Enum & IValueEnum> E readByteAsEnum(Class<E> enumeration) throws IOException {
+        return ConversionUtils.parseEnum(readUnsignedByte(), enumeration);
+    }
+
+    @Override
+    public <E extends Enum<E> & IFlagEnum> EnumSet<E> readIntegerAsFlag(Class<E> enumeration) throws IOException {
+        return ConversionUtils.parseFlagValue(readUnsignedIntegerAsLong(), enumeration);
+    }
+
+    @Override
+    public <E extends Enum<E> & IFlagEnum> EnumSet<E> readShortAsFlag(Class<E> enumeration) throws IOException {
+        return ConversionUtils.parseFlagValue(readUnsignedShort(), enumeration);
+    }
+
+    @Override
+    public <E extends Enum<E> & IFlagEnum> EnumSet<E> readByteAsFlag(Class<E> enumeration) throws IOException {
+        return ConversionUtils.parseFlagValue(readUnsignedByte(), enumeration);
+    }
+
+    @Deprecated
+    @Override
+    public void readAndCheckNull(int size) throws IOException {
+        ensureAvailable(size);
+        for (int i = 0; i < size; i++) {
+            byte b = buffer.get();
+            if (b != 0) {
+                LOGGER.log(Level.WARNING, "Value not 0! Was {0}!", b);
+            }
+        }
+    }
+
+    @Override
+    public int skipBytes(int size) throws IOException {
+        if (buffer.remaining() < size) {
+            String message = "Error skipping bytes. Expect %s bytes and %s given";
+            throw new IOException(String.format(message, size, buffer.remaining()));
+        }
+        buffer.position(buffer.position() + size);
+
+        return size;
+    }
+
+    @Override
+    public long getFilePointer() throws IOException {
+        return buffer.position();
+    }
+
+    @Override
+    public void seek(long pos) throws IOException {
+        if (pos < 0 || pos > buffer.limit()) {
+            throw new IOException("Seek position " + pos + " is outside of the file!");
+        }
+        buffer.position((int) pos);
+    }
+
+    @Override
+    public long length() throws IOException {
+        return buffer.limit();
+    }
+
+    @Override
+    public void checkOffset(long itemSize, long offset) throws IOException {
+        long expected = offset + itemSize;
+        if (getFilePointer() != expected) {
+            LOGGER.log(Level.WARNING, "Record size differs from expected! File offset is {0} and should be {1}!",
+                    new Object[]{getFilePointer(), expected});
+            seek(expected);
+        }
+    }
+
+    @Override
+    public boolean isEof() throws IOException {
+        return !buffer.hasRemaining();
+    }
+
+    @Override
+    public void close() {
+
+        // Release the mapping right away, otherwise the file stays locked until GC (on Windows at least)
+        if (mappedBuffer != null) {
+            BufferUtils.destroyDirectBuffer(mappedBuffer);
+            mappedBuffer = null;
+        }
+    }
+}
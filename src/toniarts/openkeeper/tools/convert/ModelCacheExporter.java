@@ -0,0 +1,347 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.tools.convert;
+
+import com.jme3.animation.AnimControl;
+import com.jme3.animation.Animation;
+import com.jme3.animation.Track;
+import com.jme3.asset.ModelKey;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.AssetLinkNode;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.control.Control;
+import com.jme3.scene.control.LodControl;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import toniarts.openkeeper.animation.PoseTrack;
+
+/**
+ * Writes the models to our binary model cache format. The format is just the
+ * flat vertex, index and pose arrays of the models in little endian order, so
+ * loading it is mostly bulk copying. See {@link ModelCacheLoader} for
+ * reading.<br>
+ * Only the kind of models the {@link KmfModelLoader} produces are supported.
+ * The materials must be saved as J3M files, only the material keys are
+ * written.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class ModelCacheExporter {
+
+    private ByteBuffer buffer;
+
+    /**
+     * Save the model to the given file
+     *
+     * @param model the model to save
+     * @param file the file to write to
+     * @throws IOException if the model can not be saved
+     */
+    public void save(Spatial model, File file) throws IOException {
+        try (OutputStream os = Files.newOutputStream(file.toPath())) {
+            save(model, os);
+        }
+    }
+
+    /**
+     * Save the model to the given stream
+     *
+     * @param model the model to save
+     * @param os the stream to write to, not closed
+     * @throws IOException if the model can not be saved
+     */
+    public void save(Spatial model, OutputStream os) throws IOException {
+        buffer = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            buffer.put(ModelCacheLoader.MAGIC);
+            buffer.putInt(ModelCacheLoader.VERSION);
+            writeSpatial(model);
+
+            os.write(buffer.array(), 0, buffer.position());
+        } finally {
+            buffer = null;
+        }
+    }
+
+    private void writeSpatial(Spatial spatial) throws IOException {
+        if (spatial instanceof AssetLinkNode) {
+            putByte(ModelCacheLoader.LINK);
+        } else if (spatial instanceof Node) {
+            putByte(ModelCacheLoader.NODE);
+        } else if (spatial instanceof Geometry) {
+            putByte(ModelCacheLoader.GEOMETRY);
+        } else {
+            throw new IOException("Unsupported spatial " + spatial + "!");
+        }
+        writeString(spatial.getName());
+
+        // Transform
+        Vector3f translation = spatial.getLocalTranslation();
+        Quaternion rotation = spatial.getLocalRotation();
+        Vector3f scale = spatial.getLocalScale();
+        putFloats(translation.x, translation.y, translation.z);
+        putFloats(rotation.getX(), rotation.getY(), rotation.getZ(), rotation.getW());
+        putFloats(scale.x, scale.y, scale.z);
+
+        // Render settings
+        putByte(spatial.getLocalQueueBucket().ordinal());
+        putByte(spatial.getLocalShadowMode().ordinal());
+        writeUserData(spatial);
+
+        if (spatial instanceof AssetLinkNode) {
+            writeLink((AssetLinkNode) spatial);
+        } else if (spatial instanceof Node) {
+            writeNode((Node) spatial);
+        } else {
+            writeGeometry((Geometry) spatial);
+        }
+    }
+
+    private void writeUserData(Spatial spatial) throws IOException {
+        Collection<String> keys = spatial.getUserDataKeys();
+        putInt(keys.size());
+        for (String key : keys) {
+            Object value = spatial.getUserData(key);
+            writeString(key);
+            if (value instanceof Integer) {
+                putByte(ModelCacheLoader.USER_DATA_INTEGER);
+                putInt((Integer) value);
+            } else if (value instanceof Float) {
+                putByte(ModelCacheLoader.USER_DATA_FLOAT);
+                putFloats((Float) value);
+            } else if (value instanceof Boolean) {
+                putByte(ModelCacheLoader.USER_DATA_BOOLEAN);
+                putByte((Boolean) value ? 1 : 0);
+            } else if (value instanceof String) {
+                putByte(ModelCacheLoader.USER_DATA_STRING);
+                writeString((String) value);
+            } else {
+                throw new IOException("Unsupported user data " + key + " in " + spatial + "!");
+            }
+        }
+    }
+
+    private void writeLink(AssetLinkNode link) throws IOException {
+
+        // The linked models are converted to the cache as well
+        List<ModelKey> keys = link.getAssetLoaderKeys();
+        putInt(keys.size());
+        for (ModelKey key : keys) {
+            writeString(ModelCacheLoader.getModelCacheKey(key.getName()));
+        }
+    }
+
+    private void writeNode(Node node) throws IOException {
+        putInt(node.getQuantity());
+        for (Spatial child : node.getChildren()) {
+            writeSpatial(child);
+        }
+
+        // Animations
+        AnimControl animControl = null;
+        for (int i = 0; i < node.getNumControls(); i++) {
+            Control control = node.getControl(i);
+            if (control instanceof AnimControl) {
+                animControl = (AnimControl) control;
+            } else {
+                throw new IOException("Unsupported control " + control + " in " + node + "!");
+            }
+        }
+        if (animControl == null) {
+            putInt(-1);
+            return;
+        }
+        putInt(animControl.getAnimationNames().size());
+        for (String name : animControl.getAnimationNames()) {
+            writeAnimation(animControl.getAnim(name));
+        }
+    }
+
+    private void writeAnimation(Animation animation) throws IOException {
+        writeString(animation.getName());
+        putFloats(animation.getLength());
+        Track[] tracks = animation.getTracks();
+        putInt(tracks.length);
+        for (Track track : tracks) {
+            if (!(track instanceof PoseTrack)) {
+                throw new IOException("Unsupported track " + track + " in " + animation.getName() + "!");
+            }
+            writePoseTrack((PoseTrack) track);
+        }
+    }
+
+    private void writePoseTrack(PoseTrack track) throws IOException {
+        putInt(track.getTargetMeshIndex());
+        writeFloats(track.getTimes());
+        putInt(track.getVertexCount());
+        writeFloats(track.getPositions());
+    }
+
+    private void writeGeometry(Geometry geometry) throws IOException {
+        if (geometry.getMaterial() == null || geometry.getMaterial().getAssetName() == null) {
+            throw new IOException("Geometry " + geometry + " has no material file!");
+        }
+        writeString(geometry.getMaterial().getAssetName());
+
+        // Controls, only LOD is supported
+        boolean lodControl = false;
+        for (int i = 0; i < geometry.getNumControls(); i++) {
+            Control control = geometry.getControl(i);
+            if (control instanceof LodControl) {
+                lodControl = true;
+            } else {
+                throw new IOException("Unsupported control " + control + " in " + geometry + "!");
+            }
+        }
+        putByte(lodControl ? 1 : 0);
+
+        // The mesh
+        Mesh mesh = geometry.getMesh();
+        putByte(mesh.getMode().ordinal());
+        VertexBuffer[] lodLevels = new VertexBuffer[mesh.getNumLodLevels()];
+        for (int i = 0; i < lodLevels.length; i++) {
+            lodLevels[i] = mesh.getLodLevel(i);
+        }
+
+        // The index buffer is the first LOD level, don't write it twice
+        List<VertexBuffer> buffers = new ArrayList<>(mesh.getBufferList().size());
+        for (VertexBuffer vb : mesh.getBufferList()) {
+            if (lodLevels.length == 0 || vb != lodLevels[0]) {
+                buffers.add(vb);
+            }
+        }
+        putInt(buffers.size());
+        for (VertexBuffer vb : buffers) {
+            writeVertexBuffer(vb);
+        }
+        putInt(lodLevels.length);
+        for (VertexBuffer vb : lodLevels) {
+            writeVertexBuffer(vb);
+        }
+    }
+
+    private void writeVertexBuffer(VertexBuffer vb) throws IOException {
+        putByte(vb.getBufferType().ordinal());
+        putByte(vb.getUsage().ordinal());
+        putByte(vb.getFormat().ordinal());
+        putByte(vb.getNumComponents());
+
+        Buffer data = vb.getData();
+        data.rewind();
+        if (data instanceof FloatBuffer) {
+            FloatBuffer fb = (FloatBuffer) data;
+            putInt(fb.limit());
+            align();
+            ensureCapacity(fb.limit() * 4);
+            buffer.asFloatBuffer().put(fb);
+            buffer.position(buffer.position() + fb.limit() * 4);
+        } else if (data instanceof IntBuffer) {
+            IntBuffer ib = (IntBuffer) data;
+            putInt(ib.limit());
+            align();
+            ensureCapacity(ib.limit() * 4);
+            buffer.asIntBuffer().put(ib);
+            buffer.position(buffer.position() + ib.limit() * 4);
+        } else if (data instanceof ShortBuffer) {
+            ShortBuffer sb = (ShortBuffer) data;
+            putInt(sb.limit());
+            align();
+            ensureCapacity(sb.limit() * 2);
+            buffer.asShortBuffer().put(sb);
+            buffer.position(buffer.position() + sb.limit() * 2);
+        } else if (data instanceof ByteBuffer) {
+            ByteBuffer bb = (ByteBuffer) data;
+            putInt(bb.limit());
+            align();
+            ensureCapacity(bb.limit());
+            buffer.put(bb);
+        } else {
+            throw new IOException("Unsupported vertex buffer " + vb + "!");
+        }
+        data.rewind();
+    }
+
+    private void writeString(String value) {
+        byte[] bytes = (value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0]);
+        putInt(value != null ? bytes.length : -1);
+        ensureCapacity(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private void writeFloats(float[] values) {
+        putInt(values.length);
+        align();
+        ensureCapacity(values.length * 4);
+        buffer.asFloatBuffer().put(values);
+        buffer.position(buffer.position() + values.length * 4);
+    }
+
+    private void putByte(int value) {
+        ensureCapacity(1);
+        buffer.put((byte) value);
+    }
+
+    private void putInt(int value) {
+        ensureCapacity(4);
+        buffer.putInt(value);
+    }
+
+    private void putFloats(float... values) {
+        ensureCapacity(values.length * 4);
+        for (float value : values) {
+            buffer.putFloat(value);
+        }
+    }
+
+    /**
+     * The arrays start at 4 byte boundaries so that they can be viewed
+     * directly from a mapped file
+     */
+    private void align() {
+        int padding = ModelCacheLoader.getPadding(buffer.position());
+        ensureCapacity(padding);
+        for (int i = 0; i < padding; i++) {
+            buffer.put((byte) 0);
+        }
+    }
+
+    private void ensureCapacity(int length) {
+        if (buffer.remaining() < length) {
+            ByteBuffer newBuffer = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + length)).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.flip();
+            newBuffer.put(buffer);
+            buffer = newBuffer;
+        }
+    }
+}
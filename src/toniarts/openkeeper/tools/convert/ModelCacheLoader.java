@@ -0,0 +1,393 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.tools.convert;
+
+import com.jme3.animation.AnimControl;
+import com.jme3.animation.Animation;
+import com.jme3.asset.AssetInfo;
+import com.jme3.asset.AssetLoader;
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.ModelKey;
+import com.jme3.material.Material;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.scene.AssetLinkNode;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.control.LodControl;
+import com.jme3.util.BufferUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import toniarts.openkeeper.animation.PoseTrack;
+
+/**
+ * Loads the models from our binary model cache format, written by the
+ * {@link ModelCacheExporter}. The vertex and index arrays are bulk copied
+ * straight to the mesh buffers.<br>
+ * The format is versioned, old files are refused so that the conversion
+ * creates them again.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class ModelCacheLoader implements AssetLoader {
+
+    public static final String FILE_EXTENSION = "kmc";
+    public static final String MODEL_EXTENSION = "j3o";
+    public static final String J3O_MODELS_PROPERTY = "openkeeper.j3oModels";
+
+    static final byte[] MAGIC = {'O', 'K', 'M', 'C'};
+    static final int VERSION = 2;
+
+    static final byte NODE = 0;
+    static final byte GEOMETRY = 1;
+    static final byte LINK = 2;
+
+    static final byte USER_DATA_INTEGER = 0;
+    static final byte USER_DATA_FLOAT = 1;
+    static final byte USER_DATA_BOOLEAN = 2;
+    static final byte USER_DATA_STRING = 3;
+
+    private static final boolean NATIVE_LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+    private static volatile boolean enabled = !Boolean.getBoolean(J3O_MODELS_PROPERTY);
+
+    private AssetManager assetManager;
+    private ByteBuffer data;
+
+    @Override
+    public Object load(AssetInfo assetInfo) throws IOException {
+        try (InputStream is = assetInfo.openStream()) {
+            return load(assetInfo.getManager(), ByteBuffer.wrap(ConversionUtils.toByteArray(is)));
+        }
+    }
+
+    /**
+     * Load a model from the given data. The data can be i.e. a memory mapped
+     * model cache file.
+     *
+     * @param assetManager the asset manager, for the materials and the linked
+     * models
+     * @param data the model cache data
+     * @return the model
+     * @throws IOException if the data is not a valid model cache
+     */
+    public static Spatial load(AssetManager assetManager, ByteBuffer data) throws IOException {
+        ModelCacheLoader loader = new ModelCacheLoader();
+        loader.assetManager = assetManager;
+        loader.data = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+
+        // Header
+        byte[] magic = new byte[MAGIC.length];
+        loader.data.get(magic);
+        if (!Arrays.equals(MAGIC, magic)) {
+            throw new IOException("Not a model cache file!");
+        }
+        int version = loader.data.getInt();
+        if (version != VERSION) {
+            throw new IOException("Model cache version " + version + " is not supported, expected " + VERSION + "!");
+        }
+
+        return loader.readSpatial();
+    }
+
+    /**
+     * Get the model cache asset key for a model asset key
+     *
+     * @param modelKey the model asset key, i.e. Models/Imp.j3o
+     * @return the model cache asset key, i.e. Models/Imp.kmc
+     */
+    public static String getModelCacheKey(String modelKey) {
+        if (modelKey.toLowerCase().endsWith("." + MODEL_EXTENSION)) {
+            return modelKey.substring(0, modelKey.length() - MODEL_EXTENSION.length()).concat(FILE_EXTENSION);
+        }
+        return modelKey;
+    }
+
+    /**
+     * Is the model cache used for loading the models. Can be turned off with
+     * the system property {@value #J3O_MODELS_PROPERTY}.
+     *
+     * @return {@code true} if the model cache files are preferred
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        ModelCacheLoader.enabled = enabled;
+    }
+
+    static int getPadding(int position) {
+        return (4 - (position & 3)) & 3;
+    }
+
+    private Spatial readSpatial() throws IOException {
+        byte kind = data.get();
+        String name = readString();
+
+        Spatial spatial;
+        switch (kind) {
+            case NODE:
+                spatial = new Node(name);
+                break;
+            case GEOMETRY:
+                spatial = new Geometry(name);
+                break;
+            case LINK:
+                spatial = new AssetLinkNode();
+                spatial.setName(name);
+                break;
+            default:
+                throw new IOException("Unknown spatial type " + kind + "!");
+        }
+
+        // Transform
+        spatial.setLocalTranslation(new Vector3f(data.getFloat(), data.getFloat(), data.getFloat()));
+        spatial.setLocalRotation(new Quaternion(data.getFloat(), data.getFloat(), data.getFloat(), data.getFloat()));
+        spatial.setLocalScale(new Vector3f(data.getFloat(), data.getFloat(), data.getFloat()));
+
+        // Render settings
+        spatial.setQueueBucket(RenderQueue.Bucket.values()[data.get()]);
+        spatial.setShadowMode(RenderQueue.ShadowMode.values()[data.get()]);
+        readUserData(spatial);
+
+        switch (kind) {
+            case NODE:
+                readNode((Node) spatial);
+                break;
+            case GEOMETRY:
+                readGeometry((Geometry) spatial);
+                break;
+            default:
+                readLink((AssetLinkNode) spatial);
+                break;
+        }
+
+        return spatial;
+    }
+
+    private void readUserData(Spatial spatial) throws IOException {
+        int count = data.getInt();
+        for (int i = 0; i < count; i++) {
+            String key = readString();
+            byte type = data.get();
+            switch (type) {
+                case USER_DATA_INTEGER:
+                    spatial.setUserData(key, data.getInt());
+                    break;
+                case USER_DATA_FLOAT:
+                    spatial.setUserData(key, data.getFloat());
+                    break;
+                case USER_DATA_BOOLEAN:
+                    spatial.setUserData(key, data.get() != 0);
+                    break;
+                case USER_DATA_STRING:
+                    spatial.setUserData(key, readString());
+                    break;
+                default:
+                    throw new IOException("Unknown user data type " + type + "!");
+            }
+        }
+    }
+
+    private void readLink(AssetLinkNode link) {
+        int count = data.getInt();
+        for (int i = 0; i < count; i++) {
+            link.addLinkedChild(new ModelKey(readString()));
+        }
+        link.attachLinkedChildren(assetManager);
+    }
+
+    private void readNode(Node node) throws IOException {
+        int count = data.getInt();
+        for (int i = 0; i < count; i++) {
+            node.attachChild(readSpatial());
+        }
+
+        // Animations
+        int animationCount = data.getInt();
+        if (animationCount < 0) {
+            return;
+        }
+        AnimControl control = new AnimControl();
+        for (int i = 0; i < animationCount; i++) {
+            control.addAnim(readAnimation());
+        }
+        node.addControl(control);
+    }
+
+    private Animation readAnimation() {
+        Animation animation = new Animation(readString(), data.getFloat());
+        PoseTrack[] tracks = new PoseTrack[data.getInt()];
+        for (int i = 0; i < tracks.length; i++) {
+            tracks[i] = readPoseTrack();
+        }
+        animation.setTracks(tracks);
+
+        return animation;
+    }
+
+    private PoseTrack readPoseTrack() {
+        int targetMeshIndex = data.getInt();
+        float[] times = readFloats();
+        int vertexCount = data.getInt();
+
+        return new PoseTrack(targetMeshIndex, times, vertexCount, readFloats());
+    }
+
+    private void readGeometry(Geometry geometry) throws IOException {
+        Material material = assetManager.loadMaterial(readString());
+        boolean lodControl = data.get() != 0;
+
+        // The mesh
+        Mesh mesh = new Mesh();
+        mesh.setMode(Mesh.Mode.values()[data.get()]);
+        int bufferCount = data.getInt();
+        for (int i = 0; i < bufferCount; i++) {
+            mesh.setBuffer(readVertexBuffer());
+        }
+        VertexBuffer[] lodLevels = new VertexBuffer[data.getInt()];
+        for (int i = 0; i < lodLevels.length; i++) {
+            lodLevels[i] = readVertexBuffer();
+        }
+        if (lodLevels.length > 0) {
+            if (mesh.getBuffer(VertexBuffer.Type.Index) == null) {
+                mesh.setBuffer(lodLevels[0]);
+            }
+            mesh.setLodLevels(lodLevels);
+        }
+        mesh.updateCounts();
+        mesh.updateBound();
+
+        geometry.setMesh(mesh);
+        geometry.setMaterial(material);
+        if (lodControl) {
+            geometry.addControl(new LodControl());
+        }
+        geometry.updateModelBound();
+    }
+
+    private VertexBuffer readVertexBuffer() throws IOException {
+        VertexBuffer.Type type = VertexBuffer.Type.values()[data.get()];
+        VertexBuffer.Usage usage = VertexBuffer.Usage.values()[data.get()];
+        VertexBuffer.Format format = VertexBuffer.Format.values()[data.get()];
+        int components = data.get();
+        int count = data.getInt();
+        align();
+
+        Buffer buffer;
+        switch (format.getComponentSize()) {
+            case 4:
+                buffer = (format == VertexBuffer.Format.Float ? readFloatBuffer(count) : readIntBuffer(count));
+                break;
+            case 2:
+                buffer = readShortBuffer(count);
+                break;
+            case 1:
+                buffer = copy(count);
+                break;
+            default:
+                throw new IOException("Unsupported vertex buffer format " + format + "!");
+        }
+
+        VertexBuffer vb = new VertexBuffer(type);
+        vb.setupData(usage, components, format, buffer);
+
+        return vb;
+    }
+
+    private FloatBuffer readFloatBuffer(int count) {
+        if (NATIVE_LITTLE_ENDIAN) {
+            return copy(count * 4).asFloatBuffer();
+        }
+        FloatBuffer buffer = BufferUtils.createFloatBuffer(count);
+        buffer.put(view(count * 4).asFloatBuffer()).rewind();
+        return buffer;
+    }
+
+    private IntBuffer readIntBuffer(int count) {
+        if (NATIVE_LITTLE_ENDIAN) {
+            return copy(count * 4).asIntBuffer();
+        }
+        IntBuffer buffer = BufferUtils.createIntBuffer(count);
+        buffer.put(view(count * 4).asIntBuffer()).rewind();
+        return buffer;
+    }
+
+    private ShortBuffer readShortBuffer(int count) {
+        if (NATIVE_LITTLE_ENDIAN) {
+            return copy(count * 2).asShortBuffer();
+        }
+        ShortBuffer buffer = BufferUtils.createShortBuffer(count);
+        buffer.put(view(count * 2).asShortBuffer()).rewind();
+        return buffer;
+    }
+
+    /**
+     * Copies the bytes to a new direct buffer in one go, the data is already
+     * in the native order
+     */
+    private ByteBuffer copy(int length) {
+        ByteBuffer buffer = BufferUtils.createByteBuffer(length);
+        buffer.put(view(length)).flip();
+        return buffer;
+    }
+
+    private ByteBuffer view(int length) {
+        ByteBuffer view = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+        view.limit(length);
+        data.position(data.position() + length);
+        return view;
+    }
+
+    private float[] readFloats() {
+        return readFloatArray(data.getInt());
+    }
+
+    private float[] readFloatArray(int length) {
+        float[] values = new float[length];
+        align();
+        data.asFloatBuffer().get(values);
+        data.position(data.position() + values.length * 4);
+        return values;
+    }
+
+    private String readString() {
+        int length = data.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        data.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void align() {
+        data.position(data.position() + getPadding(data.position()));
+    }
+}
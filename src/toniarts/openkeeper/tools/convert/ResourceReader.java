@@ -52,6 +52,11 @@ public class ResourceReader implements IResourceReader {
         return this.file.read(b);
     }
 
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        return this.file.read(b, off, len);
+    }
+
     @Override
     public byte[] read(int length) throws IOException {
         byte[] bytes = new byte[length];
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.tools.convert;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Opens the resource readers for the DK II file parsers. By default the files
+ * are memory mapped, the plain file based reader can be selected with the
+ * system property {@value #FILE_READER_PROPERTY} or programmatically.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public final class ResourceReaders {
+
+    public static final String FILE_READER_PROPERTY = "openkeeper.fileResourceReader";
+
+    private static volatile boolean memoryMapped = !Boolean.getBoolean(FILE_READER_PROPERTY);
+
+    private ResourceReaders() {
+        // Nope
+    }
+
+    /**
+     * Open a reader for the given file
+     *
+     * @param file the file to read
+     * @return the reader, remember to close it
+     * @throws IOException may fail
+     */
+    public static IResourceReader open(File file) throws IOException {
+        if (memoryMapped) {
+            return new MappedResourceReader(file);
+        }
+        return new ResourceReader(file);
+    }
+
+    /**
+     * Open a reader for the given file
+     *
+     * @param filename the file to read
+     * @return the reader, remember to close it
+     * @throws IOException may fail
+     */
+    public static IResourceReader open(String filename) throws IOException {
+        return open(new File(filename));
+    }
+
+    /**
+     * Open a reader for data that is already in memory
+     *
+     * @param data the data to read
+     * @return the reader
+     */
+    public static IResourceReader wrap(byte[] data) {
+        return new MappedResourceReader(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Open a reader for a part of the data that is already in memory
+     *
+     * @param data the data to read
+     * @param offset the offset of the data in the array
+     * @param length the length of the data
+     * @return the reader
+     */
+    public static IResourceReader wrap(byte[] data, int offset, int length) {
+        return new MappedResourceReader(ByteBuffer.wrap(data, offset, length));
+    }
+
+    public static boolean isMemoryMapped() {
+        return memoryMapped;
+    }
+
+    /**
+     * Select the reader implementation used by the parsers
+     *
+     * @param memoryMapped {@code true} to memory map the files, {@code false}
+     * to use the file based reader
+     */
+    public static void setMemoryMapped(boolean memoryMapped) {
+        ResourceReaders.memoryMapped = memoryMapped;
+    }
+}
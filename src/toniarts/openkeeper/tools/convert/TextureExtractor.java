@@ -49,5 +49,6 @@ public class TextureExtractor {
         //Extract the meshes
         EngineTexturesFile etFile = new EngineTexturesFile(new File(cacheFolder + "EngineTextures.dat"));
         etFile.extractFileData(destination);
+        etFile.close();
     }
 }
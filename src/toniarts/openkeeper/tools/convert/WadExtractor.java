@@ -17,6 +17,7 @@
 package toniarts.openkeeper.tools.convert;
 
 import java.io.File;
+import java.io.IOException;
 
 import toniarts.openkeeper.tools.convert.wad.WadFile;
 import toniarts.openkeeper.utils.PathUtils;
@@ -30,7 +31,7 @@ public class WadExtractor {
 
     private static String dkIIFolder;
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
 
         //Take Dungeon Keeper 2 root folder as parameter
         if (args.length != 2 || !new File(args[1]).exists()) {
@@ -49,7 +50,8 @@ public class WadExtractor {
         String destination = PathUtils.fixFilePath(args[0]);
 
         //Extract the meshes
-        WadFile wad = new WadFile(new File(dataFolder + "Meshes.WAD"));
-        wad.extractFileData(destination.concat("meshes"));
+        try (WadFile wad = new WadFile(new File(dataFolder + "Meshes.WAD"))) {
+            wad.extractFileData(destination.concat("meshes"));
+        }
     }
 }
@@ -34,7 +34,7 @@ import java.util.List;
 import javax.imageio.stream.MemoryCacheImageInputStream;
 import toniarts.openkeeper.tools.convert.ConversionUtils;
 import toniarts.openkeeper.tools.convert.IResourceReader;
-import toniarts.openkeeper.tools.convert.ResourceReader;
+import toniarts.openkeeper.tools.convert.ResourceReaders;
 import toniarts.openkeeper.tools.convert.bf4.Bf4Entry.FontEntryFlag;
 
 /**
@@ -74,7 +74,7 @@ public class Bf4File implements Iterable<Bf4Entry> {
     public Bf4File(File file) {
 
         // Read the file
-        try (IResourceReader rawBf4 = new ResourceReader(file)) {
+        try (IResourceReader rawBf4 = ResourceReaders.open(file)) {
 
             // Check the header
             String header = rawBf4.readString(4);
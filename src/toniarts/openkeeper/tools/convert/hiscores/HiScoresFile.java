@@ -21,7 +21,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import toniarts.openkeeper.tools.convert.IResourceReader;
-import toniarts.openkeeper.tools.convert.ResourceReader;
+import toniarts.openkeeper.tools.convert.ResourceReaders;
 
 /**
  * Stores the HiScores file entries<br>
@@ -42,7 +42,7 @@ public class HiScoresFile {
     public HiScoresFile(File file) {
 
         //Read the file
-        try (IResourceReader data = new ResourceReader(file)) {
+        try (IResourceReader data = ResourceReaders.open(file)) {
 
             //Read the entries, no header, just entries till the end
             hiScoresEntries = new ArrayList<>();
@@ -21,7 +21,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import toniarts.openkeeper.tools.convert.IResourceReader;
-import toniarts.openkeeper.tools.convert.ResourceReader;
+import toniarts.openkeeper.tools.convert.ResourceReaders;
 
 /**
  * Stores the KCS file entries<br>
@@ -48,7 +48,7 @@ public class KcsFile {
     public KcsFile(File file) {
 
         //Read the file
-        try (IResourceReader rawKcs = new ResourceReader(file)) {
+        try (IResourceReader rawKcs = ResourceReaders.open(file)) {
 
             //Header
             int numOfEntries = rawKcs.readUnsignedInteger();
@@ -24,7 +24,7 @@ import java.util.List;
 import javax.vecmath.Vector3f;
 import toniarts.openkeeper.tools.convert.ConversionUtils;
 import toniarts.openkeeper.tools.convert.IResourceReader;
-import toniarts.openkeeper.tools.convert.ResourceReader;
+import toniarts.openkeeper.tools.convert.ResourceReaders;
 
 /**
  * Reads Dungeon Keeper II model file to a data structure<br>
@@ -85,53 +85,85 @@ public class KmfFile {
     public KmfFile(File file) {
 
         //Read the file
-        try (IResourceReader rawKmf = new ResourceReader(file)) {
+        try (IResourceReader rawKmf = ResourceReaders.open(file)) {
+            parseKmf(rawKmf);
+        } catch (IOException e) {
 
-            //Read the identifier
-            checkHeader(rawKmf, KMF_HEADER_IDENTIFIER);
-            rawKmf.skipBytes(4);
-            version = rawKmf.readUnsignedInteger();
+            //Fug
+            throw new RuntimeException("Failed to open the file " + file + "!", e);
+        }
+    }
 
-            //KMSH/HEAD
-            checkHeader(rawKmf, KMF_HEAD);
-            parseHead(rawKmf);
+    /**
+     * Reads the KMF straight from memory, no need to write WAD entries to the
+     * disk first
+     *
+     * @param name the name of the KMF, for error reporting
+     * @param data the KMF file data
+     */
+    public KmfFile(String name, byte[] data) {
+        this(name, data, data.length);
+    }
 
-            //KMSH/MATL
-            if (type != Type.GROP) {
-                checkHeader(rawKmf, KMF_MATERIALS);
-                parseMatl(rawKmf);
-            }
+    /**
+     * Reads the KMF straight from memory, the data is only used during the
+     * construction
+     *
+     * @param name the name of the KMF, for error reporting
+     * @param data the KMF file data
+     * @param length the length of the data in the array
+     */
+    public KmfFile(String name, byte[] data, int length) {
+        try (IResourceReader rawKmf = ResourceReaders.wrap(data, 0, length)) {
+            parseKmf(rawKmf);
+        } catch (IOException e) {
 
-            //KMSH/MESH, there are n amount of these
-            meshes = new ArrayList();
-            String temp = "";
-            byte[] buf = new byte[4];
-            do {
-                if (rawKmf.read(buf) == -1) {
-                    break; // EOF
-                }
-                temp = ConversionUtils.toString(buf);
-                if (KMF_MESH.equals(temp)) {
-                    meshes.add(parseMesh(rawKmf));
-                } else {
-                    break;
-                }
-            } while (true);
+            //Fug
+            throw new RuntimeException("Failed to read the KMF " + name + "!", e);
+        }
+    }
 
-            //KMSH/ANIM
-            if (type == Type.ANIM && KMF_ANIM.equals(temp)) {
-                anim = parseAnim(rawKmf);
-            }
+    private void parseKmf(IResourceReader rawKmf) throws IOException {
+
+        //Read the identifier
+        checkHeader(rawKmf, KMF_HEADER_IDENTIFIER);
+        rawKmf.skipBytes(4);
+        version = rawKmf.readUnsignedInteger();
+
+        //KMSH/HEAD
+        checkHeader(rawKmf, KMF_HEAD);
+        parseHead(rawKmf);
+
+        //KMSH/MATL
+        if (type != Type.GROP) {
+            checkHeader(rawKmf, KMF_MATERIALS);
+            parseMatl(rawKmf);
+        }
 
-            //KMSH/GROP
-            if (type == Type.GROP && KMF_GROP.equals(temp)) {
-                grops = parseGrop(rawKmf);
+        //KMSH/MESH, there are n amount of these
+        meshes = new ArrayList();
+        String temp = "";
+        byte[] buf = new byte[4];
+        do {
+            if (rawKmf.read(buf) == -1) {
+                break; // EOF
+            }
+            temp = ConversionUtils.toString(buf);
+            if (KMF_MESH.equals(temp)) {
+                meshes.add(parseMesh(rawKmf));
+            } else {
+                break;
             }
+        } while (true);
 
-        } catch (IOException e) {
+        //KMSH/ANIM
+        if (type == Type.ANIM && KMF_ANIM.equals(temp)) {
+            anim = parseAnim(rawKmf);
+        }
 
-            //Fug
-            throw new RuntimeException("Failed to open the file " + file + "!", e);
+        //KMSH/GROP
+        if (type == Type.GROP && KMF_GROP.equals(temp)) {
+            grops = parseGrop(rawKmf);
         }
     }
 
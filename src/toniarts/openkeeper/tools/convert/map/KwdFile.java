@@ -32,7 +32,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import toniarts.openkeeper.tools.convert.ConversionUtils;
 import toniarts.openkeeper.tools.convert.IResourceReader;
-import toniarts.openkeeper.tools.convert.ResourceReader;
+import toniarts.openkeeper.tools.convert.ResourceReaders;
 import toniarts.openkeeper.tools.convert.map.ArtResource.ArtResourceType;
 import toniarts.openkeeper.tools.convert.map.Creature.AnimationType;
 import toniarts.openkeeper.tools.convert.map.Creature.Attraction;
@@ -170,7 +170,7 @@ public final class KwdFile {
         } else {
 
             // We need map width & height if not loaded fully, I couldn't figure out where, except the map data
-            try (IResourceReader data = new ResourceReader(ConversionUtils.getRealFileName(basePath, gameLevel.getFile(MAP)))) {
+            try (IResourceReader data = ResourceReaders.open(ConversionUtils.getRealFileName(basePath, gameLevel.getFile(MAP)))) {
                 KwdHeader header = readKwdHeader(data);
                 map = new GameMap(header.getWidth(), header.getHeight());
             } catch (Exception e) {
@@ -182,7 +182,7 @@ public final class KwdFile {
     }
 
     private void readFileContents(File file) throws IOException {
-        try (IResourceReader data = new ResourceReader(file)) {
+        try (IResourceReader data = ResourceReaders.open(file)) {
             while (data.getFilePointer() < data.length()) {
 
                 // Read header (and put the file pointer to the data start)
@@ -3168,7 +3168,7 @@ public final class KwdFile {
      * Skips the file to the correct position after an item is read<br>
      * <b>Use this with the common types!</b>
      *
-     * @see toniarts.openkeeper.tools.convert.ResourceReader#checkOffset(long, long)
+     * @see toniarts.openkeeper.tools.convert.IResourceReader#checkOffset(long, long)
      * @param header the header
      * @param file the file
      * @param offset the file offset before the last item was read
@@ -19,7 +19,7 @@ package toniarts.openkeeper.tools.convert.sound;
 import java.io.File;
 import java.io.IOException;
 import toniarts.openkeeper.tools.convert.IResourceReader;
-import toniarts.openkeeper.tools.convert.ResourceReader;
+import toniarts.openkeeper.tools.convert.ResourceReaders;
 
 /**
  * Dungeon Keeper II *Bank.map files. The map files contain sound playback events of some sorts<br>
@@ -52,7 +52,7 @@ public class BankMapFile {
         this.file = file;
 
         //Read the file
-        try (IResourceReader rawMap = new ResourceReader(file)) {
+        try (IResourceReader rawMap = ResourceReaders.open(file)) {
             //Header
             int[] check = new int[]{
                 rawMap.readInteger(),
@@ -19,7 +19,7 @@ package toniarts.openkeeper.tools.convert.sound;
 import java.io.File;
 import java.io.IOException;
 import toniarts.openkeeper.tools.convert.IResourceReader;
-import toniarts.openkeeper.tools.convert.ResourceReader;
+import toniarts.openkeeper.tools.convert.ResourceReaders;
 
 /**
  *
@@ -31,7 +31,7 @@ public class SFFile {
 
     public SFFile(File file) {
         //Read the file
-        try (IResourceReader f = new ResourceReader(file)) {
+        try (IResourceReader f = ResourceReaders.open(file)) {
             chunk = new SFChunk(f);
         } catch (IOException e) {
             //Fug
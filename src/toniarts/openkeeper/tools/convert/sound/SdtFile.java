@@ -25,7 +25,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import toniarts.openkeeper.tools.convert.ConversionUtils;
 import toniarts.openkeeper.tools.convert.IResourceReader;
-import toniarts.openkeeper.tools.convert.ResourceReader;
+import toniarts.openkeeper.tools.convert.ResourceReaders;
 import toniarts.openkeeper.utils.PathUtils;
 
 /**
@@ -53,7 +53,7 @@ public class SdtFile {
         this.file = file;
 
         // Read the file
-        try (IResourceReader rawSdt = new ResourceReader(file)) {
+        try (IResourceReader rawSdt = ResourceReaders.open(file)) {
 
             // Header
             int count = rawSdt.readUnsignedInteger();
@@ -104,7 +104,7 @@ public class SdtFile {
     public void extractFileData(String destination) {
 
         // Open the SDT for extraction
-        try (IResourceReader rawSdt = new ResourceReader(file)) {
+        try (IResourceReader rawSdt = ResourceReaders.open(file)) {
             for (SdtFileEntry entry : entries) {
                 extractFileData(entry, destination, rawSdt);
             }
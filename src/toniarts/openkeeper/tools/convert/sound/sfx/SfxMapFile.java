@@ -20,7 +20,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
 import toniarts.openkeeper.tools.convert.IResourceReader;
-import toniarts.openkeeper.tools.convert.ResourceReader;
+import toniarts.openkeeper.tools.convert.ResourceReaders;
 
 /**
  *
@@ -45,7 +45,7 @@ public class SfxMapFile {
         this.file = file;
 
         //Read the file
-        try (IResourceReader rawMap = new ResourceReader(file)) {
+        try (IResourceReader rawMap = ResourceReaders.open(file)) {
             //Header
             int[] check = new int[] {
                 rawMap.readInteger(),
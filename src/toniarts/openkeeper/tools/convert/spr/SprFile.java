@@ -25,7 +25,7 @@ import java.io.OutputStream;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import toniarts.openkeeper.tools.convert.IResourceReader;
-import toniarts.openkeeper.tools.convert.ResourceReader;
+import toniarts.openkeeper.tools.convert.ResourceReaders;
 
 /**
  *
@@ -51,7 +51,7 @@ public class SprFile {
     public SprFile(File file) {
         this.sprFile = file;
 
-        try (IResourceReader data = new ResourceReader(sprFile)) {
+        try (IResourceReader data = ResourceReaders.open(sprFile)) {
 
             header = new SprHeader();
             header.tag = data.readString(4);
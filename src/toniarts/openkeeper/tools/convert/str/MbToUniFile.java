@@ -22,7 +22,7 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.CharBuffer;
 import toniarts.openkeeper.tools.convert.IResourceReader;
-import toniarts.openkeeper.tools.convert.ResourceReader;
+import toniarts.openkeeper.tools.convert.ResourceReaders;
 
 /**
  * Dungeon Keeper 2 MultiByte to Unicode codepage file reader. The file is used
@@ -49,7 +49,7 @@ public class MbToUniFile {
     private final int count;
 
     public MbToUniFile(File file) {
-        try (IResourceReader rawCodepage = new ResourceReader(file)) {
+        try (IResourceReader rawCodepage = ResourceReaders.open(file)) {
 
             // Check the header
             String header = rawCodepage.readString(4);
@@ -131,6 +131,7 @@ public abstract class Dk2TextureDecoder {
 
     protected int[] decompress3_chunk = new int[288];
     protected int[] decompress4_chunk = new int[512];
+    private ByteBuffer block;
     private static final int norm_7af038 = 0x5A82799A;
     private static final float float_7af03c = 5.4119611e-1f;
     private static final float float_7af040 = 1.306563f;
@@ -437,6 +438,43 @@ public abstract class Dk2TextureDecoder {
 
     protected abstract void decompress_block(ByteBuffer out, int stride, boolean alphaFlag);
 
+    /**
+     * Decompresses a block straight to ARGB pixels. This default
+     * implementation decompresses the block to a small buffer first, the
+     * implementations are encouraged to write the pixels directly.
+     *
+     * @param out the ARGB pixels of the whole texture
+     * @param offset the offset of the block in the pixels
+     * @param width the texture width
+     * @param blockWidth the width of the block to write, up to 8
+     * @param blockHeight the height of the block to write, up to 8
+     * @param alphaFlag has alpha
+     */
+    protected void decompress_block(int[] out, int offset, int width, int blockWidth, int blockHeight, boolean alphaFlag) {
+        if (block == null) {
+            block = ByteBuffer.allocate(8 * 8 * 4);
+            block.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        block.clear();
+        decompress_block(block, 8 * 4, alphaFlag);
+        for (int j = 0; j < blockHeight; j++) {
+            for (int i = 0; i < blockWidth; i++) {
+                out[offset + j * width + i] = toARGB(block.getInt(j * 8 * 4 + i * 4));
+            }
+        }
+    }
+
+    /**
+     * Converts the decompressed pixel value to ARGB. In memory the value is in
+     * R, G, B, A byte order.
+     *
+     * @param value the decompressed little endian pixel value
+     * @return ARGB color
+     */
+    protected static int toARGB(int value) {
+        return (value & 0xff00ff00) | ((value & 0xff) << 16) | ((value >> 16) & 0xff);
+    }
+
     public byte[] dd_texture(long[] buf, int stride, int width, int height, boolean alphaFlag) {
         int x, y;
         ByteBuffer out = ByteBuffer.allocate(width * height * 4);
@@ -452,4 +490,26 @@ public abstract class Dk2TextureDecoder {
         }
         return out.array();
     }
+
+    /**
+     * Decompresses the texture straight to ARGB pixels, for example to the
+     * data buffer of an image
+     *
+     * @param buf the compressed texture data read as uint32 items
+     * @param pixels the ARGB pixels, width * height
+     * @param width the texture width
+     * @param height the texture height
+     * @param alphaFlag has alpha
+     */
+    public void dd_texture(long[] buf, int[] pixels, int width, int height, boolean alphaFlag) {
+        int x, y;
+
+        initialize_dd(buf);
+
+        for (y = 0; y < height; y += 8) {
+            for (x = 0; x < width; x += 8) {
+                decompress_block(pixels, y * width + x, width, Math.min(8, width - x), Math.min(8, height - y), alphaFlag);
+            }
+        }
+    }
 }
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.tools.convert.textures.enginetextures;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import toniarts.openkeeper.tools.convert.AssetsConverter;
+import toniarts.openkeeper.tools.convert.ConversionUtils;
+
+/**
+ * Serves the textures straight from the EngineTextures archive. The textures
+ * are decoded on demand and the decoded textures are kept in a size bounded
+ * cache, least recently used get evicted first.<br>
+ * The textures are named like the converted ones used to be,
+ * Textures/&lt;name&gt;.png, only the highest mipmap level is available.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public final class EngineTextureCache {
+
+    /**
+     * Maximum size of the decoded textures kept in memory, in bytes
+     */
+    private static final long MAX_CACHE_SIZE = 64 * 1024 * 1024;
+    private static final String TEXTURE_PREFIX = AssetsConverter.TEXTURES_FOLDER.toLowerCase() + "/";
+    private static final String TEXTURE_SUFFIX = ".png";
+    private static final Pattern MIPMAP_PATTERN = Pattern.compile("(?<name>\\w+)MM(?<mipmaplevel>\\d{1})");
+    private static final Map<String, EngineTextureCache> INSTANCES = new ConcurrentHashMap<>();
+
+    private final EngineTexturesFile engineTexturesFile;
+
+    /**
+     * The texture entries by the lower case asset name (without the folder and
+     * the extension)
+     */
+    private final Map<String, String> entriesByName;
+    private final Map<String, BufferedImage> images = new LinkedHashMap<>(16, 0.75f, true);
+    private long cacheSize = 0;
+
+    private EngineTextureCache(EngineTexturesFile engineTexturesFile) {
+        this.engineTexturesFile = engineTexturesFile;
+        entriesByName = new HashMap<>(engineTexturesFile.getFileCount());
+        for (String entry : engineTexturesFile) {
+
+            // Like in the conversion, we only offer the highest mipmap level and without the mipmap suffix
+            String name = entry;
+            Matcher matcher = MIPMAP_PATTERN.matcher(entry);
+            if (matcher.find()) {
+                if (Integer.parseInt(matcher.group("mipmaplevel")) != 0) {
+                    continue;
+                }
+                name = entry.replaceFirst("MM" + matcher.group("mipmaplevel"), "");
+            }
+            entriesByName.put(name.replace(File.separatorChar, '/').toLowerCase(), entry);
+        }
+    }
+
+    /**
+     * Get the texture cache for the given DK II installation. The archive
+     * catalog is read only once per installation.
+     *
+     * @param dungeonKeeperFolder the DK II folder
+     * @return the texture cache
+     */
+    public static EngineTextureCache getInstance(String dungeonKeeperFolder) {
+        try {
+            String file = ConversionUtils.getRealFileName(dungeonKeeperFolder, "DK2TextureCache".concat(File.separator).concat("EngineTextures.dat"));
+            return INSTANCES.computeIfAbsent(file, (key) -> new EngineTextureCache(new EngineTexturesFile(new File(key))));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open the EngineTextures file!", e);
+        }
+    }
+
+    /**
+     * Get the texture entry for an asset name
+     *
+     * @param assetName the asset name, i.e. Textures/GUI/Icons/Imp.png
+     * @return the texture entry, or {@code null} if this is not an engine
+     * texture
+     */
+    public String getEntry(String assetName) {
+        String name = assetName.replace('\\', '/').toLowerCase();
+        if (!name.startsWith(TEXTURE_PREFIX) || !name.endsWith(TEXTURE_SUFFIX)) {
+            return null;
+        }
+
+        return entriesByName.get(name.substring(TEXTURE_PREFIX.length(), name.length() - TEXTURE_SUFFIX.length()));
+    }
+
+    /**
+     * Get the decoded texture, the returned image is shared and must not be
+     * modified
+     *
+     * @param entry the texture entry
+     * @return the texture image
+     */
+    public BufferedImage getImage(String entry) {
+        synchronized (images) {
+            BufferedImage image = images.get(entry);
+            if (image != null) {
+                return image;
+            }
+        }
+
+        // Decode outside of the lock, the decoding can be done in parallel
+        BufferedImage image = engineTexturesFile.getImage(entry);
+        synchronized (images) {
+            BufferedImage previous = images.put(entry, image);
+            if (previous != null) {
+                cacheSize -= getSize(previous);
+            }
+            cacheSize += getSize(image);
+
+            // Evict the least recently used, but always keep the one we just added
+            Iterator<BufferedImage> iter = images.values().iterator();
+            while (cacheSize > MAX_CACHE_SIZE && images.size() > 1) {
+                cacheSize -= getSize(iter.next());
+                iter.remove();
+            }
+        }
+
+        return image;
+    }
+
+    /**
+     * Get the decoded texture by the asset name
+     *
+     * @param assetName the asset name, i.e. Textures/GUI/Icons/Imp.png
+     * @return the texture image, or {@code null} if this is not an engine
+     * texture
+     */
+    public BufferedImage findImage(String assetName) {
+        String entry = getEntry(assetName);
+        return (entry != null ? getImage(entry) : null);
+    }
+
+    private static long getSize(BufferedImage image) {
+        return (long) image.getWidth() * image.getHeight() * 4;
+    }
+}
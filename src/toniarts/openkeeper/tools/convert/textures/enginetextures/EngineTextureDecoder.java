@@ -63,50 +63,73 @@ public class EngineTextureDecoder extends Dk2TextureDecoder {
 
     @Override
     protected void decompress_block(ByteBuffer out, int stride, boolean alphaFlag) {
-        IntBuffer inp;
-        double d;
-        long xr, xg, xb;
-        int ir, ig, ib;
-
-        int a;
-        float r, g, b;
         int i, j;
 
         decompress(alphaFlag);
 
-        inp = IntBuffer.wrap(decompress4_chunk);
         for (j = 0; j < 8; j++) {
             for (i = 0; i < 8; i++) {
-                int value;
-                r = inp.get(inp.position() + i + 0);
-                g = inp.get(inp.position() + i + 18);
-                b = inp.get(inp.position() + i + 9);
-                a = inp.get(inp.position() + i + 27);
-                d = float_7af014 * (g - float_7af004) + float_7af008 * (r - float_7af000) + double_7af048;
-                xr = (long) (d + (d > 0 ? 0.5f : -0.5f)) & 0xFFFFFFFFL;
-                ir = (int) xr;
-                d = float_7af018 * (b - float_7af004) + float_7af008 * (r - float_7af000) + double_7af048;
-                xg = (long) (d + (d > 0 ? 0.5f : -0.5f)) & 0xFFFFFFFFL;
-                ig = (int) xg;
-                d = float_7af010 * (b - float_7af004) + float_7af00c * (g - float_7af004) + float_7af008 * (r - float_7af000) + double_7af048;
-                xb = (long) (d + (d > 0 ? 0.5f : -0.5f)) & 0xFFFFFFFFL;
-                ib = (int) xb;
-
-                value = clamp(ir >> 16, 0, 255);
-                value |= clamp(ig >> 16, 0, 255) << 16;
-                value |= clamp(ib >> 16, 0, 255) << 8;
-                if (alphaFlag) {
-                    value |= clamp(a >> 16, 0, 255) << 24;
-                } else {
-                    value |= 0xff000000;
-                }
-                out.putInt(out.position() + i * 4, value);
+                out.putInt(out.position() + i * 4, getPixel(j * 64 + i, alphaFlag));
             }
             out.position(Math.min(out.limit(), out.position() + stride));
-            inp.position(inp.position() + 64);
         }
     }
 
+    @Override
+    protected void decompress_block(int[] out, int offset, int width, int blockWidth, int blockHeight, boolean alphaFlag) {
+        int i, j;
+
+        decompress(alphaFlag);
+
+        for (j = 0; j < blockHeight; j++) {
+            int row = offset + j * width;
+            for (i = 0; i < blockWidth; i++) {
+                out[row + i] = toARGB(getPixel(j * 64 + i, alphaFlag));
+            }
+        }
+    }
+
+    /**
+     * Converts the decompressed YCbCr(ish) values to a pixel value
+     *
+     * @param index the pixel index in the decompressed chunk
+     * @param alphaFlag has alpha
+     * @return the pixel value, R, G, B, A in memory
+     */
+    private int getPixel(int index, boolean alphaFlag) {
+        double d;
+        long xr, xg, xb;
+        int ir, ig, ib;
+
+        int a;
+        float r, g, b;
+        int value;
+        r = decompress4_chunk[index + 0];
+        g = decompress4_chunk[index + 18];
+        b = decompress4_chunk[index + 9];
+        a = decompress4_chunk[index + 27];
+        d = float_7af014 * (g - float_7af004) + float_7af008 * (r - float_7af000) + double_7af048;
+        xr = (long) (d + (d > 0 ? 0.5f : -0.5f)) & 0xFFFFFFFFL;
+        ir = (int) xr;
+        d = float_7af018 * (b - float_7af004) + float_7af008 * (r - float_7af000) + double_7af048;
+        xg = (long) (d + (d > 0 ? 0.5f : -0.5f)) & 0xFFFFFFFFL;
+        ig = (int) xg;
+        d = float_7af010 * (b - float_7af004) + float_7af00c * (g - float_7af004) + float_7af008 * (r - float_7af000) + double_7af048;
+        xb = (long) (d + (d > 0 ? 0.5f : -0.5f)) & 0xFFFFFFFFL;
+        ib = (int) xb;
+
+        value = clamp(ir >> 16, 0, 255);
+        value |= clamp(ig >> 16, 0, 255) << 16;
+        value |= clamp(ib >> 16, 0, 255) << 8;
+        if (alphaFlag) {
+            value |= clamp(a >> 16, 0, 255) << 24;
+        } else {
+            value |= 0xff000000;
+        }
+
+        return value;
+    }
+
     private void decompress(boolean alphaFlag) {
         int jt_index, jt_value;
         int bs_pos = (int) bs_index;
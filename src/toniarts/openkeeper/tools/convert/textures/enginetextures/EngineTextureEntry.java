@@ -80,7 +80,7 @@ public class EngineTextureEntry {
         this.alphaFlag = alphaFlag;
     }
 
-    protected long getDataStartLocation() {
+    public long getDataStartLocation() {
         return dataStartLocation;
     }
 
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.tools.convert.textures.enginetextures;
+
+import com.jme3.asset.AssetInfo;
+import com.jme3.asset.AssetLoader;
+import com.jme3.asset.TextureKey;
+import com.jme3.texture.Image;
+import com.jme3.texture.image.ColorSpace;
+import com.jme3.texture.plugins.AWTLoader;
+import com.jme3.util.BufferUtils;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import toniarts.openkeeper.tools.convert.textures.enginetextures.EngineTexturesLocator.EngineTextureAssetInfo;
+
+/**
+ * Loads the engine textures located by {@link EngineTexturesLocator} straight
+ * from the decoded pixels, skipping the PNG encoding and decoding. All other
+ * PNG files are loaded normally.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class EngineTextureLoader implements AssetLoader {
+
+    private final AWTLoader awtLoader = new AWTLoader();
+
+    @Override
+    public Object load(AssetInfo assetInfo) throws IOException {
+        if (!(assetInfo instanceof EngineTextureAssetInfo)) {
+            return awtLoader.load(assetInfo);
+        }
+
+        boolean flipY = false;
+        if (assetInfo.getKey() instanceof TextureKey) {
+            flipY = ((TextureKey) assetInfo.getKey()).isFlipY();
+        }
+
+        return createImage(((EngineTextureAssetInfo) assetInfo).getImage(), flipY);
+    }
+
+    private static Image createImage(BufferedImage image, boolean flipY) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        // ARGB to RGBA8
+        ByteBuffer data = BufferUtils.createByteBuffer(width * height * 4);
+        for (int y = 0; y < height; y++) {
+            int row = (flipY ? height - y - 1 : y) * width;
+            for (int x = 0; x < width; x++) {
+                int argb = pixels[row + x];
+                data.put((byte) (argb >> 16));
+                data.put((byte) (argb >> 8));
+                data.put((byte) argb);
+                data.put((byte) (argb >> 24));
+            }
+        }
+        data.flip();
+
+        return new Image(Image.Format.RGBA8, width, height, data, ColorSpace.sRGB);
+    }
+}
@@ -19,20 +19,26 @@ package toniarts.openkeeper.tools.convert.textures.enginetextures;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.imageio.ImageIO;
+import toniarts.openkeeper.tools.convert.ConversionManifest;
 import toniarts.openkeeper.tools.convert.ConversionUtils;
 import toniarts.openkeeper.tools.convert.IResourceReader;
-import toniarts.openkeeper.tools.convert.ResourceReader;
+import toniarts.openkeeper.tools.convert.ResourceReaders;
 import toniarts.openkeeper.utils.PathUtils;
 
 /**
@@ -43,14 +49,20 @@ import toniarts.openkeeper.utils.PathUtils;
  *
  * @author Toni Helenius <helenius.toni@gmail.com>
  */
-public class EngineTexturesFile implements Iterable<String> {
+public class EngineTexturesFile implements Iterable<String>, Closeable {
 
     private static final boolean DECOMPRESSION_ENABLED = true;
     private static final int CHESS_BOARD_GRID_SIZE = 8;
 
+    /**
+     * The decoders hold state, so one for each thread
+     */
+    private static final ThreadLocal<EngineTextureDecoder> DECODER = ThreadLocal.withInitial(EngineTextureDecoder::new);
+
     private final File file;
-    private EngineTextureDecoder decoder;
     private final HashMap<String, EngineTextureEntry> engineTextureEntries;
+    private final Object readerLock = new Object();
+    private IResourceReader rawTextures;
 
     private static final Logger LOGGER = Logger.getLogger(EngineTexturesFile.class.getName());
 
@@ -59,7 +71,7 @@ public class EngineTexturesFile implements Iterable<String> {
 
         //Read the names from the DIR file in the same folder
         File dirFile = new File(file.toString().substring(0, file.toString().length() - 3).concat("dir"));
-        try (IResourceReader rawDir = new ResourceReader(dirFile)) {
+        try (IResourceReader rawDir = ResourceReaders.open(dirFile)) {
 
             // File format:
             // HEADER:
@@ -76,7 +88,7 @@ public class EngineTexturesFile implements Iterable<String> {
             int numberOfEntries = rawDir.readUnsignedInteger();
             engineTextureEntries = new HashMap<>(numberOfEntries);
 
-            try (IResourceReader rawTextures = new ResourceReader(file)) {
+            try (IResourceReader rawTextures = ResourceReaders.open(file)) {
                 do {
                     String name = ConversionUtils.convertFileSeparators(rawDir.readVaryingLengthStrings(1).get(0));
                     int offset = rawDir.readUnsignedInteger();
@@ -119,56 +131,28 @@ public class EngineTexturesFile implements Iterable<String> {
     }
 
     /**
-     * Extract all the files to a given location
+     * Extract all the files to a given location. The textures are decoded in
+     * parallel.
      *
      * @param destination destination directory
      */
     public void extractFileData(String destination) {
-
-        //Open the Texture file for extraction
-        try (IResourceReader rawTextures = new ResourceReader(file)) {
-
-            for (String textureEntry : engineTextureEntries.keySet()) {
-                extractFileData(textureEntry, destination, rawTextures, true);
-            }
-        } catch (IOException e) {
-
-            //Fug
-            throw new RuntimeException("Failed to open the file " + file + "!", e);
-        }
+        engineTextureEntries.keySet().parallelStream().forEach((textureEntry) -> {
+            extractFileData(textureEntry, destination, true);
+        });
     }
 
     /**
-     * Extract a single to a given location
+     * Extract a single file to a given location. Can be called from multiple
+     * threads.
      *
-     * @param textureEntry entry to extract
+     * @param textureEntry texture to extract
      * @param destination destination directory
      * @param overwrite overwrite destination file
      * @return returns the extracted file
      */
     public File extractFileData(String textureEntry, String destination, boolean overwrite) {
 
-        //Open the Texture file for extraction
-        try (IResourceReader rawTextures = new ResourceReader(file)) {
-            return extractFileData(textureEntry, destination, rawTextures, overwrite);
-        } catch (IOException e) {
-
-            //Fug
-            throw new RuntimeException("Failed to open the file " + file + "!", e);
-        }
-    }
-
-    /**
-     * Extract a single file to a given location
-     *
-     * @param textureEntry texture to extract
-     * @param destination destination directory
-     * @param rawTextures the opened EngineTextures file
-     * @param overwrite overwrite destination file
-     *
-     */
-    private File extractFileData(String textureEntry, String destination, IResourceReader rawTextures, boolean overwrite) {
-
         //See that the destination is formatted correctly and create it if it does not exist
         String dest = PathUtils.fixFilePath(destination);
 
@@ -183,8 +167,8 @@ public class EngineTexturesFile implements Iterable<String> {
         destinationFolder.getParent().toFile().mkdirs();
 
         //Write to the file
-        try (OutputStream outputStream = new FileOutputStream(destinationFile)) {
-            getFileData(textureEntry, rawTextures).writeTo(outputStream);
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(destinationFile))) {
+            ImageIO.write(getImage(textureEntry), "png", outputStream);
             return destinationFile;
         } catch (IOException e) {
             throw new RuntimeException("Failed to write to " + destinationFile + "!", e);
@@ -192,14 +176,12 @@ public class EngineTexturesFile implements Iterable<String> {
     }
 
     /**
-     * Extract a single file
+     * Decodes a single texture. Can be called from multiple threads.
      *
-     * @param textureEntry the texture to extract
-     * @param rawTextures the opened EngineTextures file
-     * @return the file data
+     * @param textureEntry the texture to decode
+     * @return the texture image
      */
-    private ByteArrayOutputStream getFileData(String textureEntry, IResourceReader rawTextures) {
-        ByteArrayOutputStream result = null;
+    public BufferedImage getImage(String textureEntry) {
 
         //Get the file
         EngineTextureEntry engineTextureEntry = engineTextureEntries.get(textureEntry);
@@ -207,36 +189,95 @@ public class EngineTexturesFile implements Iterable<String> {
             throw new RuntimeException("File " + textureEntry + " not found from the texture archive!");
         }
 
-        try {
+        //We should decompress the texture
+        if (DECOMPRESSION_ENABLED) {
 
-            //We should decompress the texture
-            BufferedImage image;
-            if (DECOMPRESSION_ENABLED) {
+            // Use the monstrous decompression routine
+            return decompressTexture(getCompressedData(engineTextureEntry), engineTextureEntry);
+        }
 
-                //Seek to the file we want and read it
-                rawTextures.seek(engineTextureEntry.getDataStartLocation());
-                int count = (engineTextureEntry.getSize()) / 4;
-                long[] buf = new long[count];
-                for (int i = 0; i < count; i++) {
-                    buf[i] = rawTextures.readUnsignedIntegerAsLong();
-                }
+        //Use our chess board texture
+        return generateChessBoard(engineTextureEntry);
+    }
 
-                // Use the monstrous decompression routine
-                image = decompressTexture(buf, engineTextureEntry);
-            } else {
+    /**
+     * Reads the compressed texture data. The archive is opened once and kept
+     * open until this file is closed.
+     *
+     * @param engineTextureEntry the texture entry
+     * @return the compressed data, little endian
+     */
+    private ByteBuffer readData(EngineTextureEntry engineTextureEntry) {
+        try {
+            synchronized (readerLock) {
+                if (rawTextures == null) {
+                    rawTextures = ResourceReaders.open(file);
+                }
 
-                //Use our chess board texture
-                image = generateChessBoard(engineTextureEntry);
+                //Seek to the file we want and read it, copy it since the archive may be closed while we decode
+                rawTextures.seek(engineTextureEntry.getDataStartLocation());
+                ByteBuffer data = ByteBuffer.wrap(rawTextures.read(engineTextureEntry.getSize()));
+                return data.order(ByteOrder.LITTLE_ENDIAN);
             }
-            result = new ByteArrayOutputStream();
-            ImageIO.write(image, "png", result);
         } catch (IOException e) {
 
             //Fug
-            throw new RuntimeException("Faile to read the engine texture file!", e);
+            throw new RuntimeException("Failed to read the engine texture file " + file + "!", e);
+        }
+    }
+
+    /**
+     * Reads the compressed texture data as uint32 items
+     *
+     * @param engineTextureEntry the texture entry
+     * @return the compressed data
+     */
+    private long[] getCompressedData(EngineTextureEntry engineTextureEntry) {
+        IntBuffer data = readData(engineTextureEntry).asIntBuffer();
+        long[] buf = new long[data.remaining()];
+        for (int i = 0; i < buf.length; i++) {
+            buf[i] = data.get(i) & 0xFFFFFFFFL;
+        }
+
+        return buf;
+    }
+
+    /**
+     * Calculates a checksum of the stored texture data, a cheap way to see if
+     * an entry has changed without decompressing it
+     *
+     * @param textureEntry the texture
+     * @return the checksum
+     */
+    public long getChecksum(String textureEntry) {
+        EngineTextureEntry engineTextureEntry = engineTextureEntries.get(textureEntry);
+        if (engineTextureEntry == null) {
+            throw new RuntimeException("File " + textureEntry + " not found from the texture archive!");
         }
 
-        return result;
+        byte[] bytes = readData(engineTextureEntry).array();
+
+        // The dimensions are not part of the data
+        return ConversionManifest.getChecksum(bytes, 0, bytes.length) ^ ((long) engineTextureEntry.getResX() << 48)
+                ^ ((long) engineTextureEntry.getResY() << 40) ^ (engineTextureEntry.isAlphaFlag() ? 1L << 63 : 0);
+    }
+
+    /**
+     * Closes the texture archive if it has been opened. The textures can still
+     * be read after this, the archive is just opened again.
+     */
+    @Override
+    public void close() {
+        synchronized (readerLock) {
+            if (rawTextures != null) {
+                try {
+                    rawTextures.close();
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to close the file " + file + "!", e);
+                }
+                rawTextures = null;
+            }
+        }
     }
 
     /**
@@ -282,24 +323,10 @@ public class EngineTexturesFile implements Iterable<String> {
     private BufferedImage decompressTexture(long[] buf, EngineTextureEntry engineTextureEntry) {
         BufferedImage img = new BufferedImage(engineTextureEntry.getResX(), engineTextureEntry.getResY(), BufferedImage.TYPE_INT_ARGB);
 
-        // Decompress the texture
-        if (decoder == null) {
-            decoder = new EngineTextureDecoder();
-        }
-        byte[] pixels = decoder.dd_texture(buf, engineTextureEntry.getResX() * (32 / 8)/*(bpp / 8 = bytes per pixel)*/, engineTextureEntry.getResX(), engineTextureEntry.getResY(), engineTextureEntry.isAlphaFlag());
-
-        // Draw the image, pixel by pixel
-        for (int x = 0; x < engineTextureEntry.getResX(); x++) {
-            for (int y = 0; y < engineTextureEntry.getResY(); y++) {
-                int base = engineTextureEntry.getResX() * y * 4 + x * 4;
-                int r = ConversionUtils.toUnsignedByte(pixels[base]);
-                int g = ConversionUtils.toUnsignedByte(pixels[base + 1]);
-                int b = ConversionUtils.toUnsignedByte(pixels[base + 2]);
-                int a = ConversionUtils.toUnsignedByte(pixels[base + 3]);
-                int col = (a << 24) | (r << 16) | (g << 8) | b;
-                img.setRGB(x, y, col);
-            }
-        }
+        // Decompress the texture straight to the image
+        int[] pixels = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+        DECODER.get().dd_texture(buf, pixels, engineTextureEntry.getResX(), engineTextureEntry.getResY(), engineTextureEntry.isAlphaFlag());
+
         return img;
     }
 
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.tools.convert.textures.enginetextures;
+
+import com.jme3.asset.AssetInfo;
+import com.jme3.asset.AssetKey;
+import com.jme3.asset.AssetLocator;
+import com.jme3.asset.AssetManager;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import javax.imageio.ImageIO;
+
+/**
+ * Locates the engine textures straight from the original DK II EngineTextures
+ * archive. Register with the DK II folder as the root path, after the locator
+ * of the converted assets so that the files there take precedence.
+ *
+ * @see EngineTextureLoader
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class EngineTexturesLocator implements AssetLocator {
+
+    private EngineTextureCache engineTextureCache;
+
+    /**
+     * Registers the locator and the loader for the engine textures
+     *
+     * @param assetManager the asset manager
+     * @param dungeonKeeperFolder the DK II folder
+     */
+    public static void register(AssetManager assetManager, String dungeonKeeperFolder) {
+        assetManager.registerLocator(dungeonKeeperFolder, EngineTexturesLocator.class);
+        assetManager.registerLoader(EngineTextureLoader.class, "png");
+    }
+
+    @Override
+    public void setRootPath(String rootPath) {
+        engineTextureCache = EngineTextureCache.getInstance(rootPath);
+    }
+
+    @Override
+    public AssetInfo locate(AssetManager manager, AssetKey key) {
+        String entry = engineTextureCache.getEntry(key.getName());
+        if (entry == null) {
+            return null;
+        }
+
+        return new EngineTextureAssetInfo(manager, key, engineTextureCache, entry);
+    }
+
+    /**
+     * Asset info for the engine textures. The loader uses the decoded texture
+     * directly, the stream is offered for anyone wanting to read the texture
+     * as a PNG file.
+     */
+    public static class EngineTextureAssetInfo extends AssetInfo {
+
+        private final EngineTextureCache engineTextureCache;
+        private final String entry;
+
+        public EngineTextureAssetInfo(AssetManager manager, AssetKey key, EngineTextureCache engineTextureCache, String entry) {
+            super(manager, key);
+            this.engineTextureCache = engineTextureCache;
+            this.entry = entry;
+        }
+
+        /**
+         * Get the decoded texture, the image is shared and must not be
+         * modified
+         *
+         * @return the texture image
+         */
+        public BufferedImage getImage() {
+            return engineTextureCache.getImage(entry);
+        }
+
+        @Override
+        public InputStream openStream() {
+            try {
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                ImageIO.write(getImage(), "png", output);
+                return new ByteArrayInputStream(output.toByteArray());
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to encode the texture " + entry + "!", e);
+            }
+        }
+    }
+}
@@ -35,8 +35,19 @@ public class LoadingScreenFile {
     private final BufferedImage image;
 
     public LoadingScreenFile(ByteArrayOutputStream fileData) {
+        this(fileData.toByteArray(), fileData.size());
+    }
+
+    /**
+     * Reads the loading screen from the given data, the data is only used
+     * during the construction
+     *
+     * @param fileData the file data
+     * @param length the length of the data in the array
+     */
+    public LoadingScreenFile(byte[] fileData, int length) {
 
-        ByteBuffer buf = ByteBuffer.wrap(fileData.toByteArray());
+        ByteBuffer buf = ByteBuffer.wrap(fileData, 0, length);
         buf.order(ByteOrder.LITTLE_ENDIAN);
 
         //Read the header
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.tools.convert.wad;
+
+import java.io.IOException;
+
+/**
+ * Receives the WAD entries streamed from the archive. The data array is a
+ * pooled buffer, it is only valid for the duration of the call and may be
+ * larger than the actual entry
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+@FunctionalInterface
+public interface IWadEntryConsumer {
+
+    /**
+     * Handle a single WAD entry
+     *
+     * @param fileName the entry file name
+     * @param data the entry data, valid only during this call
+     * @param length the length of the entry data in the array
+     * @throws IOException may fail
+     */
+    void accept(String fileName, byte[] data, int length) throws IOException;
+}
@@ -17,20 +17,24 @@
 package toniarts.openkeeper.tools.convert.wad;
 
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import toniarts.openkeeper.tools.convert.ConversionManifest;
 import toniarts.openkeeper.tools.convert.ConversionUtils;
 import toniarts.openkeeper.tools.convert.IResourceReader;
-import toniarts.openkeeper.tools.convert.ResourceReader;
+import toniarts.openkeeper.tools.convert.ResourceReaders;
 import toniarts.openkeeper.utils.PathUtils;
 
 /**
@@ -39,16 +43,21 @@ import toniarts.openkeeper.utils.PathUtils;
  * Converted to JAVA from C code, C code by:
  * <li>Tomasz Lis</li>
  * <li>Anonymous</li>
+ * The archive is kept open once read from, and the entries are decompressed
+ * to pooled buffers. Close the WAD when done with it.
  *
  * @author Toni Helenius <helenius.toni@gmail.com>
  */
-public class WadFile {
+public class WadFile implements Closeable {
 
     private final File file;
     private final Map<String, WadFileEntry> wadFileEntries;
+    private final Object readerLock = new Object();
+    private IResourceReader rawWad;
     private static final String WAD_HEADER_IDENTIFIER = "DWFB";
     private static final int WAD_HEADER_VERSION = 2;
 
+    private static final ThreadLocal<WadBuffers> BUFFERS = ThreadLocal.withInitial(WadBuffers::new);
     private static final Logger LOGGER = Logger.getLogger(WadFile.class.getName());
 
     /**
@@ -61,7 +70,7 @@ public class WadFile {
         this.file = file;
 
         // Read the file
-        try (IResourceReader rawWad = new ResourceReader(file)) {
+        try (IResourceReader rawWad = ResourceReaders.open(file)) {
 
             // Check the header
             String header = rawWad.readString(4);
@@ -168,18 +177,9 @@ public class WadFile {
      * @param destination destination directory
      */
     public void extractFileData(String destination) {
-
-        // Open the WAD for extraction
-        try (IResourceReader rawWad = new ResourceReader(file)) {
-
-            for (String fileName : wadFileEntries.keySet()) {
-                extractFileData(fileName, destination, rawWad);
-            }
-        } catch (Exception e) {
-
-            // Fug
-            throw new RuntimeException("Failed to read the WAD file!", e);
-        }
+        forEachEntry(wadFileEntries.keySet(), false, (fileName, data, length) -> {
+            extractFileData(fileName, data, length, destination);
+        });
     }
 
     /**
@@ -187,9 +187,29 @@ public class WadFile {
      *
      * @param fileName file to extract
      * @param destination destination directory
-     * @param rawWad the opened WAD file
+     * @return the file for the extracted contents
      */
-    private File extractFileData(String fileName, String destination, IResourceReader rawWad) {
+    public File extractFileData(String fileName, String destination) {
+        WadBuffers buffers = obtainBuffers();
+        try {
+            int length = readFileData(fileName, buffers);
+            return extractFileData(fileName, buffers.data, length, destination);
+        } finally {
+            releaseBuffers(buffers);
+        }
+    }
+
+    /**
+     * Write the given file data to a given location, meant for writing the
+     * entries streamed with {@link #forEachEntry(java.util.Collection, boolean, toniarts.openkeeper.tools.convert.wad.IWadEntryConsumer)}
+     *
+     * @param fileName the file name of the entry
+     * @param data the file data
+     * @param length the length of the data in the array
+     * @param destination destination directory
+     * @return the file for the extracted contents
+     */
+    public static File extractFileData(String fileName, byte[] data, int length, String destination) {
 
         // See that the destination is formatted correctly and create it if it does not exist
         String dest = PathUtils.fixFilePath(destination);
@@ -205,7 +225,7 @@ public class WadFile {
 
         // Write to the file
         try (OutputStream outputStream = new FileOutputStream(dest)) {
-            getFileData(fileName, rawWad).writeTo(outputStream);
+            outputStream.write(data, 0, length);
             return new File(dest);
         } catch (IOException e) {
             throw new RuntimeException("Failed to write to " + dest + "!", e);
@@ -213,90 +233,190 @@ public class WadFile {
     }
 
     /**
-     * Extract a single file to a given location
+     * Extract a single file
      *
-     * @param fileName file to extract
-     * @param destination destination directory
-     * @return the file for the extracted contents
+     * @param fileName the file to extract
+     * @return the file data
      */
-    public File extractFileData(String fileName, String destination) {
+    public ByteArrayOutputStream getFileData(String fileName) {
+        WadBuffers buffers = obtainBuffers();
+        try {
+            int length = readFileData(fileName, buffers);
+            ByteArrayOutputStream result = new ByteArrayOutputStream(length);
+            result.write(buffers.data, 0, length);
+
+            return result;
+        } finally {
+            releaseBuffers(buffers);
+        }
+    }
+
+    /**
+     * Streams the given entries to the consumer. The entries are read in the
+     * order they are stored in the archive and decompressed to pooled buffers,
+     * so the consumer must not hold on to the data it is given
+     *
+     * @param fileNames the files to read
+     * @param parallel whether to decompress and consume the entries in
+     * parallel
+     * @param consumer the consumer for the file data
+     */
+    public void forEachEntry(Collection<String> fileNames, boolean parallel, IWadEntryConsumer consumer) {
+        List<String> entries = new ArrayList<>(fileNames);
+        entries.sort(Comparator.comparingInt((fileName) -> getEntry(fileName).getOffset()));
+        (parallel ? entries.parallelStream() : entries.stream()).forEach((fileName) -> {
+            WadBuffers buffers = obtainBuffers();
+            try {
+                int length = readFileData(fileName, buffers);
+                consumer.accept(fileName, buffers.data, length);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to handle the WAD entry " + fileName + "!", e);
+            } finally {
+                releaseBuffers(buffers);
+            }
+        });
+    }
 
-        // Open the WAD for extraction
-        try (IResourceReader rawWad = new ResourceReader(file)) {
-            return extractFileData(fileName, destination, rawWad);
+    /**
+     * Calculates a checksum of the stored file data, a cheap way to see if an
+     * entry has changed without decompressing it
+     *
+     * @param fileName the file
+     * @return the checksum
+     */
+    public long getChecksum(String fileName) {
+        WadFileEntry fileEntry = getEntry(fileName);
+        WadBuffers buffers = obtainBuffers();
+        try {
+            buffers.compressed = ensureCapacity(buffers.compressed, fileEntry.getCompressedSize());
+            readRawData(fileEntry, buffers.compressed);
+
+            return ConversionManifest.getChecksum(buffers.compressed, 0, fileEntry.getCompressedSize());
         } catch (Exception e) {
 
             // Fug
             throw new RuntimeException("Failed to read the WAD file!", e);
+        } finally {
+            releaseBuffers(buffers);
         }
     }
 
-    /**
-     * Extract a single file
-     *
-     * @param fileName the file to extract
-     * @param rawWad the opened WAD file
-     * @return the file data
-     */
-    private ByteArrayOutputStream getFileData(String fileName, IResourceReader rawWad) {
-        ByteArrayOutputStream result = null;
+    @Override
+    public void close() throws IOException {
+        synchronized (readerLock) {
+            if (rawWad != null) {
+                rawWad.close();
+                rawWad = null;
+            }
+        }
+    }
 
-        // Get the file
+    private WadFileEntry getEntry(String fileName) {
         WadFileEntry fileEntry = wadFileEntries.get(fileName);
         if (fileEntry == null) {
             throw new RuntimeException("File " + fileName + " not found from the WAD archive!");
         }
 
-        try {
-
-            // Seek to the file we want and read it
-            rawWad.seek(fileEntry.getOffset());
-            byte[] bytes = rawWad.read(fileEntry.getCompressedSize());
+        return fileEntry;
+    }
 
-            result = new ByteArrayOutputStream();
+    /**
+     * Reads and decompresses a single file to the given buffers
+     *
+     * @param fileName the file to read
+     * @param buffers the buffers to use, the file data is left to the data
+     * buffer
+     * @return the length of the file data
+     */
+    private int readFileData(String fileName, WadBuffers buffers) {
+        WadFileEntry fileEntry = getEntry(fileName);
+        try {
+            int compressedSize = fileEntry.getCompressedSize();
+            buffers.compressed = ensureCapacity(buffers.compressed, compressedSize);
+            readRawData(fileEntry, buffers.compressed);
 
             // See if the file is compressed
             if (fileEntry.isCompressed()) {
-                result.write(decompressFileData(bytes, fileName));
-            } else {
-                result.write(bytes);
+                return decompressFileData(buffers.compressed, compressedSize, buffers, fileName);
             }
 
+            // Not compressed, just swap the buffers around
+            byte[] data = buffers.data;
+            buffers.data = buffers.compressed;
+            buffers.compressed = data;
+
+            return compressedSize;
         } catch (Exception e) {
 
             // Fug
             throw new RuntimeException("Failed to read the WAD file!", e);
         }
+    }
 
-        return result;
+    /**
+     * Reads the stored file data from the shared reader. Only the copying is
+     * done under the lock, the decompression is left to the caller
+     *
+     * @param fileEntry the entry to read
+     * @param dest the destination array
+     * @throws IOException may fail
+     */
+    private void readRawData(WadFileEntry fileEntry, byte[] dest) throws IOException {
+        synchronized (readerLock) {
+            if (rawWad == null) {
+                rawWad = ResourceReaders.open(file);
+            }
+
+            // Seek to the file we want and read it
+            rawWad.seek(fileEntry.getOffset());
+            int size = fileEntry.getCompressedSize();
+            int read = 0;
+            while (read < size) {
+                int result = rawWad.read(dest, read, size - read);
+                if (result < 0) {
+                    throw new IOException("Unexpected end of file " + file + "!");
+                }
+                read += result;
+            }
+        }
     }
 
     /**
-     * Extract a single file
+     * Takes the buffers of the current thread. The buffers are taken off from
+     * the pool so that a nested read on the same thread doesn't overwrite the
+     * data in use
      *
-     * @param fileName the file to extract
-     * @return the file data
+     * @return the buffers
      */
-    public ByteArrayOutputStream getFileData(String fileName) {
+    private static WadBuffers obtainBuffers() {
+        WadBuffers buffers = BUFFERS.get();
+        BUFFERS.remove();
 
-        // Open the WAD for extraction
-        try (IResourceReader rawWad = new ResourceReader(file)) {
-            return getFileData(fileName, rawWad);
-        } catch (Exception e) {
+        return buffers;
+    }
 
-            // Fug
-            throw new RuntimeException("Failed to read the WAD file!", e);
+    private static void releaseBuffers(WadBuffers buffers) {
+        BUFFERS.set(buffers);
+    }
+
+    private static byte[] ensureCapacity(byte[] buffer, int size) {
+        if (buffer.length >= size) {
+            return buffer;
         }
+
+        return new byte[Math.max(size, buffer.length + (buffer.length >> 1))];
     }
 
     /**
      * Some file entries in the WAD are compressed (type 4?), this decompresses the file data
      *
-     * @param bytes the compressed bytes
+     * @param src the compressed bytes
+     * @param srcLength the length of the compressed bytes in the array
+     * @param buffers the buffers, the data is decompressed to the data buffer
      * @param fileName just for logging
-     * @return the decompressed bytes
+     * @return the decompressed size
      */
-    private byte[] decompressFileData(byte[] src, String fileName) {
+    private int decompressFileData(byte[] src, int srcLength, WadBuffers buffers, String fileName) {
         int i = 0, j = 0;
         if ((src[i++] & 1) != 0) {
             i += 3;
@@ -305,13 +425,14 @@ public class WadFile {
         // <decompressed size packed into 3 bytes
 
         int decsize = (ConversionUtils.toUnsignedByte(src[i]) << 16) + (ConversionUtils.toUnsignedByte(src[i + 1]) << 8) + ConversionUtils.toUnsignedByte(src[i + 2]);
-        byte[] dest = new byte[decsize];
+        buffers.data = ensureCapacity(buffers.data, decsize);
+        byte[] dest = buffers.data;
         i += 3;
         byte flag; // The flag byte read at the beginning of each main loop iteration
         int counter; // Counter for all loops
         boolean finished = false;
         while (!finished) {
-            if (i >= src.length) {
+            if (i >= srcLength) {
                 break;
             }
             flag = src[i++]; // Get flag byte
@@ -388,6 +509,15 @@ public class WadFile {
         if (!finished) {
             LOGGER.log(Level.WARNING, "File {0} might not be successfully extracted!", fileName);
         }
-        return dest;
+        return decsize;
+    }
+
+    /**
+     * Reusable per thread buffers for the compressed and the decompressed data
+     */
+    private static class WadBuffers {
+
+        private byte[] compressed = new byte[0];
+        private byte[] data = new byte[0];
     }
 }
@@ -66,6 +66,7 @@ import toniarts.openkeeper.gui.CursorFactory;
 import toniarts.openkeeper.tools.convert.AssetsConverter;
 import toniarts.openkeeper.tools.convert.KmfAssetInfo;
 import toniarts.openkeeper.tools.convert.KmfModelLoader;
+import toniarts.openkeeper.tools.convert.ModelCacheLoader;
 import toniarts.openkeeper.tools.convert.kmf.KmfFile;
 import toniarts.openkeeper.tools.convert.map.Creature;
 import toniarts.openkeeper.tools.convert.map.Door;
@@ -77,6 +78,7 @@ import toniarts.openkeeper.tools.convert.map.Room;
 import toniarts.openkeeper.tools.convert.map.Shot;
 import toniarts.openkeeper.tools.convert.map.Terrain;
 import toniarts.openkeeper.tools.convert.map.Trap;
+import toniarts.openkeeper.tools.convert.textures.enginetextures.EngineTexturesLocator;
 import toniarts.openkeeper.utils.AssetUtils;
 import toniarts.openkeeper.utils.PathUtils;
 import toniarts.openkeeper.world.MapLoader;
@@ -194,7 +196,9 @@ public class ModelViewer extends SimpleApplication {
 
         // Distribution locator
         assetManager.registerLocator(AssetsConverter.getAssetsFolder(), FileLocator.class);
+        EngineTexturesLocator.register(assetManager, dkIIFolder);
         assetManager.registerLoader(MP2Loader.class, "mp2");
+        assetManager.registerLoader(ModelCacheLoader.class, ModelCacheLoader.FILE_EXTENSION);
 
         //Effects manager
         this.effectManagerState = new EffectManagerState(getKwdFile(), assetManager);
@@ -16,6 +16,8 @@
  */
 package toniarts.openkeeper.utils;
 
+import com.jme3.animation.AnimControl;
+import com.jme3.animation.Track;
 import com.jme3.asset.AssetInfo;
 import com.jme3.asset.AssetKey;
 import com.jme3.asset.AssetManager;
@@ -25,14 +27,18 @@ import com.jme3.asset.TextureKey;
 import com.jme3.asset.cache.AssetCache;
 import com.jme3.asset.cache.SimpleAssetCache;
 import com.jme3.asset.cache.WeakRefAssetCache;
+import com.jme3.material.MatParam;
 import com.jme3.material.Material;
 import com.jme3.material.RenderState;
 import com.jme3.material.RenderState.BlendMode;
 import com.jme3.math.ColorRGBA;
+import com.jme3.math.Vector2f;
 import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
 import com.jme3.scene.Node;
 import com.jme3.scene.SceneGraphVisitor;
 import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
 import com.jme3.texture.Texture;
 import com.jme3.texture.Texture2D;
 import com.jme3.texture.plugins.AWTLoader;
@@ -45,17 +51,19 @@ import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.imageio.ImageIO;
 import toniarts.openkeeper.Main;
+import toniarts.openkeeper.animation.PoseTrack;
 import toniarts.openkeeper.cinematics.CameraSweepData;
 import toniarts.openkeeper.cinematics.CameraSweepDataLoader;
 import toniarts.openkeeper.tools.convert.AssetsConverter;
 import toniarts.openkeeper.tools.convert.ConversionUtils;
+import toniarts.openkeeper.tools.convert.ModelCacheLoader;
 import toniarts.openkeeper.tools.convert.map.ArtResource;
 import toniarts.openkeeper.tools.convert.map.KwdFile;
 import toniarts.openkeeper.tools.convert.map.Room;
@@ -70,11 +78,14 @@ import toniarts.openkeeper.world.MapLoader;
 public class AssetUtils {
 
     private static volatile boolean preWarmedAssets = false;
+    private static volatile boolean gpuPoseAnimation = false;
     private final static Object ASSET_LOCK = new Object();
     private final static AssetCache ASSET_CACHE = new SimpleAssetCache();
     private final static AssetCache WEAK_ASSET_CACHE = new WeakRefAssetCache();
-    private final static Map<String, Boolean> TEXTURE_MAP_CACHE = new HashMap<>();
+    private final static Map<String, Boolean> TEXTURE_MAP_CACHE = new ConcurrentHashMap<>();
+    private final static Map<String, String> MODEL_KEY_CACHE = new ConcurrentHashMap<>();
     private static final Logger LOGGER = Logger.getLogger(AssetUtils.class.getName());
+    private static final String POSE_MATERIAL = "MatDefs/LightingPose.j3md";
 
     // Custom model data keys
     public final static String USER_DATA_KEY_REMOVABLE = "Removable";
@@ -98,8 +109,7 @@ public class AssetUtils {
     public static Spatial loadModel(final AssetManager assetManager, String modelName,
             final boolean useCache, final boolean useWeakCache) {
 
-        String filename = AssetsConverter.MODELS_FOLDER + File.separator + modelName + ".j3o";
-        ModelKey assetKey = new ModelKey(ConversionUtils.getCanonicalAssetKey(filename));
+        ModelKey assetKey = new ModelKey(getModelAssetKey(modelName));
 
         Spatial result;
         if (useCache) {
@@ -115,6 +125,7 @@ public class AssetUtils {
 
                 // Assign maps
                 assignMapsToMaterial(model, assetManager);
+                setupPoseAnimation(model, assetManager);
 
                 cache.addToCache(assetKey, model);
             }
@@ -122,11 +133,39 @@ public class AssetUtils {
         } else {
             result = assetManager.loadModel(assetKey);
             resetSpatial(result);
+            setupPoseAnimation(result, assetManager);
         }
 
         return result;
     }
 
+    /**
+     * Get the asset key for the model. The binary model cache is preferred if
+     * it is available, it is a lot faster to load than the J3O.
+     *
+     * @param modelName the model name
+     * @return the model asset key
+     */
+    private static String getModelAssetKey(String modelName) {
+        return MODEL_KEY_CACHE.computeIfAbsent(modelName, AssetUtils::findModelAssetKey);
+    }
+
+    private static String findModelAssetKey(String modelName) {
+        String filename = AssetsConverter.MODELS_FOLDER + File.separator + modelName + ".";
+        if (ModelCacheLoader.isEnabled()) {
+            try {
+                String assetsFolder = AssetsConverter.getAssetsFolder();
+                String cacheFile = ConversionUtils.getRealFileName(assetsFolder, filename + ModelCacheLoader.FILE_EXTENSION);
+                return cacheFile.substring(assetsFolder.length()).replace(File.separatorChar, '/');
+            } catch (IOException e) {
+
+                // No cache for this one, use the J3O
+            }
+        }
+
+        return ConversionUtils.getCanonicalAssetKey(filename + ModelCacheLoader.MODEL_EXTENSION);
+    }
+
     /**
      * Only for ModelViewer
      *
@@ -183,6 +222,96 @@ public class AssetUtils {
         });
     }
 
+    /**
+     * Set whether the pose animations are morphed in the vertex shader. Needs
+     * float textures and texture fetches in the vertex shader. Affects the
+     * models loaded after this.
+     *
+     * @param enabled use the GPU for the pose animations
+     */
+    public static void setGpuPoseAnimation(boolean enabled) {
+        gpuPoseAnimation = enabled;
+    }
+
+    public static boolean isGpuPoseAnimation() {
+        return gpuPoseAnimation;
+    }
+
+    private static void setupPoseAnimation(Spatial model, AssetManager assetManager) {
+        if (!gpuPoseAnimation) {
+            return;
+        }
+        model.depthFirstTraversal(new SceneGraphVisitor() {
+            @Override
+            public void visit(Spatial spatial) {
+                AnimControl animControl = spatial.getControl(AnimControl.class);
+                if (animControl == null) {
+                    return;
+                }
+                for (String animName : animControl.getAnimationNames()) {
+                    for (Track track : animControl.getAnim(animName).getTracks()) {
+                        if (track instanceof PoseTrack) {
+                            setupPoseAnimation((PoseTrack) track, ((PoseTrack) track).findGeom(spatial), assetManager);
+                        }
+                    }
+                }
+            }
+
+        });
+    }
+
+    /**
+     * Moves the pose animation of the geometry to the vertex shader. The
+     * material is changed to the pose material with the baked positions as a
+     * texture, and the mesh gets the vertex indices for reading it. The bind
+     * pose is kept, so the animation falls back to the CPU if the material is
+     * later replaced.
+     *
+     * @param track the pose track
+     * @param geometry the animated geometry
+     * @param assetManager the asset manager
+     */
+    private static void setupPoseAnimation(PoseTrack track, Geometry geometry, AssetManager assetManager) {
+        if (geometry == null || geometry.getMaterial().getParam(PoseTrack.POSE_MAP) != null) {
+            return;
+        }
+        Mesh mesh = geometry.getMesh();
+        if (mesh.getVertexCount() != track.getVertexCount() || mesh.getBuffer(VertexBuffer.Type.TexCoord8) != null) {
+            LOGGER.log(Level.WARNING, "Pose animation of {0} stays on the CPU, the mesh does not match!", geometry);
+            return;
+        }
+
+        // Copy the material over to the pose material
+        Material source = geometry.getMaterial();
+        Material material = new Material(assetManager, POSE_MATERIAL);
+        for (MatParam param : source.getParams()) {
+            if (material.getMaterialDef().getMaterialParam(param.getName()) != null) {
+                material.setParam(param.getName(), param.getVarType(), param.getValue());
+            }
+        }
+        material.getAdditionalRenderState().set(source.getAdditionalRenderState());
+        material.setTransparent(source.isTransparent());
+        material.setReceivesShadows(source.isReceivesShadows());
+        material.setName(source.getName());
+        material.setKey(source.getKey());
+
+        // The baked positions
+        Texture2D poseMap = track.createPoseMap();
+        material.setTexture(PoseTrack.POSE_MAP, poseMap);
+        material.setVector2("PoseMapSize", new Vector2f(poseMap.getImage().getWidth(), poseMap.getImage().getHeight()));
+        material.setInt("PoseVertexCount", track.getVertexCount());
+        material.setInt("PoseFrameCount", track.getTimes().length);
+        material.setFloat(PoseTrack.POSE_FRAME, 0);
+        geometry.setMaterial(material);
+
+        // Vertex indices, there is no vertex ID in GLSL 1.0
+        float[] indices = new float[track.getVertexCount()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+        mesh.setBuffer(VertexBuffer.Type.TexCoord8, 1, indices);
+    }
+
     /**
      * Assign different kind of maps (Specular, Norma, etc.) to material, if
      * found
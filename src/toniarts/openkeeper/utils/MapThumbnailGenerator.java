@@ -28,6 +28,7 @@ import java.awt.image.PixelInterleavedSampleModel;
 import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
 import java.io.File;
+import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.imageio.ImageIO;
@@ -36,6 +37,7 @@ import toniarts.openkeeper.tools.convert.ConversionUtils;
 import toniarts.openkeeper.tools.convert.map.KwdFile;
 import toniarts.openkeeper.tools.convert.map.Terrain;
 import toniarts.openkeeper.tools.convert.map.Tile;
+import toniarts.openkeeper.tools.convert.textures.enginetextures.EngineTextureCache;
 
 /**
  * This class creates thumbnails from KWD map files. Static helper class. The
@@ -149,7 +151,7 @@ public class MapThumbnailGenerator {
         try {
 
             // Read the DK II palette image
-            BufferedImage paletteImage = ImageIO.read(new File(ConversionUtils.getRealFileName(AssetsConverter.getAssetsFolder(), PALETTE_IMAGE)));
+            BufferedImage paletteImage = readPaletteImage();
 
             // The palette image is generally an image where 1 column represents one color, column width is 1px
             // We know that is is 64x16, but just play along with "dynamic" (we'll fail if it is over 256)
@@ -173,6 +175,28 @@ public class MapThumbnailGenerator {
         }
     }
 
+    private static BufferedImage readPaletteImage() throws IOException {
+
+        // A custom palette on the disk has precedence over the original one
+        File paletteFile;
+        try {
+            paletteFile = new File(ConversionUtils.getRealFileName(AssetsConverter.getAssetsFolder(), PALETTE_IMAGE));
+        } catch (IOException e) {
+            paletteFile = null;
+        }
+        if (paletteFile != null) {
+            return ImageIO.read(paletteFile);
+        }
+
+        // Decode it from the original archive
+        BufferedImage paletteImage = EngineTextureCache.getInstance(PathUtils.getDKIIFolder()).findImage(PALETTE_IMAGE);
+        if (paletteImage == null) {
+            throw new IOException("Palette image " + PALETTE_IMAGE + " not found!");
+        }
+
+        return paletteImage;
+    }
+
     private static void drawMap(final KwdFile kwd, byte[] data, int xScale, int yScale) {
 
         // For now this is very much hard coded, I couldn't find much logic
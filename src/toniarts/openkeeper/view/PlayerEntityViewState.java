@@ -31,6 +31,8 @@ import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import toniarts.openkeeper.Main;
+import toniarts.openkeeper.animation.AnimationLodControl;
+import toniarts.openkeeper.animation.PoseTrack;
 import toniarts.openkeeper.game.component.CreatureViewState;
 import toniarts.openkeeper.game.component.DoorViewState;
 import toniarts.openkeeper.game.component.ObjectViewState;
@@ -55,6 +57,7 @@ import toniarts.openkeeper.view.loader.DoorLoader;
 import toniarts.openkeeper.view.loader.ILoader;
 import toniarts.openkeeper.view.loader.ObjectLoader;
 import toniarts.openkeeper.view.loader.TrapLoader;
+import toniarts.openkeeper.view.map.InstancedModelNode;
 import toniarts.openkeeper.view.text.TextParser;
 
 /**
@@ -89,6 +92,7 @@ public class PlayerEntityViewState extends AbstractAppState {
 
     private final Map<EntityId, IUnitFlowerControl> flowerControls = new HashMap<>();
     private final Map<EntityId, IEntityViewControl> entityViewControls = new HashMap<>();
+    private int animatedVertexCount;
 
     private static final Logger LOGGER = Logger.getLogger(PlayerEntityViewState.class.getName());
 
@@ -108,7 +112,7 @@ public class PlayerEntityViewState extends AbstractAppState {
         // Create the scene graph
         root = new Node("Things");
         nodeCreatures = new Node("Creatures");
-        nodeObjects = new Node("Objects");
+        nodeObjects = new InstancedModelNode("Objects"); // Gold piles and such, lots of the same
         nodeDoors = new Node("Doors");
         nodeTraps = new Node("Traps");
         root.attachChild(nodeCreatures);
@@ -142,6 +146,9 @@ public class PlayerEntityViewState extends AbstractAppState {
     @Override
     public void update(float tpf) {
 
+        // The animation cost of the previous frame
+        animatedVertexCount = PoseTrack.pollAnimatedVertexCount();
+
         // Update the models
         objectModelContainer.update();
         creatureModelContainer.update();
@@ -178,6 +185,16 @@ public class PlayerEntityViewState extends AbstractAppState {
         return root;
     }
 
+    /**
+     * Get the number of vertices the pose animations moved on the previous
+     * frame
+     *
+     * @return the animated vertex count
+     */
+    public int getAnimatedVertexCount() {
+        return animatedVertexCount;
+    }
+
     private Spatial createObjectModel(Entity e) {
 
         // We can only draw the few basic types, maybe we can do it like this
@@ -228,6 +245,9 @@ public class PlayerEntityViewState extends AbstractAppState {
                 CreatureFlowerControl flowerControl = new CreatureFlowerControl(e.getId(), entityData, creature, assetManager);
                 result.addControl(flowerControl);
 
+                // Throttle the animations of creatures far away or out of sight
+                result.addControl(new AnimationLodControl());
+
                 entityViewControls.put(e.getId(), control);
                 flowerControls.put(e.getId(), flowerControl);
             }
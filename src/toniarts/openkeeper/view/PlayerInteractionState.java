@@ -47,11 +47,15 @@ import toniarts.openkeeper.game.console.ConsoleState;
 import toniarts.openkeeper.game.data.Settings;
 import toniarts.openkeeper.game.map.IMapInformation;
 import toniarts.openkeeper.game.map.MapTile;
+import toniarts.openkeeper.game.sound.GlobalCategory;
+import toniarts.openkeeper.game.sound.GlobalType;
+import toniarts.openkeeper.game.sound.SoundMixer;
 import toniarts.openkeeper.game.state.AbstractPauseAwareState;
 import toniarts.openkeeper.game.state.CheatState;
 import toniarts.openkeeper.game.state.GameClientState;
 import toniarts.openkeeper.game.state.PlayerScreenController;
 import toniarts.openkeeper.game.state.PlayerState;
+import toniarts.openkeeper.game.state.SoundState;
 import toniarts.openkeeper.gui.CursorFactory;
 import toniarts.openkeeper.tools.convert.map.KwdFile;
 import toniarts.openkeeper.tools.convert.map.Player;
@@ -486,6 +490,11 @@ public abstract class PlayerInteractionState extends AbstractPauseAwareState {
         return gameClientState.getMapClientService().getMapData().getTile(p) != null;
     }
 
+    private void playSoundAtTile(Point p, GlobalType type) {
+        stateManager.getState(SoundState.class).playSound(GlobalCategory.HAND, type.getId(),
+                WorldUtils.pointToVector3f(p), SoundMixer.Priority.HIGH);
+    }
+
     protected void updateCursor() {
         keeperHandState.setVisible(false);
         if (Main.getUserSettings().getBoolean(Settings.Setting.USE_CURSORS)) {
@@ -582,7 +591,7 @@ public abstract class PlayerInteractionState extends AbstractPauseAwareState {
                                 updateCursor();
                                 // The tagging sound is positional and played against the cursor change, not the action itself
                                 Point pos = selectionHandler.getPointedTileIndex();
-//                                getWorldHandler().playSoundAtTile(pos, GlobalCategory.HAND, GlobalType.HAND_TAG);
+                                playSoundAtTile(pos, GlobalType.HAND_TAG);
                             }
                         }
 
@@ -626,7 +635,7 @@ public abstract class PlayerInteractionState extends AbstractPauseAwareState {
 //                                updateCursor();
 //                            }
                         } else if (interactiveControl != null && interactiveControl.isInteractable(player.getPlayerId())) {
-//                            getWorldHandler().playSoundAtTile(p, GlobalCategory.HAND, GlobalType.HAND_SLAP);
+                            playSoundAtTile(p, GlobalType.HAND_SLAP);
                             gameClientState.getGameClientService().interact(interactiveControl.getEntityId());
                             interactiveControl.interact(player.getPlayerId());
                         } else if (Main.isDebug()) {
@@ -24,6 +24,8 @@ import com.jme3.scene.Node;
 import java.awt.Point;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Logger;
 import toniarts.openkeeper.Main;
 import toniarts.openkeeper.game.listener.MapListener;
@@ -65,6 +67,7 @@ public abstract class PlayerMapViewState extends AbstractAppState implements Map
     private final IMapInformation mapClientService;
 //    private final GameState gameState;
     private final FlashTileViewState flashTileControl;
+    private ExecutorService tileBuilder;
 
     private static final Logger LOGGER = Logger.getLogger(PlayerMapViewState.class.getName());
 
@@ -110,6 +113,13 @@ public abstract class PlayerMapViewState extends AbstractAppState implements Map
         // Tile flash state
         this.stateManager.attach(flashTileControl);
 
+        // The tiles are constructed in the background
+        tileBuilder = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), (Runnable r) -> {
+            Thread thread = new Thread(r, "MapTileBuilder");
+            thread.setDaemon(true);
+            return thread;
+        });
+
         // Attach the world
         this.app.getRootNode().attachChild(worldNode);
     }
@@ -126,6 +136,9 @@ public abstract class PlayerMapViewState extends AbstractAppState implements Map
         // Tile flash state
         this.stateManager.detach(flashTileControl);
 
+        // Tile construction
+        tileBuilder.shutdownNow();
+
         // Effects
         this.stateManager.detach(effectManager);
 
@@ -185,9 +198,9 @@ public abstract class PlayerMapViewState extends AbstractAppState implements Map
             points[i] = new Point(mapTile.getX(), mapTile.getY());
         }
 
-        // FIXME: See in what thread we are, perhaps even do everything ready, just the attaching in render thread
+        // The tiles are constructed in the background, only the rooms and the swapping of the tiles is done in the render thread
         app.enqueue(() -> {
-            mapLoader.updateTiles(points);
+            updateTiles(points);
         });
     }
 
@@ -199,12 +212,20 @@ public abstract class PlayerMapViewState extends AbstractAppState implements Map
             updatableTiles[i] = tiles.get(i).getLocation();
         }
 
-        // FIXME: See in what thread we are, perhaps even do everything ready, just the attaching in render thread
+        // The tiles are constructed in the background, only the rooms and the swapping of the tiles is done in the render thread
         app.enqueue(() -> {
-            mapLoader.updateTiles(updatableTiles);
+            updateTiles(updatableTiles);
         });
     }
 
+    private void updateTiles(Point[] points) {
+        if (tileBuilder == null || tileBuilder.isShutdown()) {
+            mapLoader.updateTiles(points);
+            return;
+        }
+        mapLoader.updateTiles(points, tileBuilder, (Runnable r) -> app.enqueue(r));
+    }
+
     @Override
     public void onSold(short keeperId, List<MapTile> tiles) {
 
@@ -20,8 +20,6 @@ import com.jme3.asset.AssetManager;
 import com.simsilica.es.EntityComponent;
 import com.simsilica.es.EntityData;
 import com.simsilica.es.EntityId;
-import java.awt.Color;
-import java.awt.Graphics2D;
 import java.util.Collection;
 import toniarts.openkeeper.game.component.CreatureAi;
 import toniarts.openkeeper.game.component.CreatureComponent;
@@ -208,19 +206,14 @@ public class CreatureFlowerControl extends UnitFlowerControl<Creature> {
     }
 
     @Override
-    protected void onTextureGenerated(Graphics2D g) {
+    protected float getProgress() {
         CreatureExperience creatureExperience = getEntity().get(CreatureExperience.class);
-        if (creatureExperience == null) {
-            return;
+        if (creatureExperience == null || creatureExperience.experienceToNextLevel <= 0) {
+            return -1;
         }
 
-        // Calculate the angle
-        int angle = (int) ((float) creatureExperience.experience / creatureExperience.experienceToNextLevel * 360);
-
-        // Draw the experience indicator
-        g.setPaint(new Color(0, 0, 0, 100));
-        g.fillArc(
-                22, 22, 20, 20, 90, 360 - angle);
+        // The experience indicator
+        return Math.min((float) creatureExperience.experience / creatureExperience.experienceToNextLevel, 1f);
     }
 
     @Override
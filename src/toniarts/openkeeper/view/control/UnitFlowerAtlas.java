@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.view.control;
+
+import com.jme3.asset.AssetInfo;
+import com.jme3.asset.AssetKey;
+import com.jme3.asset.AssetManager;
+import com.jme3.material.Material;
+import com.jme3.material.RenderState.BlendMode;
+import com.jme3.material.RenderState.FaceCullMode;
+import com.jme3.texture.Image;
+import com.jme3.texture.Texture;
+import com.jme3.texture.Texture2D;
+import com.jme3.texture.image.ColorSpace;
+import com.jme3.util.BufferUtils;
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.imageio.ImageIO;
+import toniarts.openkeeper.tools.convert.textures.enginetextures.EngineTexturesLocator.EngineTextureAssetInfo;
+
+/**
+ * A texture atlas of all the unit flower parts. The parts are added to the
+ * atlas as they are first needed, each in their own cell. The flowers share a
+ * single material that composes the flower from the atlas cells in the shader,
+ * so the flowers never need to generate textures of their own.<br>
+ * Only to be used from the render thread.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+final class UnitFlowerAtlas {
+
+    /**
+     * The size of a single flower part, the parts are centered to their cells
+     */
+    public static final int CELL_SIZE = 64;
+    private static final int COLUMNS = 16;
+    private static final int ATLAS_SIZE = CELL_SIZE * COLUMNS;
+
+    private static final Logger LOGGER = Logger.getLogger(UnitFlowerAtlas.class.getName());
+    private static UnitFlowerAtlas instance;
+
+    private final AssetManager assetManager;
+    private final Map<String, Integer> cells = new HashMap<>();
+    private final ByteBuffer data;
+    private final Image image;
+    private final Material material;
+    private int cellCount = 0;
+
+    private UnitFlowerAtlas(AssetManager assetManager) {
+        this.assetManager = assetManager;
+
+        data = BufferUtils.createByteBuffer(ATLAS_SIZE * ATLAS_SIZE * 4);
+        image = new Image(Image.Format.RGBA8, ATLAS_SIZE, ATLAS_SIZE, data, ColorSpace.sRGB);
+        Texture2D texture = new Texture2D(image);
+        texture.setMinFilter(Texture.MinFilter.BilinearNoMipMaps);
+        texture.setMagFilter(Texture.MagFilter.Bilinear);
+
+        material = new Material(assetManager, "MatDefs/UnitFlower.j3md");
+        material.setTexture("Atlas", texture);
+        material.setFloat("Columns", COLUMNS);
+        material.getAdditionalRenderState().setFaceCullMode(FaceCullMode.Off);
+        material.getAdditionalRenderState().setBlendMode(BlendMode.Alpha);
+        material.getAdditionalRenderState().setDepthTest(false);
+    }
+
+    /**
+     * Get the flower atlas
+     *
+     * @param assetManager the asset manager to load the flower parts with
+     * @return the atlas
+     */
+    public static UnitFlowerAtlas getInstance(AssetManager assetManager) {
+        if (instance == null || instance.assetManager != assetManager) {
+            instance = new UnitFlowerAtlas(assetManager);
+        }
+        return instance;
+    }
+
+    /**
+     * Get the shared flower material
+     *
+     * @return the material
+     */
+    public Material getMaterial() {
+        return material;
+    }
+
+    /**
+     * Get the atlas cell of the given image, the image is added to the atlas
+     * if it is not there yet
+     *
+     * @param icon the image resource path, can be {@code null}
+     * @return the atlas cell index, or -1 if there is no image
+     */
+    public int getCell(String icon) {
+        if (icon == null) {
+            return -1;
+        }
+
+        Integer cell = cells.get(icon);
+        if (cell == null) {
+            cell = addImage(icon);
+            cells.put(icon, cell);
+        }
+        return cell;
+    }
+
+    private int addImage(String icon) {
+        if (cellCount == COLUMNS * COLUMNS) {
+            LOGGER.log(Level.WARNING, "Unit flower atlas is full, can''t add {0}!", icon);
+            return -1;
+        }
+
+        BufferedImage img;
+        try {
+            img = readImage(icon);
+        } catch (Exception ex) {
+            LOGGER.log(Level.SEVERE, "Can't load the texture " + icon + "!", ex);
+            return -1;
+        }
+
+        // Draw the image centered to the cell, the image rows go from top to bottom
+        int cell = cellCount++;
+        int cellX = (cell % COLUMNS) * CELL_SIZE;
+        int cellY = (cell / COLUMNS) * CELL_SIZE;
+        int offsetX = (CELL_SIZE - img.getWidth()) / 2;
+        int offsetY = (CELL_SIZE - img.getHeight()) / 2;
+        for (int y = Math.max(0, -offsetY); y < Math.min(img.getHeight(), CELL_SIZE - offsetY); y++) {
+            int position = ((cellY + offsetY + y) * ATLAS_SIZE + cellX + offsetX) * 4;
+            for (int x = Math.max(0, -offsetX); x < Math.min(img.getWidth(), CELL_SIZE - offsetX); x++) {
+                int argb = img.getRGB(x, y);
+                data.put(position + x * 4, (byte) (argb >> 16));
+                data.put(position + x * 4 + 1, (byte) (argb >> 8));
+                data.put(position + x * 4 + 2, (byte) argb);
+                data.put(position + x * 4 + 3, (byte) (argb >> 24));
+            }
+        }
+        image.setUpdateNeeded();
+
+        return cell;
+    }
+
+    private BufferedImage readImage(String icon) throws Exception {
+        AssetInfo assetInfo = assetManager.locateAsset(new AssetKey(icon));
+        if (assetInfo == null) {
+            throw new IllegalArgumentException("Asset " + icon + " not found!");
+        }
+
+        // The engine textures we can have straight
+        if (assetInfo instanceof EngineTextureAssetInfo) {
+            return ((EngineTextureAssetInfo) assetInfo).getImage();
+        }
+        try (InputStream in = assetInfo.openStream()) {
+            return ImageIO.read(in);
+        }
+    }
+}
@@ -16,12 +16,7 @@
  */
 package toniarts.openkeeper.view.control;
 
-import com.jme3.asset.AssetKey;
 import com.jme3.asset.AssetManager;
-import com.jme3.material.Material;
-import com.jme3.material.RenderState.BlendMode;
-import com.jme3.material.RenderState.FaceCullMode;
-import com.jme3.math.ColorRGBA;
 import com.jme3.renderer.queue.RenderQueue.Bucket;
 import com.jme3.scene.Geometry;
 import com.jme3.scene.Mesh;
@@ -30,25 +25,19 @@ import com.jme3.scene.Spatial;
 import com.jme3.scene.VertexBuffer;
 import com.jme3.scene.control.AbstractControl;
 import com.jme3.scene.control.BillboardControl;
-import com.jme3.texture.Texture;
-import com.jme3.texture.Texture2D;
-import com.jme3.texture.plugins.AWTLoader;
+import com.jme3.util.BufferUtils;
 import com.simsilica.es.Entity;
 import com.simsilica.es.EntityComponent;
 import com.simsilica.es.EntityData;
 import com.simsilica.es.EntityId;
 import com.simsilica.es.WatchedEntity;
 import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.image.BufferedImage;
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-import javax.imageio.ImageIO;
 import toniarts.openkeeper.game.component.Health;
 import toniarts.openkeeper.game.component.Owner;
 import toniarts.openkeeper.utils.AssetUtils;
@@ -64,7 +53,6 @@ import toniarts.openkeeper.utils.MapThumbnailGenerator;
 public abstract class UnitFlowerControl<T> extends BillboardControl implements IUnitFlowerControl<T> {
 
     private static final float DISPLAY_SECONDS = 2.5f;
-    private static final Logger LOGGER = Logger.getLogger(UnitFlowerControl.class.getName());
     private static final Collection<Class<? extends EntityComponent>> WATCHED_COMPONENTS = Arrays.asList(Health.class, Owner.class);
 
     private float targetTimeVisible = DISPLAY_SECONDS;
@@ -72,7 +60,8 @@ public abstract class UnitFlowerControl<T> extends BillboardControl implements I
     private int currentHealthIndex = 0;
     private Node unitSpatial;
     private boolean updateRequired = false;
-    private Material material;
+    private Mesh mesh;
+    private final float[] flowerCells = {-1, -1, -1, -1};
     private final EntityId entityId;
     private final WatchedEntity entity;
     private final AssetManager assetManager;
@@ -199,13 +188,13 @@ public abstract class UnitFlowerControl<T> extends BillboardControl implements I
     }
 
     /**
-     * The flower texture has been generated, but the graphics are still open
-     * for modifying
+     * Get the progress indicator drawn over the center icon, the uncovered
+     * part of the circle
      *
-     * @param g the graphics for modifying
+     * @return the progress from 0 to 1, or negative for no indicator
      */
-    protected void onTextureGenerated(Graphics2D g) {
-
+    protected float getProgress() {
+        return -1;
     }
 
     @Override
@@ -222,7 +211,7 @@ public abstract class UnitFlowerControl<T> extends BillboardControl implements I
      * On update loop, only when we are showing
      *
      * @param tpf the time since last update
-     * @return true if a redraw of the icon is needed
+     * @return true if an update of the icon is needed
      */
     protected boolean onUpdate(float tpf) {
         return false;
@@ -305,7 +294,7 @@ public abstract class UnitFlowerControl<T> extends BillboardControl implements I
 
         // See if we need to update
         if (onUpdate(tpf) || updateRequired) {
-            generateTexture();
+            updateFlower();
         }
     }
 
@@ -313,18 +302,15 @@ public abstract class UnitFlowerControl<T> extends BillboardControl implements I
         if (spatial == null) {
             updateRequired = false;
 
-            Mesh mesh = createMesh(0.5f, 0.5f);
+            // All the flowers share the same material, the flower is composed in the shader
+            mesh = createMesh(0.5f, 0.5f);
             spatial = new Geometry("Health indicator", mesh);
-            material = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
             setFlowerColor(getPlayerColor());
-            spatial.setMaterial(material);
-            material.getAdditionalRenderState().setFaceCullMode(FaceCullMode.Off);
-            material.getAdditionalRenderState().setBlendMode(BlendMode.Alpha);
-            material.getAdditionalRenderState().setDepthTest(false);
+            spatial.setMaterial(UnitFlowerAtlas.getInstance(assetManager).getMaterial());
             spatial.setQueueBucket(Bucket.Translucent);
             spatial.setUserData(AssetUtils.USER_DATA_KEY_REMOVABLE, false);
 
-            generateTexture();
+            updateFlower();
         }
         return spatial;
     }
@@ -338,8 +324,15 @@ public abstract class UnitFlowerControl<T> extends BillboardControl implements I
     }
 
     protected final void setFlowerColor(Color c) {
-        if (material != null) {
-            material.setColor("Color", new ColorRGBA(c.getRed() / 255f, c.getGreen() / 255f, c.getBlue() / 255f, c.getAlpha() / 255f));
+        if (mesh != null) {
+            VertexBuffer vb = mesh.getBuffer(VertexBuffer.Type.Color);
+            FloatBuffer colors = (FloatBuffer) vb.getData();
+            colors.clear();
+            for (int i = 0; i < 4; i++) {
+                colors.put(c.getRed() / 255f).put(c.getGreen() / 255f).put(c.getBlue() / 255f).put(c.getAlpha() / 255f);
+            }
+            colors.flip();
+            vb.updateData(colors);
         }
     }
 
@@ -363,43 +356,36 @@ public abstract class UnitFlowerControl<T> extends BillboardControl implements I
         }
     }
 
-    private void generateTexture() {
-        if (material != null) {
-
-            // The base image
-            BufferedImage flower = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
-            Graphics2D g = flower.createGraphics();
-
-            // Health ring
-            drawImage(assetManager, g, flower.getWidth(), flower.getHeight(), "Textures/GUI/moods/H-0" + currentHealthIndex + ".png");
-
-            // The rest
-            drawImage(assetManager, g, flower.getWidth(), flower.getHeight(), getCenterIcon());
-            drawImage(assetManager, g, flower.getWidth(), flower.getHeight(), getObjectiveIcon());
-
-            onTextureGenerated(g);
-
-            // Dispose
-            g.dispose();
-
-            // Convert the new image to a texture
-            AWTLoader loader = new AWTLoader();
-            Texture tex = new Texture2D(loader.load(flower, false));
-
-            material.setTexture("ColorMap", tex);
-        }
-    }
-
-    private static void drawImage(AssetManager assetManager, Graphics2D g, int width, int height, String image) {
+    /**
+     * Updates the flower parts, just the atlas cells per vertex. The parts are
+     * added to the atlas on the first use
+     */
+    private void updateFlower() {
+        if (mesh != null) {
+            updateRequired = false;
 
-        if (image != null) {
-            try {
-                // TODO: cache the images
-                BufferedImage img = ImageIO.read(assetManager.locateAsset(new AssetKey(image)).openStream());
-                g.drawImage(img, (width - img.getWidth()) / 2, (height - img.getHeight()) / 2, null);
-            } catch (Exception ex) {
-                LOGGER.log(Level.SEVERE, "Can't load the texture " + image + "!", ex);
+            UnitFlowerAtlas atlas = UnitFlowerAtlas.getInstance(assetManager);
+            float healthCell = atlas.getCell("Textures/GUI/moods/H-0" + currentHealthIndex + ".png");
+            float centerCell = atlas.getCell(getCenterIcon());
+            float objectiveCell = atlas.getCell(getObjectiveIcon());
+            float progress = getProgress();
+            if (flowerCells[0] == healthCell && flowerCells[1] == centerCell
+                    && flowerCells[2] == objectiveCell && flowerCells[3] == progress) {
+                return;
+            }
+            flowerCells[0] = healthCell;
+            flowerCells[1] = centerCell;
+            flowerCells[2] = objectiveCell;
+            flowerCells[3] = progress;
+
+            VertexBuffer vb = mesh.getBuffer(VertexBuffer.Type.TexCoord2);
+            FloatBuffer cells = (FloatBuffer) vb.getData();
+            cells.clear();
+            for (int i = 0; i < 4; i++) {
+                cells.put(flowerCells);
             }
+            cells.flip();
+            vb.updateData(cells);
         }
     }
 
@@ -430,8 +416,16 @@ public abstract class UnitFlowerControl<T> extends BillboardControl implements I
         mesh.setBuffer(VertexBuffer.Type.Index, 3, new short[]{0, 1, 2,
             0, 2, 3});
 
+        // The flower parts and the player color
+        mesh.setBuffer(VertexBuffer.Type.TexCoord2, 4, BufferUtils.createFloatBuffer(4 * 4));
+        mesh.setBuffer(VertexBuffer.Type.Color, 4, BufferUtils.createFloatBuffer(4 * 4));
+
         mesh.updateBound();
         mesh.setStatic();
+
+        // These change as the unit changes
+        mesh.getBuffer(VertexBuffer.Type.TexCoord2).setUsage(VertexBuffer.Usage.Dynamic);
+        mesh.getBuffer(VertexBuffer.Type.Color).setUsage(VertexBuffer.Usage.Dynamic);
         return mesh;
     }
 
@@ -0,0 +1,289 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.view.map;
+
+import com.jme3.animation.AnimControl;
+import com.jme3.animation.SkeletonControl;
+import com.jme3.material.Material;
+import com.jme3.renderer.Caps;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.control.AbstractControl;
+import com.jme3.scene.instancing.InstancedGeometry;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Draws the identical static models under this node with hardware instancing.
+ * Geometries sharing the same mesh and an equal material are drawn with a
+ * single instanced geometry, using the world transforms of the original
+ * geometries. So the models can be moved, hidden, attached and detached
+ * freely, the instances are kept in sync every frame. The original geometries
+ * are hidden while they are drawn as instances.<br>
+ * Only opaque geometries with a material supporting instancing are instanced.
+ * Animated models are left alone, as are geometries with controls and
+ * geometries that have batching disabled. Tinted models need their own
+ * material, they are instanced separately. Lights attached below this node
+ * don't affect the instances.<br>
+ * If the hardware doesn't support instancing, this is just a normal node.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class InstancedModelNode extends Node {
+
+    private static final String USE_INSTANCING = "UseInstancing";
+
+    private final Map<Geometry, Instance> instances = new IdentityHashMap<>();
+    private final Map<Mesh, List<InstanceGroup>> groups = new IdentityHashMap<>();
+    private boolean enabled = true;
+    private Boolean supported;
+    private int frame;
+
+    public InstancedModelNode(String name) {
+        super(name);
+        addControl(new InstancingControl());
+    }
+
+    /**
+     * Enable or disable the instancing, when disabled the models are drawn
+     * normally
+     *
+     * @param enabled instancing enabled
+     */
+    public void setInstancing(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            clearInstances();
+        }
+    }
+
+    public boolean isInstancing() {
+        return enabled && Boolean.TRUE.equals(supported);
+    }
+
+    /**
+     * Get the number of geometries currently drawn as instances
+     *
+     * @return the instance count
+     */
+    public int getInstanceCount() {
+        return instances.size();
+    }
+
+    @Override
+    public void updateLogicalState(float tpf) {
+        super.updateLogicalState(tpf);
+
+        // The models may have changed during the update, sync the instances after it
+        if (isInstancing()) {
+            updateInstances();
+        } else if (!instances.isEmpty()) {
+            clearInstances();
+        }
+    }
+
+    private void updateInstances() {
+        frame++;
+        for (Spatial child : children.getArray()) {
+            if (!(child instanceof InstancedGeometry)) {
+                collect(child);
+            }
+        }
+
+        // Remove the instances that are gone or hidden
+        Iterator<Instance> iter = instances.values().iterator();
+        while (iter.hasNext()) {
+            Instance instance = iter.next();
+            if (instance.frame != frame) {
+                iter.remove();
+                removeInstance(instance);
+            }
+        }
+    }
+
+    private void collect(Spatial spatial) {
+        if (spatial instanceof Geometry) {
+            collect((Geometry) spatial);
+        } else if (spatial instanceof Node) {
+            if (spatial.getLocalCullHint() == CullHint.Always
+                    || spatial.getControl(AnimControl.class) != null
+                    || spatial.getControl(SkeletonControl.class) != null) {
+                return;
+            }
+            for (Spatial child : ((Node) spatial).getChildren()) {
+                collect(child);
+            }
+        }
+    }
+
+    private void collect(Geometry geometry) {
+        Instance instance = instances.get(geometry);
+        if (instance != null) {
+            if (instance.group.mesh == geometry.getMesh() && instance.material == geometry.getMaterial()) {
+                instance.frame = frame;
+                return;
+            }
+
+            // Changed
+            instances.remove(geometry);
+            removeInstance(instance);
+        }
+
+        if (!canInstance(geometry)) {
+            return;
+        }
+        instance = new Instance(geometry, getGroup(geometry));
+        instance.frame = frame;
+        instance.group.geometry.addInstance(geometry);
+        geometry.setCullHint(CullHint.Always);
+        instances.put(geometry, instance);
+    }
+
+    private static boolean canInstance(Geometry geometry) {
+        return geometry.getLocalCullHint() != CullHint.Always
+                && geometry.getBatchHint() != BatchHint.Never
+                && geometry.getNumControls() == 0
+                && geometry.getQueueBucket() == RenderQueue.Bucket.Opaque
+                && geometry.getMesh() != null
+                && geometry.getMesh().getBuffer(VertexBuffer.Type.BindPosePosition) == null
+                && geometry.getMaterial() != null
+                && geometry.getMaterial().getMaterialDef().getMaterialParam(USE_INSTANCING) != null;
+    }
+
+    private InstanceGroup getGroup(Geometry geometry) {
+        List<InstanceGroup> meshGroups = groups.computeIfAbsent(geometry.getMesh(), (mesh) -> new ArrayList<>(1));
+        for (InstanceGroup group : meshGroups) {
+            if (group.material.contentEquals(geometry.getMaterial())) {
+                return group;
+            }
+        }
+
+        InstanceGroup group = new InstanceGroup(geometry);
+        meshGroups.add(group);
+        attachChild(group.geometry);
+        return group;
+    }
+
+    private void removeInstance(Instance instance) {
+        instance.group.geometry.deleteInstance(instance.geometry);
+        instance.geometry.setCullHint(instance.cullHint);
+
+        // Get rid of empty groups
+        if (instance.group.geometry.getActualNumInstances() == 0) {
+            List<InstanceGroup> meshGroups = groups.get(instance.group.mesh);
+            meshGroups.remove(instance.group);
+            if (meshGroups.isEmpty()) {
+                groups.remove(instance.group.mesh);
+            }
+            instance.group.geometry.removeFromParent();
+        }
+    }
+
+    private void clearInstances() {
+        for (Instance instance : instances.values()) {
+            instance.geometry.setCullHint(instance.cullHint);
+        }
+        instances.clear();
+        for (List<InstanceGroup> meshGroups : groups.values()) {
+            for (InstanceGroup group : meshGroups) {
+                group.geometry.removeFromParent();
+            }
+        }
+        groups.clear();
+    }
+
+    /**
+     * Geometries with the same mesh and material, drawn as one
+     */
+    private static class InstanceGroup {
+
+        private final Mesh mesh;
+        private final Material material;
+        private final InstancedGeometry geometry;
+
+        public InstanceGroup(Geometry source) {
+            mesh = source.getMesh();
+
+            // Keep a copy of the original material for matching, the geometry may change its own
+            material = source.getMaterial().clone();
+            Material instancedMaterial = source.getMaterial().clone();
+            instancedMaterial.setBoolean(USE_INSTANCING, true);
+
+            // The bounds aren't kept up to date as the instances move, so never cull
+            geometry = new InstancedGeometry(source.getName() + "-instances");
+            geometry.setMesh(mesh);
+            geometry.setMaterial(instancedMaterial);
+            geometry.setShadowMode(source.getShadowMode());
+            geometry.setCullHint(CullHint.Never);
+        }
+    }
+
+    /**
+     * A geometry drawn through an instance group
+     */
+    private static class Instance {
+
+        private final Geometry geometry;
+        private final Material material;
+        private final CullHint cullHint;
+        private final InstanceGroup group;
+        private int frame;
+
+        public Instance(Geometry geometry, InstanceGroup group) {
+            this.geometry = geometry;
+            this.material = geometry.getMaterial();
+            this.cullHint = geometry.getLocalCullHint();
+            this.group = group;
+        }
+    }
+
+    /**
+     * Checks the hardware support and updates the instance transforms once
+     * the scene has been updated for rendering
+     */
+    private class InstancingControl extends AbstractControl {
+
+        @Override
+        protected void controlUpdate(float tpf) {
+
+        }
+
+        @Override
+        protected void controlRender(RenderManager rm, ViewPort vp) {
+            if (supported == null) {
+                supported = rm.getRenderer().getCaps().contains(Caps.MeshInstancing);
+            }
+            if (!isInstancing()) {
+                return;
+            }
+            for (List<InstanceGroup> meshGroups : groups.values()) {
+                for (InstanceGroup group : meshGroups) {
+                    group.geometry.updateInstances();
+                }
+            }
+        }
+    }
+}
@@ -23,9 +23,9 @@ import com.jme3.asset.TextureKey;
 import com.jme3.material.Material;
 import com.jme3.math.ColorRGBA;
 import com.jme3.math.FastMath;
+import com.jme3.math.Transform;
 import com.jme3.math.Vector3f;
 import com.jme3.renderer.queue.RenderQueue;
-import com.jme3.scene.BatchNode;
 import com.jme3.scene.Geometry;
 import com.jme3.scene.Node;
 import com.jme3.scene.SceneGraphVisitor;
@@ -35,14 +35,18 @@ import java.awt.Color;
 import java.awt.Point;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 import toniarts.openkeeper.common.EntityInstance;
 import toniarts.openkeeper.common.RoomInstance;
 import toniarts.openkeeper.game.map.IMapInformation;
@@ -86,9 +90,11 @@ public abstract class MapViewController implements ILoader<KwdFile> {
     private final static int FLOOR_INDEX = 0;
     private final static int WALL_INDEX = 1;
     private final static int TOP_INDEX = 2;
+    private final static int MODEL_INDEX = 3;
     private final static String MAP_NODE = "Map";
     private final static String TERRAIN_NODE = "Terrain";
     private final static String ROOM_NODE = "Rooms";
+    private final static String MODEL_NODE = "Models";
     private List<Node> pages;
     private final KwdFile kwdFile;
     private Node map;
@@ -97,6 +103,7 @@ public abstract class MapViewController implements ILoader<KwdFile> {
     private final IMapInformation mapClientService;
     //private final EffectManagerState effectManager;
     private Node roomsNode;
+    private InstancedModelNode modelsNode;
     private final short playerId;
     // private final WorldState worldState;
     //private final ObjectLoader objectLoader;
@@ -107,6 +114,8 @@ public abstract class MapViewController implements ILoader<KwdFile> {
     private final Map<RoomInstance, Spatial> roomNodes = new HashMap<>(); // Room instances by node
     private final Map<RoomInstance, RoomConstructor> roomActuals = new HashMap<>(); // Rooms by room constructor
     private final Map<Point, EntityInstance<Terrain>> terrainBatchCoordinates = new HashMap<>(); // A quick glimpse whether terrain batch at specific coordinates is already "found"
+    private final Map<Node, Set<Point>> pendingPageUpdates = new HashMap<>(); // Tile updates waiting for the page to be free, render thread only
+    private final Set<Node> pagesUpdating = new HashSet<>(); // Pages being built in the background, render thread only
     private static final Logger LOGGER = Logger.getLogger(MapViewController.class.getName());
 
     public MapViewController(AssetManager assetManager, KwdFile kwdFile, IMapInformation mapClientService, short playerId) {
@@ -123,6 +132,7 @@ public abstract class MapViewController implements ILoader<KwdFile> {
         map = new Node(MAP_NODE);
         Node terrain = new Node(TERRAIN_NODE);
         generatePages(terrain);
+        generateModelNodes(terrain);
         roomsNode = new Node(ROOM_NODE);
         terrain.attachChild(roomsNode);
 
@@ -140,7 +150,7 @@ public abstract class MapViewController implements ILoader<KwdFile> {
             for (int x = 0; x < getMapData().getWidth(); x++) {
 
                 try {
-                    handleTile(getMapData().getTile(x, y), terrain);
+                    handleTile(getMapData().getTile(x, y), getTileNodes(new Point(x, y), getPageNode(new Point(x, y), terrain)), null);
                 } catch (Exception e) {
                     LOGGER.log(Level.SEVERE, "Failed to handle tile at " + x + ", " + y + "!", e);
                 }
@@ -152,9 +162,9 @@ public abstract class MapViewController implements ILoader<KwdFile> {
 
         // Batch the terrain pages
         for (Node page : pages) {
-            ((BatchNode) page.getChild(FLOOR_INDEX)).batch();
-            ((BatchNode) page.getChild(WALL_INDEX)).batch();
-            ((BatchNode) page.getChild(TOP_INDEX)).batch();
+            ((TerrainBatchNode) page.getChild(FLOOR_INDEX)).batch();
+            ((TerrainBatchNode) page.getChild(WALL_INDEX)).batch();
+            ((TerrainBatchNode) page.getChild(TOP_INDEX)).batch();
         }
         map.attachChild(terrain);
 
@@ -185,6 +195,126 @@ public abstract class MapViewController implements ILoader<KwdFile> {
      * @param points tile coordinates to update
      */
     public void updateTiles(Point... points) {
+        Set<Point> pointsToUpdate = getPointsToUpdate(points);
+
+        // Reconstruct all tiles in the area
+        Node terrainNode = (Node) map.getChild(TERRAIN_NODE);
+        for (Point point : pointsToUpdate) {
+            MapTile tile = getMapData().getTile(point);
+
+            // Clear the old tile
+            Node pageNode = getPageNode(point, terrainNode);
+            Node[] tileNodes = getTileNodes(point, pageNode);
+            for (Node tileNode : tileNodes) {
+                clearTileNode(tileNode);
+            }
+
+            // Reconstruct
+            handleTile(tile, tileNodes, null);
+
+            // Update the batches, only the tile's own part of the batches is rewritten
+            updateBatches(point, pageNode);
+
+            // If the page is being built in the background, the result would be stale
+            if (pagesUpdating.contains(pageNode)) {
+                pendingPageUpdates.computeIfAbsent(pageNode, (page) -> new HashSet<>()).add(point);
+            }
+        }
+    }
+
+    /**
+     * Update the selected tiles (and neighbouring tiles if needed) in the
+     * background. The rooms and the room walls are handled right away, but the
+     * terrain tiles are constructed with the given executor and only the
+     * finished tiles are swapped in on the render thread. Updates to a page that is already being
+     * built are coalesced to a single update after it. Must be called from the
+     * render thread.
+     *
+     * @param points tile coordinates to update
+     * @param executor the executor to construct the tiles with
+     * @param renderExecutor the executor for the render thread
+     */
+    public void updateTiles(Point[] points, Executor executor, Executor renderExecutor) {
+        Set<Point> pointsToUpdate = getPointsToUpdate(points);
+
+        // The rooms live outside the terrain, construct them now
+        Node terrainNode = (Node) map.getChild(TERRAIN_NODE);
+        for (Point point : pointsToUpdate) {
+            Terrain terrain = getTerrain(getMapData().getTile(point));
+            if (terrain.getFlags().contains(Terrain.TerrainFlag.ROOM)) {
+                handleRoom(point, kwdFile.getRoomByTerrain(terrain.getTerrainId()), null);
+            }
+            pendingPageUpdates.computeIfAbsent(getPageNode(point, terrainNode), (page) -> new HashSet<>()).add(point);
+        }
+
+        // Start the pages that are free
+        for (Node pageNode : new ArrayList<>(pendingPageUpdates.keySet())) {
+            if (!pagesUpdating.contains(pageNode)) {
+                startPageUpdate(pageNode, executor, renderExecutor);
+            }
+        }
+    }
+
+    private void startPageUpdate(Node pageNode, Executor executor, Executor renderExecutor) {
+        Set<Point> points = pendingPageUpdates.remove(pageNode);
+        pagesUpdating.add(pageNode);
+
+        // The room walls come from the rooms, resolve them here in the render thread
+        Map<Point, Map<WallDirection, Spatial>> roomWalls = new HashMap<>(points.size());
+        for (Point point : points) {
+            roomWalls.put(point, resolveRoomWalls(getMapData().getTile(point)));
+        }
+        try {
+            executor.execute(() -> {
+
+                // Construct the tiles to new nodes, away from the scene
+                Map<Point, Node[]> tiles = new HashMap<>(points.size());
+                for (Point point : points) {
+                    Node[] tileNodes = new Node[]{new Node(), new Node(), new Node(), new Node()};
+                    try {
+                        handleTile(getMapData().getTile(point), tileNodes, roomWalls.get(point));
+                    } catch (Exception e) {
+                        LOGGER.log(Level.SEVERE, "Failed to handle tile at " + point.x + ", " + point.y + "!", e);
+                    }
+                    tiles.put(point, tileNodes);
+                }
+
+                // And swap them in
+                renderExecutor.execute(() -> {
+                    for (Map.Entry<Point, Node[]> entry : tiles.entrySet()) {
+                        Node[] tileNodes = getTileNodes(entry.getKey(), pageNode);
+                        for (int i = 0; i < tileNodes.length; i++) {
+                            clearTileNode(tileNodes[i]);
+                            tileNodes[i].setLocalTransform(entry.getValue()[i].getLocalTransform());
+                            for (Spatial child : new ArrayList<>(entry.getValue()[i].getChildren())) {
+                                tileNodes[i].attachChild(child);
+                            }
+                        }
+                        updateBatches(entry.getKey(), pageNode);
+                    }
+
+                    // Any new updates for the page
+                    pagesUpdating.remove(pageNode);
+                    if (pendingPageUpdates.containsKey(pageNode)) {
+                        startPageUpdate(pageNode, executor, renderExecutor);
+                    }
+                });
+            });
+        } catch (RejectedExecutionException e) {
+
+            // We are shutting down
+            pagesUpdating.remove(pageNode);
+        }
+    }
+
+    /**
+     * Get the tiles that need updating when the given tiles change. Removes
+     * the affected rooms, they need to be reconstructed
+     *
+     * @param points the changed tile coordinates
+     * @return all the tiles needing an update
+     */
+    private Set<Point> getPointsToUpdate(Point... points) {
         Set<Point> pointsToUpdate = new HashSet<>();
 
         // FIXME: This is really quite heavy and unneeded, just a quick "fix"
@@ -213,42 +343,19 @@ public abstract class MapViewController implements ILoader<KwdFile> {
             }
         }
 
-        // Reconstruct all tiles in the area
-        Set<BatchNode> nodesNeedBatching = new HashSet<>();
-        Node terrainNode = (Node) map.getChild(TERRAIN_NODE);
-        for (Point point : pointsToUpdate) {
-            MapTile tile = getMapData().getTile(point);
-
-            // Reconstruct and mark for patching
-            // The tile node needs to created anew, somehow the BatchNode just doesn't get it if I remove children from subnode
-            Node pageNode = getPageNode(point, terrainNode);
-            Node tileNode = getTileNode(point, (Node) pageNode.getChild(FLOOR_INDEX));
-            if (!tileNode.getChildren().isEmpty()) {
-                tileNode.removeFromParent();
-                ((BatchNode) pageNode.getChild(FLOOR_INDEX)).attachChildAt(new Node(tileNode.getName()), getTileNodeIndex(point));
-                nodesNeedBatching.add((BatchNode) pageNode.getChild(FLOOR_INDEX));
-            }
-            tileNode = getTileNode(point, (Node) pageNode.getChild(WALL_INDEX));
-            if (!tileNode.getChildren().isEmpty()) {
-                tileNode.removeFromParent();
-                ((BatchNode) pageNode.getChild(WALL_INDEX)).attachChildAt(new Node(tileNode.getName()), getTileNodeIndex(point));
-                nodesNeedBatching.add((BatchNode) pageNode.getChild(WALL_INDEX));
-            }
-            tileNode = getTileNode(point, (Node) pageNode.getChild(TOP_INDEX));
-            if (!tileNode.getChildren().isEmpty()) {
-                tileNode.removeFromParent();
-                ((BatchNode) pageNode.getChild(TOP_INDEX)).attachChildAt(new Node(tileNode.getName()), getTileNodeIndex(point));
-                nodesNeedBatching.add((BatchNode) pageNode.getChild(TOP_INDEX));
-            }
+        return pointsToUpdate;
+    }
 
-            // Reconstruct
-            handleTile(tile, (Node) map.getChild(TERRAIN_NODE));
-        }
+    private void updateBatches(Point p, Node pageNode) {
+        int index = getTileNodeIndex(p);
+        ((TerrainBatchNode) pageNode.getChild(FLOOR_INDEX)).updateTile(index);
+        ((TerrainBatchNode) pageNode.getChild(WALL_INDEX)).updateTile(index);
+        ((TerrainBatchNode) pageNode.getChild(TOP_INDEX)).updateTile(index);
+    }
 
-        // Batch
-        for (BatchNode batchNode : nodesNeedBatching) {
-            batchNode.batch();
-        }
+    private static void clearTileNode(Node tileNode) {
+        tileNode.detachAllChildren();
+        tileNode.setLocalTransform(Transform.IDENTITY);
     }
 
     /**
@@ -330,15 +437,15 @@ public abstract class MapViewController implements ILoader<KwdFile> {
                 Node page = new Node(x + "_" + y);
 
                 // Create batch nodes for ceiling, floor and walls
-                BatchNode floor = new BatchNode("floor");
+                TerrainBatchNode floor = new TerrainBatchNode("floor", PAGE_SQUARE_SIZE * PAGE_SQUARE_SIZE);
                 floor.setShadowMode(RenderQueue.ShadowMode.Receive); // Floors don't cast
                 generateTileNodes(floor, x, y);
                 page.attachChild(floor);
-                BatchNode wall = new BatchNode("wall");
+                TerrainBatchNode wall = new TerrainBatchNode("wall", PAGE_SQUARE_SIZE * PAGE_SQUARE_SIZE);
                 wall.setShadowMode(RenderQueue.ShadowMode.CastAndReceive); // Walls cast and receive shadows
                 generateTileNodes(wall, x, y);
                 page.attachChild(wall);
-                BatchNode ceiling = new BatchNode("ceiling");
+                TerrainBatchNode ceiling = new TerrainBatchNode("ceiling", PAGE_SQUARE_SIZE * PAGE_SQUARE_SIZE);
                 ceiling.setShadowMode(RenderQueue.ShadowMode.Off); // No lights above ceilings
                 generateTileNodes(ceiling, x, y);
                 page.attachChild(ceiling);
@@ -349,6 +456,23 @@ public abstract class MapViewController implements ILoader<KwdFile> {
         }
     }
 
+    /**
+     * Generate the node for the torches and such, one tile node per tile. The
+     * models are drawn instanced, there are lots of the same models all around
+     * the map
+     *
+     * @param root where to generate the models node on
+     */
+    private void generateModelNodes(Node root) {
+        modelsNode = new InstancedModelNode(MODEL_NODE);
+        for (int y = 0; y < getMapData().getHeight(); y++) {
+            for (int x = 0; x < getMapData().getWidth(); x++) {
+                modelsNode.attachChild(new Node(x + "_" + y));
+            }
+        }
+        root.attachChild(modelsNode);
+    }
+
     /**
      * Create tile nodes inside a page
      *
@@ -356,7 +480,7 @@ public abstract class MapViewController implements ILoader<KwdFile> {
      * @param pageX page x
      * @param pageY page y
      */
-    private void generateTileNodes(BatchNode pageBatch, int pageX, int pageY) {
+    private void generateTileNodes(TerrainBatchNode pageBatch, int pageX, int pageY) {
         for (int y = 0; y < PAGE_SQUARE_SIZE; y++) {
             for (int x = 0; x < PAGE_SQUARE_SIZE; x++) {
                 pageBatch.attachChild(new Node((x + pageX * PAGE_SQUARE_SIZE) + "_" + (y + pageY * PAGE_SQUARE_SIZE)));
@@ -364,25 +488,60 @@ public abstract class MapViewController implements ILoader<KwdFile> {
         }
     }
 
-    private Spatial getWallSpatial(MapTile tile, WallDirection direction) {
-        Terrain terrain = getTerrain(tile);
-        String modelName = terrain.getSideResource().getName();
+    private MapTile getNeighbourTile(MapTile tile, WallDirection direction) {
         Point p = tile.getLocation();
-        MapTile neigbourTile;
         switch (direction) {
             case NORTH:
-                neigbourTile = getMapData().getTile(p.x, p.y - 1);
-                break;
+                return getMapData().getTile(p.x, p.y - 1);
             case SOUTH:
-                neigbourTile = getMapData().getTile(p.x, p.y + 1);
-                break;
+                return getMapData().getTile(p.x, p.y + 1);
             case EAST:
-                neigbourTile = getMapData().getTile(p.x + 1, p.y);
-                break;
+                return getMapData().getTile(p.x + 1, p.y);
             default: // WEST
-                neigbourTile = getMapData().getTile(p.x - 1, p.y);
-                break;
+                return getMapData().getTile(p.x - 1, p.y);
         }
+    }
+
+    /**
+     * Resolve the room walls facing the given tile. The rooms are constructed
+     * as needed, so this must be called from the render thread
+     *
+     * @param tile the tile
+     * @return the room walls by direction, empty if the tile has none
+     */
+    private Map<WallDirection, Spatial> resolveRoomWalls(MapTile tile) {
+        Map<WallDirection, Spatial> roomWalls = new EnumMap<>(WallDirection.class);
+        Terrain terrain = getTerrain(tile);
+        if (!terrain.getFlags().contains(Terrain.TerrainFlag.SOLID)
+                || !terrain.getFlags().contains(Terrain.TerrainFlag.ALLOW_ROOM_WALLS)) {
+            return roomWalls;
+        }
+
+        for (WallDirection direction : WallDirection.values()) {
+            MapTile neigbourTile = getNeighbourTile(tile, direction);
+            if (neigbourTile != null && !getTerrain(neigbourTile).getFlags().contains(Terrain.TerrainFlag.SOLID)
+                    && hasRoomWalls(neigbourTile)) {
+                roomWalls.put(direction, getRoomWall(neigbourTile, direction));
+            }
+        }
+
+        return roomWalls;
+    }
+
+    /**
+     * Get the wall spatial for the tile side
+     *
+     * @param tile the tile
+     * @param direction the wall direction
+     * @param roomWalls the room walls resolved in the render thread, if
+     * {@code null}, the room walls are resolved here
+     * @return the wall spatial, or {@code null} if there is no wall
+     */
+    private Spatial getWallSpatial(MapTile tile, WallDirection direction, @Nullable Map<WallDirection, Spatial> roomWalls) {
+        Terrain terrain = getTerrain(tile);
+        String modelName = terrain.getSideResource().getName();
+        MapTile neigbourTile = getNeighbourTile(tile, direction);
+
         // Check for out of bounds
         if (neigbourTile == null) {
             return loadModel(modelName);
@@ -395,7 +554,7 @@ public abstract class MapViewController implements ILoader<KwdFile> {
         if (!(terrain.getFlags().contains(Terrain.TerrainFlag.ALLOW_ROOM_WALLS))) {
             return loadModel(modelName);
         } else if (hasRoomWalls(neigbourTile)) {
-            return getRoomWall(neigbourTile, direction);
+            return roomWalls != null ? roomWalls.get(direction) : getRoomWall(neigbourTile, direction);
         }
 
         return loadModel(modelName);
@@ -406,6 +565,9 @@ public abstract class MapViewController implements ILoader<KwdFile> {
         Room room = kwdFile.getRoomByTerrain(tile.getTerrainId());
         RoomInstance roomInstance = handleRoom(p, room, null);
         RoomConstructor rc = roomActuals.get(roomInstance);
+        if (rc == null) {
+            return null;
+        }
         return rc.getWallSpatial(p, direction);
     }
 
@@ -463,19 +625,23 @@ public abstract class MapViewController implements ILoader<KwdFile> {
      * Handle single tile from the map, represented by the X & Y coordinates
      *
      * @param tile tile to handle
-     * @param root the root node
+     * @param tileNodes the floor, wall and top tile nodes to construct the
+     * tile to
+     * @param roomWalls the room walls resolved in the render thread, if
+     * {@code null}, the rooms and the room walls are constructed here. The
+     * rooms are not in the tile nodes and must be constructed in the render
+     * thread
      */
-    private void handleTile(MapTile tile, Node root) {
+    private void handleTile(MapTile tile, Node[] tileNodes, @Nullable Map<WallDirection, Spatial> roomWalls) {
 
         // Get the terrain
         Terrain terrain = getTerrain(tile);
         Point p = tile.getLocation();
-        Node pageNode = getPageNode(p, root);
 
         // Torch (see https://github.com/tonihele/OpenKeeper/issues/128)
         if (!terrain.getFlags().contains(Terrain.TerrainFlag.SOLID)
                 && (tile.getX() % 2 == 0 || tile.getY() % 2 == 0)) {
-            handleTorch(tile, pageNode);
+            handleTorch(tile, tileNodes[MODEL_INDEX]);
         }
 
         // Room
@@ -483,7 +649,9 @@ public abstract class MapViewController implements ILoader<KwdFile> {
 
             // Construct the actual room
             Room room = kwdFile.getRoomByTerrain(terrain.getTerrainId());
-            handleRoom(p, room, null);
+            if (roomWalls == null) {
+                handleRoom(p, room, null);
+            }
 
             // Swap the terrain if this is a bridge
             terrain = kwdFile.getTerrainBridge(tile.getBridgeTerrainType(), room);
@@ -492,13 +660,13 @@ public abstract class MapViewController implements ILoader<KwdFile> {
             }
         }
 
-        handleTop(tile, terrain, pageNode);
+        handleTop(tile, terrain, tileNodes);
         if (terrain.getFlags().contains(Terrain.TerrainFlag.SOLID)) {
-            handleSide(tile, pageNode);
+            handleSide(tile, tileNodes[WALL_INDEX], roomWalls);
         }
     }
 
-    private void handleTorch(MapTile tile, Node pageNode) {
+    private void handleTorch(MapTile tile, Node tileNode) {
 
         // The rooms actually contain the torch model resource, but it is always the same,
         // and sometimes even null and there is still a torch. So I don't think they are used
@@ -545,7 +713,7 @@ public abstract class MapViewController implements ILoader<KwdFile> {
             spatial.rotate(0, angleY, 0);
             spatial.setLocalTranslation(WorldUtils.pointToVector3f(tile.getLocation()).addLocal(position));
 
-            ((Node) getTileNode(tile.getLocation(), (Node) pageNode.getChild(WALL_INDEX))).attachChild(spatial);
+            tileNode.attachChild(spatial);
         }
     }
 
@@ -589,9 +757,9 @@ public abstract class MapViewController implements ILoader<KwdFile> {
      *
      * @param tile this tile
      * @param terrain DO NOT REMOVE. Need for construct water bed
-     * @param pageNode page node
+     * @param tileNodes the floor, wall and top tile nodes
      */
-    private void handleTop(MapTile tile, Terrain terrain, Node pageNode) {
+    private void handleTop(MapTile tile, Terrain terrain, Node[] tileNodes) {
 
         ArtResource model = terrain.getCompleteResource();
         Point p = tile.getLocation();
@@ -600,14 +768,16 @@ public abstract class MapViewController implements ILoader<KwdFile> {
         // And in the top resource there is the actual lava/water
         if (terrain.getFlags().contains(Terrain.TerrainFlag.CONSTRUCTION_TYPE_WATER)) {
 
-            // Store the batch instance
-            if (!terrainBatchCoordinates.containsKey(p)) {
-                EntityInstance<Terrain> entityInstance = new EntityInstance<>(terrain);
-                findTerrainBatch(p, entityInstance);
-                if (terrain.getFlags().contains(Terrain.TerrainFlag.LAVA)) {
-                    lavaBatches.add(entityInstance);
-                } else {
-                    waterBatches.add(entityInstance);
+            // Store the batch instance, the tiles may be constructed in parallel
+            synchronized (terrainBatchCoordinates) {
+                if (!terrainBatchCoordinates.containsKey(p)) {
+                    EntityInstance<Terrain> entityInstance = new EntityInstance<>(terrain);
+                    findTerrainBatch(p, entityInstance);
+                    if (terrain.getFlags().contains(Terrain.TerrainFlag.LAVA)) {
+                        lavaBatches.add(entityInstance);
+                    } else {
+                        waterBatches.add(entityInstance);
+                    }
                 }
             }
 
@@ -632,9 +802,9 @@ public abstract class MapViewController implements ILoader<KwdFile> {
 
         Node topTileNode;
         if (terrain.getFlags().contains(Terrain.TerrainFlag.SOLID)) {
-            topTileNode = getTileNode(p, (Node) pageNode.getChild(TOP_INDEX));
+            topTileNode = tileNodes[TOP_INDEX];
         } else {
-            topTileNode = getTileNode(p, (Node) pageNode.getChild(FLOOR_INDEX));
+            topTileNode = tileNodes[FLOOR_INDEX];
         }
 
         topTileNode.attachChild(spatial);
@@ -644,12 +814,11 @@ public abstract class MapViewController implements ILoader<KwdFile> {
 //        tile.setTopNode(topTileNode);
     }
 
-    private void handleSide(MapTile tile, Node pageNode) {
+    private void handleSide(MapTile tile, Node sideTileNode, @Nullable Map<WallDirection, Spatial> roomWalls) {
         Point p = tile.getLocation();
-        Node sideTileNode = getTileNode(p, (Node) pageNode.getChild(WALL_INDEX));
 
         for (WallDirection direction : WallDirection.values()) {
-            Spatial wall = getWallSpatial(tile, direction);
+            Spatial wall = getWallSpatial(tile, direction, roomWalls);
             if (wall != null) {
                 wall.rotate(0, direction.getAngle(), 0);
                 sideTileNode.attachChild(wall);
@@ -681,6 +850,23 @@ public abstract class MapViewController implements ILoader<KwdFile> {
         return (Node) page.getChild(getTileNodeIndex(p));
     }
 
+    /**
+     * Get the floor, wall, top and model tile nodes of a tile
+     *
+     * @param p the tile coordinates
+     * @param pageNode the page node
+     * @return the tile nodes, by the node index
+     */
+    private Node[] getTileNodes(Point p, Node pageNode) {
+        Node[] tileNodes = new Node[4];
+        tileNodes[FLOOR_INDEX] = getTileNode(p, (Node) pageNode.getChild(FLOOR_INDEX));
+        tileNodes[WALL_INDEX] = getTileNode(p, (Node) pageNode.getChild(WALL_INDEX));
+        tileNodes[TOP_INDEX] = getTileNode(p, (Node) pageNode.getChild(TOP_INDEX));
+        tileNodes[MODEL_INDEX] = (Node) modelsNode.getChild(p.y * getMapData().getWidth() + p.x);
+
+        return tileNodes;
+    }
+
     /**
      * Get index for the tile node, where it should be
      *
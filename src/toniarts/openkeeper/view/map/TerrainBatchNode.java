@@ -0,0 +1,485 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.view.map;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.material.Material;
+import com.jme3.math.Transform;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.control.LodControl;
+import com.jme3.scene.mesh.IndexBuffer;
+import com.jme3.util.BufferUtils;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batches the terrain tiles of a page. Works like a BatchNode, but each tile
+ * has its own fixed range of vertices and indices in the batches. So when a
+ * tile changes, only the tile's range is rewritten. The unused indices of a
+ * range are degenerate triangles.<br>
+ * The first children of this node must be the tile nodes, the tiles are
+ * referred to by their child index. The geometries under the tile nodes are
+ * hidden when batched. Spatials with controls (other than LOD) are left
+ * alone, as are spatials that have batching disabled.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class TerrainBatchNode extends Node {
+
+    /**
+     * Extra room per tile, so that a tile can change a bit without moving
+     */
+    private static final float TILE_SLACK = 0.25f;
+
+    /**
+     * Extra room at the end of the batch for new tiles, relative to the
+     * allocated tile ranges
+     */
+    private static final float BATCH_SLACK = 0.5f;
+
+    private final int tileCount;
+    private final List<TileBatch> batches = new ArrayList<>();
+
+    public TerrainBatchNode(String name, int tileCount) {
+        super(name);
+        this.tileCount = tileCount;
+    }
+
+    /**
+     * Batch all the tiles, rebuilds the whole batch from scratch
+     */
+    public void batch() {
+        for (TileBatch batch : batches) {
+            batch.geometry.removeFromParent();
+        }
+        batches.clear();
+
+        for (int i = 0; i < tileCount; i++) {
+            for (Map.Entry<TileBatch, List<Geometry>> entry : gatherTile(i).entrySet()) {
+                entry.getKey().tiles[i] = entry.getValue();
+            }
+        }
+        for (TileBatch batch : new ArrayList<>(batches)) {
+            build(batch);
+        }
+    }
+
+    /**
+     * Update a single tile in the batches, call after the tile contents have
+     * changed
+     *
+     * @param tile the tile index
+     */
+    public void updateTile(int tile) {
+        Map<TileBatch, List<Geometry>> tileBatches = gatherTile(tile);
+        for (TileBatch batch : new ArrayList<>(batches)) {
+            List<Geometry> geometries = tileBatches.get(batch);
+            if (geometries != null || !batch.tiles[tile].isEmpty()) {
+                setTile(batch, tile, geometries != null ? geometries : Collections.<Geometry>emptyList());
+            }
+        }
+    }
+
+    private Map<TileBatch, List<Geometry>> gatherTile(int tile) {
+        Map<TileBatch, List<Geometry>> tileBatches = new IdentityHashMap<>();
+        gatherGeometries(getChild(tile), tileBatches);
+
+        return tileBatches;
+    }
+
+    private void gatherGeometries(Spatial spatial, Map<TileBatch, List<Geometry>> tileBatches) {
+        if (spatial.getBatchHint() == BatchHint.Never || hasControls(spatial)) {
+            return;
+        }
+        if (spatial instanceof Node) {
+            for (Spatial child : ((Node) spatial).getChildren()) {
+                gatherGeometries(child, tileBatches);
+            }
+        } else if (spatial instanceof Geometry) {
+            Geometry geometry = (Geometry) spatial;
+            List<VertexBuffer.Type> types = getBufferTypes(geometry.getMesh());
+            if (geometry.getMaterial() == null || types == null) {
+                return;
+            }
+
+            TileBatch batch = getBatch(geometry.getMaterial(), types, geometry.getMesh());
+            List<Geometry> geometries = tileBatches.get(batch);
+            if (geometries == null) {
+                geometries = new ArrayList<>();
+                tileBatches.put(batch, geometries);
+            }
+            geometries.add(geometry);
+            geometry.setCullHint(CullHint.Always);
+        }
+    }
+
+    private static boolean hasControls(Spatial spatial) {
+        for (int i = 0; i < spatial.getNumControls(); i++) {
+            if (!(spatial.getControl(i) instanceof LodControl)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Get the vertex buffer types we batch, all must be floats
+     *
+     * @param mesh the mesh
+     * @return the buffer types, or {@code null} if the mesh can't be batched
+     */
+    private static List<VertexBuffer.Type> getBufferTypes(Mesh mesh) {
+        if (mesh.getMode() != Mesh.Mode.Triangles || mesh.getBuffer(VertexBuffer.Type.Position) == null
+                || mesh.getBuffer(VertexBuffer.Type.Index) == null) {
+            return null;
+        }
+
+        List<VertexBuffer.Type> types = new ArrayList<>();
+        for (VertexBuffer vb : mesh.getBufferList()) {
+            if (vb.getBufferType() == VertexBuffer.Type.Index) {
+                continue;
+            }
+            if (vb.getFormat() != VertexBuffer.Format.Float || vb.getBufferType() == VertexBuffer.Type.BindPosePosition
+                    || vb.getBufferType() == VertexBuffer.Type.BindPoseNormal || vb.getBufferType() == VertexBuffer.Type.InterleavedData) {
+                return null;
+            }
+            types.add(vb.getBufferType());
+        }
+        Collections.sort(types);
+
+        return types;
+    }
+
+    private TileBatch getBatch(Material material, List<VertexBuffer.Type> types, Mesh mesh) {
+        for (TileBatch batch : batches) {
+            if (batch.types.equals(types) && batch.hasSameComponents(mesh) && batch.material.contentEquals(material)) {
+                return batch;
+            }
+        }
+
+        TileBatch batch = new TileBatch(material, types, mesh, tileCount);
+        batch.geometry.setName(getName() + "-batch" + batches.size());
+        batches.add(batch);
+
+        return batch;
+    }
+
+    /**
+     * Sets the tile contents in the batch. If the tile still fits to its
+     * range, only that is rewritten. Otherwise the tile is moved to the end
+     * of the batch, and if there is no room, the whole batch is rebuilt.
+     */
+    private void setTile(TileBatch batch, int tile, List<Geometry> geometries) {
+        batch.tiles[tile] = geometries;
+        if (batch.indices == null) {
+            build(batch);
+            return;
+        }
+        int vertexCount = getVertexCount(geometries);
+        int indexCount = getIndexCount(geometries);
+
+        // Only the used indices are drawn, but we write past them
+        batch.indices.clear();
+        if (vertexCount > batch.vertexCapacity[tile] || indexCount > batch.indexCapacity[tile]) {
+
+            // Free the old range and allocate a new one
+            batch.clearIndices(batch.indexStart[tile], batch.indexCapacity[tile], batch.vertexStart[tile]);
+            batch.vertexCapacity[tile] = 0;
+            batch.indexCapacity[tile] = 0;
+            int vertexCapacity = getCapacity(vertexCount, 1);
+            int indexCapacity = getCapacity(indexCount, 3);
+            if (batch.vertexEnd + vertexCapacity > batch.getVertexBufferCapacity()
+                    || batch.indexEnd + indexCapacity > batch.getIndexBufferCapacity()) {
+                build(batch);
+                return;
+            }
+            batch.allocate(tile, vertexCapacity, indexCapacity);
+        }
+
+        writeTile(batch, tile);
+        batch.updateBuffers();
+        updateBound(batch);
+    }
+
+    /**
+     * Lays out all the tiles to new buffers, with room to spare
+     */
+    private void build(TileBatch batch) {
+        int vertices = 0;
+        int indices = 0;
+        for (int i = 0; i < tileCount; i++) {
+            vertices += getCapacity(getVertexCount(batch.tiles[i]), 1);
+            indices += getCapacity(getIndexCount(batch.tiles[i]), 3);
+        }
+        if (indices == 0) {
+            batch.geometry.removeFromParent();
+            batches.remove(batch);
+            return;
+        }
+
+        batch.createBuffers(getCapacity(vertices, 1, BATCH_SLACK), getCapacity(indices, 3, BATCH_SLACK));
+        for (int i = 0; i < tileCount; i++) {
+            batch.allocate(i, getCapacity(getVertexCount(batch.tiles[i]), 1), getCapacity(getIndexCount(batch.tiles[i]), 3));
+            writeTile(batch, i);
+        }
+        batch.updateBuffers();
+        updateBound(batch);
+        if (batch.geometry.getParent() == null) {
+            attachChild(batch.geometry);
+        }
+    }
+
+    private void writeTile(TileBatch batch, int tile) {
+        int vertex = batch.vertexStart[tile];
+        int index = batch.indexStart[tile];
+        for (Geometry geometry : batch.tiles[tile]) {
+            Mesh mesh = geometry.getMesh();
+            Transform transform = getTransform(geometry);
+            for (int i = 0; i < batch.types.size(); i++) {
+                writeVertices(batch.types.get(i), mesh.getFloatBuffer(batch.types.get(i)), batch.buffers[i],
+                        batch.components[i], vertex, mesh.getVertexCount(), transform);
+            }
+
+            IndexBuffer indexBuffer = mesh.getIndexBuffer();
+            for (int i = 0; i < indexBuffer.size(); i++) {
+                batch.indices.put(index++, vertex + indexBuffer.get(i));
+            }
+            vertex += mesh.getVertexCount();
+        }
+        batch.vertexUsed[tile] = vertex - batch.vertexStart[tile];
+
+        // The rest of the range is degenerate
+        batch.clearIndices(index, batch.indexStart[tile] + batch.indexCapacity[tile] - index, batch.vertexStart[tile]);
+    }
+
+    private static void writeVertices(VertexBuffer.Type type, FloatBuffer source, FloatBuffer destination, int components,
+            int offset, int vertexCount, Transform transform) {
+        Vector3f store = new Vector3f();
+        for (int i = 0; i < vertexCount; i++) {
+            int sourceIndex = i * components;
+            int destinationIndex = (offset + i) * components;
+            switch (type) {
+                case Position: {
+                    store.set(source.get(sourceIndex), source.get(sourceIndex + 1), source.get(sourceIndex + 2));
+                    transform.transformVector(store, store);
+                    destination.put(destinationIndex, store.x).put(destinationIndex + 1, store.y).put(destinationIndex + 2, store.z);
+                    break;
+                }
+                case Normal:
+                case Tangent:
+                case Binormal: {
+
+                    // Just rotate, the w of the tangent stays as is
+                    store.set(source.get(sourceIndex), source.get(sourceIndex + 1), source.get(sourceIndex + 2));
+                    transform.getRotation().mult(store, store).normalizeLocal();
+                    destination.put(destinationIndex, store.x).put(destinationIndex + 1, store.y).put(destinationIndex + 2, store.z);
+                    for (int j = 3; j < components; j++) {
+                        destination.put(destinationIndex + j, source.get(sourceIndex + j));
+                    }
+                    break;
+                }
+                default: {
+                    for (int j = 0; j < components; j++) {
+                        destination.put(destinationIndex + j, source.get(sourceIndex + j));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The bound is calculated from the used tile ranges only, the buffers
+     * have unused vertices
+     */
+    private void updateBound(TileBatch batch) {
+        Vector3f min = new Vector3f(Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY);
+        Vector3f max = new Vector3f(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY);
+        FloatBuffer positions = batch.buffers[batch.types.indexOf(VertexBuffer.Type.Position)];
+        for (int i = 0; i < tileCount; i++) {
+            for (int j = batch.vertexStart[i]; j < batch.vertexStart[i] + batch.vertexUsed[i]; j++) {
+                float x = positions.get(j * 3);
+                float y = positions.get(j * 3 + 1);
+                float z = positions.get(j * 3 + 2);
+                min.set(Math.min(min.x, x), Math.min(min.y, y), Math.min(min.z, z));
+                max.set(Math.max(max.x, x), Math.max(max.y, y), Math.max(max.z, z));
+            }
+        }
+        if (min.x > max.x) {
+            min.zero();
+            max.zero();
+        }
+        batch.geometry.setModelBound(new BoundingBox(min, max));
+    }
+
+    /**
+     * Get the transform of the geometry relative to us
+     */
+    private Transform getTransform(Spatial spatial) {
+        Transform transform = spatial.getLocalTransform().clone();
+        for (Node parent = spatial.getParent(); parent != null && parent != this; parent = parent.getParent()) {
+            transform.combineWithParent(parent.getLocalTransform());
+        }
+
+        return transform;
+    }
+
+    private static int getVertexCount(List<Geometry> geometries) {
+        int count = 0;
+        for (Geometry geometry : geometries) {
+            count += geometry.getMesh().getVertexCount();
+        }
+
+        return count;
+    }
+
+    private static int getIndexCount(List<Geometry> geometries) {
+        int count = 0;
+        for (Geometry geometry : geometries) {
+            count += geometry.getMesh().getIndexBuffer().size();
+        }
+
+        return count;
+    }
+
+    private static int getCapacity(int count, int alignment) {
+        return getCapacity(count, alignment, TILE_SLACK);
+    }
+
+    private static int getCapacity(int count, int alignment, float slack) {
+        int capacity = count + (int) Math.ceil(count * slack);
+
+        return (capacity + alignment - 1) / alignment * alignment;
+    }
+
+    /**
+     * A single batch, one material and vertex format
+     */
+    private static class TileBatch {
+
+        private final Material material;
+        private final List<VertexBuffer.Type> types;
+        private final int[] components;
+        private final Geometry geometry;
+        private final Mesh mesh = new Mesh();
+        private final List<Geometry>[] tiles;
+        private final int[] vertexStart;
+        private final int[] vertexCapacity;
+        private final int[] vertexUsed;
+        private final int[] indexStart;
+        private final int[] indexCapacity;
+        private FloatBuffer[] buffers;
+        private IntBuffer indices;
+        private int vertexEnd;
+        private int indexEnd;
+
+        public TileBatch(Material material, List<VertexBuffer.Type> types, Mesh source, int tileCount) {
+            this.material = material;
+            this.types = types;
+            components = new int[types.size()];
+            for (int i = 0; i < types.size(); i++) {
+                components[i] = source.getBuffer(types.get(i)).getNumComponents();
+            }
+            tiles = new List[tileCount];
+            Arrays.fill(tiles, Collections.<Geometry>emptyList());
+            vertexStart = new int[tileCount];
+            vertexCapacity = new int[tileCount];
+            vertexUsed = new int[tileCount];
+            indexStart = new int[tileCount];
+            indexCapacity = new int[tileCount];
+            geometry = new Geometry("batch", mesh);
+            geometry.setMaterial(material);
+        }
+
+        private boolean hasSameComponents(Mesh mesh) {
+            for (int i = 0; i < types.size(); i++) {
+                if (mesh.getBuffer(types.get(i)).getNumComponents() != components[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private void createBuffers(int vertexCount, int indexCount) {
+            buffers = new FloatBuffer[types.size()];
+            for (int i = 0; i < types.size(); i++) {
+                buffers[i] = BufferUtils.createFloatBuffer(vertexCount * components[i]);
+                mesh.clearBuffer(types.get(i));
+                mesh.setBuffer(types.get(i), components[i], buffers[i]);
+            }
+            indices = BufferUtils.createIntBuffer(indexCount);
+            mesh.clearBuffer(VertexBuffer.Type.Index);
+            mesh.setBuffer(VertexBuffer.Type.Index, 3, indices);
+            vertexEnd = 0;
+            indexEnd = 0;
+            Arrays.fill(vertexCapacity, 0);
+            Arrays.fill(indexCapacity, 0);
+            Arrays.fill(vertexUsed, 0);
+        }
+
+        private int getVertexBufferCapacity() {
+            return buffers[0].capacity() / components[0];
+        }
+
+        private int getIndexBufferCapacity() {
+            return indices.capacity();
+        }
+
+        private void allocate(int tile, int vertexCount, int indexCount) {
+            vertexStart[tile] = vertexEnd;
+            vertexCapacity[tile] = vertexCount;
+            vertexUsed[tile] = 0;
+            indexStart[tile] = indexEnd;
+            indexCapacity[tile] = indexCount;
+            vertexEnd += vertexCount;
+            indexEnd += indexCount;
+        }
+
+        private void clearIndices(int start, int count, int vertex) {
+            for (int i = start; i < start + count; i++) {
+                indices.put(i, vertex);
+            }
+        }
+
+        /**
+         * Uploads the buffers, only the used part of the index buffer is
+         * drawn
+         */
+        private void updateBuffers() {
+            for (int i = 0; i < types.size(); i++) {
+                buffers[i].clear();
+                mesh.getBuffer(types.get(i)).updateData(buffers[i]);
+            }
+            indices.clear();
+            indices.limit(indexEnd);
+            mesh.getBuffer(VertexBuffer.Type.Index).updateData(indices);
+            mesh.updateCounts();
+        }
+    }
+}
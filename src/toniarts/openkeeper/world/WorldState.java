@@ -25,8 +25,6 @@ import com.jme3.app.Application;
 import com.jme3.app.state.AbstractAppState;
 import com.jme3.app.state.AppStateManager;
 import com.jme3.asset.AssetManager;
-import com.jme3.audio.AudioData;
-import com.jme3.audio.AudioNode;
 import com.jme3.bullet.BulletAppState;
 import com.jme3.material.Material;
 import com.jme3.material.RenderState;
@@ -53,7 +51,9 @@ import java.util.stream.Collectors;
 import toniarts.openkeeper.Main;
 import toniarts.openkeeper.ai.creature.CreatureState;
 import toniarts.openkeeper.game.data.Keeper;
+import toniarts.openkeeper.game.sound.SoundMixer;
 import toniarts.openkeeper.game.state.GameState;
+import toniarts.openkeeper.game.state.SoundState;
 import toniarts.openkeeper.game.task.TaskManager;
 import toniarts.openkeeper.tools.convert.AssetsConverter;
 import toniarts.openkeeper.tools.convert.ConversionUtils;
@@ -858,17 +858,9 @@ public abstract class WorldState extends AbstractAppState {
      * @param soundFile the sound file
      */
     public void playSoundAtTile(int x, int y, String soundFile) {
-
-        // We might cache these per file? Then they would be persistent, just move them, does it matter?
-        // Since creation of new objects and all, I don't know if they stay in the scene graph..
-        AudioNode audio = new AudioNode(assetManager,
+        stateManager.getState(SoundState.class).playSound(
                 ConversionUtils.getCanonicalAssetKey(AssetsConverter.SOUNDS_FOLDER + soundFile),
-                AudioData.DataType.Buffer);
-        audio.setPositional(true);
-        audio.setReverbEnabled(false);
-        audio.setLocalTranslation(x, 0, y);
-        worldNode.attachChild(audio);
-        audio.play();
+                new Vector3f(x, 0, y), SoundMixer.Priority.NORMAL);
     }
 
     /**
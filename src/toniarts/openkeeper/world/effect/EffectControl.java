@@ -75,16 +75,27 @@ public abstract class EffectControl extends AbstractControl {
     }
 
     public static Vector3f calculateVelocity(IEffect speed) {
+        return calculateVelocity(speed, new Vector3f());
+    }
+
+    /**
+     * Calculates a random velocity for the effect
+     *
+     * @param speed the effect
+     * @param store the vector to store the velocity to
+     * @return the store
+     */
+    public static Vector3f calculateVelocity(IEffect speed, Vector3f store) {
 
         float xzAngle = FastMath.nextRandomFloat() * FastMath.TWO_PI;
         float xzSpeed = speed.getMinSpeedXy()+ FastMath.nextRandomFloat() * (speed.getMaxSpeedXy() - speed.getMinSpeedXy());
-        Vector3f vel = new Vector3f(-(float) Math.sin(xzAngle), 0, (float) Math.cos(xzAngle)).multLocal(xzSpeed);
+        store.set(-FastMath.sin(xzAngle), 0, FastMath.cos(xzAngle)).multLocal(xzSpeed);
 
         // float zyAngle = FastMath.nextRandomFloat() * FastMath.TWO_PI;
         float zySpeed = speed.getMinSpeedYz() + FastMath.nextRandomFloat() * (speed.getMaxSpeedYz() - speed.getMinSpeedYz());
-        vel.y = FastMath.nextRandomFloat() * zySpeed;
+        store.y = FastMath.nextRandomFloat() * zySpeed;
 
-        return vel;
+        return store;
     }
 
 //    public static Vector3f calculateVelocity(IEffect speed) {
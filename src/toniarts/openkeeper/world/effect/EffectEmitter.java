@@ -16,158 +16,350 @@
  */
 package toniarts.openkeeper.world.effect;
 
+import com.jme3.bounding.BoundingBox;
+import com.jme3.material.Material;
+import com.jme3.math.FastMath;
+import com.jme3.math.Transform;
 import com.jme3.math.Vector3f;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
 import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
 import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.control.AbstractControl;
+import com.jme3.scene.mesh.IndexBuffer;
+import com.jme3.util.BufferUtils;
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import toniarts.openkeeper.animation.PoseTrack;
 import toniarts.openkeeper.tools.convert.map.Effect;
 import toniarts.openkeeper.tools.convert.map.EffectElement;
 
 /**
+ * Emits the mesh particles of an effect element. The particle state is kept in
+ * preallocated arrays and all the particles are drawn with a single dynamic
+ * mesh per material of the particle model, so emitting and killing particles
+ * doesn't create any objects. The emitters are meant to be reused, see
+ * {@link EffectEmitterPool}.<br>
+ * Animating particle models are drawn with their static pose.
  *
  * @author ArchDemon
+ * @author Toni Helenius <helenius.toni@gmail.com>
  */
 @Deprecated
-public abstract class EffectEmitter extends Node {
-    private boolean enabled = true;
-
-    //private static final EmitterShape DEFAULT_SHAPE = new EmitterPointShape(Vector3f.ZERO);
-    //private EmitterShape shape = DEFAULT_SHAPE;
-
-    private Spatial spatial;
-
-    private float lowLife = 3f;
-    private float highLife = 7f;
+public class EffectEmitter extends Node {
 
-    private float gravity = 0;
-    private float rotateSpeed;
-    private Vector3f initialVelocity = Vector3f.ZERO;
+    /**
+     * The particles are not allowed to rise above this, relative to the
+     * emitter
+     */
+    private static final float HEIGHT_LIMIT = 0;
+
+    private final EffectElement effectElement;
+    private final Effect effect;
+    private final int capacity;
+    private final List<ParticleBatch> batches = new ArrayList<>();
+    private final BoundingBox particleBound = new BoundingBox();
+    private final Vector3f tmp = new Vector3f();
+    private IEffectEmitterListener listener;
+    private boolean enabled = true;
 
-    private float startSize = 0.2f;
-    private float endSize = 2f;
-    //variable that helps with computations
-    private EffectElement effectElement;
-    private Effect effect;
+    // The particles, packed to the start of the arrays
+    private int count;
+    private final float[] positions;
+    private final float[] velocities;
+    private final float[] life;
+    private final float[] sizes;
+    private final float[] sizeDeltas;
 
-    public EffectEmitter(EffectElement effectElement, Effect effect) {
+    public EffectEmitter(EffectElement effectElement, Effect effect, Spatial model) {
         super(effectElement.getName());
         this.effectElement = effectElement;
         this.effect = effect;
         this.setShadowMode(RenderQueue.ShadowMode.Off);
-    }
 
-    /**
-     * For serialization only. Do not use.
-     */
-    public EffectEmitter() {
-        super();
-    }
-
-    public Spatial getSpatial() {
-        return spatial;
-    }
+        capacity = Math.max(1, (int) effect.getElementsPerTurn());
+        positions = new float[capacity * 3];
+        velocities = new float[capacity * 3];
+        life = new float[capacity];
+        sizes = new float[capacity];
+        sizeDeltas = new float[capacity];
+
+        // Create the particle batches out of the model geometries, relative to the model
+        model.setLocalTranslation(Vector3f.ZERO);
+        model.updateGeometricState();
+        model.depthFirstTraversal((Spatial spatial) -> {
+            if (spatial instanceof Geometry && ((Geometry) spatial).getMesh().getBuffer(VertexBuffer.Type.Position) != null) {
+                ParticleBatch batch = new ParticleBatch((Geometry) spatial, capacity);
+                batches.add(batch);
+                attachChild(batch.geometry);
+            }
+        });
 
-    public void setSpatial(Spatial spatial) {
-        this.spatial = spatial;
+        addControl(new EffectEmitterControl());
     }
 
-    public float getRotateSpeed() {
-        return rotateSpeed;
+    public EffectElement getEffectElement() {
+        return effectElement;
     }
 
-    public void setRotateSpeed(float rotateSpeed) {
-        this.rotateSpeed = rotateSpeed;
+    public Effect getEffect() {
+        return effect;
     }
 
-    public float getEndSize() {
-        return endSize;
+    public void setListener(IEffectEmitterListener listener) {
+        this.listener = listener;
     }
 
-    public void setEndSize(float endSize) {
-        this.endSize = endSize;
+    public void emitAllParticles() {
+        for (int i = 0; i < effect.getElementsPerTurn() && count < capacity; i++) {
+            int index = count++;
+            positions[index * 3] = 0;
+            positions[index * 3 + 1] = 0;
+            positions[index * 3 + 2] = 0;
+
+            EffectControl.calculateVelocity(effectElement, tmp);
+            velocities[index * 3] = tmp.x;
+            velocities[index * 3 + 1] = tmp.y;
+            velocities[index * 3 + 2] = tmp.z;
+
+            life[index] = effectElement.getMaxHp();
+            if (effectElement.getFlags().contains(EffectElement.EffectElementFlag.SHRINK)) {
+                sizes[index] = effectElement.getMaxScale();
+                sizeDeltas[index] = -(effectElement.getMaxScale() - effectElement.getMinScale()) / life[index];
+            } else if (effectElement.getFlags().contains(EffectElement.EffectElementFlag.EXPAND)) {
+                sizes[index] = effectElement.getMinScale();
+                sizeDeltas[index] = (effectElement.getMaxScale() - effectElement.getMinScale()) / life[index];
+            } else {
+                sizes[index] = effectElement.getMinScale() + FastMath.nextRandomFloat() * (effectElement.getMaxScale() - effectElement.getMinScale());
+                sizeDeltas[index] = 0;
+            }
+        }
+        updateMesh();
     }
 
-    public float getGravity() {
-        return gravity;
+    public void killAllParticles() {
+        count = 0;
+        updateMesh();
     }
 
-    public void setGravity(float gravity) {
-        this.gravity = gravity;
+    /**
+     * Get the number of particles alive
+     *
+     * @return the particle count
+     */
+    public int getNumVisibleParticles() {
+        return count;
     }
 
-    public float getHighLife() {
-        return highLife;
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
     }
 
-    public void setHighLife(float highLife) {
-        this.highLife = highLife;
+    public boolean isEnabled() {
+        return enabled;
     }
 
-    public float getLowLife() {
-        return lowLife;
-    }
+    private void updateParticles(float tpf) {
+        float friction = effectElement.getAirFriction() * tpf;
+        float gravity = effectElement.getMass() * tpf;
+        int i = 0;
+        while (i < count) {
+
+            // The size and the position change per frame
+            int offset = i * 3;
+            sizes[i] += sizeDeltas[i];
+            positions[offset] += velocities[offset];
+            positions[offset + 1] = Math.min(positions[offset + 1] + velocities[offset + 1], HEIGHT_LIMIT);
+            positions[offset + 2] += velocities[offset + 2];
+            velocities[offset] -= friction;
+            velocities[offset + 1] -= friction + gravity;
+            velocities[offset + 2] -= friction;
+
+            life[i] -= tpf;
+            if (life[i] > 0) {
+                i++;
+                continue;
+            }
 
-    public void setLowLife(float lowLife) {
-        this.lowLife = lowLife;
-    }
-    public float getStartSize() {
-        return startSize;
+            // Die, move the last particle to our place
+            tmp.set(positions[offset], positions[offset + 1], positions[offset + 2]);
+            count--;
+            copyParticle(count, i);
+            if (listener != null) {
+                listener.onDeath(tmp);
+            }
+        }
     }
 
-    public void setStartSize(float startSize) {
-        this.startSize = startSize;
+    private void copyParticle(int from, int to) {
+        System.arraycopy(positions, from * 3, positions, to * 3, 3);
+        System.arraycopy(velocities, from * 3, velocities, to * 3, 3);
+        life[to] = life[from];
+        sizes[to] = sizes[from];
+        sizeDeltas[to] = sizeDeltas[from];
     }
 
-    public Vector3f getInitialVelocity() {
-        return initialVelocity;
+    private void updateMesh() {
+        for (ParticleBatch batch : batches) {
+            batch.update();
+        }
     }
 
-    public void setInitialVelocity(Vector3f initialVelocity) {
-        this.initialVelocity = initialVelocity;
-    }
+    /**
+     * The particles of one model geometry, drawn with a single mesh
+     */
+    private class ParticleBatch {
+
+        private final Geometry geometry;
+        private final Mesh mesh;
+        private final float[] templatePositions;
+        private final int templateIndices;
+        private final float templateRadius;
+        private final FloatBuffer positionBuffer;
+        private final BoundingBox batchBound = new BoundingBox();
+
+        public ParticleBatch(Geometry source, int capacity) {
+            Mesh template = source.getMesh();
+            Transform transform = source.getWorldTransform();
+            int vertices = template.getVertexCount();
+
+            // The template, in model space
+            templatePositions = new float[vertices * 3];
+            FloatBuffer sourcePositions = (FloatBuffer) template.getBuffer(VertexBuffer.Type.Position).getDataReadOnly();
+            float radius = 0;
+            for (int i = 0; i < vertices; i++) {
+                tmp.set(sourcePositions.get(i * 3), sourcePositions.get(i * 3 + 1), sourcePositions.get(i * 3 + 2));
+                transform.transformVector(tmp, tmp);
+                templatePositions[i * 3] = tmp.x;
+                templatePositions[i * 3 + 1] = tmp.y;
+                templatePositions[i * 3 + 2] = tmp.z;
+                radius = Math.max(radius, tmp.length());
+            }
+            templateRadius = radius;
+
+            // Room for all the particles, only the positions change
+            mesh = new Mesh();
+            positionBuffer = BufferUtils.createFloatBuffer(vertices * 3 * capacity);
+            mesh.setBuffer(VertexBuffer.Type.Position, 3, positionBuffer);
+            mesh.getBuffer(VertexBuffer.Type.Position).setUsage(VertexBuffer.Usage.Stream);
+            copyTemplate(template, VertexBuffer.Type.Normal, capacity, transform);
+            copyTemplate(template, VertexBuffer.Type.TexCoord, capacity, null);
+
+            IndexBuffer sourceIndices = template.getIndicesAsList();
+            templateIndices = sourceIndices.size();
+            IndexBuffer indices = IndexBuffer.createIndexBuffer(vertices * capacity, templateIndices * capacity);
+            for (int p = 0; p < capacity; p++) {
+                for (int i = 0; i < templateIndices; i++) {
+                    indices.put(p * templateIndices + i, p * vertices + sourceIndices.get(i));
+                }
+            }
+            mesh.setBuffer(VertexBuffer.Type.Index, 3, indices.getFormat(), indices.getBuffer());
+            mesh.setDynamic();
 
-    public void emitAllParticles() {
-        for (int i = 0; i < effect.getElementsPerTurn(); i++) {
-            Spatial s = spatial.clone();
-            if (effect.getFlags().contains(Effect.EffectFlag.RANDOM_DISTRIBUTION)) {
+            geometry = new Geometry(source.getName(), mesh);
 
-            } else if (effect.getFlags().contains(Effect.EffectFlag.UNIFORM_DISTRIBUTION)) {
-                // TODO add to all s uniform parameters
+            // The particles are not pose animated, without the vertex indices the pose map would collapse them
+            Material material = source.getMaterial();
+            if (material.getParam(PoseTrack.POSE_MAP) != null) {
+                material = material.clone();
+                material.clearParam(PoseTrack.POSE_MAP);
             }
-            s.addControl(new EffectElementControl(effectElement) {
+            geometry.setMaterial(material);
+            geometry.setQueueBucket(source.getQueueBucket());
+            geometry.setBatchHint(BatchHint.Never);
+        }
 
-                @Override
-                public void onDie(Vector3f location) {
-                    EffectEmitter.this.onDeath(location);
+        private void copyTemplate(Mesh template, VertexBuffer.Type type, int capacity, Transform transform) {
+            VertexBuffer source = template.getBuffer(type);
+            if (source == null || source.getFormat() != VertexBuffer.Format.Float) {
+                return;
+            }
+            int components = source.getNumComponents();
+            FloatBuffer sourceData = (FloatBuffer) source.getDataReadOnly();
+            FloatBuffer data = BufferUtils.createFloatBuffer(template.getVertexCount() * components * capacity);
+            for (int p = 0; p < capacity; p++) {
+                for (int i = 0; i < template.getVertexCount(); i++) {
+                    if (transform != null && components == 3) {
+                        tmp.set(sourceData.get(i * 3), sourceData.get(i * 3 + 1), sourceData.get(i * 3 + 2));
+                        transform.getRotation().multLocal(tmp);
+                        data.put(tmp.x).put(tmp.y).put(tmp.z);
+                    } else {
+                        for (int c = 0; c < components; c++) {
+                            data.put(sourceData.get(i * components + c));
+                        }
+                    }
                 }
+            }
+            data.flip();
+            mesh.setBuffer(type, components, data);
+        }
 
-                @Override
-                public void onHit(Vector3f location) {
-                    EffectEmitter.this.onHit(location);
+        private void update() {
+            positionBuffer.clear();
+            for (int p = 0; p < count; p++) {
+                float x = positions[p * 3];
+                float y = positions[p * 3 + 1];
+                float z = positions[p * 3 + 2];
+                float size = sizes[p];
+                for (int i = 0; i < templatePositions.length; i += 3) {
+                    positionBuffer.put(templatePositions[i] * size + x)
+                            .put(templatePositions[i + 1] * size + y)
+                            .put(templatePositions[i + 2] * size + z);
                 }
-            });
 
-            this.attachChild(s);
+                // Grow the bound by the particle
+                float extent = templateRadius * size;
+                tmp.set(x, y, z);
+                if (p == 0) {
+                    batchBound.setCenter(tmp);
+                    batchBound.setXExtent(extent);
+                    batchBound.setYExtent(extent);
+                    batchBound.setZExtent(extent);
+                } else {
+                    particleBound.setCenter(tmp);
+                    particleBound.setXExtent(extent);
+                    particleBound.setYExtent(extent);
+                    particleBound.setZExtent(extent);
+                    batchBound.mergeLocal(particleBound);
+                }
+            }
+            positionBuffer.clear();
+            mesh.getBuffer(VertexBuffer.Type.Position).updateData(positionBuffer);
+
+            // Draw only the live particles
+            VertexBuffer indexBuffer = mesh.getBuffer(VertexBuffer.Type.Index);
+            Buffer indices = indexBuffer.getData();
+            indices.limit(count * templateIndices);
+            indexBuffer.updateData(indices);
+            mesh.updateCounts();
+            if (count > 0) {
+                geometry.setModelBound(batchBound);
+            }
+            geometry.setCullHint(count > 0 ? CullHint.Inherit : CullHint.Always);
         }
     }
 
-    public void killAllParticles() {
-        for (Spatial s : this.getChildren()) {
-            s.removeFromParent();
-        }
-    }
+    private class EffectEmitterControl extends AbstractControl {
 
-    public void setEnabled(boolean enabled) {
-        this.enabled = enabled;
-        for (Spatial s : this.getChildren()) {
-            s.getControl(EffectElementControl.class).setEnabled(enabled);
+        @Override
+        protected void controlUpdate(float tpf) {
+            if (!EffectEmitter.this.enabled || count == 0) {
+                return;
+            }
+
+            updateParticles(tpf);
+            updateMesh();
         }
-    }
 
-    public boolean isEnabled() {
-        return enabled;
+        @Override
+        protected void controlRender(RenderManager rm, ViewPort vp) {
+            // nothing
+        }
     }
-
-    public abstract void onDeath(Vector3f location);
-    public abstract void onHit(Vector3f location);
 }
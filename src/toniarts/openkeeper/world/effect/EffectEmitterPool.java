@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.world.effect;
+
+import com.jme3.effect.ParticleEmitter;
+import com.jme3.scene.Spatial;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import toniarts.openkeeper.tools.convert.map.Effect;
+import toniarts.openkeeper.tools.convert.map.EffectElement;
+
+/**
+ * Keeps the effect element emitters for reuse, by the effect ID. Building an
+ * emitter means loading models and materials and allocating the particle
+ * buffers, in big fights the same effects are created over and over again.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+@Deprecated
+public class EffectEmitterPool {
+
+    /**
+     * Maximum number of free emitters kept per effect element
+     */
+    private static final int MAX_FREE_EMITTERS = 16;
+
+    private final Map<Integer, Map<Integer, Deque<Spatial>>> emitters = new HashMap<>(); // By effect ID & effect element ID
+
+    /**
+     * Get a free emitter from the pool
+     *
+     * @param effect the effect
+     * @param effectElement the effect element
+     * @return the emitter, or {@code null} if there is no free emitter
+     * available
+     */
+    public Spatial obtain(Effect effect, EffectElement effectElement) {
+        Map<Integer, Deque<Spatial>> effectEmitters = emitters.get(effect.getEffectId());
+        if (effectEmitters == null) {
+            return null;
+        }
+        Deque<Spatial> free = effectEmitters.get(effectElement.getEffectElementId());
+        if (free == null) {
+            return null;
+        }
+        return free.poll();
+    }
+
+    /**
+     * Return an emitter to the pool. The emitter is removed from the scene and
+     * its particles are killed
+     *
+     * @param effect the effect
+     * @param effectElement the effect element
+     * @param emitter the emitter
+     */
+    public void release(Effect effect, EffectElement effectElement, Spatial emitter) {
+        emitter.removeFromParent();
+        emitter.setLocalTranslation(0, 0, 0);
+        if (emitter instanceof EffectEmitter) {
+            ((EffectEmitter) emitter).killAllParticles();
+            ((EffectEmitter) emitter).setListener(null);
+        } else if (emitter instanceof ParticleEmitter) {
+            ((ParticleEmitter) emitter).killAllParticles();
+        }
+
+        Deque<Spatial> free = emitters.computeIfAbsent(effect.getEffectId(), (id) -> new HashMap<>())
+                .computeIfAbsent(effectElement.getEffectElementId(), (id) -> new ArrayDeque<>());
+        if (free.size() < MAX_FREE_EMITTERS) {
+            free.push(emitter);
+        }
+    }
+
+    /**
+     * Forget all the free emitters
+     */
+    public void clear() {
+        emitters.clear();
+    }
+}
@@ -43,6 +43,7 @@ public class EffectManagerState extends AbstractAppState {
     private final KwdFile kwdFile;
     private final AssetManager assetManager;
     private final List<VisualEffect> activeEffects = new ArrayList<>();
+    private final EffectEmitterPool emitterPool = new EffectEmitterPool();
     private AppStateManager stateManager;
     private static final Logger logger = Logger.getLogger(EffectManagerState.class.getName());
 
@@ -94,6 +95,7 @@ public class EffectManagerState extends AbstractAppState {
             visualEffect.update(-1);
         }
         activeEffects.clear();
+        emitterPool.clear();
     }
 
     /**
@@ -126,4 +128,8 @@ public class EffectManagerState extends AbstractAppState {
     public KwdFile getKwdFile() {
         return kwdFile;
     }
+
+    public EffectEmitterPool getEmitterPool() {
+        return emitterPool;
+    }
 }
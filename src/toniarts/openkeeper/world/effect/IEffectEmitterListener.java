@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2014-2018 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.world.effect;
+
+import com.jme3.math.Vector3f;
+
+/**
+ * Listens to the particles of an effect emitter. The emitters are pooled, so
+ * the listener is set every time the emitter is taken to use.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+@Deprecated
+public interface IEffectEmitterListener {
+
+    /**
+     * A particle died
+     *
+     * @param location the particle location, relative to the emitter
+     */
+    public void onDeath(Vector3f location);
+}
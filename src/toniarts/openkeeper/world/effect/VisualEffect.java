@@ -63,7 +63,7 @@ import toniarts.openkeeper.world.TileData;
 public class VisualEffect {
 
     private final Effect effect;
-    private final Map<EffectElement, Spatial> effectElements;
+    private final Map<Spatial, EffectElement> effectElements; // Emitters & their elements
     private final List<VisualEffect> effects;
     private final Node effectNode;
     private final KwdFile kwdFile;
@@ -219,15 +219,21 @@ public class VisualEffect {
 
     private void addEffectElement(Integer id, Vector3f location) {
         EffectElement effectElement = kwdFile.getEffectElement(id);
-        Spatial emitter = loadElement(effectElement);
+        Spatial emitter = effectManagerState.getEmitterPool().obtain(effect, effectElement);
+        if (emitter == null) {
+            emitter = loadElement(effectElement);
+        }
         if (emitter != null) {
             if (location != null) {
                 emitter.setLocalTranslation(location);
             }
-            effectElements.put(effectElement, emitter);
+            effectElements.put(emitter, effectElement);
             effectNode.attachChild(emitter);
             if (emitter instanceof ParticleEmitter) {
                 ((ParticleEmitter) emitter).emitAllParticles();
+            } else if (emitter instanceof EffectEmitter) {
+                ((EffectEmitter) emitter).setListener(createEmitterListener(effectElement));
+                ((EffectEmitter) emitter).emitAllParticles();
             }
         }
 
@@ -302,40 +308,6 @@ public class VisualEffect {
             case MESH:
             case ANIMATING_MESH:
             case PROCEDURAL_MESH: {
-                EffectEmitter emitter = new EffectEmitter(element, effect) {
-
-                    @Override
-                    public void onDeath(Vector3f location) {
-                        if (element.getDeathElementId() != 0) {
-                            VisualEffect.this.addEffectElement(element.getDeathElementId(), location);
-                        }
-                    }
-
-                    @Override
-                    public void onHit(Vector3f location) {
-                        TileData tile = effectManagerState.getWorldState().getMapData().getTile(WorldUtils.vectorToPoint(location));
-                        if (tile == null) {
-                            logger.warning("Effect hit error");
-                            return;
-                        }
-
-                        if (tile.getTerrain().getFlags().contains(Terrain.TerrainFlag.LAVA)
-                                && element.getHitLavaElementId() != 0) {
-                            VisualEffect.this.addEffectElement(element.getHitLavaElementId(), location);
-                        } else if (tile.getTerrain().getFlags().contains(Terrain.TerrainFlag.WATER)
-                                && element.getHitWaterElementId() != 0) {
-                            VisualEffect.this.addEffectElement(element.getHitWaterElementId(), location);
-                        } else if (element.getHitSolidElementId() != 0 ) {
-                            // && tile.getTerrain().getFlags().contains(Terrain.TerrainFlag.SOLID)) {
-                            if (element.getFlags().contains(EffectElement.EffectElementFlag.DIE_WHEN_HIT_SOLID)) {
-                                onDeath(location);
-                            } else {
-                                VisualEffect.this.addEffectElement(element.getHitSolidElementId(), location);
-                            }
-                        }
-                    }
-                };
-
                 Node model;
                 if (resource.getType() == ArtResourceType.PROCEDURAL_MESH) {
                     model = (Node) AssetUtils.createProceduralMesh(resource);
@@ -359,8 +331,7 @@ public class VisualEffect {
                         animControl.setEnabled(true);
                     }
                 }
-                emitter.setSpatial(model);
-                return emitter;
+                return new EffectEmitter(element, effect, model);
             }
 
             default:
@@ -370,6 +341,18 @@ public class VisualEffect {
         return null;
     }
 
+    private IEffectEmitterListener createEmitterListener(EffectElement element) {
+        return new IEffectEmitterListener() {
+
+            @Override
+            public void onDeath(Vector3f location) {
+                if (element.getDeathElementId() != 0) {
+                    VisualEffect.this.addEffectElement(element.getDeathElementId(), location);
+                }
+            }
+        };
+    }
+
     private PointLight getLight(Light effectLight) {
         if (effectLight == null) {
             return null;
@@ -404,25 +387,32 @@ public class VisualEffect {
         }
 
         // Check the elements
-        Iterator<Entry<EffectElement, Spatial>> iter = effectElements.entrySet().iterator();
+        Iterator<Entry<Spatial, EffectElement>> iter = effectElements.entrySet().iterator();
         List<Integer> deathEffectElements = null;
         while (iter.hasNext()) {
-            Entry<EffectElement, Spatial> entry = iter.next();
-            if (entry.getValue() instanceof ParticleEmitter) {
-                if (((ParticleEmitter)entry.getValue()).getNumVisibleParticles() == 0) {
+            Entry<Spatial, EffectElement> entry = iter.next();
+            if (entry.getKey() instanceof ParticleEmitter) {
+                if (((ParticleEmitter)entry.getKey()).getNumVisibleParticles() == 0) {
 
                     // Kill
-                    entry.getValue().removeFromParent();
+                    effectManagerState.getEmitterPool().release(effect, entry.getValue(), entry.getKey());
                     iter.remove();
 
                     // Attach on death element
-                    if (entry.getKey().getDeathElementId() != 0) {
+                    if (entry.getValue().getDeathElementId() != 0) {
                         if (deathEffectElements == null) {
                             deathEffectElements = new ArrayList<>();
                         }
-                        deathEffectElements.add(entry.getKey().getDeathElementId());
+                        deathEffectElements.add(entry.getValue().getDeathElementId());
                     }
                 }
+            } else if (entry.getKey() instanceof EffectEmitter) {
+
+                // The mesh particles signal their own deaths
+                if (((EffectEmitter) entry.getKey()).getNumVisibleParticles() == 0) {
+                    effectManagerState.getEmitterPool().release(effect, entry.getValue(), entry.getKey());
+                    iter.remove();
+                }
             }
         }
 
@@ -458,7 +448,13 @@ public class VisualEffect {
     }
 
     public void removeEffect() {
+        for (VisualEffect visualEffect : effects) {
+            visualEffect.removeEffect();
+        }
         effects.clear();
+        for (Entry<Spatial, EffectElement> entry : effectElements.entrySet()) {
+            effectManagerState.getEmitterPool().release(effect, entry.getValue(), entry.getKey());
+        }
         effectElements.clear();
         infinite = false;
     }
@@ -41,6 +41,7 @@ public class FrontEndLevelControl extends AbstractControl {
     private Vector3f baseLocation;
     private float baseProgess;
     private Long lastTime;
+    private AudioNode rockRiseSound;
     private static final Vector3f MOVE_VECTOR = new Vector3f(0, 0.025f, 0);
     private static final int ACTIVATE_ANIMATION_LENGTH = 250;
     private static final int DEACTIVATE_ANIMATION_LENGTH = 1500;
@@ -67,10 +68,14 @@ public class FrontEndLevelControl extends AbstractControl {
 
                     // If the spatial starts in the base location, play the sound
                     if (getSpatial().getLocalTranslation().equals(baseLocation)) {
-                        AudioNode fx = new AudioNode(assetManager, "Sounds/Global/GuiHD/RockRise nl.mp2", DataType.Buffer);
-                        fx.setLooping(false);
-                        fx.setPositional(true);
-                        fx.play();
+                        // The same sound every time, reuse the node
+                        if (rockRiseSound == null) {
+                            rockRiseSound = new AudioNode(assetManager, "Sounds/Global/GuiHD/RockRise nl.mp2", DataType.Buffer);
+                            rockRiseSound.setLooping(false);
+                            rockRiseSound.setPositional(false);
+                        }
+                        rockRiseSound.stop();
+                        rockRiseSound.play();
                     }
 
                     // Play the animation